@@ -24,4 +24,17 @@ import java.util.Collection;
 public interface AnalyzerResultReducer<R extends AnalyzerResult> {
 
     R reduce(Collection<? extends R> results);
+
+    /**
+     * Determines if results produced by this reducer can be reduced again,
+     * together with other reduced or partial results, with the same outcome
+     * as reducing all the partial results at once. If so, partial results may
+     * be reduced as soon as they become available, instead of being held
+     * until all of them are available.
+     *
+     * @return whether or not results can be reduced incrementally
+     */
+    default boolean isIncremental() {
+        return false;
+    }
 }
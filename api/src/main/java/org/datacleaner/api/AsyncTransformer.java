@@ -0,0 +1,54 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for {@link Transformer}s that complete their work asynchronously,
+ * typically because they wait for an external service (such as a HTTP
+ * endpoint) and do not want to block the worker thread while doing so.
+ *
+ * When a job is run by the engine, {@link #transformAsync(InputRow)} will be
+ * invoked instead of {@link #transform(InputRow)}, and the remaining
+ * processing of the record (the components that follow in the data stream)
+ * is performed once the returned future completes. Records may thereby
+ * complete out of order, but each record keeps its own values and filter
+ * outcomes. Note that the following components are invoked on the thread that
+ * completes the future.
+ *
+ * In contexts where records are processed in a blocking manner, the regular
+ * {@link #transform(InputRow)} method is still used, so implementations must
+ * support both ways of invocation.
+ *
+ * @since 5.7
+ */
+public interface AsyncTransformer extends Transformer {
+
+    /**
+     * Transforms a row of input values asynchronously.
+     *
+     * @param inputRow
+     * @return a future of the transformed values. If the future completes with
+     *         null, the record will not travel further in the data stream,
+     *         equivalent to returning null from {@link #transform(InputRow)}.
+     */
+    CompletableFuture<Object[]> transformAsync(InputRow inputRow);
+}
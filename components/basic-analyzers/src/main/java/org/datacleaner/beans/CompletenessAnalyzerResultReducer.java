@@ -40,6 +40,11 @@ public class CompletenessAnalyzerResultReducer implements AnalyzerResultReducer<
     @Provided
     RowAnnotationFactory _rowAnnotationFactory;
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     @Override
     public CompletenessAnalyzerResult reduce(final Collection<? extends CompletenessAnalyzerResult> results) {
         final CompletenessAnalyzerResult firstResult = results.iterator().next();
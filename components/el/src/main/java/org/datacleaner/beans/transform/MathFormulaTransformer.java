@@ -19,12 +19,9 @@
  */
 package org.datacleaner.beans.transform;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
-import javax.el.ValueExpression;
 import javax.inject.Named;
 
 import org.datacleaner.api.Categorized;
@@ -38,9 +35,7 @@ import org.datacleaner.api.StringProperty;
 import org.datacleaner.api.Transformer;
 import org.datacleaner.components.categories.NumbersCategory;
 import org.datacleaner.util.StringUtils;
-
-import de.odysseus.el.ExpressionFactoryImpl;
-import de.odysseus.el.util.SimpleContext;
+import org.datacleaner.util.el.CompiledELExpression;
 
 @Named("Math formula")
 @Description("Provide a mathematical formula to perform arbitrary calculations.\n"
@@ -55,8 +50,8 @@ public class MathFormulaTransformer implements Transformer {
     @StringProperty(emptyString = false, mimeType = "text/groovy")
     String _formula = "(col1 + col2) / col3";
 
-    private ExpressionFactoryImpl _factory;
-    private Map<String, List<String>> _columnAliases;
+    private CompiledELExpression _expression;
+    private Map<String, Integer> _variableIndexes;
 
     @Override
     public OutputColumns getOutputColumns() {
@@ -65,41 +60,35 @@ public class MathFormulaTransformer implements Transformer {
 
     @Initialize
     public void init() {
-        _factory = new ExpressionFactoryImpl();
-
-        _columnAliases = new HashMap<>();
-        int i = 1;
-        for (final InputColumn<Number> inputColumn : _input) {
-            final String name = inputColumn.getName();
-            final List<String> list = new ArrayList<>(3);
+        // each variable name (alias) maps to the index of an input column
+        _variableIndexes = new HashMap<>();
+        for (int i = 0; i < _input.length; i++) {
+            final String name = _input[i].getName();
             final String variableName1 = StringUtils.replaceWhitespaces(name.toLowerCase(), "_");
             final String variableName2 = StringUtils.replaceWhitespaces(name.toLowerCase(), "");
-            list.add(variableName1);
-            list.add(variableName2);
-            list.add("col" + i);
-            i++;
-            _columnAliases.put(name, list);
+            _variableIndexes.put(variableName1, i);
+            _variableIndexes.put(variableName2, i);
+            _variableIndexes.put("col" + (i + 1), i);
         }
+
+        _expression = new CompiledELExpression("#{" + _formula.toLowerCase() + "}", Number.class);
     }
 
     @Override
     public Number[] transform(final InputRow inputRow) {
-        final SimpleContext context = new SimpleContext();
-
-        for (final InputColumn<Number> inputColumn : _input) {
-            final Number value = inputRow.getValue(inputColumn);
-            final ValueExpression valueExpression = _factory.createValueExpression(value, Number.class);
-            final List<String> aliases = _columnAliases.get(inputColumn.getName());
-            for (final String alias : aliases) {
-                context.setVariable(alias, valueExpression);
-            }
+        final Number[] values = new Number[_input.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = inputRow.getValue(_input[i]);
         }
 
-        final String expression = "#{" + _formula.toLowerCase() + "}";
-        final ValueExpression valueExpression = _factory.createValueExpression(context, expression, Number.class);
-
         try {
-            final Object value = valueExpression.getValue(context);
+            final Object value = _expression.evaluate(variableName -> {
+                final Integer index = _variableIndexes.get(variableName);
+                if (index == null) {
+                    return CompiledELExpression.NO_SUCH_VARIABLE;
+                }
+                return values[index];
+            });
             assert value instanceof Number;
 
             if (value instanceof Double) {
@@ -22,19 +22,15 @@ package org.datacleaner.data;
 import java.util.List;
 
 import javax.el.ELException;
-import javax.el.ExpressionFactory;
-import javax.el.ValueExpression;
 
 import org.datacleaner.api.ExpressionBasedInputColumn;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.util.StringUtils;
+import org.datacleaner.util.el.CompiledELExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import de.odysseus.el.ExpressionFactoryImpl;
-import de.odysseus.el.util.SimpleContext;
-
 /**
  * InputColumn that evaluates an EL expression in order to return a computed
  * value. This can be used as a lightweight alternative to eg. JavaScript
@@ -48,38 +44,54 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 
     private static final Logger logger = LoggerFactory.getLogger(ELInputColumn.class);
 
-    private final ExpressionFactory _factory;
     private final String _expression;
+    private transient CompiledELExpression _compiledExpression;
 
     public ELInputColumn(final String expression) {
         _expression = expression;
-        _factory = new ExpressionFactoryImpl();
     }
 
     @Override
     public String evaluate(final InputRow row) {
-        final SimpleContext context = new SimpleContext();
-        final List<InputColumn<?>> inputColumns = row.getInputColumns();
-        for (final InputColumn<?> inputColumn : inputColumns) {
-            if (!(inputColumn instanceof ExpressionBasedInputColumn)) {
-                final Object value = row.getValue(inputColumn);
-                final Class<?> javaType = inputColumn.getDataType();
-                final ValueExpression valueExpression = _factory.createValueExpression(value, javaType);
-                String variableName = inputColumn.getName();
-                variableName = StringUtils.replaceWhitespaces(variableName, "_");
-                context.setVariable(variableName, valueExpression);
-            }
-        }
-
         try {
-            final ValueExpression valueExpression = _factory.createValueExpression(context, _expression, String.class);
-            return (String) valueExpression.getValue(context);
+            return (String) getCompiledExpression().evaluate(variableName -> resolveVariable(row, variableName));
         } catch (final ELException e) {
             logger.error("Could not evaluate EL expression", e);
             return null;
         }
     }
 
+    private CompiledELExpression getCompiledExpression() {
+        if (_compiledExpression == null) {
+            // parsed lazily since this column may have been deserialized
+            _compiledExpression = new CompiledELExpression(_expression, String.class);
+        }
+        return _compiledExpression;
+    }
+
+    /**
+     * Resolves a variable of the expression. Only the variables actually
+     * referenced by the expression are looked up in the row.
+     *
+     * @param row
+     * @param variableName
+     * @return
+     */
+    private static Object resolveVariable(final InputRow row, final String variableName) {
+        final List<InputColumn<?>> inputColumns = row.getInputColumns();
+        // the last column with a matching name wins, like when variables were
+        // registered in order
+        for (int i = inputColumns.size() - 1; i >= 0; i--) {
+            final InputColumn<?> inputColumn = inputColumns.get(i);
+            if (!(inputColumn instanceof ExpressionBasedInputColumn) && variableName
+                    .equals(StringUtils.replaceWhitespaces(inputColumn.getName(), "_"))) {
+                final Object value = row.getValue(inputColumn);
+                return CompiledELExpression.coerceToType(value, inputColumn.getDataType());
+            }
+        }
+        return CompiledELExpression.NO_SUCH_VARIABLE;
+    }
+
     @Override
     public String getExpression() {
         return _expression;
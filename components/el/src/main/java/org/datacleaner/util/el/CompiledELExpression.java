@@ -0,0 +1,216 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.el;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+import java.util.function.Function;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.FunctionMapper;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.PropertyNotFoundException;
+import javax.el.ResourceBundleELResolver;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+
+import de.odysseus.el.ExpressionFactoryImpl;
+import de.odysseus.el.util.SimpleContext;
+
+/**
+ * An EL expression which is parsed once and can then be evaluated many times,
+ * eg. once per record, with different variable values.
+ *
+ * Identifiers in the expression are not bound at parse time, but resolved at
+ * evaluation time using a variable resolver function. This avoids building a
+ * new {@link ELContext} with a {@link ValueExpression} per variable, and
+ * re-parsing the expression, on every evaluation.
+ *
+ * Instances are thread-safe.
+ */
+public final class CompiledELExpression {
+
+    /**
+     * Value to return from a variable resolver function if a variable does not
+     * exist.
+     */
+    public static final Object NO_SUCH_VARIABLE = new Object();
+
+    private static final ExpressionFactoryImpl FACTORY = new ExpressionFactoryImpl();
+
+    private static final ELResolver RESOLVER;
+
+    static {
+        final CompositeELResolver resolver = new CompositeELResolver();
+        resolver.add(new VariablesELResolver());
+        resolver.add(new ArrayELResolver(true));
+        resolver.add(new ListELResolver(true));
+        resolver.add(new MapELResolver(true));
+        resolver.add(new ResourceBundleELResolver());
+        resolver.add(new BeanELResolver(true));
+        RESOLVER = resolver;
+    }
+
+    private static final ThreadLocal<VariablesELContext> CONTEXT = ThreadLocal.withInitial(VariablesELContext::new);
+
+    private final String _expression;
+    private final ValueExpression _valueExpression;
+
+    /**
+     * Parses an EL expression
+     *
+     * @param expression
+     *            the expression, eg. "#{(a + b) / c}" or "Hello #{name}"
+     * @param expectedType
+     *            the type to coerce the result of evaluations to
+     */
+    public CompiledELExpression(final String expression, final Class<?> expectedType) {
+        _expression = expression;
+        _valueExpression = FACTORY.createValueExpression(new SimpleContext(), expression, expectedType);
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param variables
+     *            function that resolves variable values by their name. If a
+     *            variable does not exist, it should return
+     *            {@link #NO_SUCH_VARIABLE}.
+     * @return the result of the evaluation
+     *
+     * @throws javax.el.ELException
+     *             if evaluation fails, eg. if a variable could not be resolved
+     */
+    public Object evaluate(final Function<String, Object> variables) {
+        final VariablesELContext context = CONTEXT.get();
+        final Function<String, Object> previousVariables = context._variables;
+        context._variables = variables;
+        try {
+            return _valueExpression.getValue(context);
+        } finally {
+            context._variables = previousVariables;
+        }
+    }
+
+    /**
+     * Coerces a value to a particular type, using the rules of the expression
+     * language.
+     *
+     * @param value
+     * @param type
+     * @return
+     */
+    public static Object coerceToType(final Object value, final Class<?> type) {
+        return FACTORY.coerceToType(value, type);
+    }
+
+    public String getExpression() {
+        return _expression;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledELExpression[" + _expression + "]";
+    }
+
+    private static final class VariablesELContext extends ELContext {
+
+        private Function<String, Object> _variables;
+
+        @Override
+        public ELResolver getELResolver() {
+            return RESOLVER;
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            // functions are bound at parse time
+            return null;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            // variables are resolved by the ELResolver
+            return null;
+        }
+    }
+
+    /**
+     * {@link ELResolver} for top level identifiers, backed by the variable
+     * resolver function of the current evaluation.
+     */
+    private static final class VariablesELResolver extends ELResolver {
+
+        @Override
+        public Object getValue(final ELContext context, final Object base, final Object property) {
+            if (base != null || !(context instanceof VariablesELContext)) {
+                return null;
+            }
+            final String name = String.valueOf(property);
+            final Object value = ((VariablesELContext) context)._variables.apply(name);
+            if (value == NO_SUCH_VARIABLE) {
+                throw new PropertyNotFoundException("Cannot resolve identifier '" + name + "'");
+            }
+            context.setPropertyResolved(true);
+            return value;
+        }
+
+        @Override
+        public Class<?> getType(final ELContext context, final Object base, final Object property) {
+            if (base != null) {
+                return null;
+            }
+            context.setPropertyResolved(true);
+            return Object.class;
+        }
+
+        @Override
+        public void setValue(final ELContext context, final Object base, final Object property,
+                final Object value) {
+            if (base == null) {
+                throw new PropertyNotFoundException("Variables are read-only: " + property);
+            }
+        }
+
+        @Override
+        public boolean isReadOnly(final ELContext context, final Object base, final Object property) {
+            if (base == null) {
+                context.setPropertyResolved(true);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(final ELContext context, final Object base) {
+            return null;
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(final ELContext context, final Object base) {
+            return base == null ? String.class : null;
+        }
+    }
+}
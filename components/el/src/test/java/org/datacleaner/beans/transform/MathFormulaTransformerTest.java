@@ -19,6 +19,8 @@
  */
 package org.datacleaner.beans.transform;
 
+import javax.el.ELException;
+
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
@@ -86,6 +88,18 @@ public class MathFormulaTransformerTest extends TestCase {
         assertFormulaResult(null, 0, 0, 0);
     }
 
+    public void testUnknownVariable() throws Exception {
+        trans._formula = "foo + col4";
+        trans.init();
+
+        try {
+            trans.transform(new MockInputRow().put(foo, 1).put(bar, 2).put(baz, 3));
+            fail("Exception expected");
+        } catch (final ELException e) {
+            assertEquals("Cannot resolve identifier 'col4'", e.getMessage());
+        }
+    }
+
     private void assertFormulaResult(final Number result, final Integer fo, final Integer br, final Integer bz) {
         final Number[] arr = trans.transform(new MockInputRow().put(foo, fo).put(bar, br).put(baz, bz));
         assertNotNull(arr);
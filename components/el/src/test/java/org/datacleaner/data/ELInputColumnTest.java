@@ -41,4 +41,15 @@ public class ELInputColumnTest extends TestCase {
         final MockInputColumn<String> fooCol = new MockInputColumn<>("foo bar", String.class);
         assertEquals("Hello World", elCol.evaluate(new MockInputRow().put(fooCol, "World")));
     }
+
+    public void testNumberVariableAndMissingVariable() throws Exception {
+        final ELInputColumn elCol = new ELInputColumn("#{foo + 1}");
+
+        final MockInputColumn<Integer> fooCol = new MockInputColumn<>("foo", Integer.class);
+        assertEquals("42", elCol.evaluate(new MockInputRow().put(fooCol, 41)));
+        assertEquals("2", elCol.evaluate(new MockInputRow().put(fooCol, 1)));
+
+        final MockInputColumn<Integer> barCol = new MockInputColumn<>("bar", Integer.class);
+        assertNull(elCol.evaluate(new MockInputRow().put(barCol, 1)));
+    }
 }
@@ -0,0 +1,61 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.el;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.PropertyNotFoundException;
+
+import junit.framework.TestCase;
+
+public class CompiledELExpressionTest extends TestCase {
+
+    public void testEvaluateWithDifferentVariables() throws Exception {
+        final CompiledELExpression expression = new CompiledELExpression("#{(a + b) * 2}", Number.class);
+
+        final Map<String, Object> variables = new HashMap<>();
+        variables.put("a", 1);
+        variables.put("b", 2);
+        assertEquals(6L, expression.evaluate(variables::get));
+
+        variables.put("b", 2.5);
+        assertEquals(7.0, expression.evaluate(variables::get));
+    }
+
+    public void testCompositeExpressionWithProperties() throws Exception {
+        final CompiledELExpression expression = new CompiledELExpression("Hello #{person.name}!", String.class);
+
+        final Map<String, Object> person = new HashMap<>();
+        person.put("name", "World");
+        assertEquals("Hello World!", expression.evaluate(name -> "person".equals(name) ? person
+                : CompiledELExpression.NO_SUCH_VARIABLE));
+    }
+
+    public void testUnresolvableVariable() throws Exception {
+        final CompiledELExpression expression = new CompiledELExpression("#{foo}", String.class);
+        try {
+            expression.evaluate(name -> CompiledELExpression.NO_SUCH_VARIABLE);
+            fail("Exception expected");
+        } catch (final PropertyNotFoundException e) {
+            assertEquals("Cannot resolve identifier 'foo'", e.getMessage());
+        }
+    }
+}
@@ -21,9 +21,10 @@ package org.datacleaner.components.groovy;
 
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
+import groovy.lang.MetaMethod;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.inject.Named;
 
@@ -60,21 +61,68 @@ public class GroovySimpleTransformer implements Transformer {
             + "\t\treturn \"Hello \" + map.find{\n\t\t\tit.key.toUpperCase().indexOf(\"NAME\")!=-1\n"
             + "\t\t}?.value\n\t}\n}";
 
-    private GroovyObject _groovyObject;
+    /**
+     * The per-thread script instance.
+     */
+    private static final class ScriptInstance {
+        private GroovyObject _groovyObject;
+        private MetaMethod _transformMethod;
+
+        private ScriptInstance(final Class<?> groovyClass) {
+            _groovyObject = (GroovyObject) ReflectionUtils.newInstance(groovyClass);
+            _transformMethod = _groovyObject.getMetaClass().pickMethod("transform", new Class[] { InputRowMap.class });
+        }
+
+        private Object transform(final InputRowMap map) {
+            final Object[] args = new Object[] { map };
+            if (_transformMethod == null) {
+                return _groovyObject.invokeMethod("transform", args);
+            }
+            return _transformMethod.doMethodInvoke(_groovyObject, args);
+        }
+
+        private void release() {
+            _groovyObject = null;
+            _transformMethod = null;
+        }
+    }
+
+    private Class<?> _groovyClass;
     private GroovyClassLoader _groovyClassLoader;
+    private InputRowMap.Keys _mapKeys;
+    private ThreadLocal<ScriptInstance> _scriptInstances;
+    private Queue<ScriptInstance> _allScriptInstances;
 
     @Initialize
     public void init() {
         final ClassLoader parent = getClass().getClassLoader();
         _groovyClassLoader = new GroovyClassLoader(parent);
         logger.debug("Compiling Groovy code:\n{}", code);
-        final Class<?> groovyClass = _groovyClassLoader.parseClass(code);
-        _groovyObject = (GroovyObject) ReflectionUtils.newInstance(groovyClass);
+        _groovyClass = _groovyClassLoader.parseClass(code);
+        _mapKeys = new InputRowMap.Keys(inputs);
+        _allScriptInstances = new ConcurrentLinkedQueue<>();
+        _scriptInstances = ThreadLocal.withInitial(this::createScriptInstance);
+    }
+
+    private ScriptInstance createScriptInstance() {
+        final ScriptInstance scriptInstance = new ScriptInstance(_groovyClass);
+        _allScriptInstances.add(scriptInstance);
+        return scriptInstance;
     }
 
     @Close
     public void close() {
-        _groovyObject = null;
+        // the worker threads may outlive the transformer, so the script
+        // instances in their thread locals are emptied
+        _scriptInstances.remove();
+        for (ScriptInstance scriptInstance = _allScriptInstances.poll(); scriptInstance != null;
+                scriptInstance = _allScriptInstances.poll()) {
+            scriptInstance.release();
+        }
+        _scriptInstances = null;
+        _allScriptInstances = null;
+        _mapKeys = null;
+        _groovyClass = null;
         _groovyClassLoader.clearCache();
         _groovyClassLoader = null;
     }
@@ -84,13 +132,7 @@ public class GroovySimpleTransformer implements Transformer {
     }
 
     public String[] transform(final InputRow inputRow) {
-        final Map<String, Object> map = new LinkedHashMap<String, Object>();
-        for (InputColumn<?> input : inputs) {
-            map.put(input.getName(), inputRow.getValue(input));
-        }
-        final Object[] args = new Object[] { map };
-        final Object result;
-        result = _groovyObject.invokeMethod("transform", args);
+        final Object result = _scriptInstances.get().transform(new InputRowMap(_mapKeys, inputRow));
 
         logger.debug("Transformation result: {}", result);
         final String stringResult = ConvertToStringTransformer.transformValue(result);
@@ -0,0 +1,174 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.groovy;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+
+/**
+ * A {@link Map} view of the values of an {@link InputRow}, keyed by column name
+ * and iterated in the order of the columns.
+ *
+ * Values are looked up lazily, so no map needs to be populated per row. The
+ * keys are shared by the maps of all rows, see {@link Keys}. The map is
+ * copied into a {@link LinkedHashMap} the first time it is modified, so scripts
+ * can still modify it, and may keep it after the row has been processed.
+ */
+final class InputRowMap extends AbstractMap<String, Object> {
+
+    /**
+     * The keys of the maps of a set of columns, which are computed once.
+     */
+    static final class Keys {
+        private final InputColumn<?>[] _columns;
+        private final Map<String, Integer> _indexes;
+        private final String[] _names;
+
+        Keys(final InputColumn<?>[] columns) {
+            _columns = columns;
+            _indexes = new HashMap<>();
+            final List<String> names = new ArrayList<>(columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                final String name = columns[i].getName();
+                // like a LinkedHashMap, a repeated key keeps its position but
+                // the latest value
+                if (_indexes.put(name, i) == null) {
+                    names.add(name);
+                }
+            }
+            _names = names.toArray(new String[names.size()]);
+        }
+    }
+
+    private final Keys _keys;
+    private final InputRow _inputRow;
+    private Map<String, Object> _copy;
+
+    InputRowMap(final Keys keys, final InputRow inputRow) {
+        _keys = keys;
+        _inputRow = inputRow;
+    }
+
+    private Object getRowValue(final Object key) {
+        final Integer index = _keys._indexes.get(key);
+        if (index == null) {
+            return null;
+        }
+        return _inputRow.getValue(_keys._columns[index]);
+    }
+
+    private Map<String, Object> copy() {
+        if (_copy == null) {
+            final Map<String, Object> copy = new LinkedHashMap<>();
+            for (final String name : _keys._names) {
+                copy.put(name, getRowValue(name));
+            }
+            _copy = copy;
+        }
+        return _copy;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (_copy != null) {
+            return _copy.get(key);
+        }
+        return getRowValue(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (_copy != null) {
+            return _copy.containsKey(key);
+        }
+        return _keys._indexes.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        if (_copy != null) {
+            return _copy.size();
+        }
+        return _keys._names.length;
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        return copy().put(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        return copy().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        copy().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (_copy != null) {
+            return _copy.entrySet();
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                if (_copy != null) {
+                    return _copy.entrySet().iterator();
+                }
+                return new Iterator<Entry<String, Object>>() {
+                    private int _next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return _next < _keys._names.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final String key = _keys._names[_next++];
+                        return new SimpleImmutableEntry<>(key, getRowValue(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return InputRowMap.this.size();
+            }
+        };
+    }
+}
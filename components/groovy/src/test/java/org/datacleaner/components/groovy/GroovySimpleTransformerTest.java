@@ -46,4 +46,42 @@ public class GroovySimpleTransformerTest extends TestCase {
 
         transformer.close();
     }
+
+    public void testMapViewOfRow() throws Exception {
+        final GroovySimpleTransformer transformer = new GroovySimpleTransformer();
+
+        final InputColumn<String> col1 = new MockInputColumn<String>("first name");
+        final InputColumn<String> col2 = new MockInputColumn<String>("last name");
+
+        transformer.inputs = new InputColumn[] { col1, col2 };
+        transformer.code = "class Transformer {\n"
+                + "String transform(map){ map.collect{ it.key + '=' + it.value }.join(',') + ';' + map['last name']"
+                + " + ';' + map.size() + ';' + map.containsKey('foo') }\n" + "}";
+        transformer.init();
+
+        assertEquals("first name=Kasper,last name=Sørensen;Sørensen;2;false",
+                transformer.transform(new MockInputRow().put(col1, "Kasper").put(col2, "Sørensen"))[0]);
+        assertEquals("first name=null,last name=Doe;Doe;2;false",
+                transformer.transform(new MockInputRow().put(col2, "Doe"))[0]);
+
+        transformer.close();
+    }
+
+    public void testModifyAndKeepMapOfRow() throws Exception {
+        final GroovySimpleTransformer transformer = new GroovySimpleTransformer();
+
+        final InputColumn<String> col1 = new MockInputColumn<String>("name");
+
+        transformer.inputs = new InputColumn[] { col1 };
+        transformer.code = "class Transformer {\n" + "def previous\n"
+                + "String transform(map){ map.put('greeting', 'Hello ' + map.name); map.remove('name');"
+                + " def result = map.greeting + ';' + map.size() + ';' + previous?.greeting; previous = map;"
+                + " result }\n" + "}";
+        transformer.init();
+
+        assertEquals("Hello Kasper;1;null", transformer.transform(new MockInputRow().put(col1, "Kasper"))[0]);
+        assertEquals("Hello Tomasz;1;Hello Kasper", transformer.transform(new MockInputRow().put(col1, "Tomasz"))[0]);
+
+        transformer.close();
+    }
 }
@@ -19,38 +19,43 @@
  */
 package org.datacleaner.components.group;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
-import org.apache.metamodel.util.AggregateBuilder;
 import org.apache.metamodel.util.ObjectComparator;
 
-abstract class AbstractRowNumberAwareAggregateBuilder<T> implements AggregateBuilder<T> {
+abstract class AbstractRowNumberAwareAggregateBuilder<T> implements GroupAggregateBuilder<T> {
+
+    private static final long serialVersionUID = 1L;
 
     private final SortationType _sortationType;
-    private final Object _values;
     private final boolean _skipNulls;
+    private transient Object _values;
 
     public AbstractRowNumberAwareAggregateBuilder(final SortationType sortationType, final boolean skipNulls) {
         _sortationType = sortationType;
         _skipNulls = skipNulls;
+        _values = createValues(sortationType);
+    }
 
+    private static Object createValues(final SortationType sortationType) {
         switch (sortationType) {
         case NONE:
-            _values = null;
-            break;
+            return null;
         case NATURAL_SORT_ASC:
-            _values = new TreeSet<>(ObjectComparator.getComparator());
-            break;
+            return new TreeSet<>(ObjectComparator.getComparator());
         case NATURAL_SORT_DESC:
-            _values = new TreeSet<>(Collections.reverseOrder(ObjectComparator.getComparator()));
-            break;
+            return new TreeSet<>(Collections.reverseOrder(ObjectComparator.getComparator()));
         case RECORD_ORDER:
-            _values = new TreeMap<Long, Object>();
-            break;
+            return new TreeMap<Long, Object>();
         default:
             throw new UnsupportedOperationException();
         }
@@ -61,6 +66,7 @@ abstract class AbstractRowNumberAwareAggregateBuilder<T> implements AggregateBui
         throw new UnsupportedOperationException();
     }
 
+    @Override
     public final void add(final Object o, final long rowNumber) {
         if (_skipNulls && o == null) {
             return;
@@ -84,6 +90,47 @@ abstract class AbstractRowNumberAwareAggregateBuilder<T> implements AggregateBui
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void merge(final GroupAggregateBuilder<?> other) {
+        final AbstractRowNumberAwareAggregateBuilder<T> otherBuilder = (AbstractRowNumberAwareAggregateBuilder<T>) other;
+        switch (_sortationType) {
+        case NONE:
+            mergeSorted(otherBuilder);
+            break;
+        case NATURAL_SORT_ASC:
+        case NATURAL_SORT_DESC:
+            ((Collection<Object>) _values).addAll((Collection<Object>) otherBuilder._values);
+            break;
+        case RECORD_ORDER:
+            ((Map<Long, Object>) _values).putAll((Map<Long, Object>) otherBuilder._values);
+            break;
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        // the comparators of the sorted collections are not serializable
+        if (_values instanceof Collection) {
+            out.writeObject(new ArrayList<>((Collection<?>) _values));
+        } else if (_values instanceof Map) {
+            out.writeObject(new HashMap<>((Map<?, ?>) _values));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        _values = createValues(_sortationType);
+        if (_values instanceof Collection) {
+            ((Collection<Object>) _values).addAll((Collection<Object>) in.readObject());
+        } else if (_values instanceof Map) {
+            ((Map<Long, Object>) _values).putAll((Map<Long, Object>) in.readObject());
+        }
+    }
+
     @Override
     public final T getAggregate() {
         switch (_sortationType) {
@@ -113,4 +160,11 @@ abstract class AbstractRowNumberAwareAggregateBuilder<T> implements AggregateBui
     protected abstract T getAggregateSorted();
 
     protected abstract void addSorted(Object o);
+
+    /**
+     * Merges the values of another builder, when values are not sorted.
+     *
+     * @param other
+     */
+    protected abstract void mergeSorted(AbstractRowNumberAwareAggregateBuilder<T> other);
 }
@@ -23,6 +23,8 @@ import com.google.common.base.Strings;
 
 final class ConcatAggregateBuilder extends AbstractRowNumberAwareAggregateBuilder<String> {
 
+    private static final long serialVersionUID = 1L;
+
     private final String _concatenationSeparator;
     private final StringBuilder _result;
 
@@ -41,6 +43,18 @@ final class ConcatAggregateBuilder extends AbstractRowNumberAwareAggregateBuilde
         _result.append(o == null ? "" : o.toString());
     }
 
+    @Override
+    protected void mergeSorted(final AbstractRowNumberAwareAggregateBuilder<String> other) {
+        final StringBuilder otherResult = ((ConcatAggregateBuilder) other)._result;
+        if (otherResult.length() == 0) {
+            return;
+        }
+        if (!Strings.isNullOrEmpty(_concatenationSeparator) && _result.length() != 0) {
+            _result.append(_concatenationSeparator);
+        }
+        _result.append(otherResult);
+    }
+
     @Override
     public String getAggregateSorted() {
         return _result.toString();
@@ -17,24 +17,33 @@
  * 51 Franklin Street, Fifth Floor
  * Boston, MA  02110-1301  USA
  */
-package org.datacleaner.spark;
+package org.datacleaner.components.group;
 
-import org.apache.spark.api.java.function.Function;
+final class CountAggregateBuilder implements GroupAggregateBuilder<Long> {
 
-import scala.Tuple2;
+    private static final long serialVersionUID = 1L;
 
-public class SkipHeaderLineFunction implements Function<Tuple2<Object[], Long>, Boolean> {
+    private long _count;
 
-    private static final long serialVersionUID = 1L;
-    private final int _linesToSkip;
+    @Override
+    public void add(final Object o) {
+        if (o != null) {
+            _count++;
+        }
+    }
 
-    public SkipHeaderLineFunction(final int columnNameLineNumber) {
-        _linesToSkip = columnNameLineNumber;
+    @Override
+    public void add(final Object o, final long rowNumber) {
+        add(o);
     }
 
     @Override
-    public Boolean call(final Tuple2<Object[], Long> v1) throws Exception {
-        return v1._2 >= _linesToSkip;
+    public void merge(final GroupAggregateBuilder<?> other) {
+        _count += ((CountAggregateBuilder) other)._count;
     }
 
+    @Override
+    public Long getAggregate() {
+        return _count;
+    }
 }
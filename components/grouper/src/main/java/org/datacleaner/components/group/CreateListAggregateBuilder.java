@@ -27,6 +27,8 @@ import org.apache.metamodel.util.AggregateBuilder;
 final class CreateListAggregateBuilder extends AbstractRowNumberAwareAggregateBuilder<List<?>>
         implements AggregateBuilder<List<?>> {
 
+    private static final long serialVersionUID = 1L;
+
     private final List<Object> _result;
 
     public CreateListAggregateBuilder(final SortationType sortationType, final boolean skipNulls) {
@@ -39,6 +41,11 @@ final class CreateListAggregateBuilder extends AbstractRowNumberAwareAggregateBu
         _result.add(o);
     }
 
+    @Override
+    protected void mergeSorted(final AbstractRowNumberAwareAggregateBuilder<List<?>> other) {
+        _result.addAll(((CreateListAggregateBuilder) other)._result);
+    }
+
     @Override
     public List<?> getAggregateSorted() {
         return _result;
@@ -0,0 +1,67 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+/**
+ * Selects the first or last non-null value, by row number. Unlike the order in
+ * which values are added, the row numbers do not depend on how the rows are
+ * distributed among threads.
+ */
+final class FirstOrLastAggregateBuilder implements GroupAggregateBuilder<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean _last;
+    private Object _result;
+    private long _rowNumber;
+
+    public FirstOrLastAggregateBuilder(final boolean last) {
+        _last = last;
+    }
+
+    @Override
+    public void add(final Object o) {
+        if (o != null && (_last || _result == null)) {
+            _result = o;
+        }
+    }
+
+    @Override
+    public void add(final Object o, final long rowNumber) {
+        if (o == null) {
+            return;
+        }
+        if (_result == null || (_last ? rowNumber > _rowNumber : rowNumber < _rowNumber)) {
+            _result = o;
+            _rowNumber = rowNumber;
+        }
+    }
+
+    @Override
+    public void merge(final GroupAggregateBuilder<?> other) {
+        final FirstOrLastAggregateBuilder otherBuilder = (FirstOrLastAggregateBuilder) other;
+        add(otherBuilder._result, otherBuilder._rowNumber);
+    }
+
+    @Override
+    public Object getAggregate() {
+        return _result;
+    }
+}
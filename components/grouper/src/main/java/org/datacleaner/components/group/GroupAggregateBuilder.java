@@ -0,0 +1,51 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+import java.io.Serializable;
+
+import org.apache.metamodel.util.AggregateBuilder;
+
+/**
+ * {@link AggregateBuilder} used by the {@link GrouperTransformer}. It is aware
+ * of the row numbers of the aggregated values, and can be merged with another
+ * builder of the same kind, so that a group can be aggregated in parts, eg. by
+ * separate threads, and combined afterwards.
+ *
+ * @param <T>
+ */
+interface GroupAggregateBuilder<T> extends AggregateBuilder<T>, Serializable {
+
+    /**
+     * Adds a value of a particular row.
+     *
+     * @param o
+     * @param rowNumber
+     */
+    void add(Object o, long rowNumber);
+
+    /**
+     * Merges the values of another builder, which was created for the same
+     * aggregation, into this builder.
+     *
+     * @param other
+     */
+    void merge(GroupAggregateBuilder<?> other);
+}
@@ -0,0 +1,174 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * A temporary file holding partially aggregated groups of a
+ * {@link GrouperTransformer}, sorted by the hash codes of their keys, so that
+ * the groups of many files can be merged in a single pass.
+ */
+final class GroupRunFile {
+
+    /**
+     * Reads the groups of a {@link GroupRunFile}, one at a time.
+     */
+    final class Reader implements Closeable {
+
+        private final ObjectInputStream _in;
+        private int _hash;
+        private Object _key;
+        private GroupAggregateBuilder<?>[] _aggregateBuilders;
+
+        private Reader() throws IOException {
+            _in = new ChangeAwareObjectInputStream(new BufferedInputStream(new FileInputStream(_file)));
+        }
+
+        /**
+         * Advances to the next group.
+         *
+         * @return whether there was a next group
+         */
+        public boolean next() {
+            try {
+                if (!_in.readBoolean()) {
+                    return false;
+                }
+                _hash = _in.readInt();
+                final Object key = _in.readObject();
+                _key = key == null ? _nullKey : key;
+                _aggregateBuilders = (GroupAggregateBuilder<?>[]) _in.readObject();
+                return true;
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Could not read grouper run file: " + _file, e);
+            } catch (final ClassNotFoundException e) {
+                throw new IllegalStateException("Could not read grouper run file: " + _file, e);
+            }
+        }
+
+        public int getHash() {
+            return _hash;
+        }
+
+        public Object getKey() {
+            return _key;
+        }
+
+        public GroupAggregateBuilder<?>[] getAggregateBuilders() {
+            return _aggregateBuilders;
+        }
+
+        @Override
+        public void close() {
+            FileHelper.safeClose(_in);
+        }
+    }
+
+    public static final Comparator<Reader> READER_COMPARATOR =
+            (reader1, reader2) -> Integer.compare(reader1.getHash(), reader2.getHash());
+
+    // the object streams keep references to all objects until they are reset
+    private static final int RESET_INTERVAL = 1000;
+
+    private final File _file;
+    private final Object _nullKey;
+
+    private GroupRunFile(final File file, final Object nullKey) {
+        _file = file;
+        _nullKey = nullKey;
+    }
+
+    /**
+     * Writes groups to a new temporary file.
+     *
+     * @param groups
+     * @param nullKey
+     *            the key which represents null, which is written as null
+     * @return
+     */
+    public static GroupRunFile write(final Map<Object, GroupAggregateBuilder<?>[]> groups, final Object nullKey) {
+        final List<Entry<Object, GroupAggregateBuilder<?>[]>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort((entry1, entry2) -> Integer.compare(hash(entry1.getKey()), hash(entry2.getKey())));
+
+        try {
+            final File file = File.createTempFile("datacleaner_grouper", ".run");
+            file.deleteOnExit();
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file)))) {
+                int count = 0;
+                for (final Entry<Object, GroupAggregateBuilder<?>[]> entry : entries) {
+                    final Object key = entry.getKey();
+                    out.writeBoolean(true);
+                    out.writeInt(hash(key));
+                    out.writeObject(key == nullKey ? null : key);
+                    out.writeObject(entry.getValue());
+                    if (++count % RESET_INTERVAL == 0) {
+                        out.reset();
+                    }
+                }
+                out.writeBoolean(false);
+            }
+            return new GroupRunFile(file, nullKey);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not write grouper run file", e);
+        }
+    }
+
+    public static int hash(final Object key) {
+        return key.hashCode();
+    }
+
+    /**
+     * Opens a reader, which is positioned before the first group.
+     *
+     * @return
+     */
+    public Reader open() {
+        try {
+            return new Reader();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not open grouper run file: " + _file, e);
+        }
+    }
+
+    public void delete() {
+        if (!_file.delete()) {
+            _file.deleteOnExit();
+        }
+    }
+}
@@ -19,16 +19,19 @@
  */
 package org.datacleaner.components.group;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.inject.Named;
 
-import org.apache.metamodel.query.FunctionType;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.util.AggregateBuilder;
@@ -48,6 +51,8 @@ import org.datacleaner.api.OutputRowCollector;
 import org.datacleaner.components.categories.CompositionCategory;
 import org.datacleaner.job.output.OutputDataStreamBuilder;
 import org.datacleaner.job.output.OutputDataStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Named("Grouper")
 @Description("A component that allows grouping and aggregating values with the same key.")
@@ -55,6 +60,14 @@ import org.datacleaner.job.output.OutputDataStreams;
 @Distributed(false)
 public class GrouperTransformer extends MultiStreamComponent {
 
+    /**
+     * The ways of aggregating the values of a group.
+     *
+     * Note that {@link #FIRST_VALUE} and {@link #LAST_VALUE} select the non-null
+     * value of the row with the lowest or highest row number. Previously they
+     * selected the first or last value in the order the rows were processed,
+     * which differs when rows are processed by more than one thread.
+     */
     public enum AggregationType implements HasName {
         CONCAT_VALUES("Concatenate values"), FIRST_VALUE("Select first value"), LAST_VALUE("Select last value"),
         RANDOM_VALUE("Select random value"), CREATE_LIST("Create list of values"), SUM("Calculate sum"),
@@ -73,26 +86,41 @@ public class GrouperTransformer extends MultiStreamComponent {
 
         public AggregateBuilder<?> createAggregateBuilder(final SortationType sortationType, final boolean skipNulls,
                 final String concatenationSeparator) {
+            return createGroupAggregateBuilder(sortationType, skipNulls, concatenationSeparator);
+        }
+
+        GroupAggregateBuilder<?> createGroupAggregateBuilder(final SortationType sortationType,
+                final boolean skipNulls, final String concatenationSeparator) {
             switch (this) {
             case CONCAT_VALUES:
                 return new ConcatAggregateBuilder(sortationType, skipNulls, concatenationSeparator);
             case CREATE_LIST:
                 return new CreateListAggregateBuilder(sortationType, skipNulls);
             case FIRST_VALUE:
-                return FunctionType.FIRST.createAggregateBuilder();
+                return new FirstOrLastAggregateBuilder(false);
             case LAST_VALUE:
-                return FunctionType.LAST.createAggregateBuilder();
+                return new FirstOrLastAggregateBuilder(true);
             case SUM:
-                return FunctionType.SUM.createAggregateBuilder();
+                return new NumberAggregateBuilder(false);
             case AVG:
-                return FunctionType.AVG.createAggregateBuilder();
+                return new NumberAggregateBuilder(true);
             case RANDOM_VALUE:
-                return FunctionType.RANDOM.createAggregateBuilder();
+                return new RandomAggregateBuilder();
             default:
                 throw new UnsupportedOperationException();
             }
         }
 
+        /**
+         * Determines whether the aggregation keeps all the values of a group,
+         * rather than a fixed size summary of them.
+         *
+         * @return
+         */
+        boolean isRetainingValues() {
+            return this == CONCAT_VALUES || this == CREATE_LIST;
+        }
+
         public void addColumnToOutputStream(final OutputDataStreamBuilder outputDataStreamBuilder,
                 final InputColumn<?> inputColumn) {
             switch (this) {
@@ -118,12 +146,26 @@ public class GrouperTransformer extends MultiStreamComponent {
         }
     }
 
+    /**
+     * The partially aggregated groups of a single thread.
+     */
+    private static final class PartialGroups {
+
+        private final Map<Object, GroupAggregateBuilder<?>[]> _groups = new LinkedHashMap<>();
+        private long _retainedValues;
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(GrouperTransformer.class);
+
     public static final String PROPERTY_GROUP_KEY = "Group key";
     public static final String PROPERTY_AGGREGATED_VALUES = "Aggregated values";
     public static final String PROPERTY_AGGREGATION_TYPES = "AggregationTypes";
     public static final String PROPERTY_VALUE_SORTATION = "Value sortation";
+    public static final String PROPERTY_MAX_VALUES_IN_MEMORY = "Max values in memory";
     private static final Object NULL_KEY = new Object();
-    private final ConcurrentMap<Object, List<AggregateBuilder<?>>> _aggregateBuilders = new ConcurrentHashMap<>();
+    private final Queue<PartialGroups> _partialGroups = new ConcurrentLinkedQueue<>();
+    private final List<GroupRunFile> _runFiles = new ArrayList<>();
+    private ThreadLocal<PartialGroups> _threadPartialGroups;
     @Configured(order = 1, value = PROPERTY_GROUP_KEY)
     InputColumn<?> groupKey;
     @Configured(order = 2, value = PROPERTY_AGGREGATED_VALUES)
@@ -139,11 +181,46 @@ public class GrouperTransformer extends MultiStreamComponent {
     boolean skipNullGroupKeys = true;
     @Configured
     boolean skipNullValues = true;
+    @Configured(value = PROPERTY_MAX_VALUES_IN_MEMORY, required = false)
+    @Description("The number of values each thread may keep in memory. When exceeded, the partially aggregated "
+            + "groups are written to a temporary file, and merged with the other groups when all rows are grouped. "
+            + "Groups are only written to files if the types of all the columns are serializable.")
+    int maxValuesInMemory = 1000000;
     private OutputRowCollector _rowCollector;
+    private int _retainingAggregations;
+    private boolean _spillable;
 
     @Initialize
     public void init() {
-        _aggregateBuilders.clear();
+        _partialGroups.clear();
+        _runFiles.clear();
+        _threadPartialGroups = ThreadLocal.withInitial(() -> {
+            final PartialGroups partialGroups = new PartialGroups();
+            _partialGroups.add(partialGroups);
+            return partialGroups;
+        });
+        _retainingAggregations = 0;
+        for (final AggregationType aggregationType : aggregationTypes) {
+            if (aggregationType.isRetainingValues()) {
+                _retainingAggregations++;
+            }
+        }
+
+        // the groups are serialized when spilled, which is checked before any
+        // row is grouped rather than when the first file is written
+        _spillable = isSerializable(groupKey);
+        for (final InputColumn<?> aggregatedValue : aggregatedValues) {
+            _spillable = _spillable && isSerializable(aggregatedValue);
+        }
+        if (!_spillable && _retainingAggregations > 0) {
+            logger.warn("Not all values of {} and {} are serializable, so groups are kept in memory regardless of "
+                    + "the maximum number of values in memory", groupKey, Arrays.toString(aggregatedValues));
+        }
+    }
+
+    private static boolean isSerializable(final InputColumn<?> column) {
+        final Class<?> dataType = column.getDataType();
+        return dataType != null && (dataType.isPrimitive() || Serializable.class.isAssignableFrom(dataType));
     }
 
     @Override
@@ -188,67 +265,150 @@ public class GrouperTransformer extends MultiStreamComponent {
             }
         }
 
-        synchronized (_aggregateBuilders) {
-            final List<AggregateBuilder<?>> aggregateBuilders = getAggregateBuilders(key);
-            final long rowId = row.getId();
+        // aggregate in groups of the current thread, to avoid contention, and
+        // merge the groups of all threads when closing
+        final PartialGroups partialGroups = _threadPartialGroups.get();
+        final GroupAggregateBuilder<?>[] aggregateBuilders = getAggregateBuilders(partialGroups, key);
+        final long rowId = row.getId();
 
-            // send rowId to COUNT function
-            aggregateBuilders.get(0).add(rowId);
+        // send rowId to COUNT function
+        aggregateBuilders[0].add(rowId, rowId);
 
-            for (int i = 0; i < aggregatedValues.length; i++) {
-                final Object value = row.getValue(aggregatedValues[i]);
-                final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i + 1);
-                if (aggregateBuilder instanceof AbstractRowNumberAwareAggregateBuilder) {
-                    ((AbstractRowNumberAwareAggregateBuilder<?>) aggregateBuilder).add(value, rowId);
-                } else {
-                    aggregateBuilder.add(value);
-                }
-            }
+        for (int i = 0; i < aggregatedValues.length; i++) {
+            final Object value = row.getValue(aggregatedValues[i]);
+            aggregateBuilders[i + 1].add(value, rowId);
+        }
+
+        partialGroups._retainedValues += _retainingAggregations;
+        if (_spillable && partialGroups._retainedValues > maxValuesInMemory) {
+            spill(partialGroups);
         }
     }
 
-    private List<AggregateBuilder<?>> getAggregateBuilders(final Object key) {
-        List<AggregateBuilder<?>> collectionOfAggregateBuilders = _aggregateBuilders.get(key);
-        if (collectionOfAggregateBuilders == null) {
-            final List<AggregateBuilder<?>> newCollectionOfValues = new ArrayList<>(aggregationTypes.length);
+    private GroupAggregateBuilder<?>[] getAggregateBuilders(final PartialGroups partialGroups, final Object key) {
+        GroupAggregateBuilder<?>[] aggregateBuilders = partialGroups._groups.get(key);
+        if (aggregateBuilders == null) {
+            aggregateBuilders = new GroupAggregateBuilder<?>[1 + aggregationTypes.length];
 
             // add COUNT aggregation as first
-            newCollectionOfValues.add(FunctionType.COUNT.createAggregateBuilder());
+            aggregateBuilders[0] = new CountAggregateBuilder();
 
-            for (final AggregationType aggregationType : aggregationTypes) {
-                final AggregateBuilder<?> aggregateBuilder =
-                        aggregationType.createAggregateBuilder(valueSortation, skipNullValues, concatenationSeparator);
-                newCollectionOfValues.add(aggregateBuilder);
+            for (int i = 0; i < aggregationTypes.length; i++) {
+                aggregateBuilders[i + 1] = aggregationTypes[i]
+                        .createGroupAggregateBuilder(valueSortation, skipNullValues, concatenationSeparator);
             }
 
-            final List<AggregateBuilder<?>> previousCollectionOfValues =
-                    _aggregateBuilders.putIfAbsent(key, newCollectionOfValues);
-            if (previousCollectionOfValues == null) {
-                collectionOfAggregateBuilders = newCollectionOfValues;
-            } else {
-                collectionOfAggregateBuilders = previousCollectionOfValues;
+            partialGroups._groups.put(key, aggregateBuilders);
+            partialGroups._retainedValues += aggregateBuilders.length;
+        }
+        return aggregateBuilders;
+    }
+
+    /**
+     * Writes the partial groups of a thread to a temporary file, to be merged
+     * when closing.
+     */
+    private void spill(final PartialGroups partialGroups) {
+        final GroupRunFile runFile = GroupRunFile.write(partialGroups._groups, NULL_KEY);
+        synchronized (_runFiles) {
+            _runFiles.add(runFile);
+        }
+        partialGroups._groups.clear();
+        partialGroups._retainedValues = 0;
+    }
+
+    private static void merge(final Map<Object, GroupAggregateBuilder<?>[]> groups, final Object key,
+            final GroupAggregateBuilder<?>[] aggregateBuilders) {
+        final GroupAggregateBuilder<?>[] existingAggregateBuilders = groups.putIfAbsent(key, aggregateBuilders);
+        if (existingAggregateBuilders != null) {
+            for (int i = 0; i < existingAggregateBuilders.length; i++) {
+                existingAggregateBuilders[i].merge(aggregateBuilders[i]);
             }
         }
-        return collectionOfAggregateBuilders;
     }
 
     @Close
     public void close() {
-        final Set<Entry<Object, List<AggregateBuilder<?>>>> entrySet = _aggregateBuilders.entrySet();
-        for (final Entry<Object, List<AggregateBuilder<?>>> entry : entrySet) {
-            final Object key = entry.getKey();
-            final List<AggregateBuilder<?>> aggregateBuilders = entry.getValue();
-
-            final Object[] values = new Object[2 + aggregatedValues.length];
-            values[0] = key == NULL_KEY ? null : key;
-            values[1] = aggregateBuilders.get(0).getAggregate();
-
-            for (int i = 1; i < aggregateBuilders.size(); i++) {
-                final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i);
-                values[i + 1] = aggregateBuilder.getAggregate();
+        try {
+            if (_runFiles.isEmpty()) {
+                closeInMemory();
+            } else {
+                closeFromRunFiles();
+            }
+        } finally {
+            _threadPartialGroups.remove();
+            _partialGroups.clear();
+            for (final GroupRunFile runFile : _runFiles) {
+                runFile.delete();
+            }
+            _runFiles.clear();
+        }
+    }
+
+    private void closeInMemory() {
+        final Map<Object, GroupAggregateBuilder<?>[]> groups = new LinkedHashMap<>();
+        for (final PartialGroups partialGroups : _partialGroups) {
+            for (final Entry<Object, GroupAggregateBuilder<?>[]> entry : partialGroups._groups.entrySet()) {
+                merge(groups, entry.getKey(), entry.getValue());
+            }
+            partialGroups._groups.clear();
+        }
+        for (final Entry<Object, GroupAggregateBuilder<?>[]> entry : groups.entrySet()) {
+            putValues(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void closeFromRunFiles() {
+        for (final PartialGroups partialGroups : _partialGroups) {
+            if (!partialGroups._groups.isEmpty()) {
+                spill(partialGroups);
             }
+        }
+
+        final PriorityQueue<GroupRunFile.Reader> readers =
+                new PriorityQueue<>(_runFiles.size(), GroupRunFile.READER_COMPARATOR);
+        try {
+            for (final GroupRunFile runFile : _runFiles) {
+                final GroupRunFile.Reader reader = runFile.open();
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            // the groups of all files with the same key hash are read
+            // together, since keys with equal hashes may be interleaved
+            final Map<Object, GroupAggregateBuilder<?>[]> groups = new LinkedHashMap<>();
+            while (!readers.isEmpty()) {
+                final int hash = readers.peek().getHash();
+                while (!readers.isEmpty() && readers.peek().getHash() == hash) {
+                    final GroupRunFile.Reader reader = readers.poll();
+                    merge(groups, reader.getKey(), reader.getAggregateBuilders());
+                    if (reader.next()) {
+                        readers.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                for (final Entry<Object, GroupAggregateBuilder<?>[]> entry : groups.entrySet()) {
+                    putValues(entry.getKey(), entry.getValue());
+                }
+                groups.clear();
+            }
+        } finally {
+            for (final GroupRunFile.Reader reader : readers) {
+                reader.close();
+            }
+        }
+    }
 
-            _rowCollector.putValues(values);
+    private void putValues(final Object key, final GroupAggregateBuilder<?>[] aggregateBuilders) {
+        final Object[] values = new Object[1 + aggregateBuilders.length];
+        values[0] = key == NULL_KEY ? null : key;
+        for (int i = 0; i < aggregateBuilders.length; i++) {
+            values[i + 1] = aggregateBuilders[i].getAggregate();
         }
+        _rowCollector.putValues(values);
     }
 }
@@ -0,0 +1,75 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+import org.apache.metamodel.util.NumberComparator;
+
+/**
+ * Calculates the sum or average of numbers. Strings are converted to numbers,
+ * and blank strings are skipped.
+ */
+final class NumberAggregateBuilder implements GroupAggregateBuilder<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean _average;
+    private double _sum;
+    private long _count;
+
+    public NumberAggregateBuilder(final boolean average) {
+        _average = average;
+    }
+
+    @Override
+    public void add(final Object o) {
+        if (o == null) {
+            return;
+        }
+        if (o instanceof String && "".equals(((String) o).trim())) {
+            return;
+        }
+        final Number number = NumberComparator.toNumber(o);
+        if (number == null) {
+            throw new IllegalArgumentException("Could not convert to number: " + o);
+        }
+        _sum += number.doubleValue();
+        _count++;
+    }
+
+    @Override
+    public void add(final Object o, final long rowNumber) {
+        add(o);
+    }
+
+    @Override
+    public void merge(final GroupAggregateBuilder<?> other) {
+        final NumberAggregateBuilder otherBuilder = (NumberAggregateBuilder) other;
+        _sum += otherBuilder._sum;
+        _count += otherBuilder._count;
+    }
+
+    @Override
+    public Double getAggregate() {
+        if (_average) {
+            return _count == 0 ? 0d : _sum / _count;
+        }
+        return _sum;
+    }
+}
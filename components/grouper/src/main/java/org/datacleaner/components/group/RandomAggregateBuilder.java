@@ -0,0 +1,68 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects a random non-null value, where every value has the same chance of
+ * being selected, also when builders are merged.
+ */
+final class RandomAggregateBuilder implements GroupAggregateBuilder<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private Object _result;
+    private long _count;
+
+    @Override
+    public void add(final Object o) {
+        if (o == null) {
+            return;
+        }
+        _count++;
+        if (ThreadLocalRandom.current().nextLong(_count) == 0) {
+            _result = o;
+        }
+    }
+
+    @Override
+    public void add(final Object o, final long rowNumber) {
+        add(o);
+    }
+
+    @Override
+    public void merge(final GroupAggregateBuilder<?> other) {
+        final RandomAggregateBuilder otherBuilder = (RandomAggregateBuilder) other;
+        if (otherBuilder._count == 0) {
+            return;
+        }
+        _count += otherBuilder._count;
+        // pick the other value in proportion to the values it represents
+        if (ThreadLocalRandom.current().nextLong(_count) < otherBuilder._count) {
+            _result = otherBuilder._result;
+        }
+    }
+
+    @Override
+    public Object getAggregate() {
+        return _result;
+    }
+}
@@ -21,10 +21,17 @@ package org.datacleaner.components.group;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.group.GrouperTransformer.AggregationType;
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
 import org.datacleaner.test.MockOutputRowCollector;
@@ -32,9 +39,9 @@ import org.junit.Test;
 
 public class GrouperTransformerTest {
 
-    private final MockInputColumn<String> groupKey = new MockInputColumn<>("key");
-    private final MockInputColumn<String> value1 = new MockInputColumn<>("value1");
-    private final MockInputColumn<String> value2 = new MockInputColumn<>("value2");
+    private final MockInputColumn<String> groupKey = new MockInputColumn<>("key", String.class);
+    private final MockInputColumn<String> value1 = new MockInputColumn<>("value1", String.class);
+    private final MockInputColumn<String> value2 = new MockInputColumn<>("value2", String.class);
 
     @Test
     public void testRecordOrderSorting() throws Exception {
@@ -125,4 +132,95 @@ public class GrouperTransformerTest {
         assertEquals("[A, 4, world;there;hi;hello, D;C;B;A]", Arrays.toString(output.get(0)));
         assertEquals("[B, 1, hola, E]", Arrays.toString(output.get(1)));
     }
+
+    private GrouperTransformer createAggregatingGrouper() {
+        final GrouperTransformer grouper = new GrouperTransformer();
+        grouper.groupKey = groupKey;
+        grouper.aggregatedValues = new InputColumn[] { value1, value1, value1, value1, value2 };
+        grouper.aggregationTypes =
+                new AggregationType[] { AggregationType.SUM, AggregationType.AVG, AggregationType.FIRST_VALUE,
+                        AggregationType.LAST_VALUE, AggregationType.CREATE_LIST };
+        grouper.valueSortation = SortationType.RECORD_ORDER;
+        return grouper;
+    }
+
+    private List<String> group(final GrouperTransformer grouper, final int rows, final int threads)
+            throws Exception {
+        grouper.init();
+        final MockOutputRowCollector collector = new MockOutputRowCollector();
+        grouper.initializeOutputDataStream(null, null, collector);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = thread; i < rows; i += threads) {
+                    // "Aa" and "BB" have the same hash code
+                    final String key = (i % 2 == 0 ? "Aa" : "BB") + (i / 2 % 25);
+                    grouper.transform(new MockInputRow(i).put(groupKey, key).put(value1, "" + i)
+                            .put(value2, i % 10 == 0 ? "x" + i : null));
+                }
+            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        grouper.close();
+
+        final List<String> output = new ArrayList<>();
+        for (final Object[] values : collector.getOutput()) {
+            output.add(Arrays.toString(values));
+        }
+        output.sort(Comparator.naturalOrder());
+        return output;
+    }
+
+    @Test
+    public void testSpillToRunFiles() throws Exception {
+        final List<String> expected = group(createAggregatingGrouper(), 1000, 1);
+        assertEquals(50, expected.size());
+        assertEquals("[Aa0, 20, 9500.0, 475.0, 0, 950, [x0, x50, x100, x150, x200, x250, x300, x350, x400, x450, "
+                + "x500, x550, x600, x650, x700, x750, x800, x850, x900, x950]]", expected.get(0));
+
+        final GrouperTransformer grouper = createAggregatingGrouper();
+        grouper.maxValuesInMemory = 100;
+        assertEquals(expected, group(grouper, 1000, 1));
+    }
+
+    @Test
+    public void testMultiThreaded() throws Exception {
+        final List<String> expected = group(createAggregatingGrouper(), 10000, 1);
+
+        assertEquals(expected, group(createAggregatingGrouper(), 10000, 4));
+
+        final GrouperTransformer grouper = createAggregatingGrouper();
+        grouper.maxValuesInMemory = 500;
+        assertEquals(expected, group(grouper, 10000, 4));
+    }
+
+    @Test
+    public void testNonSerializableValuesAreKeptInMemory() throws Exception {
+        final MockInputColumn<Object> objectValue = new MockInputColumn<>("object", Object.class);
+        final GrouperTransformer grouper = new GrouperTransformer();
+        grouper.groupKey = groupKey;
+        grouper.aggregatedValues = new InputColumn[] { objectValue };
+        grouper.aggregationTypes = new AggregationType[] { AggregationType.CREATE_LIST };
+        grouper.maxValuesInMemory = 10;
+        grouper.init();
+        final MockOutputRowCollector collector = new MockOutputRowCollector();
+        grouper.initializeOutputDataStream(null, null, collector);
+
+        for (int i = 0; i < 100; i++) {
+            grouper.transform(new MockInputRow(i).put(groupKey, "key" + (i % 2)).put(objectValue, new Object()));
+        }
+        grouper.close();
+
+        final List<Object[]> output = collector.getOutput();
+        assertEquals(2, output.size());
+        assertEquals(50, ((List<?>) output.get(0)[2]).size());
+    }
 }
@@ -0,0 +1,193 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Collects request bodies of individual records into batches which are sent
+ * as a single request with a JSON array body. The response is expected to be a
+ * JSON array with one element per record in the batch. A successful response
+ * which is not such an array fails all the records of the batch, whereas an
+ * error response is given to all of them.
+ */
+final class HttpRequestBatcher {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final class Batch {
+        final long _createdMillis = System.currentTimeMillis();
+        final List<String> _bodies = new ArrayList<>();
+        final List<CompletableFuture<Object[]>> _futures = new ArrayList<>();
+    }
+
+    private final int _batchSize;
+    private final BiFunction<String, String, CompletableFuture<Object[]>> _sender;
+    private final Map<String, Batch> _batches = new HashMap<>();
+
+    /**
+     * Creates a batcher
+     *
+     * @param batchSize
+     *            the number of records to send in each request
+     * @param sender
+     *            function that sends a request to a URL (first argument) with
+     *            a body (second argument) and returns the status code and
+     *            response body
+     */
+    public HttpRequestBatcher(final int batchSize,
+            final BiFunction<String, String, CompletableFuture<Object[]>> sender) {
+        _batchSize = batchSize;
+        _sender = sender;
+    }
+
+    /**
+     * Adds a record's request body to the batch for a particular URL.
+     *
+     * @param url
+     * @param body
+     * @return a future of the status code and response body of this record
+     */
+    public CompletableFuture<Object[]> add(final String url, final String body) {
+        final CompletableFuture<Object[]> future = new CompletableFuture<>();
+        Batch fullBatch = null;
+        synchronized (this) {
+            final Batch batch = _batches.computeIfAbsent(url, key -> new Batch());
+            batch._bodies.add(body == null ? "null" : body);
+            batch._futures.add(future);
+            if (batch._bodies.size() >= _batchSize) {
+                _batches.remove(url);
+                fullBatch = batch;
+            }
+        }
+        if (fullBatch != null) {
+            send(url, fullBatch);
+        }
+        return future;
+    }
+
+    /**
+     * Sends all batches that have been waiting for at least a specified amount
+     * of time, regardless of whether or not they are full.
+     *
+     * @param maxWaitMillis
+     */
+    public void flush(final long maxWaitMillis) {
+        final long threshold = System.currentTimeMillis() - maxWaitMillis;
+        final Map<String, Batch> batchesToSend = new HashMap<>();
+        synchronized (this) {
+            final Iterator<Map.Entry<String, Batch>> it = _batches.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<String, Batch> entry = it.next();
+                if (entry.getValue()._createdMillis <= threshold) {
+                    batchesToSend.put(entry.getKey(), entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+        batchesToSend.forEach(this::send);
+    }
+
+    private void send(final String url, final Batch batch) {
+        final String body = "[" + String.join(",", batch._bodies) + "]";
+        final CompletableFuture<Object[]> response;
+        try {
+            response = _sender.apply(url, body);
+        } catch (final RuntimeException e) {
+            batch._futures.forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        response.whenComplete((values, error) -> {
+            if (error != null) {
+                batch._futures.forEach(future -> future.completeExceptionally(error));
+            } else {
+                split(values, batch._futures);
+            }
+        });
+    }
+
+    private static void split(final Object[] values, final List<CompletableFuture<Object[]>> futures) {
+        final Object statusCode = values[0];
+        final String responseBody = (String) values[1];
+
+        final JsonNode responseArray = parseArray(responseBody);
+        if (responseArray == null || responseArray.size() != futures.size()) {
+            if (isSuccessful(statusCode)) {
+                // the records cannot be matched with the response elements
+                final String actual = responseArray == null ? "no array" : responseArray.size() + " elements";
+                final IllegalStateException error = new IllegalStateException(
+                        "Expected a JSON array with " + futures.size() + " elements in response to batch request, "
+                                + "but got " + actual + " (status code " + statusCode + ")");
+                futures.forEach(future -> future.completeExceptionally(error));
+            } else {
+                // an error response applies to all records of the batch
+                for (final CompletableFuture<Object[]> future : futures) {
+                    future.complete(new Object[] { statusCode, responseBody });
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            final JsonNode element = responseArray.get(i);
+            final String elementBody;
+            if (element.isNull()) {
+                elementBody = null;
+            } else if (element.isValueNode()) {
+                elementBody = element.asText();
+            } else {
+                elementBody = element.toString();
+            }
+            futures.get(i).complete(new Object[] { statusCode, elementBody });
+        }
+    }
+
+    private static boolean isSuccessful(final Object statusCode) {
+        if (statusCode instanceof Number) {
+            final int code = ((Number) statusCode).intValue();
+            return code >= 200 && code < 300;
+        }
+        return false;
+    }
+
+    private static JsonNode parseArray(final String responseBody) {
+        if (responseBody == null) {
+            return null;
+        }
+        try {
+            final JsonNode node = OBJECT_MAPPER.readTree(responseBody);
+            if (node != null && node.isArray()) {
+                return node;
+            }
+            return null;
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+}
@@ -24,6 +24,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,12 +41,16 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.api.AsyncTransformer;
 import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
@@ -49,7 +62,7 @@ import org.datacleaner.api.MappedProperty;
 import org.datacleaner.api.NumberProperty;
 import org.datacleaner.api.OutputColumns;
 import org.datacleaner.api.StringProperty;
-import org.datacleaner.api.Transformer;
+import org.datacleaner.api.Validate;
 import org.datacleaner.components.categories.ImproveSuperCategory;
 import org.datacleaner.components.categories.ReferenceDataCategory;
 import org.datacleaner.util.StringUtils;
@@ -65,12 +78,18 @@ import com.google.common.base.Strings;
         + "Provide variable names that are unique to the URL and request body and reference them there. For instance:\n"
         + "<table><tr><td>URL:</td><td>http://www.google.com/?q=${term}</td></tr>"
         + "<tr><td>Input:</td><td>column1</td></tr>" + "<tr><td>Variable:</td><td>${term}</td></tr></table>")
-public class HttpRequestTransformer implements Transformer {
+public class HttpRequestTransformer implements AsyncTransformer {
 
     public static final String PROPERTY_INPUT_COLUMNS = "Input";
     public static final String PROPERTY_VARIABLE_NAMES = "Variable names";
     private static final String PROPERTY_URL = "URL";
 
+    /**
+     * The max amount of time that a record will wait for a batch to fill up
+     * before the batch is sent anyway.
+     */
+    private static final long BATCH_FLUSH_INTERVAL_MILLIS = 100;
+
     @Inject
     @Configured(value = PROPERTY_URL, order = 1)
     @Description("The URL to invoke. The URL will be pre-processed by replacing any variable names in it with "
@@ -113,18 +132,73 @@ public class HttpRequestTransformer implements Transformer {
             + "Higher values may provide better throughput while it may also add load to the HTTP server.")
     int maxConcurrentRequests = 20;
 
+    @Inject
+    @Configured(required = false, order = 160)
+    @Description("Send requests without blocking while waiting for the responses. This allows many more requests to "
+            + "be in flight than there are worker threads, which improves throughput towards slow services.")
+    boolean nonBlocking = false;
+
+    @Inject
+    @Configured(required = false, order = 161)
+    @NumberProperty(negative = false, zero = false, positive = true)
+    @Description("The maximum number of requests per host that may be in flight at the same time, when sending "
+            + "requests without blocking.")
+    int maxInFlightRequestsPerHost = 100;
+
+    @Inject
+    @Configured(required = false, order = 162)
+    @NumberProperty(negative = false, zero = false, positive = true)
+    @Description("The number of records to combine into each request, when sending requests without blocking.\n"
+            + "When larger than 1, the request bodies of the records are sent as a JSON array and the response body "
+            + "is expected to be a JSON array with one element per record.")
+    int batchSize = 1;
+
     private CloseableHttpClient _httpClient;
     private PooledServiceSession<Object[]> _session;
+    private CloseableHttpAsyncClient _asyncHttpClient;
+    private ConcurrentMap<String, Semaphore> _inFlightPermits;
+    private HttpRequestBatcher _batcher;
+    private ScheduledExecutorService _batchFlusher;
+
+    @Validate
+    public void validate() {
+        if (nonBlocking && batchSize > 1 && !(method.createRequest(
+                "http://localhost") instanceof HttpEntityEnclosingRequest)) {
+            throw new IllegalStateException("Batching requests requires a HTTP method with a request body, not "
+                    + method);
+        }
+    }
 
     @Initialize
     public void init() {
         _httpClient = HttpClients.createSystem();
         _session = new PooledServiceSession<>(maxConcurrentRequests);
+
+        if (nonBlocking) {
+            _asyncHttpClient = HttpAsyncClients.custom().useSystemProperties()
+                    .setMaxConnPerRoute(maxInFlightRequestsPerHost).setMaxConnTotal(Integer.MAX_VALUE).build();
+            _asyncHttpClient.start();
+            _inFlightPermits = new ConcurrentHashMap<>();
+            if (batchSize > 1) {
+                _batcher = new HttpRequestBatcher(batchSize, this::sendBatch);
+                _batchFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "HttpRequestTransformer batch flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                _batchFlusher.scheduleWithFixedDelay(() -> _batcher.flush(BATCH_FLUSH_INTERVAL_MILLIS),
+                        BATCH_FLUSH_INTERVAL_MILLIS, BATCH_FLUSH_INTERVAL_MILLIS / 2, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     @Close
     public void close() {
-        FileHelper.safeClose(_httpClient, _session);
+        if (_batchFlusher != null) {
+            _batchFlusher.shutdownNow();
+            _batchFlusher = null;
+        }
+        FileHelper.safeClose(_httpClient, _session, _asyncHttpClient);
     }
 
     @Override
@@ -136,14 +210,58 @@ public class HttpRequestTransformer implements Transformer {
 
     @Override
     public Object[] transform(final InputRow inputRow) {
+        if (nonBlocking) {
+            try {
+                return transformAsync(inputRow).join();
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
         final Charset usedCharset = Charset.forName(charset);
+        final HttpUriRequest request = createRequest(inputRow, applyVariablesToString(this.requestBody, inputRow));
+
+        final ServiceResult<Object[]> result = _session.invokeService(() -> {
+            final HttpResponse response = _httpClient.execute(request);
+            final int statusCode = response.getStatusLine().getStatusCode();
+            final String body = EntityUtils.toString(response.getEntity(), usedCharset);
+            return new Object[] { statusCode, body };
+        });
+
+        if (!result.isSuccesfull()) {
+            final Throwable error = result.getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw new RuntimeException(error);
+        }
+
+        return result.getResponse();
+    }
+
+    @Override
+    public CompletableFuture<Object[]> transformAsync(final InputRow inputRow) {
+        if (!nonBlocking) {
+            return CompletableFuture.completedFuture(transform(inputRow));
+        }
 
         final String requestBody = applyVariablesToString(this.requestBody, inputRow);
+        if (_batcher != null) {
+            return _batcher.add(applyVariablesToString(this.url, inputRow), requestBody);
+        }
+        return sendAsync(createRequest(inputRow, requestBody));
+    }
+
+    private HttpUriRequest createRequest(final InputRow inputRow, final String requestBody) {
         final String url = applyVariablesToString(this.url, inputRow);
 
         final HttpUriRequest request = method.createRequest(url);
         if (!Strings.isNullOrEmpty(requestBody) && request instanceof HttpEntityEnclosingRequest) {
-            final HttpEntity entity = new StringEntity(requestBody, usedCharset);
+            final HttpEntity entity = new StringEntity(requestBody, Charset.forName(charset));
             ((HttpEntityEnclosingRequest) request).setEntity(entity);
         }
 
@@ -154,23 +272,71 @@ public class HttpRequestTransformer implements Transformer {
                 request.setHeader(entry.getKey(), finalValue);
             }
         }
+        return request;
+    }
 
-        final ServiceResult<Object[]> result = _session.invokeService(() -> {
-            final HttpResponse response = _httpClient.execute(request);
-            final int statusCode = response.getStatusLine().getStatusCode();
-            final String body = EntityUtils.toString(response.getEntity(), usedCharset);
-            return new Object[] { statusCode, body };
-        });
-
-        if (!result.isSuccesfull()) {
-            final Throwable error = result.getError();
-            if (error instanceof RuntimeException) {
-                throw (RuntimeException) error;
+    private CompletableFuture<Object[]> sendBatch(final String url, final String batchRequestBody) {
+        final HttpUriRequest request = method.createRequest(url);
+        ((HttpEntityEnclosingRequest) request).setEntity(new StringEntity(batchRequestBody, Charset.forName(charset)));
+        if (headers != null) {
+            // variables are not applicable to headers of batched requests
+            for (final Entry<String, String> entry : headers.entrySet()) {
+                request.setHeader(entry.getKey(), entry.getValue().trim());
             }
-            throw new RuntimeException(error);
         }
+        return sendAsync(request);
+    }
 
-        return result.getResponse();
+    /**
+     * Sends a request without waiting for the response. The calling thread will
+     * only block if the max number of in-flight requests for the request's
+     * host has been reached.
+     *
+     * @param request
+     * @return
+     */
+    private CompletableFuture<Object[]> sendAsync(final HttpUriRequest request) {
+        final Charset usedCharset = Charset.forName(charset);
+        final Semaphore permits = _inFlightPermits.computeIfAbsent(String.valueOf(request.getURI().getAuthority()),
+                host -> new Semaphore(maxInFlightRequestsPerHost));
+        permits.acquireUninterruptibly();
+
+        final CompletableFuture<Object[]> future = new CompletableFuture<>();
+        try {
+            _asyncHttpClient.execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(final HttpResponse response) {
+                    final Object[] values;
+                    try {
+                        final int statusCode = response.getStatusLine().getStatusCode();
+                        final String body = EntityUtils.toString(response.getEntity(), usedCharset);
+                        values = new Object[] { statusCode, body };
+                    } catch (final Exception e) {
+                        permits.release();
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    permits.release();
+                    future.complete(values);
+                }
+
+                @Override
+                public void failed(final Exception ex) {
+                    permits.release();
+                    future.completeExceptionally(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    permits.release();
+                    future.completeExceptionally(new CancellationException("Request cancelled: " + request));
+                }
+            });
+        } catch (final RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
     }
 
     /**
@@ -223,6 +389,18 @@ public class HttpRequestTransformer implements Transformer {
         this.url = url;
     }
 
+    public void setNonBlocking(final boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+    }
+
+    public void setMaxInFlightRequestsPerHost(final int maxInFlightRequestsPerHost) {
+        this.maxInFlightRequestsPerHost = maxInFlightRequestsPerHost;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public void setHttpClient(final CloseableHttpClient httpClient) {
         _httpClient = httpClient;
     }
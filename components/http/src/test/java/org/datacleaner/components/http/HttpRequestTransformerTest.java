@@ -17,19 +17,101 @@
 package org.datacleaner.components.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.impl.client.HttpClients;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.OutputColumns;
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
 public class HttpRequestTransformerTest {
 
+    private HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        // a local server which responds with the request body, reversed
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(20));
+        server.createContext("/reverse", this::handleReverse);
+        server.createContext("/single", this::handleSingle);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handleReverse(final HttpExchange exchange) throws IOException {
+        final int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        requestCount.incrementAndGet();
+        try {
+            final String requestBody = read(exchange.getRequestBody());
+            Thread.sleep(20);
+            final byte[] response = new StringBuilder(requestBody).reverse().toString()
+                    .replace('[', '#').replace(']', '[').replace('#', ']').getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (final InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleSingle(final HttpExchange exchange) throws IOException {
+        // responds with a single element, regardless of the size of the batch
+        read(exchange.getRequestBody());
+        final byte[] response = "[\"x\"]".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String getServerUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/reverse";
+    }
+
     @Test
     public void testGetOutputColumns() throws Exception {
         final HttpRequestTransformer t = new HttpRequestTransformer();
@@ -67,6 +149,114 @@ public class HttpRequestTransformerTest {
         t.close();
     }
 
+    @Test
+    public void testNonBlockingWithMaxInFlightRequests() throws Exception {
+        final HttpRequestTransformer t = new HttpRequestTransformer();
+        t.setMethod(HttpMethod.POST);
+        t.setUrl(getServerUrl());
+        t.setRequestBody("${name}");
+        t.setCharset("UTF-8");
+        t.setNonBlocking(true);
+        t.setMaxInFlightRequestsPerHost(5);
+        final InputColumn<?> col1 = new MockInputColumn<>("foo");
+        t.setInputAndVariables(new InputColumn[] { col1 }, new String[] { "${name}" });
+
+        t.init();
+        try {
+            final List<CompletableFuture<Object[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(t.transformAsync(new MockInputRow().put(col1, "hello " + i)));
+            }
+            for (int i = 0; i < 50; i++) {
+                final String expected = new StringBuilder("hello " + i).reverse().toString();
+                assertEquals("[200, " + expected + "]", Arrays.toString(futures.get(i).get()));
+            }
+
+            // blocking invocation is still supported
+            assertEquals("[200, dlrow]", Arrays.toString(t.transform(new MockInputRow().put(col1, "world"))));
+        } finally {
+            t.close();
+        }
+
+        assertEquals(51, requestCount.get());
+        assertTrue("Max in flight was " + maxInFlight.get(), maxInFlight.get() <= 5);
+        assertTrue("Max in flight was " + maxInFlight.get(), maxInFlight.get() > 1);
+    }
+
+    @Test
+    public void testNonBlockingWithBatching() throws Exception {
+        final HttpRequestTransformer t = new HttpRequestTransformer();
+        t.setMethod(HttpMethod.POST);
+        t.setUrl(getServerUrl());
+        t.setRequestBody("\"${name}\"");
+        t.setCharset("UTF-8");
+        t.setNonBlocking(true);
+        t.setBatchSize(4);
+        final InputColumn<?> col1 = new MockInputColumn<>("foo");
+        t.setInputAndVariables(new InputColumn[] { col1 }, new String[] { "${name}" });
+
+        t.validate();
+        t.init();
+        try {
+            final List<CompletableFuture<Object[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(t.transformAsync(new MockInputRow().put(col1, "v" + i)));
+            }
+
+            // the response array is reversed, so the elements are too
+            for (int i = 0; i < 10; i++) {
+                final int batchStart = (i / 4) * 4;
+                final int batchEnd = Math.min(batchStart + 4, 10);
+                final int expected = batchEnd - 1 - (i - batchStart);
+                assertEquals("[200, " + expected + "v]", Arrays.toString(futures.get(i).get()));
+            }
+        } finally {
+            t.close();
+        }
+
+        // two full batches plus a partial batch which is flushed after a while
+        assertEquals(3, requestCount.get());
+    }
+
+    @Test
+    public void testNonBlockingWithBatchingAndMismatchingResponse() throws Exception {
+        final HttpRequestTransformer t = new HttpRequestTransformer();
+        t.setMethod(HttpMethod.POST);
+        t.setUrl("http://localhost:" + server.getAddress().getPort() + "/single");
+        t.setRequestBody("\"${name}\"");
+        t.setCharset("UTF-8");
+        t.setNonBlocking(true);
+        t.setBatchSize(2);
+        final InputColumn<?> col1 = new MockInputColumn<>("foo");
+        t.setInputAndVariables(new InputColumn[] { col1 }, new String[] { "${name}" });
+
+        t.init();
+        try {
+            final CompletableFuture<Object[]> future1 = t.transformAsync(new MockInputRow().put(col1, "v1"));
+            final CompletableFuture<Object[]> future2 = t.transformAsync(new MockInputRow().put(col1, "v2"));
+            for (final CompletableFuture<Object[]> future : Arrays.asList(future1, future2)) {
+                try {
+                    future.get();
+                    fail("Exception expected");
+                } catch (final ExecutionException e) {
+                    assertEquals("Expected a JSON array with 2 elements in response to batch request, "
+                            + "but got 1 elements (status code 200)", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            t.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testValidateBatchingRequiresRequestBody() throws Exception {
+        final HttpRequestTransformer t = new HttpRequestTransformer();
+        t.setMethod(HttpMethod.GET);
+        t.setNonBlocking(true);
+        t.setBatchSize(10);
+        t.validate();
+    }
+
     @Test
     @Ignore
     public void testIntegrationScenarioWithLocalTomcat() throws Exception {
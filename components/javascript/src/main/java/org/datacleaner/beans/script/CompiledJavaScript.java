@@ -0,0 +1,213 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.script;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+
+/**
+ * A JavaScript which is compiled once and then executed against many rows.
+ *
+ * The script is compiled to JVM bytecode (optimization level 9) and every
+ * worker thread keeps its own {@link Context}, row scope and "values" binding,
+ * so that executing the script for a row does not allocate a new context, scope
+ * or values array. Variables declared by the script are removed again after each
+ * row, so that rows are still evaluated in isolation of each other. The
+ * per-thread state is released by {@link #close()}.
+ */
+final class CompiledJavaScript {
+
+    private static final int OPTIMIZATION_LEVEL = 9;
+
+    private static final class OptimizingContextFactory extends ContextFactory {
+        @Override
+        protected Context makeContext() {
+            final Context context = super.makeContext();
+            context.setOptimizationLevel(OPTIMIZATION_LEVEL);
+            return context;
+        }
+    }
+
+    /**
+     * The per-thread execution state.
+     */
+    private static final class ThreadState {
+        private Context _context;
+        private Scriptable _scope;
+        private InputRowScriptable _values;
+
+        private ThreadState(final ContextFactory contextFactory, final ScriptableObject sharedScope,
+                final InputColumn<?>[] columns) {
+            // create a context for this thread and leave it again, it is
+            // re-entered for every row.
+            _context = contextFactory.enterContext();
+            try {
+                // this scope is local to the execution of rows on this thread
+                _scope = _context.newObject(sharedScope);
+                _scope.setPrototype(sharedScope);
+                _scope.setParentScope(null);
+
+                _values = new InputRowScriptable(columns, sharedScope);
+                ScriptableObject.putProperty(_scope, VALUES_VARIABLE_NAME, _values);
+            } finally {
+                Context.exit();
+            }
+        }
+
+        private void release() {
+            _context = null;
+            _scope = null;
+            _values = null;
+        }
+    }
+
+    static final String VALUES_VARIABLE_NAME = "values";
+
+    private final ContextFactory _contextFactory;
+    private final Script _script;
+    private final ScriptableObject _sharedScope;
+    private final InputColumn<?>[] _columns;
+    private final String[][] _columnVariableNames;
+    private final Set<String> _boundVariableNames;
+    private final ThreadLocal<ThreadState> _threadStates;
+    private final Queue<ThreadState> _allThreadStates;
+
+    CompiledJavaScript(final String sourceCode, final String sourceName, final InputColumn<?>[] columns) {
+        _contextFactory = new OptimizingContextFactory();
+        _columns = columns;
+
+        final Context context = _contextFactory.enterContext();
+        try {
+            _script = context.compileString(sourceCode, sourceName, 1, null);
+
+            // this scope is shared between all threads
+            _sharedScope = context.initStandardObjects();
+            JavaScriptUtils.addToScope(_sharedScope, new JavaScriptLogger(), "logger", "log");
+            JavaScriptUtils.addToScope(_sharedScope, System.out, "out");
+        } finally {
+            Context.exit();
+        }
+
+        _boundVariableNames = new HashSet<>();
+        _boundVariableNames.add(VALUES_VARIABLE_NAME);
+        _columnVariableNames = new String[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            final String name = columns[i].getName();
+            final Set<String> names = new LinkedHashSet<>();
+            names.add(JavaScriptUtils.toVariableName(name));
+            names.add(JavaScriptUtils.toVariableName(name.toLowerCase()));
+            names.add(JavaScriptUtils.toVariableName(name.toUpperCase()));
+            _columnVariableNames[i] = names.toArray(new String[names.size()]);
+            _boundVariableNames.addAll(names);
+        }
+
+        _allThreadStates = new ConcurrentLinkedQueue<>();
+        _threadStates = ThreadLocal.withInitial(this::createThreadState);
+    }
+
+    private ThreadState createThreadState() {
+        final ThreadState state = new ThreadState(_contextFactory, _sharedScope, _columns);
+        _allThreadStates.add(state);
+        return state;
+    }
+
+    /**
+     * Releases the contexts and scopes of all the threads that executed the
+     * script. The worker threads may outlive the script, so their thread
+     * local states are emptied. The script cannot be executed afterwards.
+     */
+    void close() {
+        _threadStates.remove();
+        for (ThreadState state = _allThreadStates.poll(); state != null; state = _allThreadStates.poll()) {
+            state.release();
+        }
+    }
+
+    /**
+     * Executes the script for a single row.
+     *
+     * @param inputRow
+     *            the row to execute the script for
+     * @param resultConverter
+     *            a function which converts the (non-null) script result while
+     *            the JavaScript context is still active
+     * @return the converted result, or null if the script returned null
+     */
+    <T> T execute(final InputRow inputRow, final Function<Object, T> resultConverter) {
+        final ThreadState state = _threadStates.get();
+        final Context context = _contextFactory.enterContext(state._context);
+        try {
+            final Scriptable scope = state._scope;
+            final InputRowScriptable values = state._values;
+            values.setRow(inputRow);
+            scope.put(VALUES_VARIABLE_NAME, scope, values);
+
+            for (int i = 0; i < _columns.length; i++) {
+                final Object jsValue = Context.javaToJS(values.getValue(i), scope);
+                for (final String name : _columnVariableNames[i]) {
+                    scope.put(name, scope, jsValue);
+                }
+            }
+
+            try {
+                final Object result = _script.exec(context, scope);
+                if (result == null) {
+                    return null;
+                }
+                return resultConverter.apply(result);
+            } finally {
+                removeScriptVariables(scope);
+                values.setRow(null);
+            }
+        } finally {
+            Context.exit();
+        }
+    }
+
+    private void removeScriptVariables(final Scriptable scope) {
+        for (final Object id : scope.getIds()) {
+            if (id instanceof String) {
+                final String name = (String) id;
+                if (!_boundVariableNames.contains(name)) {
+                    scope.delete(name);
+                    if (scope.has(name, scope)) {
+                        // variables declared with 'var' are permanent
+                        scope.put(name, scope, Undefined.instance);
+                    }
+                }
+            } else if (id instanceof Number) {
+                scope.delete(((Number) id).intValue());
+            }
+        }
+    }
+}
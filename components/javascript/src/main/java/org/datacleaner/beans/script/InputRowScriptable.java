@@ -0,0 +1,137 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.script;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * The "values" variable exposed to JavaScript, which can be looked up both by
+ * index (values[0]) and by column name (values["my_col"]).
+ *
+ * Unlike a {@link org.mozilla.javascript.NativeArray} which has to be
+ * populated for every row, this object is reused and simply points to the
+ * current row. It inherits the Array prototype so that generic array functions
+ * such as join(...) still work.
+ */
+final class InputRowScriptable extends ScriptableObject {
+
+    private static final long serialVersionUID = 1L;
+
+    private final InputColumn<?>[] _columns;
+    private final Map<String, Integer> _columnIndexes;
+    private final Object[] _values;
+
+    InputRowScriptable(final InputColumn<?>[] columns, final Scriptable sharedScope) {
+        super(sharedScope, ScriptableObject.getClassPrototype(sharedScope, "Array"));
+        _columns = columns;
+        _values = new Object[columns.length];
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.put(columns[i].getName(), i);
+        }
+    }
+
+    void setRow(final InputRow inputRow) {
+        for (int i = 0; i < _columns.length; i++) {
+            if (inputRow == null) {
+                _values[i] = null;
+            } else {
+                final InputColumn<?> column = _columns[i];
+                _values[i] = JavaScriptUtils.toJavaScriptValue(column, inputRow.getValue(column));
+            }
+        }
+    }
+
+    Object getValue(final int index) {
+        return _values[index];
+    }
+
+    @Override
+    public String getClassName() {
+        return "Array";
+    }
+
+    @Override
+    public Object get(final int index, final Scriptable start) {
+        if (index >= 0 && index < _values.length) {
+            return _values[index];
+        }
+        return super.get(index, start);
+    }
+
+    @Override
+    public boolean has(final int index, final Scriptable start) {
+        return (index >= 0 && index < _values.length) || super.has(index, start);
+    }
+
+    @Override
+    public void put(final int index, final Scriptable start, final Object value) {
+        if (index >= 0 && index < _values.length) {
+            _values[index] = value;
+            return;
+        }
+        super.put(index, start, value);
+    }
+
+    @Override
+    public Object get(final String name, final Scriptable start) {
+        final Integer index = _columnIndexes.get(name);
+        if (index != null) {
+            return _values[index];
+        }
+        if ("length".equals(name)) {
+            // kept compatible with the array that was previously built for
+            // every row, which had room for both indexed and named values
+            return _values.length * 2;
+        }
+        return super.get(name, start);
+    }
+
+    @Override
+    public boolean has(final String name, final Scriptable start) {
+        return _columnIndexes.containsKey(name) || "length".equals(name) || super.has(name, start);
+    }
+
+    @Override
+    public void put(final String name, final Scriptable start, final Object value) {
+        final Integer index = _columnIndexes.get(name);
+        if (index != null) {
+            _values[index] = value;
+            return;
+        }
+        super.put(name, start, value);
+    }
+
+    @Override
+    public Object[] getIds() {
+        final Object[] ids = new Object[_values.length * 2];
+        for (int i = 0; i < _values.length; i++) {
+            ids[i] = i;
+            ids[_values.length + i] = _columns[i].getName();
+        }
+        return ids;
+    }
+}
@@ -22,6 +22,7 @@ package org.datacleaner.beans.script;
 import javax.inject.Named;
 
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
 import org.datacleaner.api.Filter;
@@ -31,10 +32,6 @@ import org.datacleaner.api.InputRow;
 import org.datacleaner.api.StringProperty;
 import org.datacleaner.components.categories.ScriptingCategory;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
-import org.mozilla.javascript.Script;
-import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
 
 @Named("JavaScript filter")
 @Description(
@@ -56,51 +53,29 @@ public class JavaScriptFilter implements Filter<JavaScriptFilter.Category> {
     @StringProperty(multiline = true, mimeType = { "text/javascript", "application/x-javascript" })
     String sourceCode = "function eval() {\n  return values[0] != null;\n}\n\neval();";
 
-    private ContextFactory _contextFactory;
-    private Script _script;
-
-    // this scope is shared between all threads
-    private ScriptableObject _sharedScope;
+    private CompiledJavaScript _script;
 
     @Initialize
     public void init() {
-        _contextFactory = new ContextFactory();
-        final Context context = _contextFactory.enterContext();
-
-        try {
-            _script = context.compileString(sourceCode, this.getClass().getSimpleName(), 1, null);
-            _sharedScope = context.initStandardObjects();
+        _script = new CompiledJavaScript(sourceCode, getClass().getSimpleName(), columns);
+    }
 
-            JavaScriptUtils.addToScope(_sharedScope, new JavaScriptLogger(), "logger", "log");
-            JavaScriptUtils.addToScope(_sharedScope, System.out, "out");
-        } finally {
-            Context.exit();
+    @Close
+    public void close() {
+        if (_script != null) {
+            _script.close();
+            _script = null;
         }
     }
 
     @Override
     public Category categorize(final InputRow inputRow) {
-        final Context context = _contextFactory.enterContext();
-
-        try {
-
-            // this scope is local to the execution of a single row
-            final Scriptable scope = context.newObject(_sharedScope);
-            scope.setPrototype(_sharedScope);
-            scope.setParentScope(null);
-
-            JavaScriptUtils.addToScope(scope, inputRow, columns, "values");
-
-            final Object result = _script.exec(context, scope);
-            final boolean booleanResult = Context.toBoolean(result);
+        final Boolean result = _script.execute(inputRow, Context::toBoolean);
 
-            if (booleanResult) {
-                return JavaScriptFilter.Category.VALID;
-            }
-            return JavaScriptFilter.Category.INVALID;
-        } finally {
-            Context.exit();
+        if (result != null && result) {
+            return JavaScriptFilter.Category.VALID;
         }
+        return JavaScriptFilter.Category.INVALID;
     }
 
     public void setSourceCode(final String sourceCode) {
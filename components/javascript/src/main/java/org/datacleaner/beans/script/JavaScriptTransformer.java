@@ -23,6 +23,7 @@ import javax.inject.Named;
 
 import org.datacleaner.api.Alias;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
 import org.datacleaner.api.Initialize;
@@ -33,10 +34,6 @@ import org.datacleaner.api.StringProperty;
 import org.datacleaner.api.Transformer;
 import org.datacleaner.components.categories.ScriptingCategory;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
-import org.mozilla.javascript.Script;
-import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
 
 /**
  * A transformer that uses userwritten JavaScript to generate a value
@@ -65,11 +62,7 @@ public class JavaScriptTransformer implements Transformer {
     @StringProperty(multiline = true, mimeType = { "text/javascript", "application/x-javascript" })
     String sourceCode = "function eval() {\n\treturn \"hello \" + values[0];\n}\n\neval();";
 
-    private ContextFactory _contextFactory;
-    private Script _script;
-
-    // this scope is shared between all threads
-    private ScriptableObject _sharedScope;
+    private CompiledJavaScript _script;
 
     @Override
     public OutputColumns getOutputColumns() {
@@ -86,49 +79,29 @@ public class JavaScriptTransformer implements Transformer {
 
     @Initialize
     public void init() {
-        _contextFactory = new ContextFactory();
-        final Context context = _contextFactory.enterContext();
-
-        try {
-            _script = context.compileString(sourceCode, this.getClass().getSimpleName(), 1, null);
-            _sharedScope = context.initStandardObjects();
+        _script = new CompiledJavaScript(sourceCode, getClass().getSimpleName(), columns);
+    }
 
-            JavaScriptUtils.addToScope(_sharedScope, new JavaScriptLogger(), "logger", "log");
-            JavaScriptUtils.addToScope(_sharedScope, System.out, "out");
-        } finally {
-            Context.exit();
+    @Close
+    public void close() {
+        if (_script != null) {
+            _script.close();
+            _script = null;
         }
     }
 
     @Override
     public Object[] transform(final InputRow inputRow) {
-        final Context context = _contextFactory.enterContext();
-
-        try {
-
-            // this scope is local to the execution of a single row
-            final Scriptable scope = context.newObject(_sharedScope);
-            scope.setPrototype(_sharedScope);
-            scope.setParentScope(null);
-
-            JavaScriptUtils.addToScope(scope, inputRow, columns, "values");
-
-            Object result = _script.exec(context, scope);
-            // String stringResult = Context.toString(result);
-
-            if (result == null) {
-                result = null;
-            } else if (returnType == ReturnType.NUMBER) {
-                result = Context.toNumber(result);
+        final Object result = _script.execute(inputRow, value -> {
+            if (returnType == ReturnType.NUMBER) {
+                return Context.toNumber(value);
             } else if (returnType == ReturnType.BOOLEAN) {
-                result = Context.toBoolean(result);
+                return Context.toBoolean(value);
             } else {
-                result = Context.toString(result);
+                return Context.toString(value);
             }
-            return new Object[] { result };
-        } finally {
-            Context.exit();
-        }
+        });
+        return new Object[] { result };
     }
 
     public void setSourceCode(final String sourceCode) {
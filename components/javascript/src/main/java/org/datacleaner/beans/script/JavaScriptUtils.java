@@ -20,10 +20,8 @@
 package org.datacleaner.beans.script;
 
 import org.datacleaner.api.InputColumn;
-import org.datacleaner.api.InputRow;
 import org.datacleaner.util.ReflectionUtils;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -47,42 +45,37 @@ final class JavaScriptUtils {
      */
     public static void addToScope(final Scriptable scope, final Object object, final String... names) {
         final Object jsObject = Context.javaToJS(object, scope);
-        for (String name : names) {
-            name = name.replaceAll(" ", "_");
-            ScriptableObject.putProperty(scope, name, jsObject);
+        for (final String name : names) {
+            ScriptableObject.putProperty(scope, toVariableName(name), jsObject);
         }
     }
 
     /**
-     * Adds the values of a row to the JavaScript scope
+     * Converts a name (typically a column name) to a JavaScript variable name
      *
-     * @param scope
-     * @param inputRow
-     * @param columns
-     * @param arrayName
+     * @param name
+     * @return
      */
-    public static void addToScope(final Scriptable scope, final InputRow inputRow, final InputColumn<?>[] columns,
-            final String arrayName) {
-        final NativeArray values = new NativeArray(columns.length * 2);
-        for (int i = 0; i < columns.length; i++) {
-            final InputColumn<?> column = columns[i];
-            Object value = inputRow.getValue(column);
+    public static String toVariableName(final String name) {
+        return name.replace(' ', '_');
+    }
 
-            if (value != null) {
-                final Class<?> dataType = column.getDataType();
-                if (ReflectionUtils.isNumber(dataType)) {
-                    value = Context.toNumber(value);
-                } else if (ReflectionUtils.isBoolean(dataType)) {
-                    value = Context.toBoolean(value);
-                }
+    /**
+     * Converts a column value to the value exposed to JavaScript
+     *
+     * @param column
+     * @param value
+     * @return
+     */
+    public static Object toJavaScriptValue(final InputColumn<?> column, final Object value) {
+        if (value != null) {
+            final Class<?> dataType = column.getDataType();
+            if (ReflectionUtils.isNumber(dataType)) {
+                return Context.toNumber(value);
+            } else if (ReflectionUtils.isBoolean(dataType)) {
+                return Context.toBoolean(value);
             }
-
-            values.put(i, values, value);
-            values.put(column.getName(), values, value);
-
-            addToScope(scope, value, column.getName(), column.getName().toLowerCase(), column.getName().toUpperCase());
         }
-
-        addToScope(scope, values, arrayName);
+        return value;
     }
 }
@@ -0,0 +1,119 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.script;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Measures the throughput of {@link JavaScriptTransformer}. Only run in the
+ * benchmark profile.
+ */
+public class JavaScriptTransformerBenchmark extends TestCase {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaScriptTransformerBenchmark.class);
+
+    /**
+     * Compares the compiled, thread-confined execution with the previous
+     * approach of entering a new context and building a new scope and values
+     * array for every row.
+     */
+    public void testAgainstPerRowContext() throws Exception {
+        final String sourceCode = "function eval() {return values[0] + ' ' + values[1];}; eval();";
+        final InputColumn<String> col1 = new MockInputColumn<>("foo", String.class);
+        final InputColumn<String> col2 = new MockInputColumn<>("bar", String.class);
+        final InputColumn<?>[] columns = new InputColumn[] { col1, col2 };
+        final InputRow row = new MockInputRow().put(col1, "hello").put(col2, "world");
+        final int rows = 20000;
+
+        final ContextFactory contextFactory = new ContextFactory();
+        final Script script;
+        final ScriptableObject sharedScope;
+        final Context initContext = contextFactory.enterContext();
+        try {
+            script = initContext.compileString(sourceCode, "benchmark", 1, null);
+            sharedScope = initContext.initStandardObjects();
+        } finally {
+            Context.exit();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            final Context context = contextFactory.enterContext();
+            try {
+                final Scriptable scope = context.newObject(sharedScope);
+                scope.setPrototype(sharedScope);
+                scope.setParentScope(null);
+                addToScope(scope, row, columns);
+                assertEquals("hello world", Context.toString(script.exec(context, scope)));
+            } finally {
+                Context.exit();
+            }
+        }
+        final long perRowContextNanos = System.nanoTime() - start;
+
+        final JavaScriptTransformer t = new JavaScriptTransformer();
+        t.setSourceCode(sourceCode);
+        t.setColumns(columns);
+        t.init();
+
+        start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            assertEquals("hello world", t.transform(row)[0]);
+        }
+        final long compiledNanos = System.nanoTime() - start;
+
+        logger.info("JavaScript per-row context: {} ns/row, compiled: {} ns/row", perRowContextNanos / rows,
+                compiledNanos / rows);
+        t.close();
+    }
+
+    /**
+     * Adds the values of a row to a new scope the way it was done for every
+     * row before the scripts were compiled.
+     */
+    private static void addToScope(final Scriptable scope, final InputRow inputRow, final InputColumn<?>[] columns) {
+        final NativeArray values = new NativeArray(columns.length * 2);
+        for (int i = 0; i < columns.length; i++) {
+            final InputColumn<?> column = columns[i];
+            final Object value = JavaScriptUtils.toJavaScriptValue(column, inputRow.getValue(column));
+
+            values.put(i, values, value);
+            values.put(column.getName(), values, value);
+
+            JavaScriptUtils.addToScope(scope, value, column.getName(), column.getName().toLowerCase(),
+                    column.getName().toUpperCase());
+        }
+
+        JavaScriptUtils.addToScope(scope, values, "values");
+    }
+}
@@ -21,6 +21,11 @@ package org.datacleaner.beans.script;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.data.MockInputColumn;
@@ -117,4 +122,84 @@ public class JavaScriptTransformerTest extends TestCase {
         //the Number cannot be parsed because it starts with letter 'O'
         assertEquals("NaN", t.transform(new MockInputRow().put(col, "O10"))[0]);
     }
+
+    public void testVariablesDoNotLeakBetweenRows() throws Exception {
+        final JavaScriptTransformer t = new JavaScriptTransformer();
+        t.setSourceCode("var seen; var result = (seen === undefined) ? 'first' : 'leaked'; seen = true; counter = 1;"
+                + " result + ':' + (typeof counter);");
+        final InputColumn<String> col = new MockInputColumn<>("name", String.class);
+        t.setColumns(new InputColumn[] { col });
+        t.init();
+
+        assertEquals("first:number", t.transform(new MockInputRow().put(col, "a"))[0]);
+        assertEquals("first:number", t.transform(new MockInputRow().put(col, "b"))[0]);
+    }
+
+    public void testValuesByIndexAndName() throws Exception {
+        final JavaScriptTransformer t = new JavaScriptTransformer();
+        t.setSourceCode("values[0] = values[0].toUpperCase(); values[0] + ' ' + values['last name'] + ' '"
+                + " + last_name + ' ' + LAST_NAME + ' ' + values.slice(0, 2).join('-')");
+        final InputColumn<String> col1 = new MockInputColumn<>("first name", String.class);
+        final InputColumn<String> col2 = new MockInputColumn<>("Last Name", String.class);
+        t.setColumns(new InputColumn[] { col1, col2 });
+        t.init();
+
+        assertEquals("JOHN undefined Doe Doe JOHN-Doe",
+                t.transform(new MockInputRow().put(col1, "john").put(col2, "Doe"))[0]);
+        assertEquals("JANE undefined Smith Smith JANE-Smith",
+                t.transform(new MockInputRow().put(col1, "jane").put(col2, "Smith"))[0]);
+    }
+
+    public void testConcurrentExecution() throws Exception {
+        final JavaScriptTransformer t = new JavaScriptTransformer();
+        t.setSourceCode("var x = values[0] * 2; x;");
+        final InputColumn<Number> col = new MockInputColumn<>("n", Number.class);
+        t.setColumns(new InputColumn[] { col });
+        t.returnType = JavaScriptTransformer.ReturnType.NUMBER;
+        t.init();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        final Object result = t.transform(new MockInputRow().put(col, i))[0];
+                        if (((Number) result).intValue() != i * 2) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testCloseAndReinitialize() throws Exception {
+        final JavaScriptTransformer t = new JavaScriptTransformer();
+        t.setSourceCode("values[0] + '!'");
+        final InputColumn<String> col = new MockInputColumn<>("name", String.class);
+        t.setColumns(new InputColumn[] { col });
+        t.init();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals("a!", executor.submit(() -> t.transform(new MockInputRow().put(col, "a"))[0]).get());
+            assertEquals("b!", t.transform(new MockInputRow().put(col, "b"))[0]);
+            t.close();
+
+            // the threads that executed the closed script get a new state
+            t.init();
+            assertEquals("c!", executor.submit(() -> t.transform(new MockInputRow().put(col, "c"))[0]).get());
+            assertEquals("d!", t.transform(new MockInputRow().put(col, "d"))[0]);
+            t.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -22,9 +22,8 @@ package org.datacleaner.components.machinelearning;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -49,6 +48,7 @@ import org.datacleaner.components.machinelearning.api.MLTrainerCallback;
 import org.datacleaner.components.machinelearning.api.MLTrainingConstraints;
 import org.datacleaner.components.machinelearning.api.MLTrainingOptions;
 import org.datacleaner.components.machinelearning.impl.MLClassificationRecordImpl;
+import org.datacleaner.components.machinelearning.impl.MLClassificationTrainingBuffer;
 import org.datacleaner.components.machinelearning.impl.MLFeatureModifierBuilderFactoryImpl;
 import org.datacleaner.components.machinelearning.impl.MLFeatureUtils;
 import org.datacleaner.result.Crosstab;
@@ -73,16 +73,24 @@ public abstract class MLClassificationTrainingAnalyzer extends MLTrainingAnalyze
     @NumberProperty(negative = false)
     Percentage crossValidationSampleRate = new Percentage(10);
 
+    @Configured(required = false)
+    @Description("The maximum number of records to keep for training and for cross-validation. "
+            + "If there are more records, a random sample of them is used.")
+    @NumberProperty(negative = false, zero = false)
+    Integer maxRecords;
+
     private AtomicInteger recordCounter;
-    private Collection<MLClassificationRecord> trainingRecords;
-    private Collection<MLClassificationRecord> crossValidationRecords;
+    private MLClassificationTrainingBuffer trainingRecords;
+    private MLClassificationTrainingBuffer crossValidationRecords;
     private List<MLFeatureModifierBuilder> featureModifierBuilders;
 
     @Initialize
     public void init() {
         recordCounter = new AtomicInteger();
-        trainingRecords = new ConcurrentLinkedQueue<>();
-        crossValidationRecords = new ConcurrentLinkedQueue<>();
+        final List<MLFeatureModifierType> types = Arrays.asList(featureModifierTypes);
+        final int capacity = maxRecords == null ? -1 : maxRecords;
+        trainingRecords = new MLClassificationTrainingBuffer(types, capacity);
+        crossValidationRecords = new MLClassificationTrainingBuffer(types, capacity);
         featureModifierBuilders = new ArrayList<>(featureModifierTypes.length);
 
         final int maxFeatures = maxFeaturesGeneratedPerColumn == null ? -1 : maxFeaturesGeneratedPerColumn;
@@ -125,6 +133,10 @@ public abstract class MLClassificationTrainingAnalyzer extends MLTrainingAnalyze
                 new MLTrainingOptions(classification.getDataType(), columnNames, featureModifiers);
 
         final MLClassificationTrainer trainer = createTrainer(options);
+        if (trainingRecords.size() < trainingRecords.getOfferedCount()) {
+            log("Sampled " + trainingRecords.size() + " of " + trainingRecords.getOfferedCount()
+                    + " records for training.");
+        }
         log("Training model starting. Records=" + trainingRecords.size() + ", Columns=" + columnNames.size()
                 + ", Features=" + MLFeatureUtils.getFeatureCount(featureModifiers) + ".");
         final MLClassifier classifier =
@@ -160,7 +172,7 @@ public abstract class MLClassificationTrainingAnalyzer extends MLTrainingAnalyze
     protected abstract MLClassificationTrainer createTrainer(MLTrainingOptions options);
 
     private static Crosstab<Integer> createConfusionMatrixCrosstab(MLClassifier classifier,
-            Collection<MLClassificationRecord> records) {
+            Iterable<MLClassificationRecord> records) {
         final MLConfusionMatrixBuilder builder = new MLConfusionMatrixBuilder(classifier);
         for (MLClassificationRecord record : records) {
             builder.append(record);
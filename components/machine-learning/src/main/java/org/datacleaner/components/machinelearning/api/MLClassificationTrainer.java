@@ -23,6 +23,6 @@ import java.util.List;
 
 public interface MLClassificationTrainer {
 
-    MLClassifier train(Iterable<MLClassificationRecord> data, List<MLFeatureModifier> featureModifiers,
+    MLClassifier train(MLClassificationTrainingData data, List<MLFeatureModifier> featureModifiers,
             MLTrainerCallback callback);
 }
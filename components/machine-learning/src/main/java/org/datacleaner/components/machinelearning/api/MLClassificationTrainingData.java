@@ -0,0 +1,62 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.machinelearning.api;
+
+import java.util.List;
+
+import smile.math.SparseArray;
+
+/**
+ * The records that a classifier is trained with, which can be turned into the
+ * vectors that the underlying learning algorithms take as input.
+ */
+public interface MLClassificationTrainingData extends Iterable<MLClassificationRecord> {
+
+    /**
+     * Gets the distinct classifications of the records.
+     * 
+     * @return
+     */
+    List<Object> getClassifications();
+
+    /**
+     * Gets the index of the classification of each record, into the list
+     * returned by {@link #getClassifications()}.
+     * 
+     * @return
+     */
+    int[] getClassificationVector();
+
+    /**
+     * Generates a matrix of feature values for each record.
+     * 
+     * @param featureModifiers
+     * @return
+     */
+    double[][] toFeatureVector(List<MLFeatureModifier> featureModifiers);
+
+    /**
+     * Generates a sparse feature vector for each record.
+     * 
+     * @param featureModifiers
+     * @return
+     */
+    SparseArray[] toSparseFeatureVector(List<MLFeatureModifier> featureModifiers);
+}
@@ -21,6 +21,8 @@ package org.datacleaner.components.machinelearning.api;
 
 import java.io.Serializable;
 
+import smile.math.SparseArray;
+
 public interface MLClassifier extends Serializable {
 
     MLClassificationMetadata getMetadata();
@@ -28,4 +30,14 @@ public interface MLClassifier extends Serializable {
     MLClassification classify(MLRecord record);
 
     MLClassification classify(double[] featureValues);
+
+    default MLClassification classify(SparseArray featureValues) {
+        final int featureCount = getMetadata().getFeatureModifiers().stream().mapToInt(
+                MLFeatureModifier::getFeatureCount).sum();
+        final double[] denseFeatureValues = new double[featureCount];
+        for (SparseArray.Entry entry : featureValues) {
+            denseFeatureValues[entry.i] = entry.x;
+        }
+        return classify(denseFeatureValues);
+    }
 }
@@ -21,10 +21,48 @@ package org.datacleaner.components.machinelearning.api;
 
 import java.io.Serializable;
 
+import smile.math.SparseArray;
+
 public interface MLFeatureModifier extends Serializable {
 
     double[] generateFeatureValues(Object value);
 
+    /**
+     * Appends the non-zero feature values of a value to a sparse feature
+     * vector, in ascending index order.
+     * 
+     * @param value
+     * @param featureValues
+     *            the sparse feature vector to append to
+     * @param offset
+     *            the index in the feature vector of the first feature of this
+     *            modifier
+     */
+    default void generateFeatureValues(Object value, SparseArray featureValues, int offset) {
+        final double[] values = generateFeatureValues(value);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0d) {
+                featureValues.append(offset + i, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the feature values of a value into a dense feature vector.
+     * 
+     * @param value
+     * @param featureValues
+     *            the dense feature vector to write to, with all features of
+     *            this modifier being zero
+     * @param offset
+     *            the index in the feature vector of the first feature of this
+     *            modifier
+     */
+    default void generateFeatureValues(Object value, double[] featureValues, int offset) {
+        final double[] values = generateFeatureValues(value);
+        System.arraycopy(values, 0, featureValues, offset, values.length);
+    }
+
     int getFeatureCount();
 
     MLFeatureModifierType getType();
@@ -27,12 +27,17 @@ import org.datacleaner.components.machinelearning.api.MLClassifier;
 import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
 import org.datacleaner.components.machinelearning.api.MLRecord;
 
+import smile.math.SparseArray;
+
 public abstract class AbstractClassifier implements MLClassifier {
 
     private static final long serialVersionUID = 1L;
 
     private final MLClassificationMetadata metadata;
 
+    // derived from the metadata, so not a part of the serialized model
+    private transient int featureCount;
+
     public AbstractClassifier(MLClassificationMetadata classificationMetadata) {
         this.metadata = classificationMetadata;
     }
@@ -40,8 +45,29 @@ public abstract class AbstractClassifier implements MLClassifier {
     @Override
     public MLClassification classify(MLRecord record) {
         final List<MLFeatureModifier> featureModifiers = metadata.getFeatureModifiers();
-        final double[] featureValues = MLFeatureUtils.generateFeatureValues(record, featureModifiers);
-        return classify(featureValues);
+        return classify(MLFeatureUtils.generateFeatureValues(record, featureModifiers, getFeatureCount()));
+    }
+
+    @Override
+    public MLClassification classify(SparseArray featureValues) {
+        final double[] denseFeatureValues = new double[getFeatureCount()];
+        for (SparseArray.Entry entry : featureValues) {
+            denseFeatureValues[entry.i] = entry.x;
+        }
+        return classify(denseFeatureValues);
+    }
+
+    /**
+     * Gets the total number of features of the feature modifiers of the
+     * classifier.
+     * 
+     * @return
+     */
+    protected int getFeatureCount() {
+        if (featureCount == 0) {
+            featureCount = MLFeatureUtils.getFeatureCount(metadata.getFeatureModifiers());
+        }
+        return featureCount;
     }
 
     @Override
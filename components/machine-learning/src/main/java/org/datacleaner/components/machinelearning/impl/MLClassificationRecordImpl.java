@@ -56,6 +56,10 @@ public final class MLClassificationRecordImpl implements MLClassificationRecord
         return record;
     }
 
+    public static MLClassificationRecord forTraining(Object classification, Object[] values) {
+        return new MLClassificationRecordImpl(classification, values);
+    }
+
     private final Object classification;
     private final Object[] featureValues;
 
@@ -0,0 +1,414 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.machinelearning.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.datacleaner.components.convert.ConvertToBooleanTransformer;
+import org.datacleaner.components.convert.ConvertToNumberTransformer;
+import org.datacleaner.components.machinelearning.api.MLClassificationRecord;
+import org.datacleaner.components.machinelearning.api.MLClassificationTrainingData;
+import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
+import org.datacleaner.components.machinelearning.api.MLFeatureModifierType;
+import org.datacleaner.storage.ReservoirSampling;
+
+import smile.math.SparseArray;
+
+/**
+ * Buffers classification training records column by column, instead of as
+ * individual {@link MLClassificationRecord} objects.
+ *
+ * Each feature column is held in chunks of primitive doubles. Numeric and
+ * boolean values are stored directly, while other values are stored as codes
+ * into a dictionary of the distinct values of the column. Classifications are
+ * stored as codes in a separate int column. The dictionaries count the records
+ * referring to each value, so that values of records which are replaced by
+ * sampling are removed again.
+ *
+ * Optionally the buffer has a capacity, in which case it keeps a uniform
+ * random sample of the records added to it.
+ */
+public final class MLClassificationTrainingBuffer implements MLClassificationTrainingData {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final class Dictionary {
+        private final Map<Object, Integer> codes = new HashMap<>();
+        private final List<Object> values = new ArrayList<>();
+        private int[] referenceCounts = new int[16];
+        // codes of removed values, which are reused before new codes are added
+        private int[] freeCodes = new int[16];
+        private int freeCodeCount;
+
+        private int encode(final Object value) {
+            final Integer existingCode = codes.get(value);
+            if (existingCode != null) {
+                referenceCounts[existingCode]++;
+                return existingCode;
+            }
+            final int code;
+            if (freeCodeCount > 0) {
+                code = freeCodes[--freeCodeCount];
+                values.set(code, value);
+            } else {
+                code = values.size();
+                values.add(value);
+                if (code == referenceCounts.length) {
+                    referenceCounts = Arrays.copyOf(referenceCounts, code * 2);
+                }
+            }
+            codes.put(value, code);
+            referenceCounts[code] = 1;
+            return code;
+        }
+
+        /**
+         * Releases a reference to a code, removing its value when no records
+         * refer to it anymore.
+         */
+        private void release(final int code) {
+            if (--referenceCounts[code] > 0) {
+                return;
+            }
+            codes.remove(values.get(code));
+            values.set(code, null);
+            if (freeCodeCount == freeCodes.length) {
+                freeCodes = Arrays.copyOf(freeCodes, freeCodeCount * 2);
+            }
+            freeCodes[freeCodeCount++] = code;
+        }
+
+        private Object decode(final int code) {
+            return values.get(code);
+        }
+
+        /**
+         * Gets the number of codes in use, including the ones that are free
+         * to be reused.
+         */
+        private int getCodeCount() {
+            return values.size();
+        }
+
+        /**
+         * Gets the number of distinct values referred to by records.
+         */
+        private int getValueCount() {
+            return codes.size();
+        }
+    }
+
+    private final MLFeatureModifierType[] types;
+    private final Dictionary[] dictionaries;
+    private final Dictionary classifications;
+    private final List<double[][]> valueChunks;
+    private final List<int[]> classificationChunks;
+    private final int capacity;
+    private int size;
+    private long offeredCount;
+
+    /**
+     * Creates a {@link MLClassificationTrainingBuffer}.
+     *
+     * @param types
+     *            the feature modifier types of the feature columns, which
+     *            determine how values are stored
+     * @param capacity
+     *            the maximum number of records to keep, or 0 or negative for
+     *            no limit
+     */
+    public MLClassificationTrainingBuffer(final List<MLFeatureModifierType> types, final int capacity) {
+        this.types = types.toArray(new MLFeatureModifierType[types.size()]);
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+        this.dictionaries = new Dictionary[this.types.length];
+        for (int i = 0; i < this.types.length; i++) {
+            if (!isNumeric(this.types[i]) && !isBoolean(this.types[i])) {
+                dictionaries[i] = new Dictionary();
+            }
+        }
+        this.classifications = new Dictionary();
+        this.valueChunks = new ArrayList<>();
+        this.classificationChunks = new ArrayList<>();
+    }
+
+    private static boolean isNumeric(final MLFeatureModifierType type) {
+        return type == MLFeatureModifierType.SCALED_MIN_MAX || type == MLFeatureModifierType.DIRECT_NUMERIC;
+    }
+
+    private static boolean isBoolean(final MLFeatureModifierType type) {
+        return type == MLFeatureModifierType.DIRECT_BOOL;
+    }
+
+    /**
+     * Offers a record to the buffer. If the buffer is full, the record
+     * replaces a random record with a probability that keeps the buffer a
+     * uniform sample of all offered records.
+     *
+     * @param record
+     */
+    public synchronized void add(final MLClassificationRecord record) {
+        offeredCount++;
+        final int index = ReservoirSampling.nextIndex(offeredCount, size, capacity);
+        if (index == -1) {
+            return;
+        }
+        final boolean replace = index < size;
+        if (index == size) {
+            if (size % CHUNK_SIZE == 0) {
+                valueChunks.add(new double[types.length][CHUNK_SIZE]);
+                classificationChunks.add(new int[CHUNK_SIZE]);
+            }
+            size++;
+        }
+
+        final double[][] chunk = valueChunks.get(index / CHUNK_SIZE);
+        final int[] classificationChunk = classificationChunks.get(index / CHUNK_SIZE);
+        final int offset = index % CHUNK_SIZE;
+        final Object[] recordValues = record.getRecordValues();
+        for (int i = 0; i < types.length; i++) {
+            final double code = encode(i, recordValues[i]);
+            if (replace && dictionaries[i] != null) {
+                dictionaries[i].release((int) chunk[i][offset]);
+            }
+            chunk[i][offset] = code;
+        }
+        final int classificationCode = classifications.encode(record.getClassification());
+        if (replace) {
+            classifications.release(classificationChunk[offset]);
+        }
+        classificationChunk[offset] = classificationCode;
+    }
+
+    private double encode(final int column, final Object value) {
+        if (dictionaries[column] != null) {
+            return dictionaries[column].encode(value);
+        }
+        if (isBoolean(types[column])) {
+            final Boolean b = ConvertToBooleanTransformer.transformValue(value);
+            return b == null ? Double.NaN : (b.booleanValue() ? 1d : 0d);
+        }
+        final Number n = ConvertToNumberTransformer.transformValue(value);
+        return n == null ? Double.NaN : n.doubleValue();
+    }
+
+    private Object decode(final int column, final double value) {
+        if (dictionaries[column] != null) {
+            return dictionaries[column].decode((int) value);
+        }
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        if (isBoolean(types[column])) {
+            return value == 1d;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of records in the buffer.
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of distinct values of a feature column that are held by
+     * the buffer, or -1 if the values of the column are stored directly.
+     *
+     * @param column
+     * @return
+     */
+    synchronized int getDistinctValueCount(final int column) {
+        return dictionaries[column] == null ? -1 : dictionaries[column].getValueCount();
+    }
+
+    /**
+     * Gets the number of records that were offered to the buffer, including
+     * the ones that were not kept.
+     *
+     * @return
+     */
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    /**
+     * Gets the feature column values of a record.
+     *
+     * @param index
+     * @return
+     */
+    public synchronized Object[] getRecordValues(final int index) {
+        final double[][] chunk = valueChunks.get(index / CHUNK_SIZE);
+        final int offset = index % CHUNK_SIZE;
+        final Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            values[i] = decode(i, chunk[i][offset]);
+        }
+        return values;
+    }
+
+    public synchronized Object getClassification(final int index) {
+        return classifications.decode(classificationChunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE]);
+    }
+
+    /**
+     * Gets the distinct classifications of the records, in the order they
+     * first occur in the buffer.
+     *
+     * @return
+     */
+    @Override
+    public synchronized List<Object> getClassifications() {
+        final int[] remapping = createClassificationRemapping();
+        final Object[] result = new Object[classifications.getCodeCount()];
+        int count = 0;
+        for (int code = 0; code < remapping.length; code++) {
+            if (remapping[code] != -1) {
+                result[remapping[code]] = classifications.decode(code);
+                count++;
+            }
+        }
+        return new ArrayList<>(Arrays.asList(result).subList(0, count));
+    }
+
+    /**
+     * Gets the index of the classification of each record, into the list
+     * returned by {@link #getClassifications()}.
+     *
+     * @return
+     */
+    @Override
+    public synchronized int[] getClassificationVector() {
+        final int[] remapping = createClassificationRemapping();
+        final int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = remapping[classificationChunks.get(i / CHUNK_SIZE)[i % CHUNK_SIZE]];
+        }
+        return result;
+    }
+
+    /**
+     * Maps dictionary codes of classifications to indexes that are
+     * contiguous, even if records with some classifications have been
+     * replaced by sampling.
+     */
+    private int[] createClassificationRemapping() {
+        final int[] remapping = new int[classifications.getCodeCount()];
+        Arrays.fill(remapping, -1);
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            final int code = classificationChunks.get(i / CHUNK_SIZE)[i % CHUNK_SIZE];
+            if (remapping[code] == -1) {
+                remapping[code] = next++;
+            }
+        }
+        return remapping;
+    }
+
+    /**
+     * Generates a matrix of feature values for each record.
+     *
+     * @param featureModifiers
+     * @return
+     */
+    @Override
+    public synchronized double[][] toFeatureVector(final List<MLFeatureModifier> featureModifiers) {
+        final int featureCount = MLFeatureUtils.getFeatureCount(featureModifiers);
+        final double[][] result = new double[size][];
+        for (int i = 0; i < size; i++) {
+            final double[][] chunk = valueChunks.get(i / CHUNK_SIZE);
+            final int offset = i % CHUNK_SIZE;
+            final double[] featureValues = new double[featureCount];
+            int featureOffset = 0;
+            for (int j = 0; j < types.length; j++) {
+                final MLFeatureModifier featureModifier = featureModifiers.get(j);
+                featureModifier.generateFeatureValues(decode(j, chunk[j][offset]), featureValues, featureOffset);
+                featureOffset += featureModifier.getFeatureCount();
+            }
+            result[i] = featureValues;
+        }
+        return result;
+    }
+
+    /**
+     * Generates a sparse feature vector for each record.
+     *
+     * @param featureModifiers
+     * @return
+     */
+    @Override
+    public synchronized SparseArray[] toSparseFeatureVector(final List<MLFeatureModifier> featureModifiers) {
+        final SparseArray[] result = new SparseArray[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = generateSparseFeatureValues(i, featureModifiers);
+        }
+        return result;
+    }
+
+    private SparseArray generateSparseFeatureValues(final int index, final List<MLFeatureModifier> featureModifiers) {
+        final double[][] chunk = valueChunks.get(index / CHUNK_SIZE);
+        final int offset = index % CHUNK_SIZE;
+        final SparseArray featureValues = new SparseArray();
+        int featureOffset = 0;
+        for (int i = 0; i < types.length; i++) {
+            final MLFeatureModifier featureModifier = featureModifiers.get(i);
+            featureModifier.generateFeatureValues(decode(i, chunk[i][offset]), featureValues, featureOffset);
+            featureOffset += featureModifier.getFeatureCount();
+        }
+        return featureValues;
+    }
+
+    /**
+     * Iterates the records of the buffer. The records are created while
+     * iterating, so they are only held in memory while in use.
+     */
+    @Override
+    public Iterator<MLClassificationRecord> iterator() {
+        final int iteratorSize = size();
+        return new Iterator<MLClassificationRecord>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < iteratorSize;
+            }
+
+            @Override
+            public MLClassificationRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final MLClassificationRecord record =
+                        MLClassificationRecordImpl.forTraining(getClassification(index), getRecordValues(index));
+                index++;
+                return record;
+            }
+        };
+    }
+}
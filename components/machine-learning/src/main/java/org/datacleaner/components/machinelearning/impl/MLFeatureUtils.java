@@ -38,6 +38,8 @@ import org.datacleaner.components.machinelearning.api.MLTrainingConstraints;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multisets;
 
+import smile.math.SparseArray;
+
 public class MLFeatureUtils {
 
     public static List<Object> toClassifications(Iterable<MLClassificationRecord> data) {
@@ -66,6 +68,22 @@ public class MLFeatureUtils {
         return x;
     }
 
+    /**
+     * Generates a sparse feature vector for each record.
+     * 
+     * @param data
+     * @param featureModifiers
+     * @return
+     */
+    public static SparseArray[] toSparseFeatureVector(Iterable<? extends MLRecord> data,
+            List<MLFeatureModifier> featureModifiers) {
+        final List<SparseArray> trainingInstances = new ArrayList<>();
+        for (MLRecord record : data) {
+            trainingInstances.add(generateSparseFeatureValues(record, featureModifiers));
+        }
+        return trainingInstances.toArray(new SparseArray[trainingInstances.size()]);
+    }
+
     /**
      * Generates a vector of classifications for each record.
      * 
@@ -112,22 +130,59 @@ public class MLFeatureUtils {
     }
 
     public static double[] generateFeatureValues(MLRecord record, List<MLFeatureModifier> featureModifiers) {
+        return generateFeatureValues(record, featureModifiers, getFeatureCount(featureModifiers));
+    }
+
+    /**
+     * Generates the dense feature vector of a record, when the total feature
+     * count of the feature modifiers is already known.
+     * 
+     * @param record
+     * @param featureModifiers
+     * @param featureCount
+     * @return
+     */
+    public static double[] generateFeatureValues(MLRecord record, List<MLFeatureModifier> featureModifiers,
+            int featureCount) {
         final Object[] recordValues = record.getRecordValues();
         assert featureModifiers.size() == recordValues.length;
 
-        final double[] featureValues = new double[getFeatureCount(featureModifiers)];
+        final double[] featureValues = new double[featureCount];
 
         int offset = 0;
         for (int i = 0; i < recordValues.length; i++) {
-            final Object value = recordValues[i];
             final MLFeatureModifier featureModifier = featureModifiers.get(i);
-            final double[] vector = featureModifier.generateFeatureValues(value);
-            System.arraycopy(vector, 0, featureValues, offset, vector.length);
-            offset += vector.length;
+            featureModifier.generateFeatureValues(recordValues[i], featureValues, offset);
+            offset += featureModifier.getFeatureCount();
         }
         return featureValues;
     }
 
+    public static SparseArray generateSparseFeatureValues(MLRecord record, List<MLFeatureModifier> featureModifiers) {
+        final Object[] recordValues = record.getRecordValues();
+        assert featureModifiers.size() == recordValues.length;
+
+        final SparseArray featureValues = new SparseArray();
+
+        int offset = 0;
+        for (int i = 0; i < recordValues.length; i++) {
+            final MLFeatureModifier featureModifier = featureModifiers.get(i);
+            featureModifier.generateFeatureValues(recordValues[i], featureValues, offset);
+            offset += featureModifier.getFeatureCount();
+        }
+        return featureValues;
+    }
+
+    public static SparseArray toSparseFeatureValues(double[] featureValues) {
+        final SparseArray result = new SparseArray();
+        for (int i = 0; i < featureValues.length; i++) {
+            if (featureValues[i] != 0d) {
+                result.append(i, featureValues[i]);
+            }
+        }
+        return result;
+    }
+
     public static int getFeatureCount(Collection<MLFeatureModifier> featureModifiers) {
         return featureModifiers.stream().mapToInt(f -> f.getFeatureCount()).sum();
     }
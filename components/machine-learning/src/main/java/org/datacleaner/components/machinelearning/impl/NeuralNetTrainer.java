@@ -22,8 +22,8 @@ package org.datacleaner.components.machinelearning.impl;
 import java.util.List;
 
 import org.datacleaner.components.machinelearning.api.MLClassificationMetadata;
-import org.datacleaner.components.machinelearning.api.MLClassificationRecord;
 import org.datacleaner.components.machinelearning.api.MLClassificationTrainer;
+import org.datacleaner.components.machinelearning.api.MLClassificationTrainingData;
 import org.datacleaner.components.machinelearning.api.MLTrainerCallback;
 import org.datacleaner.components.machinelearning.api.MLTrainingOptions;
 import org.datacleaner.components.machinelearning.api.MLClassifier;
@@ -55,11 +55,11 @@ public class NeuralNetTrainer implements MLClassificationTrainer {
     }
 
     @Override
-    public MLClassifier train(Iterable<MLClassificationRecord> data, List<MLFeatureModifier> featureModifiers,
+    public MLClassifier train(MLClassificationTrainingData data, List<MLFeatureModifier> featureModifiers,
             MLTrainerCallback callback) {
-        final List<Object> classifications = MLFeatureUtils.toClassifications(data);
-        final double[][] x = MLFeatureUtils.toFeatureVector(data, featureModifiers);
-        final int[] y = MLFeatureUtils.toClassificationVector(data);
+        final List<Object> classifications = data.getClassifications();
+        final double[][] x = data.toFeatureVector(featureModifiers);
+        final int[] y = data.getClassificationVector();
 
         final int[] unitsPerLayer = new int[hiddenNeuronPerLayer.length + 2];
         // input layer = feature values
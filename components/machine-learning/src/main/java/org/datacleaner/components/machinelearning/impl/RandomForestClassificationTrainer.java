@@ -22,8 +22,8 @@ package org.datacleaner.components.machinelearning.impl;
 import java.util.List;
 
 import org.datacleaner.components.machinelearning.api.MLClassificationMetadata;
-import org.datacleaner.components.machinelearning.api.MLClassificationRecord;
 import org.datacleaner.components.machinelearning.api.MLClassificationTrainer;
+import org.datacleaner.components.machinelearning.api.MLClassificationTrainingData;
 import org.datacleaner.components.machinelearning.api.MLTrainerCallback;
 import org.datacleaner.components.machinelearning.api.MLTrainingOptions;
 import org.datacleaner.components.machinelearning.api.MLClassifier;
@@ -42,11 +42,11 @@ public class RandomForestClassificationTrainer implements MLClassificationTraine
     }
 
     @Override
-    public MLClassifier train(Iterable<MLClassificationRecord> data, List<MLFeatureModifier> featureModifiers,
+    public MLClassifier train(MLClassificationTrainingData data, List<MLFeatureModifier> featureModifiers,
             MLTrainerCallback callback) {
-        final List<Object> classifications = MLFeatureUtils.toClassifications(data);
-        final double[][] x = MLFeatureUtils.toFeatureVector(data, featureModifiers);
-        final int[] y = MLFeatureUtils.toClassificationVector(data);
+        final List<Object> classifications = data.getClassifications();
+        final double[][] x = data.toFeatureVector(featureModifiers);
+        final int[] y = data.getClassificationVector();
 
         final RandomForest randomForest = new RandomForest(x, y, numTrees);
         final MLClassificationMetadata classificationMetadata =
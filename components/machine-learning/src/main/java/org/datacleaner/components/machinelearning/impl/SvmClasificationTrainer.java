@@ -22,8 +22,8 @@ package org.datacleaner.components.machinelearning.impl;
 import java.util.List;
 
 import org.datacleaner.components.machinelearning.api.MLClassificationMetadata;
-import org.datacleaner.components.machinelearning.api.MLClassificationRecord;
 import org.datacleaner.components.machinelearning.api.MLClassificationTrainer;
+import org.datacleaner.components.machinelearning.api.MLClassificationTrainingData;
 import org.datacleaner.components.machinelearning.api.MLTrainerCallback;
 import org.datacleaner.components.machinelearning.api.MLTrainingOptions;
 import org.datacleaner.components.machinelearning.api.MLClassifier;
@@ -31,7 +31,8 @@ import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
 
 import smile.classification.SVM;
 import smile.classification.SVM.Multiclass;
-import smile.math.kernel.GaussianKernel;
+import smile.math.SparseArray;
+import smile.math.kernel.SparseGaussianKernel;
 
 public class SvmClasificationTrainer implements MLClassificationTrainer {
 
@@ -51,21 +52,22 @@ public class SvmClasificationTrainer implements MLClassificationTrainer {
     }
 
     @Override
-    public MLClassifier train(Iterable<MLClassificationRecord> data, List<MLFeatureModifier> featureModifiers,
+    public MLClassifier train(MLClassificationTrainingData data, List<MLFeatureModifier> featureModifiers,
             MLTrainerCallback callback) {
 
-        final double[][] x = MLFeatureUtils.toFeatureVector(data, featureModifiers);
-        final int[] y = MLFeatureUtils.toClassificationVector(data);
-        final List<Object> classifications = MLFeatureUtils.toClassifications(data);
+        // the feature vectors of n-gram and one-hot encoded features are mostly zeros
+        final SparseArray[] x = data.toSparseFeatureVector(featureModifiers);
+        final int[] y = data.getClassificationVector();
+        final List<Object> classifications = data.getClassifications();
 
-        final GaussianKernel kernel = new GaussianKernel(gaussianKernelSigma);
+        final SparseGaussianKernel kernel = new SparseGaussianKernel(gaussianKernelSigma);
         final int numClasses = classifications.size();
 
-        final SVM<double[]> svm;
+        final SVM<SparseArray> svm;
         if (numClasses < 3) {
-            svm = new SVM<double[]>(kernel, softMarginPenalty);
+            svm = new SVM<SparseArray>(kernel, softMarginPenalty);
         } else {
-            svm = new SVM<double[]>(kernel, softMarginPenalty, numClasses, multiclass);
+            svm = new SVM<SparseArray>(kernel, softMarginPenalty, numClasses, multiclass);
         }
         
         for (int j = 0; j < epochs; j++) {
@@ -78,7 +80,7 @@ public class SvmClasificationTrainer implements MLClassificationTrainer {
         final List<String> featureNames = trainingOptions.getColumnNames();
         final MLClassificationMetadata metadata = new MLClassificationMetadata(trainingOptions.getClassificationType(),
                 classifications, featureNames, featureModifiers);
-        return new SmileClassifier(svm, metadata);
+        return new SparseSmileClassifier(svm, metadata);
     }
 
 }
@@ -19,57 +19,135 @@
  */
 package org.datacleaner.components.machinelearning.impl;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
 import org.datacleaner.components.machinelearning.api.MLFeatureModifierType;
 
-import com.google.common.base.CharMatcher;
-import com.google.common.base.Splitter;
+import smile.math.SparseArray;
 
 public class VectorNGramFeatureModifier implements MLFeatureModifier {
 
     private static final long serialVersionUID = 1L;
 
-    public static Iterable<String> split(Object value) {
-        final String str;
+    /**
+     * Splits a value into lower case tokens consisting only of letters.
+     * 
+     * @param value
+     * @return
+     */
+    public static List<String> split(Object value) {
+        final List<String> result = new ArrayList<>();
         if (value == null) {
-            str = "";
-        } else {
-            str = value.toString().toLowerCase().chars().map(c -> {
-                if (Character.isLetter(c)) {
-                    return c;
+            return result;
+        }
+        final String str = value.toString().toLowerCase();
+        final int length = str.length();
+        int tokenStart = -1;
+        int i = 0;
+        while (i < length) {
+            final int c = str.codePointAt(i);
+            if (Character.isLetter(c)) {
+                if (tokenStart == -1) {
+                    tokenStart = i;
                 }
-                // replace punctuation and such, leaving only letters and whitespace
-                return ' ';
-            }).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+            } else if (tokenStart != -1) {
+                // punctuation, whitespace and such end the token
+                result.add(str.substring(tokenStart, i));
+                tokenStart = -1;
+            }
+            i += Character.charCount(c);
         }
-        return Splitter.on(CharMatcher.whitespace()).omitEmptyStrings().split(str);
+        if (tokenStart != -1) {
+            result.add(str.substring(tokenStart));
+        }
+        return result;
     }
 
     private final String[] grams;
     private final int gramLength;
 
+    // derived from "grams", so not a part of the serialized model
+    private transient Map<String, Integer> gramIndexes;
+
     public VectorNGramFeatureModifier(int gramLength, Collection<String> grams) {
         this.gramLength = gramLength;
         this.grams = grams.toArray(new String[grams.size()]);
+        this.gramIndexes = createGramIndexes(this.grams);
+    }
+
+    private static Map<String, Integer> createGramIndexes(String[] grams) {
+        final Map<String, Integer> gramIndexes = new HashMap<>(grams.length * 2);
+        for (int i = 0; i < grams.length; i++) {
+            gramIndexes.put(grams[i], i);
+        }
+        return gramIndexes;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        gramIndexes = createGramIndexes(grams);
     }
 
     @Override
     public double[] generateFeatureValues(Object value) {
         final double[] result = new double[getFeatureCount()];
-        final Iterable<String> parts = split(value);
-        for (String part : parts) {
-            if (part.length() >= gramLength) {
-                for (int i = 0; i < grams.length; i++) {
-                    final String gram = grams[i];
-                    if (part.contains(gram)) {
-                        result[i] = 1;
+        generateFeatureValues(value, result, 0);
+        return result;
+    }
+
+    @Override
+    public void generateFeatureValues(Object value, double[] featureValues, int offset) {
+        final int[] indexes = getGramIndexes(value);
+        for (int index : indexes) {
+            featureValues[offset + index] = 1;
+        }
+    }
+
+    @Override
+    public void generateFeatureValues(Object value, SparseArray featureValues, int offset) {
+        final int[] indexes = getGramIndexes(value);
+        for (int index : indexes) {
+            featureValues.append(offset + index, 1);
+        }
+    }
+
+    /**
+     * Gets the sorted, distinct indexes of the known grams found in a value,
+     * by rolling over each token once and looking up its grams.
+     */
+    private int[] getGramIndexes(Object value) {
+        int[] indexes = new int[8];
+        int count = 0;
+        for (String part : split(value)) {
+            for (int i = 0; i + gramLength <= part.length(); i++) {
+                final Integer index = gramIndexes.get(part.substring(i, i + gramLength));
+                if (index != null) {
+                    if (count == indexes.length) {
+                        indexes = Arrays.copyOf(indexes, count * 2);
                     }
+                    indexes[count++] = index;
                 }
             }
         }
-        return result;
+        if (count == 0) {
+            return new int[0];
+        }
+        Arrays.sort(indexes, 0, count);
+        int distinctCount = 1;
+        for (int i = 1; i < count; i++) {
+            if (indexes[i] != indexes[distinctCount - 1]) {
+                indexes[distinctCount++] = indexes[i];
+            }
+        }
+        return Arrays.copyOf(indexes, distinctCount);
     }
 
     @Override
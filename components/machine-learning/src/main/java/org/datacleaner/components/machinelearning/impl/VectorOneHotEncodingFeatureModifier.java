@@ -27,6 +27,8 @@ import org.datacleaner.components.machinelearning.api.MLFeatureModifierType;
 
 import com.google.common.collect.Maps;
 
+import smile.math.SparseArray;
+
 public class VectorOneHotEncodingFeatureModifier implements MLFeatureModifier {
 
     private static final long serialVersionUID = 1L;
@@ -52,12 +54,24 @@ public class VectorOneHotEncodingFeatureModifier implements MLFeatureModifier {
     @Override
     public double[] generateFeatureValues(Object value) {
         final double[] result = new double[getFeatureCount()];
-        final String v = normalize(value);
-        final Integer index = values.get(v);
+        generateFeatureValues(value, result, 0);
+        return result;
+    }
+
+    @Override
+    public void generateFeatureValues(Object value, double[] featureValues, int offset) {
+        final Integer index = values.get(normalize(value));
         if (index != null) {
-            result[index] = 1;
+            featureValues[offset + index] = 1;
+        }
+    }
+
+    @Override
+    public void generateFeatureValues(Object value, SparseArray featureValues, int offset) {
+        final Integer index = values.get(normalize(value));
+        if (index != null) {
+            featureValues.append(offset + index, 1);
         }
-        return result;
     }
 
     @Override
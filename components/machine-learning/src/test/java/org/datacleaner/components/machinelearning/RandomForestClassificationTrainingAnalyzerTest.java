@@ -30,4 +30,11 @@ public class RandomForestClassificationTrainingAnalyzerTest {
         final MLClassificationTrainingAnalyzer analyzer = new RandomForestClassificationTrainingAnalyzer();
         testHelper.runScenario(analyzer);
     }
+
+    @Test
+    public void testScenarioWithSampledRecords() {
+        final MLClassificationTrainingAnalyzer analyzer = new RandomForestClassificationTrainingAnalyzer();
+        analyzer.maxRecords = 500;
+        testHelper.runScenario(analyzer);
+    }
 }
@@ -0,0 +1,123 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.machinelearning.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.datacleaner.components.machinelearning.api.MLClassificationRecord;
+import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
+import org.datacleaner.components.machinelearning.api.MLFeatureModifierType;
+import org.junit.Test;
+
+public class MLClassificationTrainingBufferTest {
+
+    private static final List<MLFeatureModifierType> TYPES = Arrays.asList(
+            MLFeatureModifierType.VECTOR_ONE_HOT_ENCODING, MLFeatureModifierType.SCALED_MIN_MAX,
+            MLFeatureModifierType.DIRECT_BOOL);
+
+    @Test
+    public void testBufferRecords() {
+        final MLClassificationTrainingBuffer buffer = new MLClassificationTrainingBuffer(TYPES, -1);
+        for (int i = 0; i < 5000; i++) {
+            buffer.add(MLClassificationRecordImpl.forTraining(i % 3 == 0 ? "a" : "b",
+                    new Object[] { "v" + (i % 7), i, i % 2 == 0 }));
+        }
+        buffer.add(MLClassificationRecordImpl.forTraining("c", new Object[] { null, null, null }));
+
+        assertEquals(5001, buffer.size());
+        assertEquals("[v4, 4.0, true]", Arrays.toString(buffer.getRecordValues(4)));
+        assertEquals("[v0, 4095.0, false]", Arrays.toString(buffer.getRecordValues(4095)));
+        assertEquals("[null, null, null]", Arrays.toString(buffer.getRecordValues(5000)));
+        assertEquals("b", buffer.getClassification(4097));
+
+        assertEquals("[a, b, c]", buffer.getClassifications().toString());
+        final int[] classificationVector = buffer.getClassificationVector();
+        assertEquals(0, classificationVector[0]);
+        assertEquals(1, classificationVector[1]);
+        assertEquals(2, classificationVector[5000]);
+
+        int count = 0;
+        for (MLClassificationRecord record : buffer) {
+            assertEquals(buffer.getClassification(count), record.getClassification());
+            count++;
+        }
+        assertEquals(5001, count);
+    }
+
+    @Test
+    public void testFeatureVectorsEqualRecordFeatures() {
+        final MLClassificationTrainingBuffer buffer = new MLClassificationTrainingBuffer(TYPES, -1);
+        final List<MLFeatureModifier> featureModifiers = Arrays.asList(
+                new VectorOneHotEncodingFeatureModifier(Arrays.asList("foo", "bar")),
+                new ScaledMinMaxFeatureModifier(0, 10), new DirectBooleanFeatureModifier());
+        final MLClassificationRecord record1 = MLClassificationRecordImpl.forTraining("x", new Object[] { "bar", 5,
+                true });
+        final MLClassificationRecord record2 = MLClassificationRecordImpl.forTraining("y", new Object[] { "baz", "2",
+                "false" });
+        buffer.add(record1);
+        buffer.add(record2);
+
+        final double[][] featureVector = buffer.toFeatureVector(featureModifiers);
+        assertEquals(Arrays.toString(MLFeatureUtils.generateFeatureValues(record1, featureModifiers)),
+                Arrays.toString(featureVector[0]));
+        assertEquals(Arrays.toString(MLFeatureUtils.generateFeatureValues(record2, featureModifiers)),
+                Arrays.toString(featureVector[1]));
+        assertEquals(3, buffer.toSparseFeatureVector(featureModifiers)[0].size());
+    }
+
+    @Test
+    public void testSampleWhenFull() {
+        final MLClassificationTrainingBuffer buffer = new MLClassificationTrainingBuffer(TYPES, 100);
+        for (int i = 0; i < 10000; i++) {
+            buffer.add(MLClassificationRecordImpl.forTraining(i < 5000 ? "a" : "b", new Object[] { "foo", i, true }));
+        }
+        assertEquals(100, buffer.size());
+        assertEquals(10000, buffer.getOfferedCount());
+
+        // both classifications should be represented, with contiguous indexes
+        final List<Object> classifications = buffer.getClassifications();
+        assertEquals(2, classifications.size());
+        final int[] classificationVector = buffer.getClassificationVector();
+        for (int i = 0; i < classificationVector.length; i++) {
+            assertEquals(buffer.getClassification(i), classifications.get(classificationVector[i]));
+        }
+    }
+
+    @Test
+    public void testReplacedValuesAreRemoved() {
+        final MLClassificationTrainingBuffer buffer = new MLClassificationTrainingBuffer(TYPES, 100);
+        for (int i = 0; i < 10000; i++) {
+            buffer.add(MLClassificationRecordImpl.forTraining("c" + i, new Object[] { "v" + i, i, true }));
+        }
+        assertEquals(100, buffer.size());
+        assertEquals(100, buffer.getDistinctValueCount(0));
+        assertEquals(-1, buffer.getDistinctValueCount(1));
+        assertEquals(100, buffer.getClassifications().size());
+
+        for (int i = 0; i < buffer.size(); i++) {
+            final Object[] recordValues = buffer.getRecordValues(i);
+            assertEquals("v" + ((Number) recordValues[1]).intValue(), recordValues[0]);
+            assertEquals("c" + ((Number) recordValues[1]).intValue(), buffer.getClassification(i));
+        }
+    }
+}
@@ -19,14 +19,19 @@
  */
 package org.datacleaner.components.machinelearning.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.datacleaner.components.machinelearning.api.MLFeatureModifier;
 import org.junit.Test;
 
+import smile.math.SparseArray;
+
 public class VectorNGramFeatureModifierBuilderTest {
 
     @Test
@@ -47,6 +52,48 @@ public class VectorNGramFeatureModifierBuilderTest {
         assertZeroOneFeatureCounts(3, 3, result);
     }
 
+    @Test
+    public void testSplit() {
+        assertEquals("[hello, world, foo, bar]", VectorNGramFeatureModifier.split(" Hello,  WORLD! foo-bar1")
+                .toString());
+        assertEquals("[]", VectorNGramFeatureModifier.split(null).toString());
+        assertEquals("[]", VectorNGramFeatureModifier.split("123 - 456").toString());
+    }
+
+    @Test
+    public void testSparseFeatureValues() {
+        final MLFeatureModifier modifier =
+                new VectorNGramFeatureModifier(2, Arrays.asList("ab", "bc", "cd", "lo", "zz"));
+
+        final double[] dense = modifier.generateFeatureValues("ABC, cd-abc hello");
+        assertArrayEquals(new double[] { 1, 1, 1, 1, 0 }, dense, 0d);
+
+        final SparseArray sparse = new SparseArray();
+        sparse.append(0, 0.5);
+        modifier.generateFeatureValues("ABC, cd-abc hello", sparse, 10);
+        assertEquals("0=0.5,10=1.0,11=1.0,12=1.0,13=1.0", toString(sparse));
+
+        final double[] offsetDense = new double[7];
+        modifier.generateFeatureValues("ABC, cd-abc hello", offsetDense, 2);
+        assertArrayEquals(new double[] { 0, 0, 1, 1, 1, 1, 0 }, offsetDense, 0d);
+
+        // the gram index is rebuilt when a serialized model is loaded
+        final MLFeatureModifier deserialized =
+                (MLFeatureModifier) SerializationUtils.deserialize(SerializationUtils.serialize(modifier));
+        assertArrayEquals(dense, deserialized.generateFeatureValues("ABC, cd-abc hello"), 0d);
+    }
+
+    private String toString(SparseArray sparse) {
+        final StringBuilder sb = new StringBuilder();
+        for (SparseArray.Entry entry : sparse) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.i).append('=').append(entry.x);
+        }
+        return sb.toString();
+    }
+
     private void assertZeroOneFeatureCounts(int expected0, int expected1, double[] features) {
         int count0 = 0;
         int count1 = 0;
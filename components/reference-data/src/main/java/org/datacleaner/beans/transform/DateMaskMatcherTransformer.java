@@ -32,8 +32,7 @@ import org.datacleaner.api.InputRow;
 import org.datacleaner.api.OutputColumns;
 import org.datacleaner.api.Transformer;
 import org.datacleaner.components.categories.DateAndTimeCategory;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
+import org.datacleaner.components.convert.DateMaskParser;
 
 @Named("Date mask matcher")
 @Description("Matches String values against a set of date masks, producing a corresponding set of output columns, "
@@ -54,7 +53,7 @@ public class DateMaskMatcherTransformer implements Transformer {
     @Configured
     MatchOutputType _outputType = MatchOutputType.TRUE_FALSE;
 
-    private DateTimeFormatter[] _dateTimeFormatters;
+    private DateMaskParser _dateMaskParser;
 
     public DateMaskMatcherTransformer(final InputColumn<String> column) {
         _column = column;
@@ -65,15 +64,8 @@ public class DateMaskMatcherTransformer implements Transformer {
 
     @Initialize
     public void init() {
-        _dateTimeFormatters = new DateTimeFormatter[_dateMasks.length];
-        for (int i = 0; i < _dateTimeFormatters.length; i++) {
-            try {
-                _dateTimeFormatters[i] = DateTimeFormat.forPattern(_dateMasks[i]);
-            } catch (final Exception e) {
-                // not a valid pattern!
-                _dateTimeFormatters[i] = null;
-            }
-        }
+        // invalid patterns will never match
+        _dateMaskParser = new DateMaskParser(_dateMasks, null);
     }
 
     @Override
@@ -100,18 +92,9 @@ public class DateMaskMatcherTransformer implements Transformer {
 
         final String value = inputRow.getValue(_column);
         if (value != null) {
-            for (int i = 0; i < _dateTimeFormatters.length; i++) {
-                final DateTimeFormatter dateTimeFormatter = _dateTimeFormatters[i];
-                if (dateTimeFormatter != null) {
-                    boolean match = false;
-                    try {
-                        // this will throw an exception if the value is not
-                        // complying to the pattern
-                        dateTimeFormatter.parseDateTime(value);
-                        match = true;
-                    } catch (final Exception e) {
-                        // ignore, it doesn't match
-                    }
+            for (int i = 0; i < _dateMasks.length; i++) {
+                if (_dateMaskParser.isValid(i)) {
+                    final boolean match = _dateMaskParser.matches(i, value);
 
                     if (_outputType == MatchOutputType.TRUE_FALSE) {
                         result[i] = match;
@@ -44,6 +44,11 @@ public class ValueDistributionAnalyzerResultReducer implements AnalyzerResultRed
     @Provided
     RowAnnotationFactory _rowAnnotationFactory;
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     @Override
     public ValueDistributionAnalyzerResult reduce(
             final Collection<? extends ValueDistributionAnalyzerResult> analyzerResults) {
@@ -44,6 +44,11 @@ public class ValueMatchAnalyzerResultReducer implements AnalyzerResultReducer<Va
     @Provided
     RowAnnotationFactory _rowAnnotationFactory;
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     @Override
     public ValueMatchAnalyzerResult reduce(final Collection<? extends ValueMatchAnalyzerResult> analyzerResults) {
         final ValueMatchAnalyzerResult firstResult = analyzerResults.iterator().next();
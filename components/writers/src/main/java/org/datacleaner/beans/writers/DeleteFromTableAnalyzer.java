@@ -21,6 +21,7 @@ package org.datacleaner.beans.writers;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +36,7 @@ import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
 import org.apache.metamodel.delete.RowDeletionBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.SelectItem;
@@ -46,6 +48,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -59,6 +62,7 @@ import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.MappedProperty;
+import org.datacleaner.api.NumberProperty;
 import org.datacleaner.api.Provided;
 import org.datacleaner.api.SchemaProperty;
 import org.datacleaner.api.TableProperty;
@@ -129,17 +133,31 @@ public class DeleteFromTableAnalyzer
     WriteBufferSizeOption bufferSizeOption = WriteBufferSizeOption.MEDIUM;
 
     @Inject
-    @Configured(value = "How to handle deletion errors?", order = 7)
+    @Configured(value = "Batches in flight", required = false, order = 7)
+    @Description("How many batches may be committed in the background by a dedicated writer thread, while new "
+            + "records are buffered. If zero, batches are committed by the processing threads.")
+    @NumberProperty(negative = false)
+    int batchesInFlight = 0;
+
+    @Inject
+    @Configured(value = "Set-based deletes", required = false, order = 8)
+    @Description("Apply each batch with a single statement, by joining the table with a temporary staging table "
+            + "that holds the batch. Only applies to JDBC datastores that support temporary tables. If the "
+            + "statement fails, the batch is applied record by record.")
+    boolean setBasedDeletes = false;
+
+    @Inject
+    @Configured(value = "How to handle deletion errors?", order = 9)
     ErrorHandlingOption errorHandlingOption = ErrorHandlingOption.STOP_JOB;
 
     @Inject
-    @Configured(value = "Error log file location", required = false, order = 8)
+    @Configured(value = "Error log file location", required = false, order = 10)
     @Description("Directory or file path for saving erroneous records")
     @FileProperty(accessMode = FileAccessMode.SAVE, extension = ".csv")
     File errorLogFile = TEMP_DIR;
 
     @Inject
-    @Configured(required = false, order = 9)
+    @Configured(required = false, order = 11)
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
@@ -152,6 +170,8 @@ public class DeleteFromTableAnalyzer
     private AtomicInteger _updatedRowCount;
     private AtomicInteger _errorRowCount;
     private CsvDataContext _errorDataContext;
+    private boolean _setBased;
+    private String _stagingTable;
 
     @Validate
     public void validate() {
@@ -171,7 +191,7 @@ public class DeleteFromTableAnalyzer
         final int bufferSize = bufferSizeOption.calculateBufferSize(0); //TODO what buffer size? needed?
         logger.info("Row buffer size set to {}", bufferSize);
 
-        _writeBuffer = new WriteBuffer(bufferSize, this);
+        _writeBuffer = new WriteBuffer(bufferSize, batchesInFlight, this);
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
@@ -188,6 +208,33 @@ public class DeleteFromTableAnalyzer
             if (!columnsNotFound.isEmpty()) {
                 throw new IllegalArgumentException("Could not find column(s): " + columnsNotFound);
             }
+
+            _setBased = setBasedDeletes;
+            _stagingTable = null;
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            if (_setBased && dc instanceof JdbcDataContext && StagingTableWriter.isDeclaredOnce(
+                    (JdbcDataContext) dc)) {
+                // creating the staging table is DDL which commits, so it is
+                // not done for each batch
+                try {
+                    final Column[] stagingColumns = _targetConditionColumns;
+                    _stagingTable = new StagingTableWriter((JdbcDataContext) dc).createStagingTable(stagingColumns);
+                } catch (final SQLException e) {
+                    logger.warn("Could not create staging table, applying records one by one: {}", e.getMessage());
+                    _setBased = false;
+                }
+            }
+        }
+    }
+
+    @Close
+    public void close() {
+        if (_stagingTable != null) {
+            try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+                new StagingTableWriter((JdbcDataContext) con.getUpdateableDataContext()).dropStagingTable(
+                        _stagingTable);
+            }
+            _stagingTable = null;
         }
     }
 
@@ -336,38 +383,90 @@ public class DeleteFromTableAnalyzer
             final Column[] whereColumns =
                     con.getSchemaNavigator().convertToColumns(schemaName, tableName, conditionColumnNames);
             final UpdateableDataContext dc = con.getUpdateableDataContext();
-            dc.executeUpdate((BatchUpdateScript) callback -> {
-                int deleteCount = 0;
-                for (final Object[] rowData : buffer) {
-                    RowDeletionBuilder deletionBuilder = callback.deleteFrom(tableName);
-
-                    for (int i = 0; i < whereColumns.length; i++) {
-                        final Object value = rowData[i];
-                        final Column whereColumn = whereColumns[i];
-                        final FilterItem filterItem =
-                                new FilterItem(new SelectItem(whereColumn), OperatorType.EQUALS_TO, value);
-
-                        deletionBuilder = deletionBuilder.where(filterItem);
-                    }
-
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Updating: {}", Arrays.toString(rowData));
-                    }
-
-                    try {
-                        deletionBuilder.execute();
-                        deleteCount++;
-                        _updatedRowCount.incrementAndGet();
-                    } catch (final RuntimeException e) {
-                        errorOccurred(rowData, e);
-                    }
+            if (_setBased && dc instanceof JdbcDataContext && StagingTableWriter.isSupported(
+                    (JdbcDataContext) dc)) {
+                final Iterable<Object[]> remainingRows = deleteSetBased((JdbcDataContext) dc, whereColumns, buffer);
+                deleteRowByRow(dc, whereColumns, remainingRows);
+            } else {
+                deleteRowByRow(dc, whereColumns, buffer);
+            }
+        }
+    }
+
+    /**
+     * Applies the records of a batch through a staging table.
+     *
+     * @return the records which still need to be deleted one by one
+     */
+    private Iterable<Object[]> deleteSetBased(final JdbcDataContext dc, final Column[] whereColumns,
+            final Iterable<Object[]> buffer) {
+        final List<Object[]> stagedRows = new ArrayList<>();
+        final List<Object[]> remainingRows = new ArrayList<>();
+        for (final Object[] rowData : buffer) {
+            if (Arrays.asList(rowData).subList(0, conditionValues.length).contains(null)) {
+                // NULL never matches in a join, so an IS NULL condition is needed
+                remainingRows.add(rowData);
+            } else {
+                stagedRows.add(rowData);
+            }
+        }
+
+        if (stagedRows.isEmpty()) {
+            return remainingRows;
+        }
+
+        try {
+            final int affectedCount = new StagingTableWriter(dc, _stagingTable).delete(whereColumns, stagedRows);
+            // like when deleting record by record, the records are counted
+            // rather than the rows they affected
+            final int deleteCount = stagedRows.size();
+            logger.debug("{} staged records deleted {} rows", deleteCount, affectedCount);
+            _updatedRowCount.addAndGet(deleteCount);
+            _componentContext.publishMessage(new ExecutionLogMessage(deleteCount + " deletes executed"));
+            return remainingRows;
+        } catch (final SQLException | RuntimeException e) {
+            logger.info("Set-based delete failed, deleting records one by one: {}", e.getMessage());
+            return buffer;
+        }
+    }
+
+    private void deleteRowByRow(final UpdateableDataContext dc, final Column[] whereColumns,
+            final Iterable<Object[]> buffer) {
+        if (!buffer.iterator().hasNext()) {
+            return;
+        }
+
+        dc.executeUpdate((BatchUpdateScript) callback -> {
+            int deleteCount = 0;
+            for (final Object[] rowData : buffer) {
+                RowDeletionBuilder deletionBuilder = callback.deleteFrom(tableName);
+
+                for (int i = 0; i < whereColumns.length; i++) {
+                    final Object value = rowData[i];
+                    final Column whereColumn = whereColumns[i];
+                    final FilterItem filterItem =
+                            new FilterItem(new SelectItem(whereColumn), OperatorType.EQUALS_TO, value);
+
+                    deletionBuilder = deletionBuilder.where(filterItem);
                 }
 
-                if (deleteCount > 0) {
-                    _componentContext.publishMessage(new ExecutionLogMessage(deleteCount + " deletes executed"));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Updating: {}", Arrays.toString(rowData));
                 }
-            });
-        }
+
+                try {
+                    deletionBuilder.execute();
+                    deleteCount++;
+                    _updatedRowCount.incrementAndGet();
+                } catch (final RuntimeException e) {
+                    errorOccurred(rowData, e);
+                }
+            }
+
+            if (deleteCount > 0) {
+                _componentContext.publishMessage(new ExecutionLogMessage(deleteCount + " deletes executed"));
+            }
+        });
     }
 
     protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
@@ -21,14 +21,21 @@ package org.datacleaner.beans.writers;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.sql.DataSource;
 
+import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.metamodel.BatchUpdateScript;
 import org.apache.metamodel.UpdateableDataContext;
@@ -36,6 +43,7 @@ import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
 import org.apache.metamodel.delete.RowDeletionBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
@@ -44,6 +52,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -57,6 +66,7 @@ import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.MappedProperty;
+import org.datacleaner.api.NumberProperty;
 import org.datacleaner.api.Provided;
 import org.datacleaner.api.SchemaProperty;
 import org.datacleaner.api.TableProperty;
@@ -64,9 +74,12 @@ import org.datacleaner.api.Validate;
 import org.datacleaner.components.categories.WriteSuperCategory;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.FileDatastore;
+import org.datacleaner.connection.JdbcBulkLoader;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.SchemaNavigator;
 import org.datacleaner.connection.UpdateableDatastore;
 import org.datacleaner.connection.UpdateableDatastoreConnection;
+import org.datacleaner.util.StringUtils;
 import org.datacleaner.util.WriteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,58 +100,92 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
     private static final Logger logger = LoggerFactory.getLogger(InsertIntoTableAnalyzer.class);
 
     @Inject
-    @Configured(PROPERTY_NAME_VALUES)
+    @Configured(value = PROPERTY_NAME_VALUES, order = 1)
     @Description("Values to write to the table")
     InputColumn<?>[] values;
 
     @Inject
-    @Configured
+    @Configured(order = 2)
     @Description("Names of columns in the target table.")
     @ColumnProperty
     @MappedProperty(PROPERTY_NAME_VALUES)
     String[] columnNames;
 
     @Inject
-    @Configured
+    @Configured(order = 3)
     @Description("Datastore to write to")
     UpdateableDatastore datastore;
 
     @Inject
-    @Configured(required = false)
+    @Configured(required = false, order = 4)
     @Description("Schema name of target table")
     @SchemaProperty
     String schemaName;
 
     @Inject
-    @Configured(required = false)
+    @Configured(required = false, order = 5)
     @Description("Table to target (insert into)")
     @TableProperty
     String tableName;
 
     @Inject
-    @Configured
+    @Configured(order = 6)
     @Description("Truncate table before inserting?")
     boolean truncateTable = false;
 
     @Inject
-    @Configured("Buffer size")
+    @Configured(value = "Buffer size", order = 7)
     @Description(
             "How much data to buffer before committing batches of data. Large batches often perform better, "
                     + "but require more memory.")
     WriteBufferSizeOption bufferSizeOption = WriteBufferSizeOption.MEDIUM;
 
     @Inject
-    @Configured(value = "How to handle insertion errors?")
+    @Configured(value = "Batches in flight", required = false, order = 8)
+    @Description("How many batches may be committed in the background by a dedicated writer thread, while new "
+            + "records are buffered. If zero, batches are committed by the processing threads.")
+    @NumberProperty(negative = false)
+    int batchesInFlight = 0;
+
+    @Inject
+    @Configured(value = "Parallel connections", required = false, order = 9)
+    @Description("How many database connections to commit each batch through concurrently. Only applies to "
+            + "JDBC datastores.")
+    @NumberProperty(negative = false, zero = false)
+    int parallelConnections = 1;
+
+    @Inject
+    @Configured(value = "Partition by column", required = false, order = 10)
+    @Description("Name of a target column whose values are used to distribute records among the parallel "
+            + "connections, so that records with the same value are written through the same connection. If not "
+            + "set, each connection writes a consecutive part of the batch.")
+    String partitionColumnName;
+
+    @Inject
+    @Configured(value = "Bulk load", required = false, order = 11)
+    @Description("Load batches into JDBC datastores using the fastest insertion strategy of the database, eg. "
+            + "multi-row INSERT statements or COPY. If disabled, records are inserted one by one. Batches "
+            + "that fail to bulk load are inserted one by one to find the erroneous records.")
+    boolean bulkLoad = false;
+
+    @Inject
+    @Configured(value = "Direct-path insert", required = false, order = 12)
+    @Description("Request direct-path inserts if the database supports them (Oracle). A direct-path insert locks "
+            + "the table exclusively, so it is not used when writing through parallel connections.")
+    boolean directPathInsert = false;
+
+    @Inject
+    @Configured(value = "How to handle insertion errors?", order = 13)
     ErrorHandlingOption errorHandlingOption = ErrorHandlingOption.STOP_JOB;
 
     @Inject
-    @Configured(value = "Error log file location", required = false)
+    @Configured(value = "Error log file location", required = false, order = 14)
     @Description("Directory or file path for saving erroneous records")
     @FileProperty(accessMode = FileAccessMode.SAVE, extension = ".csv")
     File errorLogFile = TEMP_DIR;
 
     @Inject
-    @Configured(required = false)
+    @Configured(required = false, order = 15)
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
@@ -152,6 +199,14 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
     private AtomicInteger _errorRowCount;
     private CsvDataContext _errorDataContext;
 
+    // only used when writing through parallel connections
+    private DataSource _parallelDataSource;
+    private UpdateableDatastoreConnection _parallelConnection;
+    private UpdateableDataContext _parallelDataContext;
+    private Column[] _parallelTargetColumns;
+    private ExecutorService _parallelExecutor;
+    private int _partitionColumnIndex;
+
     @Validate
     public void validate() {
         if (values.length != columnNames.length) {
@@ -159,6 +214,13 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
                     "Length of 'Values' (" + values.length + ") and 'Column names' (" + columnNames.length
                             + ") must be equal");
         }
+        if (parallelConnections < 1) {
+            throw new IllegalStateException("Parallel connections must be a positive number");
+        }
+        if (partitionColumnName != null && !ArrayUtils.contains(columnNames, partitionColumnName)) {
+            throw new IllegalStateException(
+                    "Partition column '" + partitionColumnName + "' is not one of the mapped column names");
+        }
     }
 
     /**
@@ -200,7 +262,7 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
         final int bufferSize = bufferSizeOption.calculateBufferSize(values.length);
         logger.info("Row buffer size set to {}", bufferSize);
 
-        _writeBuffer = new WriteBuffer(bufferSize, this);
+        _writeBuffer = new WriteBuffer(bufferSize, batchesInFlight, this);
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
@@ -223,6 +285,66 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
                     "Configuration yielded unexpected target column count (got " + _targetColumns.length + ", expected "
                             + values.length + ")");
         }
+
+        if (parallelConnections > 1) {
+            if (datastore instanceof JdbcDatastore) {
+                initParallelConnections((JdbcDatastore) datastore);
+            } else {
+                logger.warn("Parallel connections are only supported for JDBC datastores, writing through a single "
+                        + "connection to {}", datastore.getName());
+            }
+        }
+    }
+
+    private void initParallelConnections(final JdbcDatastore jdbcDatastore) {
+        // each update on a data source based data context borrows its own
+        // connection from the pool
+        if (!StringUtils.isNullOrEmpty(jdbcDatastore.getDatasourceJndiUrl())) {
+            // the connection of a JNDI datastore wraps the looked up data
+            // source, so its data context can be shared by the writer threads
+            _parallelConnection = jdbcDatastore.openConnection();
+            _parallelDataContext = _parallelConnection.getUpdateableDataContext();
+        } else if (jdbcDatastore.getJdbcUrl() != null) {
+            _parallelDataSource = jdbcDatastore.createDataSource();
+            _parallelDataContext = new JdbcDataContext(_parallelDataSource, jdbcDatastore.getTableTypes(),
+                    jdbcDatastore.getCatalogName());
+        } else {
+            logger.warn("Datastore {} has no JDBC URL or JNDI data source, writing through a single connection",
+                    jdbcDatastore.getName());
+            return;
+        }
+
+        logger.info("Writing batches through {} parallel connections", parallelConnections);
+        _parallelTargetColumns =
+                new SchemaNavigator(_parallelDataContext).convertToColumns(schemaName, tableName, columnNames);
+        _parallelExecutor = Executors.newFixedThreadPool(parallelConnections, runnable -> {
+            final Thread thread = new Thread(runnable, "InsertIntoTable writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _partitionColumnIndex = partitionColumnName == null ? -1 : ArrayUtils.indexOf(columnNames,
+                partitionColumnName);
+    }
+
+    @Close
+    public void close() {
+        if (_parallelExecutor != null) {
+            _parallelExecutor.shutdown();
+            _parallelExecutor = null;
+        }
+        if (_parallelDataSource instanceof BasicDataSource) {
+            try {
+                ((BasicDataSource) _parallelDataSource).close();
+            } catch (final SQLException e) {
+                logger.warn("Failed to close connection pool", e);
+            }
+        }
+        if (_parallelConnection != null) {
+            _parallelConnection.close();
+            _parallelConnection = null;
+        }
+        _parallelDataSource = null;
+        _parallelDataContext = null;
     }
 
     @Override
@@ -392,42 +514,115 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
      */
     @Override
     public void run(final Iterable<Object[]> buffer) throws Exception {
+        if (_parallelExecutor != null) {
+            runParallel(buffer);
+            return;
+        }
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final Column[] columns = con.getSchemaNavigator().convertToColumns(schemaName, tableName, columnNames);
+            insert(con.getUpdateableDataContext(), columns, buffer);
+        }
+    }
 
-            if (logger.isDebugEnabled()) {
-                logger.debug("Inserting into columns: {}", Arrays.toString(columns));
+    /**
+     * Splits a batch into partitions which are inserted concurrently, each
+     * through its own connection.
+     */
+    private void runParallel(final Iterable<Object[]> buffer) throws Exception {
+        final List<List<Object[]>> partitions = new ArrayList<>(parallelConnections);
+        for (int i = 0; i < parallelConnections; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        if (_partitionColumnIndex == -1) {
+            final List<Object[]> rows = new ArrayList<>();
+            buffer.forEach(rows::add);
+            final int partitionSize = (rows.size() + parallelConnections - 1) / parallelConnections;
+            for (int i = 0; i < rows.size(); i++) {
+                partitions.get(i / partitionSize).add(rows.get(i));
             }
+        } else {
+            for (final Object[] rowData : buffer) {
+                final Object key = rowData[_partitionColumnIndex];
+                final int hash = key == null ? 0 : key.hashCode() & Integer.MAX_VALUE;
+                partitions.get(hash % parallelConnections).add(rowData);
+            }
+        }
 
-            final UpdateableDataContext dc = con.getUpdateableDataContext();
-            dc.executeUpdate((BatchUpdateScript) callback -> {
-                int insertCount = 0;
-                for (final Object[] rowData : buffer) {
-                    RowInsertionBuilder insertBuilder = callback.insertInto(columns[0].getTable());
-                    for (int i = 0; i < columns.length; i++) {
-                        insertBuilder = insertBuilder.value(columns[i], rowData[i]);
-                    }
+        final List<Future<?>> futures = new ArrayList<>(parallelConnections);
+        for (final List<Object[]> partition : partitions) {
+            if (!partition.isEmpty()) {
+                futures.add(_parallelExecutor.submit(() -> {
+                    insert(_parallelDataContext, _parallelTargetColumns, partition);
+                    return null;
+                }));
+            }
+        }
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Inserting: {}", Arrays.toString(rowData));
-                    }
+        // wait for all partitions before reporting the first error, if any
+        Exception error = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final ExecutionException e) {
+                if (error == null) {
+                    final Throwable cause = e.getCause();
+                    error = cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
 
-                    try {
-                        insertBuilder.execute();
-                        insertCount++;
-                        _writtenRowCount.incrementAndGet();
-                    } catch (final RuntimeException e) {
-                        errorOccurred(rowData, e);
-                    }
+    private void insert(final UpdateableDataContext dc, final Column[] columns, final Iterable<Object[]> buffer) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Inserting into columns: {}", Arrays.toString(columns));
+        }
+
+        if (bulkLoad && dc instanceof JdbcDataContext) {
+            try {
+                // parallel connections would wait for each other's table lock
+                final JdbcBulkLoader bulkLoader =
+                        JdbcBulkLoader.create((JdbcDataContext) dc, directPathInsert && _parallelExecutor == null);
+                final int insertCount = bulkLoader.load(columns, buffer);
+                _writtenRowCount.addAndGet(insertCount);
+                _componentContext.publishMessage(new ExecutionLogMessage(insertCount + " inserts executed"));
+                return;
+            } catch (final RuntimeException e) {
+                // the batch has been rolled back - insert the records one by
+                // one to find and handle the erroneous ones
+                logger.info("Bulk load failed, inserting records individually: {}", e.getMessage());
+            }
+        }
+
+        dc.executeUpdate((BatchUpdateScript) callback -> {
+            int insertCount = 0;
+            for (final Object[] rowData : buffer) {
+                RowInsertionBuilder insertBuilder = callback.insertInto(columns[0].getTable());
+                for (int i = 0; i < columns.length; i++) {
+                    insertBuilder = insertBuilder.value(columns[i], rowData[i]);
                 }
 
-                if (insertCount > 0) {
-                    _componentContext.publishMessage(new ExecutionLogMessage(insertCount + " inserts executed"));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Inserting: {}", Arrays.toString(rowData));
                 }
-            });
 
-        }
+                try {
+                    insertBuilder.execute();
+                    insertCount++;
+                    _writtenRowCount.incrementAndGet();
+                } catch (final RuntimeException e) {
+                    errorOccurred(rowData, e);
+                }
+            }
+
+            if (insertCount > 0) {
+                _componentContext.publishMessage(new ExecutionLogMessage(insertCount + " inserts executed"));
+            }
+        });
     }
 
     protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
@@ -436,24 +631,32 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
             throw e;
         } else {
             logger.warn("Error occurred while inserting record. Writing to error stream", e);
-            _errorDataContext.executeUpdate(cb -> {
-                RowInsertionBuilder insertBuilder = cb.insertInto(_errorDataContext.getDefaultSchema().getTable(0));
-                for (int i = 0; i < columnNames.length; i++) {
-                    insertBuilder = insertBuilder.value(columnNames[i], rowData[i]);
-                }
+            // errors may occur concurrently when writing through parallel
+            // connections
+            synchronized (_errorDataContext) {
+                writeErrorRecord(rowData, e);
+            }
+        }
+    }
 
-                if (additionalErrorLogValues != null) {
-                    for (int i = 0; i < additionalErrorLogValues.length; i++) {
-                        final String columnName =
-                                translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
-                        final Object value = rowData[columnNames.length + i];
-                        insertBuilder = insertBuilder.value(columnName, value);
-                    }
+    private void writeErrorRecord(final Object[] rowData, final RuntimeException e) {
+        _errorDataContext.executeUpdate(cb -> {
+            RowInsertionBuilder insertBuilder = cb.insertInto(_errorDataContext.getDefaultSchema().getTable(0));
+            for (int i = 0; i < columnNames.length; i++) {
+                insertBuilder = insertBuilder.value(columnNames[i], rowData[i]);
+            }
+
+            if (additionalErrorLogValues != null) {
+                for (int i = 0; i < additionalErrorLogValues.length; i++) {
+                    final String columnName =
+                            translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
+                    final Object value = rowData[columnNames.length + i];
+                    insertBuilder = insertBuilder.value(columnName, value);
                 }
+            }
 
-                insertBuilder = insertBuilder.value(ERROR_MESSAGE_COLUMN_NAME, e.getMessage());
-                insertBuilder.execute();
-            });
-        }
+            insertBuilder = insertBuilder.value(ERROR_MESSAGE_COLUMN_NAME, e.getMessage());
+            insertBuilder.execute();
+        });
     }
 }
@@ -0,0 +1,452 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.writers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.jdbc.dialects.IQueryRewriter;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.datacleaner.connection.JdbcBulkLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a batch of updates or deletes to a table of a {@link JdbcDataContext}
+ * using a single set-based statement. The batch is first bulk loaded into a
+ * staging table, which is then joined with the target table.
+ *
+ * The staging table is a temporary table, so that it is never visible to
+ * other sessions and does not outlive the connection. Use
+ * {@link #isSupported(JdbcDataContext)} to determine if the database of a
+ * data context supports temporary tables.
+ *
+ * On databases where {@link #isDeclaredOnce(JdbcDataContext)}, ie. Oracle,
+ * creating a temporary table is DDL which commits implicitly, and its
+ * definition is permanent. The staging table must then be created once using
+ * {@link #createStagingTable(Column[])}, passed to the writers of all batches,
+ * and dropped using {@link #dropStagingTable(String)}.
+ */
+final class StagingTableWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingTableWriter.class);
+
+    private static final String STAGING_ALIAS = "dc_s";
+    private static final String STAGING_COLUMN_PREFIX = "dc_s_";
+    private static final String TARGET_ALIAS = "dc_t";
+    private static final String DATABASE_PRODUCT_DERBY = "Apache Derby";
+    private static final String DATABASE_PRODUCT_MARIADB = "MariaDB";
+
+    private final JdbcDataContext _dataContext;
+    private final String _productName;
+    private final IQueryRewriter _queryRewriter;
+    private final JdbcBulkLoader _bulkLoader;
+    private final String _declaredStagingTable;
+
+    public StagingTableWriter(final JdbcDataContext dataContext) {
+        this(dataContext, null);
+    }
+
+    /**
+     * Creates a {@link StagingTableWriter}.
+     *
+     * @param dataContext
+     * @param declaredStagingTable
+     *            the staging table created by
+     *            {@link #createStagingTable(Column[])}, or null if a
+     *            temporary staging table should be created for each batch
+     */
+    public StagingTableWriter(final JdbcDataContext dataContext, final String declaredStagingTable) {
+        _dataContext = dataContext;
+        _declaredStagingTable = declaredStagingTable;
+        _productName = dataContext.getDatabaseProductName() == null ? "" : dataContext.getDatabaseProductName();
+        _queryRewriter = dataContext.getQueryRewriter();
+        _bulkLoader = JdbcBulkLoader.create(dataContext);
+    }
+
+    /**
+     * Determines if the database of a {@link JdbcDataContext} supports the
+     * temporary staging tables of a {@link StagingTableWriter}. If not, the
+     * records should be applied one by one.
+     *
+     * @param dataContext
+     * @return
+     */
+    public static boolean isSupported(final JdbcDataContext dataContext) {
+        final String productName = dataContext.getDatabaseProductName();
+        if (productName == null) {
+            return false;
+        }
+        switch (productName) {
+        case JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL:
+        case JdbcDataContext.DATABASE_PRODUCT_MYSQL:
+        case DATABASE_PRODUCT_MARIADB:
+        case JdbcDataContext.DATABASE_PRODUCT_H2:
+        case JdbcDataContext.DATABASE_PRODUCT_HSQLDB:
+        case JdbcDataContext.DATABASE_PRODUCT_SQLITE:
+        case JdbcDataContext.DATABASE_PRODUCT_SQLSERVER:
+        case JdbcDataContext.DATABASE_PRODUCT_ORACLE:
+        case DATABASE_PRODUCT_DERBY:
+            return true;
+        default:
+            return productName.startsWith(JdbcDataContext.DATABASE_PRODUCT_DB2_PREFIX);
+        }
+    }
+
+    /**
+     * Determines if the staging table should be created once, rather than for
+     * each batch, see {@link #createStagingTable(Column[])}.
+     *
+     * @param dataContext
+     * @return
+     */
+    public static boolean isDeclaredOnce(final JdbcDataContext dataContext) {
+        return JdbcDataContext.DATABASE_PRODUCT_ORACLE.equals(dataContext.getDatabaseProductName());
+    }
+
+    /**
+     * Creates a staging table which is shared by the writers of all batches.
+     *
+     * @param stagingColumns
+     *            the columns of the records to stage
+     * @return the name of the staging table
+     * @throws SQLException
+     */
+    public String createStagingTable(final Column[] stagingColumns) throws SQLException {
+        final String stagingTable = createStagingTableName();
+        final Connection connection = _dataContext.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(createStagingTableSql(stagingTable, stagingColumns));
+        } finally {
+            _dataContext.close(connection);
+        }
+        logger.info("Created staging table {}", stagingTable);
+        return stagingTable;
+    }
+
+    /**
+     * Drops a staging table created by {@link #createStagingTable(Column[])}.
+     *
+     * @param stagingTable
+     */
+    public void dropStagingTable(final String stagingTable) {
+        final Connection connection = _dataContext.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + stagingTable);
+        } catch (final SQLException e) {
+            logger.warn("Could not drop staging table {}", stagingTable, e);
+        } finally {
+            _dataContext.close(connection);
+        }
+    }
+
+    /**
+     * Updates the target table with a batch of records.
+     *
+     * @param updateColumns
+     *            the columns to update
+     * @param whereColumns
+     *            the columns identifying the records to update. The staged
+     *            values of these columns must be unique and non-null.
+     * @param rows
+     *            records holding the values of the update columns, followed
+     *            by the values of the where columns
+     * @return the number of updated records, as reported by the database
+     * @throws SQLException
+     *             if the batch could not be applied. No updates have been
+     *             committed in that case.
+     */
+    public int update(final Column[] updateColumns, final Column[] whereColumns, final Collection<Object[]> rows)
+            throws SQLException {
+        final Column[] stagingColumns = new Column[updateColumns.length + whereColumns.length];
+        System.arraycopy(updateColumns, 0, stagingColumns, 0, updateColumns.length);
+        System.arraycopy(whereColumns, 0, stagingColumns, updateColumns.length, whereColumns.length);
+
+        return execute(stagingColumns, rows, stagingTable -> createUpdateSql(stagingTable, updateColumns,
+                whereColumns));
+    }
+
+    /**
+     * Deletes a batch of records from the target table.
+     *
+     * @param whereColumns
+     *            the columns identifying the records to delete. The staged
+     *            values of these columns must be non-null.
+     * @param rows
+     *            records holding the values of the where columns
+     * @return the number of deleted records, as reported by the database
+     * @throws SQLException
+     *             if the batch could not be applied. No deletes have been
+     *             committed in that case.
+     */
+    public int delete(final Column[] whereColumns, final Collection<Object[]> rows) throws SQLException {
+        return execute(whereColumns, rows, stagingTable -> "DELETE FROM " + getTableName(whereColumns[0])
+                + " WHERE EXISTS (SELECT 1 FROM " + stagingTable + " " + STAGING_ALIAS + " WHERE "
+                + createJoinCondition(null, whereColumns, 0) + ")");
+    }
+
+    private interface SetStatementFactory {
+        String createSql(String stagingTable);
+    }
+
+    private int execute(final Column[] stagingColumns, final Collection<Object[]> rows,
+            final SetStatementFactory setStatementFactory) throws SQLException {
+        final Connection connection = _dataContext.getConnection();
+        try {
+            // a single connection may be shared by several threads
+            synchronized (connection) {
+                return execute(connection, stagingColumns, rows, setStatementFactory);
+            }
+        } finally {
+            _dataContext.close(connection);
+        }
+    }
+
+    private int execute(final Connection connection, final Column[] stagingColumns, final Collection<Object[]> rows,
+            final SetStatementFactory setStatementFactory) throws SQLException {
+        final boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+
+        final String stagingTable = _declaredStagingTable == null ? createStagingTableName() : _declaredStagingTable;
+        boolean stagingTableCreated = false;
+        boolean rolledBack = false;
+        try (Statement statement = connection.createStatement()) {
+            if (_declaredStagingTable == null) {
+                statement.execute(createStagingTableSql(stagingTable, stagingColumns));
+                stagingTableCreated = true;
+            }
+
+            final StringBuilder insertTarget = new StringBuilder(stagingTable).append(" (");
+            for (int i = 0; i < stagingColumns.length; i++) {
+                if (i != 0) {
+                    insertTarget.append(',');
+                }
+                insertTarget.append(STAGING_COLUMN_PREFIX).append(i);
+            }
+            insertTarget.append(')');
+            _bulkLoader.load(connection, insertTarget.toString(), stagingColumns, rows.iterator());
+
+            final String sql = setStatementFactory.createSql(stagingTable);
+            logger.debug("Applying {} staged records: {}", rows.size(), sql);
+            final int count = statement.executeUpdate(sql);
+            connection.commit();
+            return count;
+        } catch (final SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+                rolledBack = true;
+            } catch (final SQLException rollbackException) {
+                logger.warn("Could not roll back set-based statement", rollbackException);
+            }
+            throw e;
+        } finally {
+            if (stagingTableCreated && !(rolledBack && isDeclarationTransactional())) {
+                dropStagingTable(connection, stagingTable);
+            }
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Determines if the creation of the staging table is part of the
+     * transaction, ie. if the table is gone after a rollback.
+     */
+    private boolean isDeclarationTransactional() {
+        return JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL.equals(_productName) || DATABASE_PRODUCT_DERBY.equals(
+                _productName) || _productName.startsWith(JdbcDataContext.DATABASE_PRODUCT_DB2_PREFIX);
+    }
+
+    private void dropStagingTable(final Connection connection, final String stagingTable) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + stagingTable);
+            connection.commit();
+        } catch (final SQLException e) {
+            logger.warn("Could not drop staging table {}", stagingTable, e);
+        }
+    }
+
+    private String createStagingTableName() {
+        final String name = "DC_STAGING_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        if (JdbcDataContext.DATABASE_PRODUCT_SQLSERVER.equals(_productName)) {
+            // local temporary table
+            return "#" + name;
+        }
+        if (isDeclaredGlobalTemporaryTable()) {
+            // declared temporary tables live in the SESSION schema
+            return "SESSION." + name;
+        }
+        return name;
+    }
+
+    private boolean isDeclaredGlobalTemporaryTable() {
+        return DATABASE_PRODUCT_DERBY.equals(_productName) || _productName.startsWith(
+                JdbcDataContext.DATABASE_PRODUCT_DB2_PREFIX);
+    }
+
+    private String createStagingTableSql(final String stagingTable, final Column[] stagingColumns) {
+        final StringBuilder sb = new StringBuilder();
+        if (JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL.equals(_productName) || JdbcDataContext.DATABASE_PRODUCT_MYSQL
+                .equals(_productName) || DATABASE_PRODUCT_MARIADB.equals(_productName)
+                || JdbcDataContext.DATABASE_PRODUCT_SQLITE.equals(_productName)) {
+            sb.append("CREATE TEMPORARY TABLE ");
+        } else if (JdbcDataContext.DATABASE_PRODUCT_H2.equals(_productName)) {
+            sb.append("CREATE LOCAL TEMPORARY TABLE ");
+        } else if (JdbcDataContext.DATABASE_PRODUCT_HSQLDB.equals(_productName)) {
+            sb.append("CREATE TEMP TABLE ");
+        } else if (JdbcDataContext.DATABASE_PRODUCT_ORACLE.equals(_productName)) {
+            // the table definition is shared, but its rows are private to the
+            // session
+            sb.append("CREATE GLOBAL TEMPORARY TABLE ");
+        } else if (isDeclaredGlobalTemporaryTable()) {
+            sb.append("DECLARE GLOBAL TEMPORARY TABLE ");
+        } else {
+            // SQL Server creates a temporary table because of the # prefix
+            sb.append("CREATE TABLE ");
+        }
+        sb.append(stagingTable).append(" (");
+        for (int i = 0; i < stagingColumns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(STAGING_COLUMN_PREFIX).append(i).append(' ').append(getStagingColumnType(stagingColumns[i]));
+        }
+        sb.append(')');
+        if (JdbcDataContext.DATABASE_PRODUCT_ORACLE.equals(_productName)) {
+            // rows must be released before the table can be dropped
+            sb.append(" ON COMMIT DELETE ROWS");
+        } else if (isDeclaredGlobalTemporaryTable()) {
+            sb.append(" ON COMMIT DELETE ROWS NOT LOGGED");
+        }
+        return sb.toString();
+    }
+
+    private String getStagingColumnType(final Column column) {
+        final ColumnType columnType = column.getType() == null ? ColumnType.VARCHAR : column.getType();
+        final String typeName = _queryRewriter.rewriteColumnType(columnType, null);
+        final Integer columnSize = column.getColumnSize();
+        if (columnType.isLiteral()) {
+            return typeName + "(" + (columnSize == null || columnSize <= 0 ? 4000 : columnSize) + ")";
+        }
+        if (columnType == ColumnType.DECIMAL || columnType == ColumnType.NUMERIC) {
+            // the scale of the target column is unknown, so avoid the
+            // integral default precision of some databases
+            if (JdbcDataContext.DATABASE_PRODUCT_SQLSERVER.equals(_productName)) {
+                return typeName + "(38,10)";
+            } else if (JdbcDataContext.DATABASE_PRODUCT_MYSQL.equals(_productName) || DATABASE_PRODUCT_MARIADB.equals(
+                    _productName)) {
+                return typeName + "(65,30)";
+            }
+        }
+        return typeName;
+    }
+
+    private String createUpdateSql(final String stagingTable, final Column[] updateColumns,
+            final Column[] whereColumns) {
+        final String tableName = getTableName(updateColumns[0]);
+        final int whereOffset = updateColumns.length;
+        final StringBuilder sb = new StringBuilder();
+        if (JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL.equals(_productName)) {
+            sb.append("UPDATE ").append(tableName).append(' ').append(TARGET_ALIAS).append(" SET ");
+            appendAssignments(sb, null, updateColumns);
+            sb.append(" FROM ").append(stagingTable).append(' ').append(STAGING_ALIAS).append(" WHERE ");
+            sb.append(createJoinCondition(TARGET_ALIAS, whereColumns, whereOffset));
+        } else if (JdbcDataContext.DATABASE_PRODUCT_SQLSERVER.equals(_productName)) {
+            sb.append("UPDATE ").append(TARGET_ALIAS).append(" SET ");
+            appendAssignments(sb, TARGET_ALIAS, updateColumns);
+            sb.append(" FROM ").append(tableName).append(' ').append(TARGET_ALIAS).append(" INNER JOIN ");
+            sb.append(stagingTable).append(' ').append(STAGING_ALIAS).append(" ON ");
+            sb.append(createJoinCondition(TARGET_ALIAS, whereColumns, whereOffset));
+        } else if (JdbcDataContext.DATABASE_PRODUCT_MYSQL.equals(_productName) || DATABASE_PRODUCT_MARIADB.equals(
+                _productName)) {
+            sb.append("UPDATE ").append(tableName).append(' ').append(TARGET_ALIAS).append(" INNER JOIN ");
+            sb.append(stagingTable).append(' ').append(STAGING_ALIAS).append(" ON ");
+            sb.append(createJoinCondition(TARGET_ALIAS, whereColumns, whereOffset)).append(" SET ");
+            appendAssignments(sb, TARGET_ALIAS, updateColumns);
+        } else if (JdbcDataContext.DATABASE_PRODUCT_ORACLE.equals(_productName)) {
+            sb.append("MERGE INTO ").append(tableName).append(' ').append(TARGET_ALIAS).append(" USING ");
+            sb.append(stagingTable).append(' ').append(STAGING_ALIAS).append(" ON (");
+            sb.append(createJoinCondition(TARGET_ALIAS, whereColumns, whereOffset));
+            sb.append(") WHEN MATCHED THEN UPDATE SET ");
+            appendAssignments(sb, TARGET_ALIAS, updateColumns);
+        } else {
+            // standard SQL with correlated subqueries
+            final String joinCondition = createJoinCondition(null, whereColumns, whereOffset);
+            sb.append("UPDATE ").append(tableName).append(" SET ");
+            for (int i = 0; i < updateColumns.length; i++) {
+                if (i != 0) {
+                    sb.append(", ");
+                }
+                sb.append(updateColumns[i].getQuotedName()).append(" = (SELECT ").append(STAGING_ALIAS).append('.')
+                        .append(STAGING_COLUMN_PREFIX).append(i).append(" FROM ").append(stagingTable).append(' ')
+                        .append(STAGING_ALIAS).append(" WHERE ").append(joinCondition).append(')');
+            }
+            sb.append(" WHERE EXISTS (SELECT 1 FROM ").append(stagingTable).append(' ').append(STAGING_ALIAS);
+            sb.append(" WHERE ").append(joinCondition).append(')');
+        }
+        return sb.toString();
+    }
+
+    private void appendAssignments(final StringBuilder sb, final String targetAlias, final Column[] updateColumns) {
+        for (int i = 0; i < updateColumns.length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            if (targetAlias != null) {
+                sb.append(targetAlias).append('.');
+            }
+            sb.append(updateColumns[i].getQuotedName()).append(" = ").append(STAGING_ALIAS).append('.')
+                    .append(STAGING_COLUMN_PREFIX).append(i);
+        }
+    }
+
+    /**
+     * Creates the condition joining target and staging records. Without a
+     * target alias, the target columns are unqualified and resolve to the
+     * table of the enclosing statement.
+     */
+    private String createJoinCondition(final String targetAlias, final Column[] whereColumns, final int offset) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < whereColumns.length; i++) {
+            if (i != 0) {
+                sb.append(" AND ");
+            }
+            if (targetAlias != null) {
+                sb.append(targetAlias).append('.');
+            }
+            sb.append(whereColumns[i].getQuotedName()).append(" = ").append(STAGING_ALIAS).append('.')
+                    .append(STAGING_COLUMN_PREFIX).append(offset + i);
+        }
+        return sb.toString();
+    }
+
+    private String getTableName(final Column column) {
+        return _queryRewriter.rewriteFromItem(new FromItem(column.getTable()));
+    }
+}
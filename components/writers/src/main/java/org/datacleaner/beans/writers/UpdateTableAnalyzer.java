@@ -21,9 +21,12 @@ package org.datacleaner.beans.writers;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
@@ -35,6 +38,7 @@ import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
 import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.SelectItem;
@@ -47,6 +51,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -60,6 +65,7 @@ import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.MappedProperty;
+import org.datacleaner.api.NumberProperty;
 import org.datacleaner.api.Provided;
 import org.datacleaner.api.SchemaProperty;
 import org.datacleaner.api.TableProperty;
@@ -152,17 +158,31 @@ public class UpdateTableAnalyzer
     WriteBufferSizeOption bufferSizeOption = WriteBufferSizeOption.MEDIUM;
 
     @Inject
-    @Configured(value = "How to handle updation errors?", order = 9)
+    @Configured(value = "Batches in flight", required = false, order = 9)
+    @Description("How many batches may be committed in the background by a dedicated writer thread, while new "
+            + "records are buffered. If zero, batches are committed by the processing threads.")
+    @NumberProperty(negative = false)
+    int batchesInFlight = 0;
+
+    @Inject
+    @Configured(value = "Set-based updates", required = false, order = 10)
+    @Description("Apply each batch with a single statement, by joining the table with a temporary staging table "
+            + "that holds the batch. Only applies to JDBC datastores that support temporary tables. If the "
+            + "statement fails, the batch is applied record by record.")
+    boolean setBasedUpdates = false;
+
+    @Inject
+    @Configured(value = "How to handle updation errors?", order = 11)
     ErrorHandlingOption errorHandlingOption = ErrorHandlingOption.STOP_JOB;
 
     @Inject
-    @Configured(value = "Error log file location", required = false, order = 10)
+    @Configured(value = "Error log file location", required = false, order = 12)
     @Description("Directory or file path for saving erroneous records")
     @FileProperty(accessMode = FileAccessMode.SAVE, extension = ".csv")
     File errorLogFile = TEMP_DIR;
 
     @Inject
-    @Configured(required = false, order = 11)
+    @Configured(required = false, order = 13)
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
@@ -176,6 +196,8 @@ public class UpdateTableAnalyzer
     private AtomicInteger _updatedRowCount;
     private AtomicInteger _errorRowCount;
     private CsvDataContext _errorDataContext;
+    private boolean _setBased;
+    private String _stagingTable;
 
     @Validate
     public void validate() {
@@ -203,7 +225,7 @@ public class UpdateTableAnalyzer
         final int bufferSize = bufferSizeOption.calculateBufferSize(values.length);
         logger.info("Row buffer size set to {}", bufferSize);
 
-        _writeBuffer = new WriteBuffer(bufferSize, this);
+        _writeBuffer = new WriteBuffer(bufferSize, batchesInFlight, this);
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
@@ -227,6 +249,34 @@ public class UpdateTableAnalyzer
             if (!columnsNotFound.isEmpty()) {
                 throw new IllegalArgumentException("Could not find column(s): " + columnsNotFound);
             }
+
+            _setBased = setBasedUpdates;
+            _stagingTable = null;
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            if (_setBased && dc instanceof JdbcDataContext && StagingTableWriter.isDeclaredOnce(
+                    (JdbcDataContext) dc)) {
+                // creating the staging table is DDL which commits, so it is
+                // not done for each batch
+                try {
+                    final Column[] stagingColumns =
+                            (Column[]) ArrayUtils.addAll(_targetColumns, _targetConditionColumns);
+                    _stagingTable = new StagingTableWriter((JdbcDataContext) dc).createStagingTable(stagingColumns);
+                } catch (final SQLException e) {
+                    logger.warn("Could not create staging table, applying records one by one: {}", e.getMessage());
+                    _setBased = false;
+                }
+            }
+        }
+    }
+
+    @Close
+    public void close() {
+        if (_stagingTable != null) {
+            try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+                new StagingTableWriter((JdbcDataContext) con.getUpdateableDataContext()).dropStagingTable(
+                        _stagingTable);
+            }
+            _stagingTable = null;
         }
     }
 
@@ -430,42 +480,102 @@ public class UpdateTableAnalyzer
             }
 
             final UpdateableDataContext dc = con.getUpdateableDataContext();
-            dc.executeUpdate((BatchUpdateScript) callback -> {
-                int updateCount = 0;
-                for (final Object[] rowData : buffer) {
-                    RowUpdationBuilder updationBuilder = callback.update(updateColumns[0].getTable());
-                    for (int i = 0; i < updateColumns.length; i++) {
-                        final Object value = rowData[i];
-                        updationBuilder = updationBuilder.value(updateColumns[i], value);
-                    }
+            if (_setBased && dc instanceof JdbcDataContext && StagingTableWriter.isSupported(
+                    (JdbcDataContext) dc)) {
+                final Iterable<Object[]> remainingRows =
+                        updateSetBased((JdbcDataContext) dc, updateColumns, whereColumns, buffer);
+                updateRowByRow(dc, updateColumns, whereColumns, remainingRows);
+            } else {
+                updateRowByRow(dc, updateColumns, whereColumns, buffer);
+            }
+        }
+    }
 
-                    for (int i = 0; i < whereColumns.length; i++) {
-                        final Object value = rowData[i + updateColumns.length];
-                        final Column whereColumn = whereColumns[i];
-                        final FilterItem filterItem =
-                                new FilterItem(new SelectItem(whereColumn), OperatorType.EQUALS_TO, value);
+    /**
+     * Applies the records of a batch through a staging table.
+     *
+     * @return the records which still need to be updated one by one
+     */
+    private Iterable<Object[]> updateSetBased(final JdbcDataContext dc, final Column[] updateColumns,
+            final Column[] whereColumns, final Iterable<Object[]> buffer) {
+        // a later record with the same condition values overwrites an earlier
+        // one, as if they were applied one by one
+        final Map<List<Object>, Object[]> stagedRows = new LinkedHashMap<>();
+        final List<Object[]> remainingRows = new ArrayList<>();
+        int recordCount = 0;
+        for (final Object[] rowData : buffer) {
+            recordCount++;
+            final List<Object> conditionKey = Arrays.asList(rowData).subList(values.length, values.length
+                    + conditionValues.length);
+            if (conditionKey.contains(null)) {
+                // NULL never matches in a join, so an IS NULL condition is needed
+                remainingRows.add(rowData);
+            } else {
+                stagedRows.put(conditionKey, rowData);
+            }
+        }
 
-                        updationBuilder = updationBuilder.where(filterItem);
-                    }
+        if (stagedRows.isEmpty()) {
+            return remainingRows;
+        }
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Updating: {}", Arrays.toString(rowData));
-                    }
+        try {
+            final int affectedCount = new StagingTableWriter(dc, _stagingTable).update(updateColumns,
+                    whereColumns, stagedRows.values());
+            // like when updating record by record, the records are counted
+            // rather than the rows they affected
+            final int updateCount = recordCount - remainingRows.size();
+            logger.debug("{} staged records updated {} rows", updateCount, affectedCount);
+            _updatedRowCount.addAndGet(updateCount);
+            _componentContext.publishMessage(new ExecutionLogMessage(updateCount + " updates executed"));
+            return remainingRows;
+        } catch (final SQLException | RuntimeException e) {
+            logger.info("Set-based update failed, updating records one by one: {}", e.getMessage());
+            return buffer;
+        }
+    }
 
-                    try {
-                        updationBuilder.execute();
-                        updateCount++;
-                        _updatedRowCount.incrementAndGet();
-                    } catch (final RuntimeException e) {
-                        errorOccurred(rowData, e);
-                    }
+    private void updateRowByRow(final UpdateableDataContext dc, final Column[] updateColumns,
+            final Column[] whereColumns, final Iterable<Object[]> buffer) {
+        if (!buffer.iterator().hasNext()) {
+            return;
+        }
+
+        dc.executeUpdate((BatchUpdateScript) callback -> {
+            int updateCount = 0;
+            for (final Object[] rowData : buffer) {
+                RowUpdationBuilder updationBuilder = callback.update(updateColumns[0].getTable());
+                for (int i = 0; i < updateColumns.length; i++) {
+                    final Object value = rowData[i];
+                    updationBuilder = updationBuilder.value(updateColumns[i], value);
+                }
+
+                for (int i = 0; i < whereColumns.length; i++) {
+                    final Object value = rowData[i + updateColumns.length];
+                    final Column whereColumn = whereColumns[i];
+                    final FilterItem filterItem =
+                            new FilterItem(new SelectItem(whereColumn), OperatorType.EQUALS_TO, value);
+
+                    updationBuilder = updationBuilder.where(filterItem);
                 }
 
-                if (updateCount > 0) {
-                    _componentContext.publishMessage(new ExecutionLogMessage(updateCount + " updates executed"));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Updating: {}", Arrays.toString(rowData));
                 }
-            });
-        }
+
+                try {
+                    updationBuilder.execute();
+                    updateCount++;
+                    _updatedRowCount.incrementAndGet();
+                } catch (final RuntimeException e) {
+                    errorOccurred(rowData, e);
+                }
+            }
+
+            if (updateCount > 0) {
+                _componentContext.publishMessage(new ExecutionLogMessage(updateCount + " updates executed"));
+            }
+        });
     }
 
     protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
@@ -28,6 +28,11 @@ import org.datacleaner.api.AnalyzerResultReducer;
  */
 public class WriteDataResultReducer implements AnalyzerResultReducer<WriteDataResult> {
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     @Override
     public WriteDataResult reduce(final Collection<? extends WriteDataResult> results) {
         int writes = 0;
@@ -20,7 +20,6 @@
 package org.datacleaner.extension.output;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -31,25 +30,23 @@ import javax.inject.Named;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.UpdateableDataContext;
-import org.apache.metamodel.csv.CsvConfiguration;
-import org.apache.metamodel.csv.CsvDataContext;
-import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.drop.DropTable;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.MutableColumn;
 import org.apache.metamodel.schema.Table;
-import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Alias;
 import org.datacleaner.api.Categorized;
-import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
 import org.datacleaner.api.Distributed;
 import org.datacleaner.api.FileProperty;
 import org.datacleaner.api.FileProperty.FileAccessMode;
 import org.datacleaner.api.HasLabelAdvice;
-import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.Validate;
 import org.datacleaner.beans.writers.WriteDataResult;
@@ -63,7 +60,6 @@ import org.datacleaner.descriptors.FilterDescriptor;
 import org.datacleaner.descriptors.TransformerDescriptor;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.output.OutputWriter;
-import org.datacleaner.output.csv.CsvOutputWriterFactory;
 import org.datacleaner.output.excel.ExcelOutputWriterFactory;
 import org.datacleaner.util.sort.SortMergeWriter;
 
@@ -84,10 +80,6 @@ public class CreateExcelSpreadsheetAnalyzer extends AbstractOutputWriterAnalyzer
     // https://github.com/datacleaner/DataCleaner/issues/864
     private static final int SHEET_NAME_MAX_LENGTH = 31;
     private static final char[] SHEET_NAME_ILLEGAL_CHARS = new char[] { '.', ':' };
-    private final Character separatorChar = ',';
-    private final Character quoteChar = '"';
-    private final Character escapeChar = '\\';
-    private final boolean includeHeader = true;
     @Configured(PROPERTY_FILE)
     @FileProperty(accessMode = FileAccessMode.SAVE, extension = { "xls", "xlsx" })
     File file = new File("DataCleaner-staging.xlsx");
@@ -97,22 +89,7 @@ public class CreateExcelSpreadsheetAnalyzer extends AbstractOutputWriterAnalyzer
     boolean overwriteSheetIfExists;
     @Configured(order = 1, required = false)
     InputColumn<?> columnToBeSortedOn;
-    private File _targetFile;
-    private int indexOfColumnToBeSortedOn = -1;
-    private boolean isColumnToBeSortedOnPresentInInput = true;
-    private boolean isTempFile = false;
-
-    @Initialize
-    public void initTempFile() throws Exception {
-        if (_targetFile == null) {
-            if (columnToBeSortedOn != null) {
-                _targetFile = File.createTempFile("csv_file_analyzer", ".csv");
-                isTempFile = true; 
-            } else {
-                _targetFile = file;
-            }
-        }
-    }
+    private SortMergeWriter<Row, ExcelSheetWriter> _sortMergeWriter;
 
     @Override
     public String getSuggestedLabel() {
@@ -200,51 +177,79 @@ public class CreateExcelSpreadsheetAnalyzer extends AbstractOutputWriterAnalyzer
                 }
             }
         }
-        // If the user wants the file sorted after a column we create a
-        // temporary file and return a CSV writer in order
-        // to make a MergeSort on it, otherwise we return a normal Excel writer
+        final InputColumn<?>[] sheetColumns = columns;
+        final String[] headers = new String[sheetColumns.length];
+        for (int i = 0; i < sheetColumns.length; i++) {
+            headers[i] = getColumnHeader(i);
+        }
+
+        // If the user wants the file sorted after a column we collect the rows
+        // in a sort-merge writer, which writes them into the sheet when done.
+        // Otherwise the rows are written directly into the sheet.
         if (columnToBeSortedOn != null) {
-            return createTemporaryCsvWriter();
+            return createSortingOutputWriter(sheetColumns, headers);
         } else {
-            return ExcelOutputWriterFactory.getWriter(file.getPath(), sheetName, fields, columns);
+            return createSheetOutputWriter(sheetColumns, headers);
         }
     }
 
-    private OutputWriter createTemporaryCsvWriter() {
-        final List<String> headers = new ArrayList<>();
+    private OutputWriter createSheetOutputWriter(final InputColumn<?>[] sheetColumns, final String[] headers) {
+        if (FilenameUtils.isExtension(file.getName(), "xlsx")) {
+            // .xlsx sheets can be streamed, keeping only a window of rows in
+            // memory
+            return ExcelOutputWriterFactory.getStreamingWriter(file.getPath(), sheetName, headers, sheetColumns);
+        }
+        return ExcelOutputWriterFactory.getWriter(file.getPath(), sheetName, headers, sheetColumns);
+    }
+
+    private OutputWriter createSortingOutputWriter(final InputColumn<?>[] sheetColumns, final String[] headers) {
+        int indexOfColumnToBeSortedOn = -1;
         for (int i = 0; i < columns.length; i++) {
-            final String columnName = getColumnHeader(i);
-            headers.add(columnName);
-            if (columnToBeSortedOn != null) {
-                if (columns[i].getName().equals(columnToBeSortedOn.getName())) {
-                    indexOfColumnToBeSortedOn = i;
-                }
+            if (columns[i].getName().equals(columnToBeSortedOn.getName())) {
+                indexOfColumnToBeSortedOn = i;
             }
         }
 
         if (indexOfColumnToBeSortedOn == -1) {
-            this.isColumnToBeSortedOnPresentInInput = false;
             indexOfColumnToBeSortedOn = columns.length;
-            headers.add(columnToBeSortedOn.getName());
-            final InputColumn<?>[] newColumns = new InputColumn<?>[columns.length + 1];
-            for (int i = 0; i < columns.length; i++) {
-                newColumns[i] = columns[i];
-            }
+            final InputColumn<?>[] newColumns = Arrays.copyOf(columns, columns.length + 1);
             newColumns[columns.length] = columnToBeSortedOn;
             columns = newColumns;
         }
 
-        if (_targetFile == null) {
-            try {
-                initTempFile();
-            } catch (final Exception e) {
-                throw new RuntimeException(e);
-            }
+        final List<SelectItem> selectItems = new ArrayList<>(columns.length);
+        for (final InputColumn<?> column : columns) {
+            selectItems.add(new SelectItem(new MutableColumn(column.getName())));
         }
+        final DataSetHeader header = new SimpleDataSetHeader(selectItems);
+
+        final Comparator<? super Row> comparator =
+                SortHelper.createComparator(columnToBeSortedOn, indexOfColumnToBeSortedOn);
+
+        _sortMergeWriter = new SortMergeWriter<Row, ExcelSheetWriter>(comparator) {
+
+            @Override
+            protected ExcelSheetWriter createWriter(final Resource resource) {
+                return new ExcelSheetWriter(createSheetOutputWriter(sheetColumns, headers), sheetColumns);
+            }
+
+            @Override
+            protected void writeHeader(final ExcelSheetWriter writer) {
+                // the header is written when the sheet is created
+            }
+
+            @Override
+            protected void writeRow(final ExcelSheetWriter writer, final Row row, final int count) {
+                // the values of a sort column which is not in the input are
+                // beyond the sheet columns, and thereby not written
+                final Object[] values = row.getValues();
+                for (int i = 0; i < count; i++) {
+                    writer.insertValues(values);
+                }
+            }
+        };
 
-        return CsvOutputWriterFactory
-                .getWriter(_targetFile.getPath(), headers.toArray(new String[0]), separatorChar, quoteChar, escapeChar,
-                        includeHeader, columns);
+        return new SortingOutputWriter(_sortMergeWriter, header, columns);
     }
 
     private String getColumnHeader(final int index) {
@@ -257,69 +262,14 @@ public class CreateExcelSpreadsheetAnalyzer extends AbstractOutputWriterAnalyzer
     @Override
     protected WriteDataResult getResultInternal(final int rowCount) {
         if (columnToBeSortedOn != null) {
-            // Sorts the file using merge sort in the temporary file and then
-            // write into the final file
-            mergeSortFile();
+            // Merges the sorted rows into the final file
+            _sortMergeWriter.write(file);
         }
         final FileResource resource = new FileResource(file);
         final Datastore datastore = new ExcelDatastore(file.getName(), resource, file.getAbsolutePath());
         return new WriteDataResultImpl(rowCount, datastore, null, sheetName);
     }
 
-    private void mergeSortFile() {
-        final CsvConfiguration csvConfiguration =
-                new CsvConfiguration(CsvConfiguration.DEFAULT_COLUMN_NAME_LINE, FileHelper.DEFAULT_ENCODING,
-                        separatorChar, quoteChar, escapeChar, false, true);
-
-        final CsvDataContext tempDataContext = new CsvDataContext(_targetFile, csvConfiguration);
-        final Table table = tempDataContext.getDefaultSchema().getTable(0);
-
-        final Comparator<? super Row> comparator =
-                SortHelper.createComparator(columnToBeSortedOn, indexOfColumnToBeSortedOn);
-
-        final SortMergeWriter<Row, ExcelDataContextWriter> sortMergeWriter =
-                new SortMergeWriter<Row, ExcelDataContextWriter>(comparator) {
-
-                    @Override
-                    protected ExcelDataContextWriter createWriter(final Resource resource) {
-                        assert resource instanceof FileResource;
-                        final FileResource fileResource = (FileResource) resource;
-                        return new ExcelDataContextWriter(fileResource.getFile(), sheetName);
-                    }
-
-                    @Override
-                    protected void writeHeader(final ExcelDataContextWriter writer) throws IOException {
-                        final List<String> headers = new ArrayList<>(table.getColumnNames());
-                        if (!isColumnToBeSortedOnPresentInInput) {
-                            headers.remove(columnToBeSortedOn.getName());
-                        }
-                        writer.createTable(headers);
-                    }
-
-                    @Override
-                    protected void writeRow(final ExcelDataContextWriter writer, final Row row, final int count)
-                            throws IOException {
-                        for (int i = 0; i < count; i++) {
-                            final List<Object> valuesList = new ArrayList<>(Arrays.asList(row.getValues()));
-                            if (!isColumnToBeSortedOnPresentInInput) {
-                                valuesList.remove(indexOfColumnToBeSortedOn);
-                            }
-                            final Object[] values = valuesList.toArray(new Object[0]);
-                            writer.insertValues(values);
-                        }
-                    }
-                };
-
-        // read from the temp file and sort it into the final file
-        try (DataSet dataSet = tempDataContext.query().from(table).selectAll().execute()) {
-            while (dataSet.next()) {
-                final Row row = dataSet.getRow();
-                sortMergeWriter.append(row);
-            }
-        }
-        sortMergeWriter.write(file);
-    }
-
     public void setFile(final File file) {
         this.file = file;
     }
@@ -327,13 +277,4 @@ public class CreateExcelSpreadsheetAnalyzer extends AbstractOutputWriterAnalyzer
     public void setSheetName(final String sheetName) {
         this.sheetName = sheetName;
     }
-    
-    @Close
-    public void close() {
-        // delete the temporary file
-        if (isTempFile) {
-            _targetFile.delete();
-        }
-    }
-
 }
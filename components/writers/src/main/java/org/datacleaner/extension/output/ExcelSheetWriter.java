@@ -0,0 +1,57 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.Closeable;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+import org.datacleaner.util.sort.SortMergeWriter;
+
+/**
+ * A delegate writer for {@link CreateExcelSpreadsheetAnalyzer} to use together
+ * with the {@link SortMergeWriter} when writing sorted records into an excel
+ * spreadsheet.
+ */
+class ExcelSheetWriter implements Closeable {
+
+    private final OutputWriter _outputWriter;
+    private final InputColumn<?>[] _columns;
+
+    public ExcelSheetWriter(final OutputWriter outputWriter, final InputColumn<?>[] columns) {
+        _outputWriter = outputWriter;
+        _columns = columns;
+    }
+
+    @Override
+    public void close() {
+        _outputWriter.close();
+    }
+
+    public void insertValues(final Object[] values) {
+        final OutputRow outputRow = _outputWriter.createRow();
+        for (int i = 0; i < _columns.length; i++) {
+            @SuppressWarnings("unchecked") final InputColumn<Object> column = (InputColumn<Object>) _columns[i];
+            outputRow.setValue(column, values[i]);
+        }
+        outputRow.write();
+    }
+}
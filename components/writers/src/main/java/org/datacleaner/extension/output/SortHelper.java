@@ -33,7 +33,8 @@ public class SortHelper {
 
     /**
      * Creates a comparator for the {@link InputColumn} based on its type
-     * (sorting numerically or lexicographically).
+     * (sorting numerically or lexicographically). The values of the rows may
+     * either be strings, eg. when read from a CSV file, or typed values.
      *
      * @param column
      *            the column to sort on
@@ -60,8 +61,8 @@ public class SortHelper {
                 // find if the two rows are same.
                 final int numberOfSelectItems = row1.getSelectItems().size();
                 for (int i = 0; i < numberOfSelectItems; i++) {
-                    final String rowValue1 = (String) row1.getValue(i);
-                    final String rowValue2 = (String) row2.getValue(i);
+                    final String rowValue1 = toString(row1.getValue(i));
+                    final String rowValue2 = toString(row2.getValue(i));
                     final int compareResult = rowValue1.compareToIgnoreCase(rowValue2);
                     if (compareResult == 0) {
                         continue;
@@ -77,7 +78,10 @@ public class SortHelper {
 
     private static Comparable<?> getComparableValue(final Row row, final int columnIndex, final boolean isNumber,
             final boolean isDate) {
-        final String value = (String) row.getValue(columnIndex);
+        final Object value = row.getValue(columnIndex);
+        if (value == null) {
+            return null;
+        }
         if (isNumber) {
             final Number result = ConvertToNumberTransformer.transformValue(value);
             if (result instanceof Comparable) {
@@ -88,6 +92,10 @@ public class SortHelper {
         if (isDate) {
             return ConvertToDateTransformer.getInternalInstance().transformValue(value);
         }
-        return value.toLowerCase();
+        return value.toString().toLowerCase();
+    }
+
+    private static String toString(final Object value) {
+        return value == null ? "" : value.toString();
     }
 }
@@ -0,0 +1,99 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+import org.datacleaner.util.sort.SortMergeWriter;
+
+/**
+ * {@link OutputWriter} which appends rows to a {@link SortMergeWriter}, which
+ * in turn writes them in sorted order to the final destination. Values keep
+ * their type, so that eg. numbers and dates are written as such. Values which
+ * cannot be serialized into the temporary files of the sort-merge writer are
+ * appended as strings.
+ */
+class SortingOutputWriter implements OutputWriter {
+
+    private final SortMergeWriter<Row, ?> _sortMergeWriter;
+    private final DataSetHeader _header;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+
+    public SortingOutputWriter(final SortMergeWriter<Row, ?> sortMergeWriter, final DataSetHeader header,
+            final InputColumn<?>[] columns) {
+        _sortMergeWriter = sortMergeWriter;
+        _header = header;
+        _columns = columns;
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.putIfAbsent(columns[i], i);
+        }
+    }
+
+    @Override
+    public OutputRow createRow() {
+        final Object[] values = new Object[_columns.length];
+        return new OutputRow() {
+            @Override
+            public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
+                final Integer index = _columnIndexes.get(inputColumn);
+                if (index != null) {
+                    values[index] = toSerializable(value);
+                }
+                return this;
+            }
+
+            @Override
+            public OutputRow setValues(final InputRow row) {
+                for (int i = 0; i < _columns.length; i++) {
+                    values[i] = toSerializable(row.getValue(_columns[i]));
+                }
+                return this;
+            }
+
+            @Override
+            public void write() {
+                _sortMergeWriter.append(new DefaultRow(_header, values));
+            }
+
+            private Object toSerializable(final Object value) {
+                if (value == null || value instanceof Serializable) {
+                    return value;
+                }
+                return value.toString();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // rows are written when the sort-merge writer is written
+    }
+}
@@ -35,6 +35,7 @@ import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.connection.FileDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.PojoDatastore;
 import org.datacleaner.connection.UpdateableDatastore;
 import org.datacleaner.connection.UpdateableDatastoreConnection;
@@ -168,4 +169,52 @@ public class DeleteFromTableAnalyzerTest {
         con.close();
     }
 
+    @Test
+    public void shouldDeleteSetBasedFromJdbcTable() throws Exception {
+        final JdbcDatastore datastore =
+                new JdbcDatastore("set based", "jdbc:hsqldb:mem:DeleteFromTable_setBased", "org.hsqldb.jdbcDriver");
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> {
+                final Table table = cb.createTable(dc.getDefaultSchema(), TEST_TABLE_NAME)
+                        .withColumn(VARCHAR_COLUMN_NAME).ofType(ColumnType.VARCHAR).withColumn(INTEGER_COLUMN_NAME)
+                        .ofType(ColumnType.INTEGER).execute();
+                for (int i = 0; i < 10; i++) {
+                    cb.insertInto(table).value(VARCHAR_COLUMN_NAME, i % 2 == 0 ? "even" : "odd")
+                            .value(INTEGER_COLUMN_NAME, i).execute();
+                }
+            });
+        }
+
+        final DeleteFromTableAnalyzer deleteFromTable = new DeleteFromTableAnalyzer();
+        deleteFromTable.datastore = datastore;
+        deleteFromTable.tableName = TEST_TABLE_NAME;
+        deleteFromTable.conditionColumnNames = new String[] { VARCHAR_COLUMN_NAME };
+        deleteFromTable.setBasedDeletes = true;
+        deleteFromTable._componentContext = EasyMock.createNiceMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>(VARCHAR_COLUMN_NAME, Object.class);
+        deleteFromTable.conditionValues = new InputColumn[] { col1 };
+
+        deleteFromTable.validate();
+        deleteFromTable.init();
+
+        deleteFromTable.run(new MockInputRow().put(col1, "odd"), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "odd"), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "none"), 1);
+
+        // like when deleting record by record, the records are counted, not
+        // the rows they affected
+        final WriteDataResult result = deleteFromTable.getResult();
+        assertThat(result.getUpdatesCount(), is(3));
+        assertThat(result.getErrorRowCount(), is(0));
+
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final DataSet ds = con.getDataContext().query().from(TEST_TABLE_NAME).selectCount().execute();
+            assertThat(ds.next(), is(true));
+            assertThat(((Number) ds.getRow().getValue(0)).intValue(), is(5));
+            ds.close();
+        }
+    }
+
 }
@@ -23,6 +23,10 @@ import java.io.File;
 import java.util.List;
 import java.util.Set;
 
+import javax.naming.Context;
+import javax.naming.NamingException;
+
+import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.data.DataSet;
@@ -56,6 +60,7 @@ import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.AnalysisRunner;
 import org.datacleaner.job.runner.AnalysisRunnerImpl;
 import org.easymock.EasyMock;
+import org.springframework.mock.jndi.SimpleNamingContext;
 
 import junit.framework.TestCase;
 
@@ -195,6 +200,32 @@ public class InsertIntoTableAnalyzerTest extends TestCase {
         con.close();
     }
 
+    public void testBulkLoadFallsBackToIndividualInserts() throws Exception {
+        final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
+        insertIntoTable.datastore = jdbcDatastore;
+        insertIntoTable.tableName = "test_table";
+        insertIntoTable.columnNames = new String[] { "foo", "bar" };
+        insertIntoTable.bulkLoad = true;
+        insertIntoTable.errorHandlingOption = ErrorHandlingOption.SAVE_TO_FILE;
+        insertIntoTable.errorLogFile = null;
+        insertIntoTable._componentContext = EasyMock.createNiceMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>("in1", Object.class);
+        final InputColumn<Object> col2 = new MockInputColumn<>("in2", Object.class);
+        insertIntoTable.values = new InputColumn[] { col1, col2 };
+
+        insertIntoTable.validate();
+        insertIntoTable.init();
+
+        // the invalid row fails the bulk load of the batch
+        insertIntoTable.run(new MockInputRow().put(col1, "hello world").put(col2, 123), 1);
+        insertIntoTable.run(new MockInputRow().put(col1, "hello world").put(col2, "not a number"), 1);
+
+        final WriteDataResult result = insertIntoTable.getResult();
+        assertEquals(1, result.getWrittenRowCount());
+        assertEquals(1, result.getErrorRowCount());
+    }
+
     public void testErrorHandlingToTempFile() throws Exception {
         final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
         insertIntoTable.datastore = jdbcDatastore;
@@ -257,6 +288,123 @@ public class InsertIntoTableAnalyzerTest extends TestCase {
                 result.toString());
     }
 
+    public void testBatchesInFlight() throws Exception {
+        final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
+        insertIntoTable.datastore = jdbcDatastore;
+        insertIntoTable.tableName = "test_table";
+        insertIntoTable.columnNames = new String[] { "foo", "bar" };
+        insertIntoTable.bufferSizeOption = WriteBufferSizeOption.TINY;
+        insertIntoTable.batchesInFlight = 2;
+        insertIntoTable._componentContext = EasyMock.createMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>("in1", Object.class);
+        final InputColumn<Object> col2 = new MockInputColumn<>("in2", Object.class);
+        insertIntoTable.values = new InputColumn[] { col1, col2 };
+
+        insertIntoTable.validate();
+        insertIntoTable.init();
+
+        for (int i = 0; i < 200; i++) {
+            insertIntoTable.run(new MockInputRow().put(col1, "batches in flight").put(col2, i), 1);
+        }
+
+        final WriteDataResult result = insertIntoTable.getResult();
+        assertEquals(200, result.getWrittenRowCount());
+        assertEquals(0, result.getErrorRowCount());
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final DataSet ds = con.getDataContext().query().from("test_table").selectCount().where("foo")
+                    .eq("batches in flight").execute();
+            assertTrue(ds.next());
+            assertEquals(200, ((Number) ds.getRow().getValue(0)).intValue());
+            ds.close();
+        }
+    }
+
+    public void testParallelConnections() throws Exception {
+        assertParallelInserts(jdbcDatastore, "parallel consecutive", null);
+        assertParallelInserts(jdbcDatastore, "parallel partitioned", "bar");
+    }
+
+    public void testParallelConnectionsWithJndiDatastore() throws Exception {
+        final BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(jdbcDatastore.getJdbcUrl());
+        dataSource.setDriverClassName(jdbcDatastore.getDriverClass());
+
+        final SimpleNamingContext context = new SimpleNamingContext();
+        context.bind("jdbc/insertintotable", dataSource);
+
+        final JdbcDatastore jndiDatastore = new JdbcDatastore("my jndi datastore", "jdbc/insertintotable") {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Context getJndiNamingContext() throws NamingException {
+                return context;
+            }
+        };
+
+        try {
+            assertParallelInserts(jndiDatastore, "parallel jndi", "bar");
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    private void assertParallelInserts(final JdbcDatastore datastore, final String fooValue,
+            final String partitionColumnName) throws Exception {
+        final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
+        insertIntoTable.datastore = datastore;
+        insertIntoTable.tableName = "test_table";
+        insertIntoTable.columnNames = new String[] { "foo", "bar" };
+        insertIntoTable.bufferSizeOption = WriteBufferSizeOption.TINY;
+        insertIntoTable.parallelConnections = 3;
+        insertIntoTable.partitionColumnName = partitionColumnName;
+        insertIntoTable.errorHandlingOption = ErrorHandlingOption.SAVE_TO_FILE;
+        insertIntoTable._componentContext = EasyMock.createMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>("in1", Object.class);
+        final InputColumn<Object> col2 = new MockInputColumn<>("in2", Object.class);
+        insertIntoTable.values = new InputColumn[] { col1, col2 };
+
+        insertIntoTable.validate();
+        insertIntoTable.init();
+
+        for (int i = 0; i < 250; i++) {
+            insertIntoTable.run(new MockInputRow().put(col1, fooValue).put(col2, i % 7), 1);
+        }
+        insertIntoTable.run(new MockInputRow().put(col1, fooValue).put(col2, "not a number"), 1);
+
+        final WriteDataResult result = insertIntoTable.getResult();
+        insertIntoTable.close();
+
+        assertEquals(250, result.getWrittenRowCount());
+        assertEquals(1, result.getErrorRowCount());
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final DataSet ds = con.getDataContext().query().from("test_table").selectCount().where("foo")
+                    .eq(fooValue).execute();
+            assertTrue(ds.next());
+            assertEquals(250, ((Number) ds.getRow().getValue(0)).intValue());
+            ds.close();
+        }
+    }
+
+    public void testValidatePartitionColumn() throws Exception {
+        final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
+        insertIntoTable.columnNames = new String[] { "foo", "bar" };
+        insertIntoTable.values = new InputColumn[] { new MockInputColumn<>("in1", Object.class),
+                new MockInputColumn<>("in2", Object.class) };
+        insertIntoTable.parallelConnections = 2;
+        insertIntoTable.partitionColumnName = "baz";
+
+        try {
+            insertIntoTable.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Partition column 'baz' is not one of the mapped column names", e.getMessage());
+        }
+    }
+
     public void testMultiThreadedRunNoColumnNames() throws Throwable {
         final CsvDatastore datastoreIn = new CsvDatastore("in", "src/test/resources/datastorewriter-in.csv");
         final CsvDatastore datastoreOut = new CsvDatastore("out", "target/datastorewriter-out.csv");
@@ -129,6 +129,68 @@ public class UpdateTableAnalyzerTest extends TestCase {
         ds.close();
     }
 
+    public void testSetBasedUpdates() throws Exception {
+        final JdbcDatastore datastore =
+                new JdbcDatastore("set based", "jdbc:hsqldb:mem:UpdateTable_testSetBasedUpdates",
+                        "org.hsqldb.jdbcDriver");
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> {
+                final Table table = cb.createTable(dc.getDefaultSchema(), "set_table").withColumn("id")
+                        .ofType(ColumnType.INTEGER).withColumn("name").ofType(ColumnType.VARCHAR).execute();
+                cb.insertInto(table).value("id", 1).value("name", "a").execute();
+                cb.insertInto(table).value("id", 2).value("name", "b").execute();
+                cb.insertInto(table).value("id", 3).value("name", "c").execute();
+                cb.insertInto(table).value("id", null).value("name", "d").execute();
+            });
+        }
+
+        final InputColumn<Object> idColumn = new MockInputColumn<>("id", Object.class);
+        final InputColumn<Object> nameColumn = new MockInputColumn<>("name", Object.class);
+
+        final UpdateTableAnalyzer updateTableAnalyzer = new UpdateTableAnalyzer();
+        updateTableAnalyzer.datastore = datastore;
+        updateTableAnalyzer.tableName = "set_table";
+        updateTableAnalyzer.columnNames = new String[] { "name" };
+        updateTableAnalyzer.values = new InputColumn<?>[] { nameColumn };
+        updateTableAnalyzer.conditionColumnNames = new String[] { "id" };
+        updateTableAnalyzer.conditionValues = new InputColumn<?>[] { idColumn };
+        updateTableAnalyzer.setBasedUpdates = true;
+        updateTableAnalyzer._componentContext = EasyMock.createNiceMock(ComponentContext.class);
+        updateTableAnalyzer.validate();
+        updateTableAnalyzer.init();
+
+        updateTableAnalyzer.run(new MockInputRow().put(idColumn, 1).put(nameColumn, "x"), 1);
+        updateTableAnalyzer.run(new MockInputRow().put(idColumn, 2).put(nameColumn, "y"), 1);
+        // the last record for the same condition wins
+        updateTableAnalyzer.run(new MockInputRow().put(idColumn, 1).put(nameColumn, "z"), 1);
+        // no match
+        updateTableAnalyzer.run(new MockInputRow().put(idColumn, 99).put(nameColumn, "none"), 1);
+        // null conditions are applied one by one
+        updateTableAnalyzer.run(new MockInputRow().put(idColumn, null).put(nameColumn, "w"), 1);
+
+        // like when updating record by record, all records are counted, not
+        // the rows they affected
+        final WriteDataResult result = updateTableAnalyzer.getResult();
+        assertEquals(0, result.getErrorRowCount());
+        assertEquals(5, result.getUpdatesCount());
+
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final DataSet ds = con.getDataContext().query().from("set_table").select("id", "name").orderBy("name")
+                    .execute();
+            assertTrue(ds.next());
+            assertEquals("Row[values=[3, c]]", ds.getRow().toString());
+            assertTrue(ds.next());
+            assertEquals("Row[values=[null, w]]", ds.getRow().toString());
+            assertTrue(ds.next());
+            assertEquals("Row[values=[2, y]]", ds.getRow().toString());
+            assertTrue(ds.next());
+            assertEquals("Row[values=[1, z]]", ds.getRow().toString());
+            assertFalse(ds.next());
+            ds.close();
+        }
+    }
+
     public void testUpdateCSV() throws Exception {
         final File file = new File("target/example_updated.csv");
         FileHelper.copy(new File("src/test/resources/example_updated.csv"), file);
@@ -20,6 +20,8 @@
 package org.datacleaner.extension.output;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,6 +29,9 @@ import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.util.FileResource;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
@@ -197,6 +202,13 @@ public class CreateExcelSpreadsheetAnalyzerTest extends TestCase {
         }
 
         assertEquals("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12]", resultIds.toString());
+
+        // the sorted values are still written as numbers
+        try (XSSFWorkbook workbook = new XSSFWorkbook(analyzer.file)) {
+            final Cell cell = workbook.getSheet("foo").getRow(1).getCell(1);
+            assertEquals(CellType.NUMERIC, cell.getCellType());
+            assertEquals(0.0, cell.getNumericCellValue());
+        }
     }
 
     @Test
@@ -334,7 +346,6 @@ public class CreateExcelSpreadsheetAnalyzerTest extends TestCase {
 
         generatedFile = new File(filename);
         analyzer.file = generatedFile;
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
 
         analyzer.sheetName = "foo";
@@ -382,4 +393,50 @@ public class CreateExcelSpreadsheetAnalyzerTest extends TestCase {
         }
     }
 
+    @Test
+    public void testStreamNewSheetIntoExistingFile() throws Exception {
+        final String filename = "target/exceltest-streamnewsheet.xlsx";
+        generatedFile = new File(filename);
+        Files.copy(new File("src/test/resources/multiple_Sheets.xlsx").toPath(), generatedFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        final CreateExcelSpreadsheetAnalyzer analyzer = new CreateExcelSpreadsheetAnalyzer();
+
+        final InputColumn<String> stringColumn = new MockInputColumn<>("StringColumn");
+        final InputColumn<Integer> integerColumn = new MockInputColumn<>("IntegerColumn", Integer.class);
+
+        analyzer.file = generatedFile;
+        analyzer.sheetName = "foo";
+        analyzer.columns = new InputColumn<?>[] { stringColumn, integerColumn };
+
+        analyzer.validate();
+        analyzer.init();
+
+        // more rows than the streaming window holds in memory
+        final int rowCount = 2500;
+        for (int i = 0; i < rowCount; i++) {
+            analyzer.run(new MockInputRow().put(stringColumn, "row" + i).put(integerColumn, i), 1);
+        }
+
+        assertEquals(rowCount, analyzer.getResult().getWrittenRowCount());
+
+        final ExcelDatastore outputDatastore =
+                new ExcelDatastore(filename, new FileResource(analyzer.file), analyzer.file.getAbsolutePath());
+        try (UpdateableDatastoreConnection outputDatastoreConnection = outputDatastore.openConnection()) {
+            final DataContext dataContext = outputDatastoreConnection.getDataContext();
+            assertEquals("[Sheet1, Sheet2, Sheet3, Sheet4, Sheet5, Sheet6, ClaudiaSheet, foo]",
+                    dataContext.getDefaultSchema().getTableNames().toString());
+
+            int i = 0;
+            try (DataSet dataSet = dataContext.query().from("foo").selectAll().execute()) {
+                while (dataSet.next()) {
+                    final Row row = dataSet.getRow();
+                    assertEquals("row" + i, row.getValue(0));
+                    assertEquals(i, Integer.parseInt((String) row.getValue(1)));
+                    i++;
+                }
+            }
+            assertEquals(rowCount, i);
+        }
+    }
 }
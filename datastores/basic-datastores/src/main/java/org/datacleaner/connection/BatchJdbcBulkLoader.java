@@ -0,0 +1,91 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+
+/**
+ * {@link JdbcBulkLoader} which adds a single-row INSERT statement per record
+ * to a JDBC batch. Works with any database that supports prepared statements.
+ */
+final class BatchJdbcBulkLoader extends JdbcBulkLoader {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final String _insertHint;
+
+    public BatchJdbcBulkLoader(final JdbcDataContext dataContext) {
+        this(dataContext, null);
+    }
+
+    /**
+     * Creates a {@link BatchJdbcBulkLoader} with an optimizer hint for the
+     * INSERT statement, eg. to request a direct-path insert.
+     *
+     * @param dataContext
+     * @param insertHint
+     */
+    public BatchJdbcBulkLoader(final JdbcDataContext dataContext, final String insertHint) {
+        super(dataContext);
+        _insertHint = insertHint;
+    }
+
+    @Override
+    public int load(final Connection connection, final String insertTarget, final Column[] columns,
+            final Iterator<Object[]> rows) throws SQLException {
+        final StringBuilder sql = new StringBuilder("INSERT ");
+        if (_insertHint != null) {
+            sql.append(_insertHint).append(' ');
+        }
+        sql.append("INTO ").append(insertTarget).append(" VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+
+        int count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int batchCount = 0;
+            while (rows.hasNext()) {
+                final Object[] rowData = rows.next();
+                for (int i = 0; i < columns.length; i++) {
+                    setParameter(statement, i + 1, columns[i], rowData[i]);
+                }
+                statement.addBatch();
+                count++;
+                batchCount++;
+                if (batchCount == BATCH_SIZE) {
+                    statement.executeBatch();
+                    batchCount = 0;
+                }
+            }
+            if (batchCount > 0) {
+                statement.executeBatch();
+            }
+        }
+        return count;
+    }
+}
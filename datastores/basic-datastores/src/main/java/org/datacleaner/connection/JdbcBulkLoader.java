@@ -0,0 +1,231 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.jdbc.JdbcUtils;
+import org.apache.metamodel.jdbc.JdbcUtils.JdbcActionType;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads batches of records into a table of a {@link JdbcDataContext}, using
+ * the fastest insertion strategy that the database supports, instead of
+ * executing one INSERT statement per record.
+ *
+ * Use {@link #create(JdbcDataContext)} to get a loader which is chosen based
+ * on the database product of the data context.
+ */
+public abstract class JdbcBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBulkLoader.class);
+
+    private final JdbcDataContext _dataContext;
+
+    protected JdbcBulkLoader(final JdbcDataContext dataContext) {
+        _dataContext = dataContext;
+    }
+
+    /**
+     * Creates a {@link JdbcBulkLoader} for a {@link JdbcDataContext}, based on
+     * the database product it is connected to.
+     *
+     * @param dataContext
+     * @return
+     */
+    public static JdbcBulkLoader create(final JdbcDataContext dataContext) {
+        return create(dataContext, false);
+    }
+
+    /**
+     * Creates a {@link JdbcBulkLoader} for a {@link JdbcDataContext}, based on
+     * the database product it is connected to.
+     *
+     * A direct-path insert (Oracle) bypasses the buffer cache, but locks the
+     * table exclusively until the transaction ends. It should only be
+     * requested when records are loaded through a single connection.
+     *
+     * @param dataContext
+     * @param directPathInsert
+     *            whether to request a direct-path insert, if the database
+     *            supports it
+     * @return
+     */
+    public static JdbcBulkLoader create(final JdbcDataContext dataContext, final boolean directPathInsert) {
+        final String productName = dataContext.getDatabaseProductName();
+        final JdbcBulkLoader bulkLoader;
+        if (productName == null) {
+            bulkLoader = new BatchJdbcBulkLoader(dataContext);
+        } else if (JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL.equals(productName)) {
+            if (isPostgresDriverAvailable()) {
+                bulkLoader = new PostgresCopyJdbcBulkLoader(dataContext);
+            } else {
+                bulkLoader = new MultiRowValuesJdbcBulkLoader(dataContext, 1000, Short.MAX_VALUE);
+            }
+        } else if (JdbcDataContext.DATABASE_PRODUCT_MYSQL.equals(productName) || "MariaDB".equals(productName)
+                || JdbcDataContext.DATABASE_PRODUCT_H2.equals(productName) || productName.startsWith(
+                JdbcDataContext.DATABASE_PRODUCT_DB2_PREFIX)) {
+            bulkLoader = new MultiRowValuesJdbcBulkLoader(dataContext, 1000, Short.MAX_VALUE);
+        } else if (JdbcDataContext.DATABASE_PRODUCT_SQLSERVER.equals(productName)) {
+            // SQL Server allows at most 1000 rows and 2100 parameters
+            bulkLoader = new MultiRowValuesJdbcBulkLoader(dataContext, 1000, 2000);
+        } else if (JdbcDataContext.DATABASE_PRODUCT_SQLITE.equals(productName)) {
+            bulkLoader = new MultiRowValuesJdbcBulkLoader(dataContext, 500, 999);
+        } else if (directPathInsert && JdbcDataContext.DATABASE_PRODUCT_ORACLE.equals(productName)) {
+            bulkLoader = new BatchJdbcBulkLoader(dataContext, "/*+ APPEND_VALUES */");
+        } else {
+            bulkLoader = new BatchJdbcBulkLoader(dataContext);
+        }
+        logger.debug("Using {} for database product '{}'", bulkLoader.getClass().getSimpleName(), productName);
+        return bulkLoader;
+    }
+
+    /**
+     * Determines if the PostgreSQL driver is available to this class. The
+     * driver may be loaded by a separate class loader, in which case the COPY
+     * API cannot be used.
+     *
+     * @return
+     */
+    private static boolean isPostgresDriverAvailable() {
+        try {
+            Class.forName("org.postgresql.copy.CopyIn", false, JdbcBulkLoader.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads records into the table of the specified columns, within a single
+     * transaction. If loading fails, the transaction is rolled back and none
+     * of the records are loaded.
+     *
+     * @param columns
+     *            the columns to load values into. All columns must belong to
+     *            the same table.
+     * @param rows
+     *            the records to load, each holding one value per column
+     * @return the number of records loaded
+     * @throws MetaModelException
+     *             if loading failed
+     */
+    public final int load(final Column[] columns, final Iterable<Object[]> rows) throws MetaModelException {
+        final Connection connection = _dataContext.getConnection();
+        try {
+            // a single connection may be shared by several threads
+            synchronized (connection) {
+                return load(connection, columns, rows);
+            }
+        } finally {
+            _dataContext.close(connection);
+        }
+    }
+
+    private int load(final Connection connection, final Column[] columns, final Iterable<Object[]> rows) {
+        boolean autoCommit = false;
+        try {
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            final int count = load(connection, getInsertTarget(columns), columns, rows.iterator());
+            connection.commit();
+            return count;
+        } catch (final SQLException e) {
+            rollback(connection);
+            throw JdbcUtils.wrapException(e, "bulk load into " + columns[0].getTable().getName(),
+                    JdbcActionType.UPDATE);
+        } catch (final RuntimeException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            if (autoCommit) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (final SQLException e) {
+                    logger.warn("Could not restore auto commit of connection", e);
+                }
+            }
+        }
+    }
+
+    private void rollback(final Connection connection) {
+        try {
+            connection.rollback();
+        } catch (final SQLException e) {
+            logger.warn("Could not roll back failed bulk load", e);
+        }
+    }
+
+    /**
+     * Loads records through a connection which is managed by the caller, also
+     * with regards to transactions. This allows loading into tables that are
+     * not part of the schema model, such as temporary staging tables.
+     *
+     * @param connection
+     * @param insertTarget
+     *            the table and column list to load into, eg.
+     *            <code>staging (col1,col2)</code>
+     * @param columns
+     *            the columns which determine how the values are bound
+     * @param rows
+     * @return the number of records loaded
+     * @throws SQLException
+     */
+    public abstract int load(Connection connection, String insertTarget, Column[] columns, Iterator<Object[]> rows)
+            throws SQLException;
+
+    /**
+     * Gets the table and column list part of an INSERT or COPY statement, ie.
+     * <code>schema.table (col1,col2)</code>
+     *
+     * @param columns
+     * @return
+     */
+    private String getInsertTarget(final Column[] columns) {
+        final Table table = columns[0].getTable();
+        final StringBuilder sb = new StringBuilder();
+        sb.append(_dataContext.getQueryRewriter().rewriteFromItem(new FromItem(table)));
+        sb.append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(columns[i].getQuotedName());
+        }
+        sb.append(')');
+        return sb.toString();
+    }
+
+    protected final void setParameter(final PreparedStatement statement, final int parameterIndex,
+            final Column column, final Object value) throws SQLException {
+        _dataContext.getQueryRewriter().setStatementParameter(statement, parameterIndex, column, value);
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+
+/**
+ * {@link JdbcBulkLoader} which inserts many records per statement, using an
+ * INSERT statement with a multi-row VALUES list:
+ * <code>INSERT INTO t (a,b) VALUES (?,?),(?,?),...</code>
+ */
+final class MultiRowValuesJdbcBulkLoader extends JdbcBulkLoader {
+
+    private final int _maxRowsPerStatement;
+    private final int _maxParametersPerStatement;
+
+    /**
+     * @param dataContext
+     * @param maxRowsPerStatement
+     *            the maximum number of rows in a single VALUES list
+     * @param maxParametersPerStatement
+     *            the maximum number of parameters the database allows in a
+     *            single statement
+     */
+    public MultiRowValuesJdbcBulkLoader(final JdbcDataContext dataContext, final int maxRowsPerStatement,
+            final int maxParametersPerStatement) {
+        super(dataContext);
+        _maxRowsPerStatement = maxRowsPerStatement;
+        _maxParametersPerStatement = maxParametersPerStatement;
+    }
+
+    @Override
+    public int load(final Connection connection, final String insertTarget, final Column[] columns,
+            final Iterator<Object[]> rows) throws SQLException {
+        final int rowsPerStatement =
+                Math.max(1, Math.min(_maxRowsPerStatement, _maxParametersPerStatement / columns.length));
+
+        // holds references to the records of the statement being built
+        final Object[][] statementRows = new Object[rowsPerStatement][];
+        int statementRowCount = 0;
+        int count = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                createSql(insertTarget, columns.length, rowsPerStatement))) {
+            while (rows.hasNext()) {
+                statementRows[statementRowCount++] = rows.next();
+                if (statementRowCount == rowsPerStatement) {
+                    execute(statement, columns, statementRows, statementRowCount);
+                    count += statementRowCount;
+                    statementRowCount = 0;
+                }
+            }
+        }
+
+        if (statementRowCount > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    createSql(insertTarget, columns.length, statementRowCount))) {
+                execute(statement, columns, statementRows, statementRowCount);
+                count += statementRowCount;
+            }
+        }
+        return count;
+    }
+
+    private void execute(final PreparedStatement statement, final Column[] columns, final Object[][] statementRows,
+            final int statementRowCount) throws SQLException {
+        int parameterIndex = 1;
+        for (int row = 0; row < statementRowCount; row++) {
+            final Object[] rowData = statementRows[row];
+            for (int i = 0; i < columns.length; i++) {
+                setParameter(statement, parameterIndex++, columns[i], rowData[i]);
+            }
+            statementRows[row] = null;
+        }
+        statement.executeUpdate();
+    }
+
+    private static String createSql(final String insertTarget, final int columnCount, final int rowCount) {
+        final StringBuilder sb = new StringBuilder(insertTarget.length() + 20 + rowCount * (columnCount * 2 + 3));
+        sb.append("INSERT INTO ").append(insertTarget).append(" VALUES ");
+        for (int row = 0; row < rowCount; row++) {
+            sb.append(row == 0 ? "(" : ",(");
+            for (int i = 0; i < columnCount; i++) {
+                sb.append(i == 0 ? "?" : ",?");
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Iterator;
+
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * {@link JdbcBulkLoader} for PostgreSQL, which streams records to the server
+ * using <code>COPY ... FROM STDIN</code> in the text format.
+ */
+final class PostgresCopyJdbcBulkLoader extends JdbcBulkLoader {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    public PostgresCopyJdbcBulkLoader(final JdbcDataContext dataContext) {
+        super(dataContext);
+    }
+
+    @Override
+    public int load(final Connection connection, final String insertTarget, final Column[] columns,
+            final Iterator<Object[]> rows) throws SQLException {
+        final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        final CopyIn copyIn = pgConnection.getCopyAPI().copyIn("COPY " + insertTarget + " FROM STDIN");
+
+        int count = 0;
+        try {
+            final StringBuilder sb = new StringBuilder(FLUSH_THRESHOLD + 1024);
+            while (rows.hasNext()) {
+                final Object[] rowData = rows.next();
+                for (int i = 0; i < columns.length; i++) {
+                    if (i != 0) {
+                        sb.append('\t');
+                    }
+                    appendValue(sb, columns[i].getType(), rowData[i]);
+                }
+                sb.append('\n');
+                count++;
+
+                if (sb.length() >= FLUSH_THRESHOLD) {
+                    write(copyIn, sb);
+                }
+            }
+            write(copyIn, sb);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return count;
+    }
+
+    private static void write(final CopyIn copyIn, final StringBuilder sb) throws SQLException {
+        if (sb.length() > 0) {
+            final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            sb.setLength(0);
+        }
+    }
+
+    private static void appendValue(final StringBuilder sb, final ColumnType columnType, final Object value) {
+        if (value == null) {
+            sb.append("\\N");
+        } else if (value instanceof byte[]) {
+            // bytea hex format, with the backslash escaped for COPY
+            sb.append("\\\\x");
+            for (final byte b : (byte[]) value) {
+                sb.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+            }
+        } else if (value instanceof Date && !(value instanceof java.sql.Date || value instanceof Time
+                || value instanceof Timestamp)) {
+            final long time = ((Date) value).getTime();
+            if (ColumnType.DATE.equals(columnType)) {
+                sb.append(new java.sql.Date(time));
+            } else if (ColumnType.TIME.equals(columnType)) {
+                sb.append(new Time(time));
+            } else {
+                sb.append(new Timestamp(time));
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            appendEscaped(sb, value.toString());
+        }
+    }
+
+    private static void appendEscaped(final StringBuilder sb, final String str) {
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
+            final char c = str.charAt(i);
+            switch (c) {
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+
+import junit.framework.TestCase;
+
+public class JdbcBulkLoaderTest extends TestCase {
+
+    public void testMultiRowValuesOnH2() throws Exception {
+        Class.forName("org.h2.Driver");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:JdbcBulkLoaderTest")) {
+            final JdbcDataContext dataContext = createDataContext(connection);
+            final JdbcBulkLoader bulkLoader = JdbcBulkLoader.create(dataContext);
+            assertEquals(MultiRowValuesJdbcBulkLoader.class, bulkLoader.getClass());
+
+            runLoadScenario(dataContext, bulkLoader);
+        }
+    }
+
+    public void testBatchOnHsqldb() throws Exception {
+        Class.forName("org.hsqldb.jdbcDriver");
+        try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:JdbcBulkLoaderTest", "SA", "")) {
+            final JdbcDataContext dataContext = createDataContext(connection);
+            final JdbcBulkLoader bulkLoader = JdbcBulkLoader.create(dataContext);
+            assertEquals(BatchJdbcBulkLoader.class, bulkLoader.getClass());
+
+            runLoadScenario(dataContext, bulkLoader);
+        }
+    }
+
+    public void testMultiRowValuesWithSmallStatements() throws Exception {
+        Class.forName("org.h2.Driver");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:JdbcBulkLoaderTest2")) {
+            final JdbcDataContext dataContext = createDataContext(connection);
+
+            // 3 parameters per statement means a single row per statement
+            runLoadScenario(dataContext, new MultiRowValuesJdbcBulkLoader(dataContext, 7, 3));
+            connection.createStatement().execute("DELETE FROM bulk_test");
+            runLoadScenario(dataContext, new MultiRowValuesJdbcBulkLoader(dataContext, 7, 1000));
+        }
+    }
+
+    private JdbcDataContext createDataContext(final Connection connection) throws Exception {
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE bulk_test (id INTEGER PRIMARY KEY, name VARCHAR(255), created TIMESTAMP)");
+        }
+        connection.commit();
+        return new JdbcDataContext(connection);
+    }
+
+    private void runLoadScenario(final JdbcDataContext dataContext, final JdbcBulkLoader bulkLoader) {
+        final Table table = dataContext.getDefaultSchema().getTableByName("BULK_TEST");
+        final Column[] columns = table.getColumns().toArray(new Column[0]);
+
+        final java.util.Date date = new java.util.Date(1000000000000L);
+        final List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Object[] { i, i % 10 == 0 ? null : "name\t" + i, date });
+        }
+
+        assertEquals(100, bulkLoader.load(columns, rows));
+        assertEquals(100, count(dataContext, table));
+
+        try (DataSet dataSet = dataContext.query().from(table).select(columns).where("ID").eq(42).execute()) {
+            assertTrue(dataSet.next());
+            assertEquals("name\t42", dataSet.getRow().getValue(1));
+            assertEquals(date.getTime(), ((java.util.Date) dataSet.getRow().getValue(2)).getTime());
+        }
+
+        // a duplicate key fails the whole load, which is rolled back
+        final List<Object[]> failingRows = Arrays.asList(new Object[] { 100, "foo", null },
+                new Object[] { 101, "bar", null }, new Object[] { 42, "baz", null });
+        try {
+            bulkLoader.load(columns, failingRows);
+            fail("Exception expected");
+        } catch (final MetaModelException e) {
+            // expected
+        }
+        assertEquals(100, count(dataContext, table));
+    }
+
+    private int count(final JdbcDataContext dataContext, final Table table) {
+        try (DataSet dataSet = dataContext.query().from(table).selectCount().execute()) {
+            assertTrue(dataSet.next());
+            return ((Number) dataSet.getRow().getValue(0)).intValue();
+        }
+    }
+}
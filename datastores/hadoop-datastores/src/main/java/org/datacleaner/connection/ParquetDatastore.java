@@ -0,0 +1,65 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.util.List;
+
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.SerializableRef;
+import org.datacleaner.connection.parquet.ParquetDataContext;
+
+/**
+ * Datastore implementation for Apache Parquet files. The resource may point to
+ * a single file or to a directory of files with the same schema.
+ */
+public class ParquetDatastore extends UsageAwareDatastore<ParquetDataContext> implements ResourceDatastore {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SerializableRef<Resource> _resourceRef;
+
+    public ParquetDatastore(final String name, final Resource resource) {
+        super(name);
+        _resourceRef = new SerializableRef<>(resource);
+    }
+
+    @Override
+    public PerformanceCharacteristics getPerformanceCharacteristics() {
+        // filters are pushed down to skip row groups
+        return new PerformanceCharacteristicsImpl(true, true);
+    }
+
+    @Override
+    protected UsageAwareDatastoreConnection<ParquetDataContext> createDatastoreConnection() {
+        final ParquetDataContext dataContext = new ParquetDataContext(_resourceRef.get());
+        return new DatastoreConnectionImpl<>(dataContext, this);
+    }
+
+    @Override
+    public Resource getResource() {
+        return _resourceRef.get();
+    }
+
+    @Override
+    protected void decorateIdentity(final List<Object> identifiers) {
+        super.decorateIdentity(identifiers);
+        identifiers.add(_resourceRef);
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.parquet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.QueryPostprocessDataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableSchema;
+import org.apache.metamodel.schema.MutableTable;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.schema.TableType;
+import org.apache.metamodel.util.Resource;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Type.Repetition;
+
+/**
+ * DataContext for a Parquet file, or a directory of Parquet files sharing the
+ * same schema (as written by eg. Spark or Hive).
+ *
+ * Only the column chunks of the queried columns are read, and WHERE items are
+ * pushed down to the Parquet reader as a {@link FilterPredicate}, so that row
+ * groups which cannot contain matching records are skipped.
+ */
+public class ParquetDataContext extends QueryPostprocessDataContext {
+
+    private final Resource _resource;
+    private volatile MessageType _fileSchema;
+
+    public ParquetDataContext(final Resource resource) {
+        super(false);
+        _resource = resource;
+    }
+
+    public Resource getResource() {
+        return _resource;
+    }
+
+    /**
+     * Gets the schema of the Parquet file(s) of this {@link ParquetDataContext}
+     *
+     * @return
+     */
+    public MessageType getFileSchema() {
+        if (_fileSchema == null) {
+            _fileSchema = ParquetHelper.readSchema(getHadoopConfiguration(), getHadoopPath());
+        }
+        return _fileSchema;
+    }
+
+    private Configuration getHadoopConfiguration() {
+        return ParquetHelper.getHadoopConfiguration(_resource);
+    }
+
+    private Path getHadoopPath() {
+        return ParquetHelper.getHadoopPath(_resource);
+    }
+
+    @Override
+    protected Schema getMainSchema() throws MetaModelException {
+        final String name = getMainSchemaName();
+        final MutableSchema schema = new MutableSchema(name);
+        final MutableTable table = new MutableTable(name, TableType.TABLE, schema);
+        schema.addTable(table);
+
+        int columnNumber = 0;
+        for (final Type field : getFileSchema().getFields()) {
+            if (ParquetHelper.isColumn(field)) {
+                final MutableColumn column = new MutableColumn(field.getName(),
+                        ParquetHelper.getColumnType(field.asPrimitiveType()), table, columnNumber,
+                        !field.isRepetition(Repetition.REQUIRED));
+                column.setNativeType(field.asPrimitiveType().getPrimitiveTypeName().name());
+                table.addColumn(column);
+                columnNumber++;
+            }
+        }
+        return schema;
+    }
+
+    @Override
+    protected String getMainSchemaName() throws MetaModelException {
+        return _resource.getName();
+    }
+
+    @Override
+    protected Number executeCountQuery(final Table table, final List<FilterItem> whereItems,
+            final boolean functionApproximationAllowed) {
+        if (whereItems == null || whereItems.isEmpty()) {
+            return ParquetHelper.readRowCount(getHadoopConfiguration(), getHadoopPath());
+        }
+        return null;
+    }
+
+    @Override
+    protected DataSet materializeMainSchemaTable(final Table table, final List<SelectItem> selectItems,
+            final List<FilterItem> whereItems, final int firstRow, final int maxRows) {
+        final FilterPredicate predicate = ParquetFilterPredicates.create(getFileSchema(), whereItems);
+        if (predicate == null) {
+            return super.materializeMainSchemaTable(table, selectItems, whereItems, firstRow, maxRows);
+        }
+
+        // the records need to hold the values of both the select items and
+        // the columns of the where items
+        final Set<Column> columns = new LinkedHashSet<>();
+        for (final SelectItem selectItem : selectItems) {
+            if (!isColumn(selectItem)) {
+                return super.materializeMainSchemaTable(table, selectItems, whereItems, firstRow, maxRows);
+            }
+            columns.add(selectItem.getColumn());
+        }
+        final List<SelectItem> workingSelectItems = new ArrayList<>(selectItems);
+        for (final FilterItem whereItem : whereItems) {
+            if (!addColumns(whereItem, columns, workingSelectItems)) {
+                return super.materializeMainSchemaTable(table, selectItems, whereItems, firstRow, maxRows);
+            }
+        }
+
+        DataSet dataSet = read(workingSelectItems, predicate, -1);
+        dataSet = MetaModelHelper.getFiltered(dataSet, whereItems);
+        dataSet = MetaModelHelper.getPaged(dataSet, firstRow, maxRows);
+        return MetaModelHelper.getSelection(selectItems, dataSet);
+    }
+
+    private static boolean isColumn(final SelectItem selectItem) {
+        return selectItem.getColumn() != null && selectItem.getAggregateFunction() == null
+                && selectItem.getScalarFunction() == null;
+    }
+
+    private static boolean addColumns(final FilterItem filterItem, final Set<Column> columns,
+            final List<SelectItem> selectItems) {
+        if (filterItem.isCompoundFilter()) {
+            for (final FilterItem childItem : filterItem.getChildItems()) {
+                if (!addColumns(childItem, columns, selectItems)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (filterItem.getExpression() != null) {
+            return false;
+        }
+        if (!addColumn(filterItem.getSelectItem(), columns, selectItems)) {
+            return false;
+        }
+        final Object operand = filterItem.getOperand();
+        return !(operand instanceof SelectItem) || addColumn((SelectItem) operand, columns, selectItems);
+    }
+
+    private static boolean addColumn(final SelectItem selectItem, final Set<Column> columns,
+            final List<SelectItem> selectItems) {
+        if (!isColumn(selectItem)) {
+            return false;
+        }
+        if (columns.add(selectItem.getColumn())) {
+            selectItems.add(new SelectItem(selectItem.getColumn()));
+        }
+        return true;
+    }
+
+    @Override
+    protected DataSet materializeMainSchemaTable(final Table table, final List<Column> columns, final int maxRows) {
+        final List<SelectItem> selectItems = new ArrayList<>(columns.size());
+        for (final Column column : columns) {
+            selectItems.add(new SelectItem(column));
+        }
+        return read(selectItems, null, maxRows);
+    }
+
+    private DataSet read(final List<SelectItem> selectItems, final FilterPredicate predicate, final int maxRows) {
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        for (final SelectItem selectItem : selectItems) {
+            fieldNames.add(selectItem.getColumn().getName());
+        }
+        final MessageType projection = ParquetHelper.createProjection(getFileSchema(), fieldNames);
+
+        final Configuration configuration = new Configuration(getHadoopConfiguration());
+        configuration.set(ReadSupport.PARQUET_READ_SCHEMA, projection.toString());
+        final FilterCompat.Filter filter = predicate == null ? FilterCompat.NOOP : FilterCompat.get(predicate);
+
+        final ParquetReader<Group> reader;
+        try {
+            reader = ParquetReader.builder(new GroupReadSupport(), getHadoopPath()).withConf(configuration)
+                    .withFilter(filter).build();
+        } catch (final IOException e) {
+            throw new MetaModelException("Could not open Parquet reader for " + _resource, e);
+        }
+        return new ParquetDataSet(selectItems, projection, reader, maxRows);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.parquet;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.schema.MessageType;
+
+/**
+ * {@link org.apache.metamodel.data.DataSet} of the records read by a
+ * {@link ParquetReader}.
+ */
+final class ParquetDataSet extends AbstractDataSet {
+
+    private final ParquetReader<Group> _reader;
+    private final int[] _fieldIndexes;
+    private final int _maxRows;
+    private int _rowsRead;
+    private Row _row;
+
+    /**
+     * @param selectItems
+     *            the select items of the data set, all referring to columns
+     *            that are part of the projection
+     * @param projection
+     *            the schema that the reader reads records with
+     * @param reader
+     * @param maxRows
+     *            the maximum number of rows to read, or a negative number for
+     *            no maximum
+     */
+    public ParquetDataSet(final List<SelectItem> selectItems, final MessageType projection,
+            final ParquetReader<Group> reader, final int maxRows) {
+        super(selectItems);
+        _reader = reader;
+        _maxRows = maxRows;
+        _fieldIndexes = new int[selectItems.size()];
+        for (int i = 0; i < _fieldIndexes.length; i++) {
+            _fieldIndexes[i] = projection.getFieldIndex(selectItems.get(i).getColumn().getName());
+        }
+    }
+
+    @Override
+    public boolean next() {
+        if (_maxRows >= 0 && _rowsRead >= _maxRows) {
+            close();
+            return false;
+        }
+
+        final Group group;
+        try {
+            group = _reader.read();
+        } catch (final IOException e) {
+            throw new MetaModelException("Could not read Parquet record", e);
+        }
+        if (group == null) {
+            _row = null;
+            close();
+            return false;
+        }
+
+        final Object[] values = new Object[_fieldIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ParquetHelper.getValue(group, _fieldIndexes[i]);
+        }
+        _row = new DefaultRow(getHeader(), values);
+        _rowsRead++;
+        return true;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        FileHelper.safeClose(_reader);
+    }
+}
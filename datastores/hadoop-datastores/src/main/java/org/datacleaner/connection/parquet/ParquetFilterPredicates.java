@@ -0,0 +1,271 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.parquet;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+/**
+ * Translates MetaModel {@link FilterItem}s into Parquet
+ * {@link FilterPredicate}s, which allow the Parquet reader to skip row groups
+ * based on their column statistics.
+ *
+ * The translation is conservative: a predicate never excludes a record that
+ * the filter items would include, but it may include records that the filter
+ * items exclude. Filter items should therefore still be evaluated on the
+ * records that are read. Filter items that cannot be translated safely are left
+ * out of the predicate, which is only possible for items that are combined by
+ * AND.
+ */
+public final class ParquetFilterPredicates {
+
+    private ParquetFilterPredicates() {
+        // prevent instantiation
+    }
+
+    /**
+     * Creates a predicate for a list of filter items which are combined by
+     * AND, such as the WHERE items of a query.
+     *
+     * @param schema
+     *            the schema of the Parquet file to read
+     * @param filterItems
+     * @return a predicate, or null if none of the filter items could be
+     *         translated
+     */
+    public static FilterPredicate create(final MessageType schema, final Collection<FilterItem> filterItems) {
+        FilterPredicate result = null;
+        if (filterItems != null) {
+            for (final FilterItem filterItem : filterItems) {
+                final FilterPredicate predicate = create(schema, filterItem);
+                if (predicate != null) {
+                    result = result == null ? predicate : FilterApi.and(result, predicate);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static FilterPredicate create(final MessageType schema, final FilterItem filterItem) {
+        if (filterItem.isCompoundFilter()) {
+            final List<FilterItem> childItems = Arrays.asList(filterItem.getChildItems());
+            if (filterItem.getLogicalOperator() == LogicalOperator.AND) {
+                return create(schema, childItems);
+            }
+
+            // all alternatives of an OR need to be translated
+            FilterPredicate result = null;
+            for (final FilterItem childItem : childItems) {
+                final FilterPredicate predicate = create(schema, childItem);
+                if (predicate == null) {
+                    return null;
+                }
+                result = result == null ? predicate : FilterApi.or(result, predicate);
+            }
+            return result;
+        }
+
+        if (filterItem.getExpression() != null) {
+            return null;
+        }
+
+        final Column column = getColumn(filterItem.getSelectItem());
+        if (column == null || !schema.containsField(column.getName())) {
+            return null;
+        }
+        final Type field = schema.getType(column.getName());
+        if (!ParquetHelper.isColumn(field)) {
+            return null;
+        }
+
+        final OperatorType operator = filterItem.getOperator();
+        final Object operand = filterItem.getOperand();
+        if (operand instanceof SelectItem) {
+            return null;
+        }
+
+        if (OperatorType.IN.equals(operator)) {
+            final Collection<?> operands;
+            if (operand instanceof Collection) {
+                operands = (Collection<?>) operand;
+            } else if (operand instanceof Object[]) {
+                operands = Arrays.asList((Object[]) operand);
+            } else {
+                return null;
+            }
+            FilterPredicate result = null;
+            for (final Object value : operands) {
+                final FilterPredicate predicate = create(field.asPrimitiveType(), OperatorType.EQUALS_TO, value);
+                if (predicate == null) {
+                    return null;
+                }
+                result = result == null ? predicate : FilterApi.or(result, predicate);
+            }
+            return result;
+        }
+
+        return create(field.asPrimitiveType(), operator, operand);
+    }
+
+    private static FilterPredicate create(final PrimitiveType type, final OperatorType operator,
+            final Object operand) {
+        final String name = type.getName();
+        switch (type.getPrimitiveTypeName()) {
+        case INT32:
+            if (type.getOriginalType() != null) {
+                return null;
+            }
+            return compare(FilterApi.intColumn(name), operator, operand, toInteger(operand));
+        case INT64:
+            if (type.getOriginalType() != null) {
+                return null;
+            }
+            return compare(FilterApi.longColumn(name), operator, operand, toLong(operand));
+        case BOOLEAN:
+            return equate(FilterApi.booleanColumn(name), operator, operand, toBoolean(operand));
+        case BINARY:
+            // the ordering of binary statistics depends on the version of the
+            // writer, so only (in)equality is safe to push down
+            if (!ParquetHelper.isString(type)) {
+                return null;
+            }
+            return equate(FilterApi.binaryColumn(name), operator, operand,
+                    operand == null ? null : Binary.fromString(operand.toString()));
+        default:
+            // floating point statistics may be wrong if NaN values are present,
+            // and other types require conversions
+            return null;
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsEqNotEq>
+            FilterPredicate equate(final C column, final OperatorType operator, final Object operand,
+            final T value) {
+        if (operand != null && value == null) {
+            return null;
+        }
+        if (OperatorType.EQUALS_TO.equals(operator)) {
+            return FilterApi.eq(column, value);
+        }
+        if (OperatorType.DIFFERENT_FROM.equals(operator)) {
+            return FilterApi.notEq(column, value);
+        }
+        return null;
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+            FilterPredicate compare(final C column, final OperatorType operator, final Object operand,
+            final T value) {
+        final FilterPredicate predicate = equate(column, operator, operand, value);
+        if (predicate != null || value == null) {
+            return predicate;
+        }
+        if (OperatorType.LESS_THAN.equals(operator)) {
+            return FilterApi.lt(column, value);
+        }
+        if (OperatorType.LESS_THAN_OR_EQUAL.equals(operator)) {
+            return FilterApi.ltEq(column, value);
+        }
+        if (OperatorType.GREATER_THAN.equals(operator)) {
+            return FilterApi.gt(column, value);
+        }
+        if (OperatorType.GREATER_THAN_OR_EQUAL.equals(operator)) {
+            return FilterApi.gtEq(column, value);
+        }
+        return null;
+    }
+
+    private static Column getColumn(final SelectItem selectItem) {
+        if (selectItem == null || selectItem.getAggregateFunction() != null
+                || selectItem.getScalarFunction() != null || selectItem.getSubQuerySelectItem() != null) {
+            return null;
+        }
+        return selectItem.getColumn();
+    }
+
+    private static BigDecimal toBigDecimal(final Object operand) {
+        if (operand instanceof Number || operand instanceof String) {
+            try {
+                return new BigDecimal(operand.toString().trim());
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Integer toInteger(final Object operand) {
+        if (operand instanceof Integer) {
+            return (Integer) operand;
+        }
+        final BigDecimal number = toBigDecimal(operand);
+        if (number == null) {
+            return null;
+        }
+        try {
+            return number.intValueExact();
+        } catch (final ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Long toLong(final Object operand) {
+        if (operand instanceof Long) {
+            return (Long) operand;
+        }
+        final BigDecimal number = toBigDecimal(operand);
+        if (number == null) {
+            return null;
+        }
+        try {
+            return number.longValueExact();
+        } catch (final ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Boolean toBoolean(final Object operand) {
+        if (operand instanceof Boolean) {
+            return (Boolean) operand;
+        }
+        if ("true".equalsIgnoreCase(String.valueOf(operand))) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(String.valueOf(operand))) {
+            return false;
+        }
+        return null;
+    }
+}
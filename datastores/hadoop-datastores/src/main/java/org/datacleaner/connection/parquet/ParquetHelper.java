@@ -0,0 +1,313 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.parquet;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.util.FileResource;
+import org.apache.metamodel.util.HdfsResource;
+import org.apache.metamodel.util.Resource;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.Footer;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Type.Repetition;
+
+/**
+ * Helper methods for reading Parquet files, shared by the
+ * {@link ParquetDataContext} and distributed readers of Parquet files.
+ *
+ * Only the top-level, non-repeated primitive fields of a Parquet file are
+ * exposed as columns.
+ */
+public final class ParquetHelper {
+
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Filters out hidden files and metadata files, such as "_SUCCESS" and
+     * "_metadata", when reading a directory of Parquet files.
+     */
+    private static final PathFilter DATA_FILE_FILTER = path -> {
+        final String name = path.getName();
+        return !name.startsWith("_") && !name.startsWith(".");
+    };
+
+    private ParquetHelper() {
+        // prevent instantiation
+    }
+
+    public static Configuration getHadoopConfiguration(final Resource resource) {
+        if (resource instanceof HdfsResource) {
+            return ((HdfsResource) resource).getHadoopConfiguration();
+        }
+        return new Configuration();
+    }
+
+    public static Path getHadoopPath(final Resource resource) {
+        if (resource instanceof HdfsResource) {
+            return ((HdfsResource) resource).getHadoopPath();
+        }
+        if (resource instanceof FileResource) {
+            return new Path(((FileResource) resource).getFile().toURI());
+        }
+        return new Path(resource.getQualifiedPath());
+    }
+
+    /**
+     * Reads the schema of a Parquet file, or of the first data file in a
+     * directory of Parquet files. Only the footer of the file is read.
+     *
+     * @param configuration
+     * @param path
+     * @return
+     */
+    public static MessageType readSchema(final Configuration configuration, final Path path) {
+        try {
+            final FileSystem fileSystem = path.getFileSystem(configuration);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            if (fileStatus.isDirectory()) {
+                final FileStatus[] children = fileSystem.listStatus(path, DATA_FILE_FILTER);
+                fileStatus = null;
+                for (final FileStatus child : children) {
+                    if (child.isFile()) {
+                        fileStatus = child;
+                        break;
+                    }
+                }
+                if (fileStatus == null) {
+                    throw new MetaModelException("No Parquet files in directory: " + path);
+                }
+            }
+            return ParquetFileReader.readFooter(configuration, fileStatus, ParquetMetadataConverter.SKIP_ROW_GROUPS)
+                    .getFileMetaData().getSchema();
+        } catch (final IOException e) {
+            throw new MetaModelException("Could not read Parquet schema of " + path, e);
+        }
+    }
+
+    /**
+     * Counts the records of a Parquet file or directory, using only the row
+     * group metadata of the footers.
+     *
+     * @param configuration
+     * @param path
+     * @return
+     */
+    public static long readRowCount(final Configuration configuration, final Path path) {
+        try {
+            long rowCount = 0;
+            for (final Footer footer : ParquetFileReader.readFooters(configuration, path)) {
+                for (final BlockMetaData block : footer.getParquetMetadata().getBlocks()) {
+                    rowCount += block.getRowCount();
+                }
+            }
+            return rowCount;
+        } catch (final IOException e) {
+            throw new MetaModelException("Could not read Parquet footers of " + path, e);
+        }
+    }
+
+    /**
+     * Determines if a field of a Parquet schema is exposed as a column.
+     *
+     * @param field
+     * @return
+     */
+    public static boolean isColumn(final Type field) {
+        return field.isPrimitive() && !field.isRepetition(Repetition.REPEATED);
+    }
+
+    public static ColumnType getColumnType(final PrimitiveType type) {
+        final OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+        case BOOLEAN:
+            return ColumnType.BOOLEAN;
+        case INT32:
+            if (originalType == OriginalType.DATE) {
+                return ColumnType.DATE;
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return ColumnType.DECIMAL;
+            }
+            return ColumnType.INTEGER;
+        case INT64:
+            if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+                return ColumnType.TIMESTAMP;
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return ColumnType.DECIMAL;
+            }
+            return ColumnType.BIGINT;
+        case INT96:
+            return ColumnType.TIMESTAMP;
+        case FLOAT:
+            return ColumnType.FLOAT;
+        case DOUBLE:
+            return ColumnType.DOUBLE;
+        case BINARY:
+        case FIXED_LEN_BYTE_ARRAY:
+            if (isString(type)) {
+                return ColumnType.STRING;
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return ColumnType.DECIMAL;
+            }
+            return ColumnType.BINARY;
+        default:
+            return ColumnType.OTHER;
+        }
+    }
+
+    static boolean isString(final PrimitiveType type) {
+        final OriginalType originalType = type.getOriginalType();
+        return originalType == OriginalType.UTF8 || originalType == OriginalType.ENUM
+                || originalType == OriginalType.JSON;
+    }
+
+    /**
+     * Creates a projection of a Parquet schema which only contains the fields
+     * with the specified names, so that only their column chunks are read.
+     *
+     * @param schema
+     * @param fieldNames
+     * @return
+     */
+    public static MessageType createProjection(final MessageType schema, final Collection<String> fieldNames) {
+        final List<Type> fields = new ArrayList<>(fieldNames.size());
+        for (final Type field : schema.getFields()) {
+            if (fieldNames.contains(field.getName())) {
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            // at least one column needs to be read to know the number of
+            // records
+            for (final Type field : schema.getFields()) {
+                if (isColumn(field)) {
+                    fields.add(field);
+                    break;
+                }
+            }
+        }
+        return new MessageType(schema.getName(), fields);
+    }
+
+    /**
+     * Gets the value of a primitive field of a record, converted to the Java
+     * type corresponding to {@link #getColumnType(PrimitiveType)}.
+     *
+     * @param group
+     * @param fieldIndex
+     * @return
+     */
+    public static Object getValue(final Group group, final int fieldIndex) {
+        if (group.getFieldRepetitionCount(fieldIndex) == 0) {
+            return null;
+        }
+        final PrimitiveType type = group.getType().getType(fieldIndex).asPrimitiveType();
+        final OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+        case BOOLEAN:
+            return group.getBoolean(fieldIndex, 0);
+        case INT32: {
+            final int value = group.getInteger(fieldIndex, 0);
+            if (originalType == OriginalType.DATE) {
+                return new Date(TimeUnit.DAYS.toMillis(value));
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return BigDecimal.valueOf(value, type.getDecimalMetadata().getScale());
+            }
+            return value;
+        }
+        case INT64: {
+            final long value = group.getLong(fieldIndex, 0);
+            if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+                return new Timestamp(value);
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return BigDecimal.valueOf(value, type.getDecimalMetadata().getScale());
+            }
+            return value;
+        }
+        case INT96:
+            return toTimestamp(group.getInt96(fieldIndex, 0));
+        case FLOAT:
+            return group.getFloat(fieldIndex, 0);
+        case DOUBLE:
+            return group.getDouble(fieldIndex, 0);
+        case BINARY:
+        case FIXED_LEN_BYTE_ARRAY: {
+            final Binary value = group.getBinary(fieldIndex, 0);
+            if (isString(type)) {
+                return value.toStringUsingUTF8();
+            }
+            if (originalType == OriginalType.DECIMAL) {
+                return new BigDecimal(new BigInteger(value.getBytes()), type.getDecimalMetadata().getScale());
+            }
+            return value.getBytes();
+        }
+        default:
+            return group.getValueToString(fieldIndex, 0);
+        }
+    }
+
+    /**
+     * Converts an INT96 timestamp, as written by Hive and Impala, which holds
+     * the nanoseconds of the day followed by the julian day.
+     *
+     * @param value
+     * @return
+     */
+    private static Timestamp toTimestamp(final Binary value) {
+        final ByteBuffer buffer = ByteBuffer.wrap(value.getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        final long nanosOfDay = buffer.getLong();
+        final long julianDay = buffer.getInt();
+        final long seconds = (julianDay - JULIAN_DAY_OF_EPOCH) * TimeUnit.DAYS.toSeconds(1)
+                + nanosOfDay / NANOS_PER_SECOND;
+        final Timestamp timestamp = new Timestamp(TimeUnit.SECONDS.toMillis(seconds));
+        timestamp.setNanos((int) (nanosOfDay % NANOS_PER_SECOND));
+        return timestamp;
+    }
+}
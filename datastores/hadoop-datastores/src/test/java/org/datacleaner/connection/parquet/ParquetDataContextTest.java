@@ -0,0 +1,194 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.parquet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.FileResource;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.connection.ParquetDatastore;
+
+import junit.framework.TestCase;
+
+public class ParquetDataContextTest extends TestCase {
+
+    private static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+            "message person { required int32 id; optional binary name (UTF8); optional int64 age; "
+                    + "optional boolean active; optional double score; repeated binary tags (UTF8); }");
+
+    private static final int ROWS = 1000;
+
+    private File _file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        _file = new File("target/" + getClass().getSimpleName() + "/" + getName() + ".parquet");
+        _file.delete();
+        new File(_file.getParentFile(), "." + _file.getName() + ".crc").delete();
+        writeFile(_file);
+    }
+
+    /**
+     * Writes a file with small row groups, so that row groups can be skipped
+     */
+    static void writeFile(final File file) throws Exception {
+        final Configuration configuration = new Configuration();
+        GroupWriteSupport.setSchema(SCHEMA, configuration);
+        final SimpleGroupFactory groupFactory = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = new ParquetWriter<>(new Path(file.toURI()), new GroupWriteSupport(),
+                CompressionCodecName.UNCOMPRESSED, 4096, 1024, 1024, true, false, ParquetWriter.DEFAULT_WRITER_VERSION,
+                configuration)) {
+            for (int i = 0; i < ROWS; i++) {
+                final Group group = groupFactory.newGroup();
+                group.add("id", i);
+                if (i % 10 != 0) {
+                    group.add("name", "name" + i);
+                }
+                group.add("age", (long) (i % 100));
+                group.add("active", i % 2 == 0);
+                group.add("score", i / 10d);
+                group.add("tags", "tag");
+                writer.write(group);
+            }
+        }
+    }
+
+    public void testSchema() throws Exception {
+        final ParquetDatastore datastore = new ParquetDatastore("parquet", new FileResource(_file));
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            final DataContext dataContext = connection.getDataContext();
+            final Table table = dataContext.getDefaultSchema().getTable(0);
+            assertEquals("testSchema.parquet", table.getName());
+            assertEquals("[id, name, age, active, score]", table.getColumnNames().toString());
+            assertEquals("INTEGER", table.getColumnByName("id").getType().toString());
+            assertFalse(table.getColumnByName("id").isNullable());
+            assertEquals("STRING", table.getColumnByName("name").getType().toString());
+            assertEquals("BIGINT", table.getColumnByName("age").getType().toString());
+            assertEquals("BOOLEAN", table.getColumnByName("active").getType().toString());
+            assertEquals("DOUBLE", table.getColumnByName("score").getType().toString());
+        }
+    }
+
+    public void testCount() throws Exception {
+        final ParquetDataContext dataContext = new ParquetDataContext(new FileResource(_file));
+        final Table table = dataContext.getDefaultSchema().getTable(0);
+        try (DataSet dataSet = dataContext.query().from(table).selectCount().execute()) {
+            assertTrue(dataSet.next());
+            assertEquals(ROWS, ((Number) dataSet.getRow().getValue(0)).intValue());
+        }
+        try (DataSet dataSet = dataContext.query().from(table).selectCount().where("age").eq(42).execute()) {
+            assertTrue(dataSet.next());
+            assertEquals(ROWS / 100, ((Number) dataSet.getRow().getValue(0)).intValue());
+        }
+    }
+
+    public void testReadAll() throws Exception {
+        final ParquetDataContext dataContext = new ParquetDataContext(new FileResource(_file));
+        final Table table = dataContext.getDefaultSchema().getTable(0);
+        try (DataSet dataSet = dataContext.query().from(table).selectAll().execute()) {
+            assertTrue(dataSet.next());
+            assertEquals("Row[values=[0, null, 0, true, 0.0]]", dataSet.getRow().toString());
+            assertTrue(dataSet.next());
+            assertEquals("Row[values=[1, name1, 1, false, 0.1]]", dataSet.getRow().toString());
+            int count = 2;
+            while (dataSet.next()) {
+                count++;
+            }
+            assertEquals(ROWS, count);
+        }
+    }
+
+    public void testQueryWithPushedDownFilter() throws Exception {
+        final ParquetDataContext dataContext = new ParquetDataContext(new FileResource(_file));
+        final Table table = dataContext.getDefaultSchema().getTable(0);
+
+        final Query query = dataContext.query().from(table).select("name").where("id").greaterThanOrEquals(500)
+                .and("id").lessThan(503).and("score").greaterThan(1).toQuery();
+        assertEquals("[null, name501, name502]", getValues(dataContext.executeQuery(query)).toString());
+
+        final Query orQuery = dataContext.query().from(table).select("id").where("name").eq("name7")
+                .or("name").eq("name907").toQuery();
+        assertEquals("[7, 907]", getValues(dataContext.executeQuery(orQuery)).toString());
+
+        final Query nullQuery = dataContext.query().from(table).select("id").where("name").isNull().and("id")
+                .lessThan(35).toQuery();
+        assertEquals("[0, 10, 20, 30]", getValues(dataContext.executeQuery(nullQuery)).toString());
+
+        final Query pagedQuery = dataContext.query().from(table).select("id").where("active").eq(true)
+                .and("age").eq(10).firstRow(3).maxRows(2).toQuery();
+        assertEquals("[210, 310]", getValues(dataContext.executeQuery(pagedQuery)).toString());
+    }
+
+    public void testCreateFilterPredicate() throws Exception {
+        final ParquetDataContext dataContext = new ParquetDataContext(new FileResource(_file));
+        final Table table = dataContext.getDefaultSchema().getTable(0);
+        final Column id = table.getColumnByName("id");
+        final Column name = table.getColumnByName("name");
+        final Column score = table.getColumnByName("score");
+
+        final List<FilterItem> filterItems = new ArrayList<>();
+        filterItems.add(new FilterItem(new SelectItem(id), OperatorType.LESS_THAN, "42"));
+        filterItems.add(new FilterItem(new SelectItem(name), OperatorType.EQUALS_TO, "foo"));
+        // not translatable, and therefore left out
+        filterItems.add(new FilterItem(new SelectItem(score), OperatorType.GREATER_THAN, 2.0));
+        filterItems.add(new FilterItem(new SelectItem(name), OperatorType.LESS_THAN, "bar"));
+        filterItems.add(new FilterItem(new SelectItem(id), OperatorType.EQUALS_TO, 4.5));
+        assertEquals("and(lt(id, 42), eq(name, Binary{\"foo\"}))",
+                ParquetFilterPredicates.create(dataContext.getFileSchema(), filterItems).toString());
+
+        // an OR is only translatable if all its alternatives are
+        final FilterItem orItem = new FilterItem(new FilterItem(new SelectItem(id), OperatorType.EQUALS_TO, 1),
+                new FilterItem(new SelectItem(score), OperatorType.EQUALS_TO, 1));
+        assertNull(ParquetFilterPredicates.create(dataContext.getFileSchema(), Collections.singletonList(orItem)));
+    }
+
+    private static List<Object> getValues(final DataSet dataSet) {
+        final List<Object> values = new ArrayList<>();
+        try {
+            while (dataSet.next()) {
+                values.add(dataSet.getRow().getValue(0));
+            }
+        } finally {
+            dataSet.close();
+        }
+        return values;
+    }
+}
@@ -28,7 +28,6 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
 import org.apache.commons.vfs2.FileObject;
-import org.apache.metamodel.util.FileHelper;
 import org.datacleaner.Version;
 import org.datacleaner.bootstrap.WindowContext;
 import org.datacleaner.configuration.DataCleanerConfiguration;
@@ -42,10 +41,11 @@ import org.datacleaner.job.NoSuchComponentException;
 import org.datacleaner.job.NoSuchDatastoreException;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.save.AnalysisResultReader;
 import org.datacleaner.user.UserPreferences;
-import org.datacleaner.util.ChangeAwareObjectInputStream;
 import org.datacleaner.util.FileFilters;
 import org.datacleaner.util.VFSUtils;
+import org.datacleaner.util.VfsResource;
 import org.datacleaner.util.WidgetUtils;
 import org.datacleaner.widgets.DCFileChooser;
 import org.datacleaner.widgets.OpenAnalysisJobFileChooserAccessory;
@@ -139,19 +139,9 @@ public class OpenAnalysisJobActionListener implements ActionListener {
     }
 
     public ResultWindow openAnalysisResult(final FileObject fileObject, final DCModule parentModule) {
-        final AnalysisResult analysisResult;
-        try {
-            final ChangeAwareObjectInputStream is =
-                    new ChangeAwareObjectInputStream(fileObject.getContent().getInputStream());
-            try {
-                is.addClassLoader(ExtensionPackage.getExtensionClassLoader());
-                analysisResult = (AnalysisResult) is.readObject();
-            } finally {
-                FileHelper.safeClose(is);
-            }
-        } catch (final Exception e) {
-            throw new IllegalStateException(e);
-        }
+        final AnalysisResultReader reader = new AnalysisResultReader(new VfsResource(fileObject));
+        reader.addClassLoader(ExtensionPackage.getExtensionClassLoader());
+        final AnalysisResult analysisResult = reader.read();
 
         final File file = VFSUtils.toFile(fileObject);
         if (file != null) {
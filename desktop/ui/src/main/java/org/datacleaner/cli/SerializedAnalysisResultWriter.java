@@ -23,26 +23,22 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.util.function.Supplier;
 
-import org.apache.commons.lang.SerializationUtils;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.result.AnalysisResult;
 import org.datacleaner.result.AnalysisResultWriter;
-import org.datacleaner.result.SimpleAnalysisResult;
+import org.datacleaner.result.save.AnalysisResultReader;
+import org.datacleaner.result.save.SectionedAnalysisResultWriter;
 
+/**
+ * Writes results in the file format of {@link SectionedAnalysisResultWriter},
+ * which can be read using {@link AnalysisResultReader}.
+ */
 public class SerializedAnalysisResultWriter implements AnalysisResultWriter {
 
     @Override
     public void write(final AnalysisResult result, final DataCleanerConfiguration configuration,
             final Supplier<Writer> writerRef, final Supplier<OutputStream> outputStreamRef) {
-        final SimpleAnalysisResult simpleAnalysisResult;
-
-        if (result instanceof SimpleAnalysisResult) {
-            simpleAnalysisResult = (SimpleAnalysisResult) result;
-        } else {
-            simpleAnalysisResult = new SimpleAnalysisResult(result.getResultMap());
-        }
-
-        SerializationUtils.serialize(simpleAnalysisResult, outputStreamRef.get());
+        new SectionedAnalysisResultWriter().write(result, outputStreamRef.get());
     }
 
 }
@@ -31,6 +31,7 @@ import org.datacleaner.configuration.DataCleanerHomeFolder;
 import org.datacleaner.configuration.DataCleanerHomeFolderImpl;
 import org.datacleaner.configuration.DefaultConfigurationReaderInterceptor;
 import org.datacleaner.descriptors.ClasspathScanDescriptorProvider;
+import org.datacleaner.descriptors.DescriptorIndex;
 import org.datacleaner.descriptors.DescriptorProvider;
 import org.datacleaner.extensions.ClassLoaderUtils;
 import org.datacleaner.extensions.ExtensionPackage;
@@ -39,6 +40,7 @@ import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.repository.Repository;
 import org.datacleaner.repository.file.FileRepository;
 import org.datacleaner.repository.vfs.VfsRepository;
+import org.datacleaner.util.SystemProperties;
 import org.datacleaner.util.convert.DummyRepositoryResourceFileTypeHandler;
 import org.datacleaner.util.convert.RepositoryFileResourceTypeHandler;
 import org.datacleaner.util.convert.ResourceConverter.ResourceTypeHandler;
@@ -50,13 +52,28 @@ import org.datacleaner.util.convert.ResourceConverter.ResourceTypeHandler;
 public class DesktopConfigurationReaderInterceptor extends DefaultConfigurationReaderInterceptor {
 
     private static final TaskRunner TASK_RUNNER = new MultiThreadedTaskRunner();
-    private static final DescriptorProvider DESCRIPTOR_PROVIDER =
-            new ClasspathScanDescriptorProvider(TASK_RUNNER).scanPackage("org.datacleaner", true);
+    private static final String DESCRIPTOR_INDEX_FILENAME = ".descriptor-index";
+    private static final DescriptorProvider DESCRIPTOR_PROVIDER = createDescriptorProvider();
     private static final DataCleanerEnvironment BASE_ENVIRONMENT =
             new DataCleanerEnvironmentImpl().withTaskRunner(TASK_RUNNER).withDescriptorProvider(DESCRIPTOR_PROVIDER);
 
     private final Repository _homeRepository;
 
+    /**
+     * Creates the descriptor provider. Unless running in sandbox mode or configured otherwise, it keeps a descriptor
+     * index in DATACLEANER_HOME, so that unchanged JAR files are not scanned on every start.
+     */
+    private static DescriptorProvider createDescriptorProvider() {
+        final ClasspathScanDescriptorProvider descriptorProvider = new ClasspathScanDescriptorProvider(TASK_RUNNER);
+        final File dataCleanerHome = DataCleanerHome.getAsFile();
+        if (descriptorProvider.getDescriptorIndex() == null && dataCleanerHome != null && !"true".equalsIgnoreCase(
+                System.getProperty(SystemProperties.SANDBOX))) {
+            descriptorProvider.setDescriptorIndex(
+                    new DescriptorIndex(new File(dataCleanerHome, DESCRIPTOR_INDEX_FILENAME)));
+        }
+        return descriptorProvider.scanPackage("org.datacleaner", true);
+    }
+
     public DesktopConfigurationReaderInterceptor(final FileObject dataCleanerHome) {
         this(new VfsRepository(dataCleanerHome));
     }
@@ -20,7 +20,6 @@
 package org.datacleaner.cli;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -30,10 +29,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.lang.SerializationUtils;
 import org.apache.log4j.PropertyConfigurator;
 import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.FileResource;
 import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.save.AnalysisResultReader;
 import org.xml.sax.Attributes;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
@@ -299,7 +299,7 @@ public class MainTest extends TestCase {
         final File file = new File(filename);
         assertTrue(file.exists());
 
-        final AnalysisResult result = (AnalysisResult) SerializationUtils.deserialize(new FileInputStream(file));
+        final AnalysisResult result = new AnalysisResultReader(new FileResource(file)).read();
         assertNotNull(result);
         assertEquals(6, result.getResults().size());
     }
@@ -19,13 +19,14 @@
  */
 package org.datacleaner.components.convert;
 
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -56,6 +57,8 @@ import org.joda.time.format.DateTimeFormatter;
 @Categorized(ConversionCategory.class)
 public class ConvertToDateTransformer implements Transformer {
 
+    private static final Pattern SHIFTED_TODAY_PATTERN = Pattern.compile("shifted_today(.+)");
+
     private static final String[] prototypePatterns = { "yyyy-MM-dd", "dd-MM-yyyy", "MM-dd-yyyy" };
 
     private static ConvertToDateTransformer internalInstance;
@@ -79,9 +82,13 @@ public class ConvertToDateTransformer implements Transformer {
     @Description("A sequence of date masks that will be tested from first to last until a match is found.")
     String[] dateMasks;
 
-    private DateTimeFormatter[] _dateTimeFormatters;
+    // one parser per input column, since they learn which mask is most used
+    private DateMaskParser[] _dateMaskParsers;
+    private DateMaskParser _defaultDateMaskParser;
+    private boolean[] _potentialNumberDateMasks;
     private DateTimeFormatter _numberBasedDateTimeFormatterLong;
     private DateTimeFormatter _numberBasedDateTimeFormatterShort;
+    private ThreadLocal<SimpleDateFormat> _simpleDateFormat;
 
     public ConvertToDateTransformer() {
         dateMasks = getDefaultDateMasks();
@@ -118,11 +125,36 @@ public class ConvertToDateTransformer implements Transformer {
         _numberBasedDateTimeFormatterLong = DateTimeFormat.forPattern("yyyyMMdd").withZone(zone);
         _numberBasedDateTimeFormatterShort = DateTimeFormat.forPattern("yyMMdd").withZone(zone);
 
-        _dateTimeFormatters = new DateTimeFormatter[dateMasks.length];
+        _defaultDateMaskParser = createDateMaskParser(zone);
+        _dateMaskParsers = new DateMaskParser[input == null ? 0 : input.length];
+        for (int i = 0; i < _dateMaskParsers.length; i++) {
+            _dateMaskParsers[i] = createDateMaskParser(zone);
+        }
+
+        _potentialNumberDateMasks = new boolean[dateMasks.length];
         for (int i = 0; i < dateMasks.length; i++) {
             final String dateMask = dateMasks[i];
-            _dateTimeFormatters[i] = DateTimeFormat.forPattern(dateMask).withZone(zone);
+            _potentialNumberDateMasks[i] =
+                    !dateMask.contains("-") && !dateMask.contains(".") && !dateMask.contains("/");
+        }
+
+        final TimeZone simpleDateFormatTimeZone = TimeZone.getTimeZone(timeZone);
+        _simpleDateFormat = ThreadLocal.withInitial(() -> {
+            // SimpleDateFormat is more fault tolerant in millisecond parsing
+            final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.S");
+            format.setTimeZone(simpleDateFormatTimeZone);
+            return format;
+        });
+    }
+
+    private DateMaskParser createDateMaskParser(final DateTimeZone zone) {
+        final DateMaskParser parser = new DateMaskParser(dateMasks, zone);
+        for (int i = 0; i < dateMasks.length; i++) {
+            if (!parser.isValid(i)) {
+                throw new IllegalArgumentException("Invalid date mask: " + dateMasks[i]);
+            }
         }
+        return parser;
     }
 
     @Override
@@ -139,7 +171,7 @@ public class ConvertToDateTransformer implements Transformer {
         final Date[] result = new Date[input.length];
         for (int i = 0; i < input.length; i++) {
             final Object value = inputRow.getValue(input[i]);
-            Date d = transformValue(value);
+            Date d = transformValue(value, _dateMaskParsers[i]);
             if (d == null) {
                 d = nullReplacement;
             }
@@ -149,6 +181,10 @@ public class ConvertToDateTransformer implements Transformer {
     }
 
     public Date transformValue(final Object value) {
+        return transformValue(value, _defaultDateMaskParser);
+    }
+
+    private Date transformValue(final Object value, final DateMaskParser dateMaskParser) {
         Date d = null;
         if (value != null) {
             if (value instanceof Date) {
@@ -156,15 +192,19 @@ public class ConvertToDateTransformer implements Transformer {
             } else if (value instanceof Calendar) {
                 d = ((Calendar) value).getTime();
             } else if (value instanceof String) {
-                d = convertFromString((String) value);
+                d = convertFromString((String) value, dateMaskParser);
             } else if (value instanceof Number) {
-                d = convertFromNumber((Number) value, true);
+                d = convertFromNumber((Number) value, true, dateMaskParser);
             }
         }
         return d;
     }
 
     protected Date convertFromString(final String value) {
+        return convertFromString(value, _defaultDateMaskParser);
+    }
+
+    private Date convertFromString(final String value, final DateMaskParser dateMaskParser) {
         if (value == null) {
             return null;
         }
@@ -178,36 +218,41 @@ public class ConvertToDateTransformer implements Transformer {
         if ("yesterday()".equalsIgnoreCase(value)) {
             return new YesterdayDate();
         }
-        if (value.matches("shifted_today(.+)")) {
+        if (SHIFTED_TODAY_PATTERN.matcher(value).matches()) {
             return new ShiftedToday(value);
         }
 
-        for (final DateTimeFormatter formatter : _dateTimeFormatters) {
-            try {
-                return formatter.parseDateTime(value).toDate();
-            } catch (final Exception e) {
-                // proceed to next formatter
-            }
+        final Date date = dateMaskParser.parse(value);
+        if (date != null) {
+            return date;
         }
 
-        try {
-            final long longValue = Long.parseLong(value);
-            return convertFromNumber(longValue, false);
-        } catch (final NumberFormatException e) {
-            // do nothing, proceed to dateFormat parsing
+        if (isLong(value)) {
+            return convertFromNumber(Long.parseLong(value), false, dateMaskParser);
         }
 
         // try also with SimpleDateFormat since it is more fault tolerant in
         // millisecond parsing
-        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.S");
-        format.setTimeZone(TimeZone.getTimeZone(timeZone));
-        try {
-            return format.parse(value);
-        } catch (final ParseException e) {
-            // do nothing
-        }
+        return _simpleDateFormat.get().parse(value, new ParsePosition(0));
+    }
 
-        return null;
+    private static boolean isLong(final String value) {
+        final int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        final int start = value.charAt(0) == '-' ? 1 : 0;
+        // at most 18 digits always fit in a long
+        if (start == length || length - start > 18) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
     protected Date convertFromNumber(final Number value) {
@@ -215,21 +260,21 @@ public class ConvertToDateTransformer implements Transformer {
     }
 
     protected Date convertFromNumber(final Number value, final boolean tryDateTimeFormatters) {
+        return convertFromNumber(value, tryDateTimeFormatters, _defaultDateMaskParser);
+    }
+
+    private Date convertFromNumber(final Number value, final boolean tryDateTimeFormatters,
+            final DateMaskParser dateMaskParser) {
         final long longValue = value.longValue();
 
         final String stringValue = Long.toString(longValue);
 
         if (tryDateTimeFormatters) {
-            for (int i = 0; i < _dateTimeFormatters.length; i++) {
-                final String dateMask = dateMasks[i];
-                final boolean isPotentialNumberDateMask =
-                        !dateMask.contains("-") && !dateMask.contains(".") && !dateMask.contains("/");
-                if (isPotentialNumberDateMask) {
-                    final DateTimeFormatter formatter = _dateTimeFormatters[i];
-                    try {
-                        return formatter.parseDateTime(stringValue).toDate();
-                    } catch (final Exception e) {
-                        // proceed to next formatter
+            for (int i = 0; i < _potentialNumberDateMasks.length; i++) {
+                if (_potentialNumberDateMasks[i]) {
+                    final Date date = dateMaskParser.parse(i, stringValue);
+                    if (date != null) {
+                        return date;
                     }
                 }
             }
@@ -237,20 +282,20 @@ public class ConvertToDateTransformer implements Transformer {
 
         // test if the number is actually a format of the type yyyyMMdd
         if (stringValue.length() == 8 && (stringValue.startsWith("1") || stringValue.startsWith("2"))) {
-            try {
-                return _numberBasedDateTimeFormatterLong.parseDateTime(stringValue).toDate();
-            } catch (final Exception e) {
-                // do nothing, proceed to next method of conversion
+            final long millis = DateMaskParser.parseMillis(_numberBasedDateTimeFormatterLong, stringValue);
+            if (millis != Long.MIN_VALUE) {
+                return new Date(millis);
             }
+            // proceed to next method of conversion
         }
 
         // test if the number is actually a format of the type yyMMdd
         if (stringValue.length() == 6) {
-            try {
-                return _numberBasedDateTimeFormatterShort.parseDateTime(stringValue).toDate();
-            } catch (final Exception e) {
-                // do nothing, proceed to next method of conversion
+            final long millis = DateMaskParser.parseMillis(_numberBasedDateTimeFormatterShort, stringValue);
+            if (millis != Long.MIN_VALUE) {
+                return new Date(millis);
             }
+            // proceed to next method of conversion
         }
 
         if (longValue > 5000000) {
@@ -0,0 +1,312 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.convert;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.DateTimeParser;
+import org.joda.time.format.DateTimeParserBucket;
+
+/**
+ * Parses strings using a sequence of date masks, without relying on
+ * exceptions to detect mismatches.
+ *
+ * Before a mask is tried, the shape of the string (the sequence of non-digit
+ * characters) is compared to the shape of the mask, so that masks which cannot
+ * possibly match are skipped. Masks that pass this pre-check are parsed using
+ * the underlying Joda parser, which signals mismatches with a negative position
+ * instead of an exception.
+ *
+ * The parser also keeps track of which mask matches most often and tries that
+ * mask first. Since the order of the masks defines their precedence, a match of
+ * the preferred mask is only accepted if none of the preceding masks that could
+ * match the same string actually do.
+ *
+ * Instances are thread-safe.
+ */
+public final class DateMaskParser {
+
+    private static final int NO_PREFERRED_MASK = -1;
+
+    private final String[] _dateMasks;
+    private final DateTimeFormatter[] _formatters;
+    private final String[] _shapes;
+    private final int[][] _precedingOverlappingMasks;
+    private final AtomicIntegerArray _matchCounts;
+    private volatile int _preferredMask = NO_PREFERRED_MASK;
+
+    /**
+     * Creates a parser for a set of date masks. Invalid masks never match.
+     *
+     * @param dateMasks
+     * @param zone
+     *            the time zone to use, unless the date mask itself specifies
+     *            the time zone, or null to use the default time zone
+     */
+    public DateMaskParser(final String[] dateMasks, final DateTimeZone zone) {
+        _dateMasks = dateMasks;
+        _formatters = new DateTimeFormatter[dateMasks.length];
+        _shapes = new String[dateMasks.length];
+        for (int i = 0; i < dateMasks.length; i++) {
+            try {
+                final DateTimeFormatter formatter = DateTimeFormat.forPattern(dateMasks[i]);
+                _formatters[i] = zone == null ? formatter : formatter.withZone(zone);
+                _shapes[i] = getShape(dateMasks[i]);
+            } catch (final IllegalArgumentException e) {
+                // not a valid pattern!
+                _formatters[i] = null;
+            }
+        }
+
+        _precedingOverlappingMasks = new int[dateMasks.length][];
+        for (int i = 0; i < dateMasks.length; i++) {
+            final List<Integer> overlapping = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                if (_formatters[j] != null && overlaps(_shapes[i], _shapes[j])) {
+                    overlapping.add(j);
+                }
+            }
+            _precedingOverlappingMasks[i] = overlapping.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        _matchCounts = new AtomicIntegerArray(dateMasks.length);
+    }
+
+    public String[] getDateMasks() {
+        return _dateMasks;
+    }
+
+    /**
+     * Determines if a mask is a valid date mask
+     *
+     * @param maskIndex
+     * @return
+     */
+    public boolean isValid(final int maskIndex) {
+        return _formatters[maskIndex] != null;
+    }
+
+    /**
+     * Parses a string using the first date mask that matches it.
+     *
+     * @param value
+     * @return the parsed date, or null if none of the masks match
+     */
+    public Date parse(final String value) {
+        final int preferredMask = _preferredMask;
+        if (preferredMask != NO_PREFERRED_MASK) {
+            final long millis = parseMillis(preferredMask, value);
+            if (millis != Long.MIN_VALUE) {
+                for (final int precedingMask : _precedingOverlappingMasks[preferredMask]) {
+                    final long precedingMillis = parseMillis(precedingMask, value);
+                    if (precedingMillis != Long.MIN_VALUE) {
+                        return matched(precedingMask, precedingMillis);
+                    }
+                }
+                return matched(preferredMask, millis);
+            }
+        }
+
+        for (int i = 0; i < _formatters.length; i++) {
+            if (i != preferredMask) {
+                final long millis = parseMillis(i, value);
+                if (millis != Long.MIN_VALUE) {
+                    return matched(i, millis);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a string using a specific date mask.
+     *
+     * @param maskIndex
+     * @param value
+     * @return the parsed date, or null if the mask does not match
+     */
+    public Date parse(final int maskIndex, final String value) {
+        final long millis = parseMillis(maskIndex, value);
+        if (millis == Long.MIN_VALUE) {
+            return null;
+        }
+        return new Date(millis);
+    }
+
+    /**
+     * Determines if a string matches a specific date mask.
+     *
+     * @param maskIndex
+     * @param value
+     * @return
+     */
+    public boolean matches(final int maskIndex, final String value) {
+        return parseMillis(maskIndex, value) != Long.MIN_VALUE;
+    }
+
+    private Date matched(final int maskIndex, final long millis) {
+        final int count = _matchCounts.incrementAndGet(maskIndex);
+        final int preferredMask = _preferredMask;
+        if (preferredMask != maskIndex && (preferredMask == NO_PREFERRED_MASK
+                || count > _matchCounts.get(preferredMask))) {
+            _preferredMask = maskIndex;
+        }
+        return new Date(millis);
+    }
+
+    /**
+     * Parses a string to milliseconds, returning {@link Long#MIN_VALUE} if the
+     * mask does not match.
+     */
+    private long parseMillis(final int maskIndex, final String value) {
+        final DateTimeFormatter formatter = _formatters[maskIndex];
+        if (formatter == null || !hasShape(value, _shapes[maskIndex])) {
+            return Long.MIN_VALUE;
+        }
+        return parseMillis(formatter, value);
+    }
+
+    /**
+     * Parses a string to milliseconds without throwing exceptions for
+     * mismatches.
+     *
+     * @param formatter
+     * @param value
+     * @return the parsed milliseconds, or {@link Long#MIN_VALUE} if the string
+     *         could not be parsed
+     */
+    public static long parseMillis(final DateTimeFormatter formatter, final String value) {
+        final DateTimeParser parser = formatter.getParser();
+        Chronology chronology = DateTimeUtils.getChronology(formatter.getChronology());
+        if (formatter.getZone() != null) {
+            chronology = chronology.withZone(formatter.getZone());
+        }
+        final DateTimeParserBucket bucket = new DateTimeParserBucket(0, chronology, formatter.getLocale(),
+                formatter.getPivotYear(), formatter.getDefaultYear());
+        final int position = parser.parseInto(bucket, value, 0);
+        if (position < 0 || position < value.length()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return bucket.computeMillis(true, value);
+        } catch (final IllegalArgumentException e) {
+            // the string has the right shape, but a field is out of range
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Gets the shape of a date mask, ie. the sequence of literal characters in
+     * it, or null if the mask has fields that are not purely numeric (or quoted
+     * text), in which case any string could potentially match it.
+     */
+    private static String getShape(final String dateMask) {
+        final StringBuilder sb = new StringBuilder();
+        final int length = dateMask.length();
+        int i = 0;
+        while (i < length) {
+            final char c = dateMask.charAt(i);
+            if (c == '\'') {
+                return null;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+                while (i + count < length && dateMask.charAt(i + count) == c) {
+                    count++;
+                }
+                if (!isNumericField(c, count)) {
+                    return null;
+                }
+                i += count;
+            } else {
+                if (Character.isDigit(c)) {
+                    return null;
+                }
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isNumericField(final char c, final int count) {
+        switch (c) {
+        case 'C':
+        case 'Y':
+        case 'x':
+        case 'y':
+        case 'D':
+        case 'd':
+        case 'H':
+        case 'h':
+        case 'K':
+        case 'k':
+        case 'm':
+        case 's':
+        case 'S':
+        case 'w':
+            return true;
+        case 'M':
+        case 'e':
+            return count < 3;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Determines if a string has the same sequence of non-digit characters as
+     * a mask shape.
+     */
+    private static boolean hasShape(final String value, final String shape) {
+        if (shape == null || value.isEmpty()) {
+            return true;
+        }
+        final char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            // signed numbers are allowed in some numeric fields
+            return true;
+        }
+        int shapeIndex = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                if (shapeIndex == shape.length() || shape.charAt(shapeIndex) != c) {
+                    return false;
+                }
+                shapeIndex++;
+            }
+        }
+        return shapeIndex == shape.length();
+    }
+
+    private static boolean overlaps(final String shape1, final String shape2) {
+        return shape1 == null || shape2 == null || shape1.equals(shape2);
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import javax.inject.Named;
+
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Configured;
+import org.datacleaner.api.Description;
+import org.datacleaner.api.Distributed;
+import org.datacleaner.api.HasLabelAdvice;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.api.QueryOptimizedFilter;
+import org.datacleaner.api.Validate;
+import org.datacleaner.components.categories.FilterCategory;
+
+/**
+ * Filter which only lets records pass if their (integral) key is within a
+ * range. Unlike the {@link org.datacleaner.components.maxrows.MaxRowsFilter}
+ * the outcome of a record does not depend on the records before it, which
+ * makes it suitable for dividing a job into independent slices, eg. for
+ * distributed execution. When optimized, it becomes a WHERE clause which the
+ * database can resolve using the index of the key column.
+ */
+@Named("Key range")
+@Description("Processes only the records whose key is within a range.")
+@Categorized(value = FilterCategory.class)
+@Distributed(true)
+public class KeyRangeFilter implements QueryOptimizedFilter<KeyRangeFilter.Category>, HasLabelAdvice {
+
+    public enum Category {
+        VALID, INVALID
+    }
+
+    @Configured(order = 1)
+    @Description("The key column, typically the primary key of the table.")
+    InputColumn<Number> keyColumn;
+
+    @Configured(order = 2, required = false)
+    @Description("The lowest key to process (inclusive). If not set, there is no lower bound.")
+    Long lowestKey;
+
+    @Configured(order = 3, required = false)
+    @Description("The highest key (exclusive). If not set, there is no upper bound.")
+    Long highestKey;
+
+    public KeyRangeFilter() {
+    }
+
+    public KeyRangeFilter(final InputColumn<Number> keyColumn, final Long lowestKey, final Long highestKey) {
+        this();
+        this.keyColumn = keyColumn;
+        this.lowestKey = lowestKey;
+        this.highestKey = highestKey;
+    }
+
+    @Override
+    public String getSuggestedLabel() {
+        return "Key range [" + (lowestKey == null ? "" : lowestKey) + ";" + (highestKey == null ? "" : highestKey)
+                + "[";
+    }
+
+    public InputColumn<Number> getKeyColumn() {
+        return keyColumn;
+    }
+
+    public void setKeyColumn(final InputColumn<Number> keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+
+    public Long getLowestKey() {
+        return lowestKey;
+    }
+
+    public void setLowestKey(final Long lowestKey) {
+        this.lowestKey = lowestKey;
+    }
+
+    public Long getHighestKey() {
+        return highestKey;
+    }
+
+    public void setHighestKey(final Long highestKey) {
+        this.highestKey = highestKey;
+    }
+
+    @Validate
+    public void validate() {
+        if (lowestKey != null && highestKey != null && lowestKey.longValue() > highestKey.longValue()) {
+            throw new IllegalStateException("Lowest key cannot be higher than the highest key");
+        }
+    }
+
+    @Override
+    public Category categorize(final InputRow inputRow) {
+        final Number value = inputRow.getValue(keyColumn);
+        if (value == null) {
+            return Category.INVALID;
+        }
+        final long key = value.longValue();
+        if (lowestKey != null && key < lowestKey.longValue()) {
+            return Category.INVALID;
+        }
+        if (highestKey != null && key >= highestKey.longValue()) {
+            return Category.INVALID;
+        }
+        return Category.VALID;
+    }
+
+    @Override
+    public boolean isOptimizable(final Category category) {
+        // can only optimize the valid records
+        return category == Category.VALID;
+    }
+
+    @Override
+    public Query optimizeQuery(final Query q, final Category category) {
+        if (category != Category.VALID) {
+            throw new IllegalStateException("Can only optimize the VALID key range category");
+        }
+        final Column column = keyColumn.getPhysicalColumn();
+        if (lowestKey != null) {
+            q.where(column, OperatorType.GREATER_THAN_OR_EQUAL, lowestKey);
+        }
+        if (highestKey != null) {
+            q.where(column, OperatorType.LESS_THAN, highestKey);
+        }
+        return q;
+    }
+}
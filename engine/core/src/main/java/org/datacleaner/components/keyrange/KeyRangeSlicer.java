@@ -0,0 +1,235 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FunctionType;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Divides the key space of a table into ranges holding approximately the same
+ * number of records, so that a job can be sliced using a {@link KeyRangeFilter}
+ * (or equivalent WHERE clauses) instead of OFFSET/LIMIT pagination, which makes
+ * the database scan and skip all the records before the offset of each slice.
+ *
+ * The distribution of keys is probed using a MIN/MAX query and a number of
+ * COUNT queries over equally wide buckets of the key space, all of which can
+ * be resolved using the index of the key column.
+ *
+ * Integral keys are sliced by their values. Time based keys are sliced by
+ * their number of milliseconds since the epoch, see
+ * {@link #toOperand(Column, Long)}.
+ */
+public final class KeyRangeSlicer {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyRangeSlicer.class);
+
+    private static final int BUCKETS_PER_SLICE = 4;
+    private static final int MAX_BUCKETS = 256;
+
+    private KeyRangeSlicer() {
+        // prevent instantiation
+    }
+
+    /**
+     * Finds a column of a table which is appropriate for key range slicing:
+     * The primary key, or else an indexed non-nullable column, of an integral
+     * type.
+     *
+     * @param table
+     * @return the key column, or null if no appropriate column exists
+     */
+    public static Column findKeyColumn(final Table table) {
+        return findKeyColumn(table, false);
+    }
+
+    /**
+     * Finds a column of a table which is appropriate for key range slicing:
+     * The primary key, or else an indexed non-nullable column, of an integral
+     * type or optionally a time based type.
+     *
+     * @param table
+     * @param allowTimeBased
+     *            whether time based columns may be returned. Note that a
+     *            {@link KeyRangeFilter} only supports integral keys.
+     * @return the key column, or null if no appropriate column exists
+     */
+    public static Column findKeyColumn(final Table table, final boolean allowTimeBased) {
+        final List<Column> primaryKeys = table.getPrimaryKeys();
+        if (primaryKeys.size() == 1 && isSliceable(primaryKeys.get(0), allowTimeBased)) {
+            return primaryKeys.get(0);
+        }
+        for (final Column column : table.getColumns()) {
+            if (column.isIndexed() && Boolean.FALSE.equals(column.isNullable()) && isSliceable(column,
+                    allowTimeBased)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines if the key space of a column can be sliced, ie. if it is of
+     * an integral or time based type.
+     *
+     * @param column
+     * @return
+     */
+    public static boolean isSliceable(final Column column) {
+        return isSliceable(column, true);
+    }
+
+    private static boolean isSliceable(final Column column, final boolean allowTimeBased) {
+        if (isIntegral(column)) {
+            return true;
+        }
+        return allowTimeBased && column.getType() != null && column.getType().isTimeBased();
+    }
+
+    private static boolean isIntegral(final Column column) {
+        final ColumnType type = column.getType();
+        if (type == null) {
+            return false;
+        }
+        final Class<?> javaClass = type.getJavaEquivalentClass();
+        return javaClass == Integer.class || javaClass == Long.class || javaClass == Short.class
+                || javaClass == Byte.class || javaClass == BigInteger.class;
+    }
+
+    /**
+     * Slices the key space of a column.
+     *
+     * @param dataContext
+     * @param keyColumn
+     * @param slices
+     *            the requested number of slices
+     * @return the boundaries of the slices, ie. slice i ranges from element i
+     *         (inclusive) to element i+1 (exclusive). The first and last
+     *         elements are null, so that no records are left out, even if
+     *         they are added after probing. There may be fewer slices than
+     *         requested if the keys are very unevenly distributed. Returns
+     *         null if the key space could not be sliced. For time based
+     *         columns the boundaries are in milliseconds since the epoch.
+     */
+    public static List<Long> slice(final DataContext dataContext, final Column keyColumn, final int slices) {
+        final Table table = keyColumn.getTable();
+
+        final Long min;
+        final Long max;
+        try (DataSet dataSet = dataContext.query().from(table).select(FunctionType.MIN, keyColumn)
+                .select(FunctionType.MAX, keyColumn).execute()) {
+            if (!dataSet.next()) {
+                return null;
+            }
+            final Row row = dataSet.getRow();
+            min = toLong(row.getValue(0));
+            max = toLong(row.getValue(1));
+        }
+        if (min == null || max == null || (double) max - (double) min >= Long.MAX_VALUE / 2) {
+            logger.info("Cannot slice key space of {}, min={}, max={}", keyColumn, min, max);
+            return null;
+        }
+
+        final long keySpace = max - min + 1;
+        final int buckets = (int) Math.min(keySpace, Math.min(MAX_BUCKETS, (long) slices * BUCKETS_PER_SLICE));
+        final long bucketWidth = (keySpace + buckets - 1) / buckets;
+
+        final long[] counts = new long[buckets];
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            final long lowestKey = min + i * bucketWidth;
+            try (DataSet dataSet = dataContext.query().from(table).selectCount().where(keyColumn)
+                    .greaterThanOrEquals(toOperand(keyColumn, lowestKey)).and(keyColumn)
+                    .lessThan(toOperand(keyColumn, lowestKey + bucketWidth)).execute()) {
+                if (dataSet.next()) {
+                    counts[i] = ((Number) dataSet.getRow().getValue(0)).longValue();
+                    total += counts[i];
+                }
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        final List<Long> boundaries = new ArrayList<>(slices + 1);
+        boundaries.add(null);
+        long cumulative = 0;
+        int slice = 1;
+        // the last bucket never ends a slice, since it would leave the last
+        // slice empty
+        for (int i = 0; i < buckets - 1 && slice < slices; i++) {
+            cumulative += counts[i];
+            if (cumulative * slices >= total * slice) {
+                boundaries.add(min + (i + 1) * bucketWidth);
+                while (slice < slices && cumulative * slices >= total * slice) {
+                    slice++;
+                }
+            }
+        }
+        boundaries.add(null);
+
+        logger.info("Sliced key space of {} ({} to {}) into {} ranges: {}", keyColumn.getName(), min, max,
+                boundaries.size() - 1, boundaries);
+        return boundaries;
+    }
+
+    /**
+     * Converts a slice boundary into an operand that can be compared with the
+     * values of the key column in a query.
+     *
+     * @param keyColumn
+     * @param boundary
+     * @return
+     */
+    public static Object toOperand(final Column keyColumn, final Long boundary) {
+        if (boundary == null) {
+            return null;
+        }
+        if (keyColumn.getType() != null && keyColumn.getType().isTimeBased()) {
+            return new Date(boundary);
+        }
+        return boundary;
+    }
+
+    private static Long toLong(final Object value) {
+        if (value instanceof BigInteger) {
+            final BigInteger bigInteger = (BigInteger) value;
+            return bigInteger.bitLength() < 64 ? bigInteger.longValue() : null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return null;
+    }
+}
@@ -19,12 +19,13 @@
  */
 package org.datacleaner.configuration;
 
+import java.io.Closeable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Supplier;
 
 import org.apache.metamodel.DataContext;
+import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.LazyRef;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.OutputRowCollector;
@@ -52,14 +53,18 @@ import org.slf4j.LoggerFactory;
 /**
  * Simple injection manager implementation, which is aware of catalogs used
  * within the {@link AnalyzerBeansConfiguration}, but not anymore.
+ *
+ * The {@link RowAnnotationFactory} is job scoped and shared by all components.
+ * Close the injection manager when the job is done to release the resources
+ * it holds.
  */
-public class InjectionManagerImpl implements InjectionManager {
+public class InjectionManagerImpl implements InjectionManager, Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(InjectionManagerImpl.class);
 
     private final DataCleanerConfiguration _configuration;
     private final AnalysisJob _job;
-    private final Supplier<RowAnnotationFactory> _rowAnntationFactoryRef;
+    private final LazyRef<RowAnnotationFactory> _rowAnntationFactoryRef;
 
     /**
      * Constructs an {@link InjectionManager} for use within the scope of a job
@@ -85,7 +90,7 @@ public class InjectionManagerImpl implements InjectionManager {
         this(configuration, null);
     }
 
-    private Supplier<RowAnnotationFactory> createRowAnnotationFactoryRef() {
+    private LazyRef<RowAnnotationFactory> createRowAnnotationFactoryRef() {
         return new LazyRef<RowAnnotationFactory>() {
             @Override
             protected RowAnnotationFactory fetch() {
@@ -100,6 +105,20 @@ public class InjectionManagerImpl implements InjectionManager {
         };
     }
 
+    /**
+     * Closes the {@link RowAnnotationFactory} of the job, if it has been created
+     * and is {@link Closeable}, eg. because it keeps its samples on disk.
+     */
+    @Override
+    public void close() {
+        if (_rowAnntationFactoryRef.isFetched()) {
+            final RowAnnotationFactory rowAnnotationFactory = _rowAnntationFactoryRef.get();
+            if (rowAnnotationFactory instanceof Closeable) {
+                FileHelper.safeClose(rowAnnotationFactory);
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public final <E> E getInstance(final InjectionPoint<E> injectionPoint) {
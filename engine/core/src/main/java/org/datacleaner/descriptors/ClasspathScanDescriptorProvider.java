@@ -28,11 +28,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -50,11 +51,14 @@ import org.datacleaner.api.Renderer;
 import org.datacleaner.api.RendererBean;
 import org.datacleaner.api.RenderingFormat;
 import org.datacleaner.api.Transformer;
+import org.datacleaner.descriptors.DescriptorIndex.IndexedComponent;
 import org.datacleaner.extensions.ClassLoaderUtils;
 import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
 import org.datacleaner.job.concurrent.TaskListener;
 import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.job.tasks.Task;
+import org.datacleaner.util.ReflectionUtils;
+import org.datacleaner.util.SystemProperties;
 import org.kohsuke.asm5.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,19 +75,24 @@ import org.slf4j.LoggerFactory;
  *
  * <li>{@link RendererBean}</li>
  *
+ * Each JAR file and class directory is scanned as a separate task of the {@link TaskRunner}, so a multithreaded task
+ * runner scans them in parallel. If a {@link DescriptorIndex} is set (see
+ * {@link SystemProperties#DESCRIPTOR_INDEX_FILE}), the components found in JAR files are recorded in it, and JAR files
+ * that have not changed since are not scanned again.
  *
  */
 public final class ClasspathScanDescriptorProvider extends AbstractDescriptorProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(ClasspathScanDescriptorProvider.class);
 
-    private final Map<String, AnalyzerDescriptor<?>> _analyzerBeanDescriptors = new HashMap<>();
-    private final Map<String, FilterDescriptor<?, ?>> _filterBeanDescriptors = new HashMap<>();
-    private final Map<String, TransformerDescriptor<?>> _transformerBeanDescriptors = new HashMap<>();
-    private final Map<String, RendererBeanDescriptor<?>> _rendererBeanDescriptors = new HashMap<>();
+    private final Map<String, AnalyzerDescriptor<?>> _analyzerBeanDescriptors = new ConcurrentHashMap<>();
+    private final Map<String, FilterDescriptor<?, ?>> _filterBeanDescriptors = new ConcurrentHashMap<>();
+    private final Map<String, TransformerDescriptor<?>> _transformerBeanDescriptors = new ConcurrentHashMap<>();
+    private final Map<String, RendererBeanDescriptor<?>> _rendererBeanDescriptors = new ConcurrentHashMap<>();
     private final TaskRunner _taskRunner;
     private final Predicate<Class<? extends RenderingFormat<?>>> _renderingFormatPredicate;
     private final AtomicInteger _tasksPending;
+    private volatile DescriptorIndex _descriptorIndex;
 
     /**
      * Default constructor. Will perform classpath scanning in the calling thread(s).
@@ -159,6 +168,11 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
         _taskRunner = taskRunner;
         _tasksPending = new AtomicInteger(0);
         _renderingFormatPredicate = renderingFormatPredicate;
+
+        final String descriptorIndexFile = SystemProperties.getString(SystemProperties.DESCRIPTOR_INDEX_FILE, null);
+        if (descriptorIndexFile != null) {
+            _descriptorIndex = new DescriptorIndex(new File(descriptorIndexFile));
+        }
     }
 
     private static Predicate<Class<? extends RenderingFormat<?>>> createRenderingFormatPredicate(
@@ -169,6 +183,20 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
         return new ExclusionPredicate<>(excludedRenderingFormats);
     }
 
+    /**
+     * Sets the {@link DescriptorIndex} to use for looking up and recording the components of JAR files. Must be set
+     * before scanning any packages.
+     *
+     * @param descriptorIndex the index to use, or null to always scan JAR files
+     */
+    public void setDescriptorIndex(final DescriptorIndex descriptorIndex) {
+        _descriptorIndex = descriptorIndex;
+    }
+
+    public DescriptorIndex getDescriptorIndex() {
+        return _descriptorIndex;
+    }
+
     /**
      * Scans a package in the classpath (of the current thread's context classloader) for annotated components.
      *
@@ -225,27 +253,6 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
      */
     public ClasspathScanDescriptorProvider scanPackage(final String packageName, final boolean recursive,
             final ClassLoader classLoader, final boolean strictClassLoader, final File[] jarFiles) {
-        _tasksPending.incrementAndGet();
-        final TaskListener listener = new TaskListener() {
-            @Override
-            public void onBegin(final Task task) {
-                logger.debug("Scan of '{}' beginning", packageName);
-            }
-
-            @Override
-            public void onComplete(final Task task) {
-                logger.debug("Scan of '{}' complete", packageName);
-                taskDone();
-            }
-
-            @Override
-            public void onError(final Task task, final Throwable throwable) {
-                logger.info("Scan of '{}' failed: {}", packageName, throwable.getMessage());
-                logger.warn("Exception occurred while scanning and installing package: " + packageName, throwable);
-                taskDone();
-            }
-        };
-
         final Task task = () -> {
             final String packagePath = packageName.replace('.', '/');
             if (recursive) {
@@ -264,18 +271,21 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                         logger.trace("Scanning subdirectory of: {}", file);
                         final File packageDirectory = new File(file, packagePath);
                         if (packageDirectory.exists()) {
-                            scanDirectory(packageDirectory, recursive, classLoader, strictClassLoader);
+                            runScanTask(packageName + "' in '" + file,
+                                    () -> scanDirectory(packageDirectory, recursive, classLoader, strictClassLoader));
                         } else {
                             logger.debug("Omitting directory because it does not exist: {}", packageDirectory);
                         }
                     } else {
-                        logger.trace("Scanning JAR file: {}", file);
-
-                        try (JarFile jarFile = new JarFile(file)) {
-                            scanJar(jarFile, classLoader, packagePath, recursive, strictClassLoader);
-                        } catch (final Exception e) {
-                            logger.error("Failed to scan package '" + packageName + "' in file: " + file, e);
-                        }
+                        runScanTask(packageName + "' in '" + file, () -> {
+                            logger.trace("Scanning JAR file: {}", file);
+
+                            try (JarFile jarFile = new JarFile(file)) {
+                                scanJar(jarFile, classLoader, packagePath, recursive, strictClassLoader);
+                            } catch (final Exception e) {
+                                logger.error("Failed to scan package '" + packageName + "' in file: " + file, e);
+                            }
+                        });
                     }
                 }
             } else {
@@ -286,22 +296,56 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 while (resources.hasMoreElements()) {
                     count++;
                     final URL resource = resources.nextElement();
-                    logger.trace("Scanning resource/URL no. {}: {}", count, resource);
+                    final int resourceNumber = count;
+                    runScanTask(packageName + "' in '" + resource, () -> {
+                        logger.trace("Scanning resource/URL no. {}: {}", resourceNumber, resource);
 
-                    try {
-                        scanUrl(resource, classLoader, packagePath, recursive, strictClassLoader);
-                    } catch (final Exception e) {
-                        logger.error("Failed to scan package '" + packageName + "' in resource/URL: " + resource, e);
-                    }
+                        try {
+                            scanUrl(resource, classLoader, packagePath, recursive, strictClassLoader);
+                        } catch (final Exception e) {
+                            logger.error("Failed to scan package '" + packageName + "' in resource/URL: " + resource,
+                                    e);
+                        }
+                    });
                 }
 
                 logger.debug("Scanned resources of {}: {}", packageName, count);
             }
         };
-        _taskRunner.run(task, listener);
+        runScanTask(packageName, task);
         return this;
     }
 
+    /**
+     * Runs a part of a scan as a separate task, so that scanning of JAR files and directories can happen in parallel.
+     *
+     * @param description a description of what is being scanned, used for logging
+     * @param task
+     */
+    private void runScanTask(final String description, final Task task) {
+        _tasksPending.incrementAndGet();
+        final TaskListener listener = new TaskListener() {
+            @Override
+            public void onBegin(final Task task) {
+                logger.debug("Scan of '{}' beginning", description);
+            }
+
+            @Override
+            public void onComplete(final Task task) {
+                logger.debug("Scan of '{}' complete", description);
+                taskDone();
+            }
+
+            @Override
+            public void onError(final Task task, final Throwable throwable) {
+                logger.info("Scan of '{}' failed: {}", description, throwable.getMessage());
+                logger.warn("Exception occurred while scanning and installing package: " + description, throwable);
+                taskDone();
+            }
+        };
+        _taskRunner.run(task, listener);
+    }
+
     private void scanUrl(final URL resource, final ClassLoader classLoader, final String packagePath,
             final boolean recursive, final boolean strictClassLoader) throws IOException {
 
@@ -409,6 +453,23 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
 
     private void scanJar(final JarFile jarFile, final ClassLoader classLoader, final String packagePath,
             final boolean recursive, final boolean strictClassLoader) throws IOException {
+        final DescriptorIndex descriptorIndex = _descriptorIndex;
+        final File file = new File(jarFile.getName());
+        final String scope = recursive ? packagePath + "/**" : packagePath + "/*";
+        final boolean indexed = descriptorIndex != null && file.isFile();
+
+        if (indexed) {
+            final Collection<IndexedComponent> components = descriptorIndex.getComponents(file, scope);
+            if (components != null) {
+                logger.debug("Using {} indexed components of JAR file: {}", components.size(), file);
+                for (final IndexedComponent component : components) {
+                    addIndexedComponent(component, classLoader, strictClassLoader);
+                }
+                return;
+            }
+        }
+
+        final Collection<IndexedComponent> components = indexed ? new ArrayList<>() : null;
         final Enumeration<JarEntry> entries = jarFile.entries();
 
         while (entries.hasMoreElements()) {
@@ -420,20 +481,47 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                     throw new IllegalStateException("Failed to read JAR entry InputStream", e);
                 }
             };
-            scanEntry(entry, packagePath, recursive, classLoader, strictClassLoader, entryInputStream);
+            scanEntry(entry, packagePath, recursive, classLoader, strictClassLoader, entryInputStream, components);
+        }
+
+        if (indexed) {
+            descriptorIndex.putComponents(file, scope, components);
         }
     }
 
+    private void addIndexedComponent(final IndexedComponent component, final ClassLoader classLoader,
+            final boolean strictClassLoader) {
+        final String renderingFormatClassName = component.getRenderingFormatClassName();
+        if (renderingFormatClassName != null && !DCClassVisitor.isRenderingFormatAccepted(renderingFormatClassName,
+                component.getClassName(), classLoader, _renderingFormatPredicate)) {
+            return;
+        }
+        final Class<?> beanClass = DCClassVisitor.loadClass(component.getClassName(), classLoader);
+        if (beanClass != null) {
+            addComponentClass(beanClass, classLoader, strictClassLoader);
+        }
+    }
+
+    /**
+     * Scans a JAR entry.
+     *
+     * @param components a collection to add found components to, or null if they should not be collected
+     */
     private void scanEntry(final JarEntry entry, final String packagePath, final boolean recursive,
             final ClassLoader classLoader, final boolean strictClassLoader,
-            final Supplier<InputStream> entryInputStream) throws IOException {
+            final Supplier<InputStream> entryInputStream, final Collection<IndexedComponent> components)
+            throws IOException {
         final String entryName = entry.getName();
         if (isClassInPackage(entryName, packagePath, recursive)) {
             logger.debug("Scanning JAR class file entry: {}", entryName);
             final InputStream inputStream = entryInputStream.get();
 
             try {
-                scanInputStreamOfClassFile(inputStream, classLoader, strictClassLoader);
+                final DCClassVisitor visitor = scanClassFile(inputStream, classLoader, strictClassLoader);
+                if (components != null && visitor.isComponent()) {
+                    components.add(new IndexedComponent(visitor.getClassName(),
+                            visitor.getRenderingFormatClassName()));
+                }
             } catch (final RuntimeException e) {
                 logger.error("Failed to scan JAR class file entry: " + entryName, e);
             } catch (final NoClassDefFoundError e) {
@@ -507,50 +595,60 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
 
     protected void scanInputStreamOfClassFile(final InputStream inputStream, final ClassLoader classLoader,
             final boolean strictClassLoader) throws IOException {
+        scanClassFile(inputStream, classLoader, strictClassLoader);
+    }
+
+    private DCClassVisitor scanClassFile(final InputStream inputStream, final ClassLoader classLoader,
+            final boolean strictClassLoader) throws IOException {
         try {
             final ClassReader classReader = new ClassReader(inputStream);
             final DCClassVisitor visitor = new DCClassVisitor(classLoader, _renderingFormatPredicate);
             classReader.accept(visitor, ClassReader.SKIP_CODE);
 
             final Class<?> beanClass = visitor.getBeanClass();
-            if (beanClass == null) {
-                return;
-            }
-
-            if (strictClassLoader && classLoader != null && beanClass.getClassLoader() != classLoader) {
-                logger.warn("Scanned class did not belong to required classloader: " + beanClass + ", ignoring");
-                return;
-            }
-
-            if (visitor.isAnalyzer()) {
-                @SuppressWarnings("unchecked") final Class<? extends Analyzer<?>> analyzerClass =
-                        (Class<? extends Analyzer<?>>) beanClass;
-                logger.debug("Adding analyzer class: {}", beanClass);
-                addAnalyzerClass(analyzerClass);
-            }
-            if (visitor.isTransformer()) {
-                @SuppressWarnings("unchecked") final Class<? extends Transformer> transformerClass =
-                        (Class<? extends Transformer>) beanClass;
-                logger.debug("Adding transformer class: {}", beanClass);
-                addTransformerClass(transformerClass);
-            }
-            if (visitor.isFilter()) {
-                @SuppressWarnings("unchecked") final Class<? extends Filter<? extends Enum<?>>> filterClass =
-                        (Class<? extends Filter<?>>) beanClass;
-                logger.debug("Adding filter class: {}", beanClass);
-                addFilterClass(filterClass);
-            }
-            if (visitor.isRenderer()) {
-                @SuppressWarnings("unchecked") final Class<? extends Renderer<?, ?>> rendererClass =
-                        (Class<? extends Renderer<?, ?>>) beanClass;
-                logger.debug("Adding renderer class: {}", beanClass);
-                addRendererClass(rendererClass);
+            if (beanClass != null) {
+                addComponentClass(beanClass, classLoader, strictClassLoader);
             }
+            return visitor;
         } finally {
             FileHelper.safeClose(inputStream);
         }
     }
 
+    private void addComponentClass(final Class<?> beanClass, final ClassLoader classLoader,
+            final boolean strictClassLoader) {
+        if (strictClassLoader && classLoader != null && beanClass.getClassLoader() != classLoader) {
+            logger.warn("Scanned class did not belong to required classloader: " + beanClass + ", ignoring");
+            return;
+        }
+
+        if (ReflectionUtils.is(beanClass, Analyzer.class)) {
+            @SuppressWarnings("unchecked") final Class<? extends Analyzer<?>> analyzerClass =
+                    (Class<? extends Analyzer<?>>) beanClass;
+            logger.debug("Adding analyzer class: {}", beanClass);
+            addAnalyzerClass(analyzerClass);
+        }
+        if (ReflectionUtils.is(beanClass, Transformer.class)) {
+            @SuppressWarnings("unchecked") final Class<? extends Transformer> transformerClass =
+                    (Class<? extends Transformer>) beanClass;
+            logger.debug("Adding transformer class: {}", beanClass);
+            addTransformerClass(transformerClass);
+        }
+        if (ReflectionUtils.is(beanClass, Filter.class)) {
+            @SuppressWarnings("unchecked") final Class<? extends Filter<? extends Enum<?>>> filterClass =
+                    (Class<? extends Filter<?>>) beanClass;
+            logger.debug("Adding filter class: {}", beanClass);
+            addFilterClass(filterClass);
+        }
+        if (ReflectionUtils.isAnnotationPresent(beanClass, RendererBean.class) && ReflectionUtils.is(beanClass,
+                Renderer.class)) {
+            @SuppressWarnings("unchecked") final Class<? extends Renderer<?, ?>> rendererClass =
+                    (Class<? extends Renderer<?, ?>>) beanClass;
+            logger.debug("Adding renderer class: {}", beanClass);
+            addRendererClass(rendererClass);
+        }
+    }
+
     public ClasspathScanDescriptorProvider addAnalyzerClass(final Class<? extends Analyzer<?>> clazz) {
         AnalyzerDescriptor<?> descriptor = _analyzerBeanDescriptors.get(clazz.getName());
         if (descriptor == null) {
@@ -606,9 +704,14 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
     private void taskDone() {
         final int tasks = _tasksPending.decrementAndGet();
 
-        notifyListeners();
-
         if (tasks == 0) {
+            final DescriptorIndex descriptorIndex = _descriptorIndex;
+            if (descriptorIndex != null) {
+                descriptorIndex.save();
+            }
+
+            notifyListeners();
+
             synchronized (this) {
                 notifyAll();
             }
@@ -25,13 +25,8 @@ import java.util.function.Predicate;
 import javax.inject.Named;
 
 import org.apache.metamodel.util.TruePredicate;
-import org.datacleaner.api.Analyzer;
-import org.datacleaner.api.Filter;
-import org.datacleaner.api.Renderer;
 import org.datacleaner.api.RendererBean;
 import org.datacleaner.api.RenderingFormat;
-import org.datacleaner.api.Transformer;
-import org.datacleaner.util.ReflectionUtils;
 import org.kohsuke.asm5.AnnotationVisitor;
 import org.kohsuke.asm5.Attribute;
 import org.kohsuke.asm5.ClassVisitor;
@@ -54,6 +49,8 @@ final class DCClassVisitor extends ClassVisitor {
     private final Predicate<Class<? extends RenderingFormat<?>>> _renderingFormatPredicate;
     private Class<?> _beanClazz;
     private String _name;
+    private boolean _component;
+    private String _renderingFormatClassName;
 
     DCClassVisitor(final ClassLoader classLoader,
             final Predicate<Class<? extends RenderingFormat<?>>> renderingFormatPredicate) {
@@ -71,40 +68,22 @@ final class DCClassVisitor extends ClassVisitor {
     @Override
     public AnnotationVisitor visitAnnotation(final String desc, final boolean visible) {
         if (isAnnotation(desc, RendererBean.class)) {
-            if (_renderingFormatPredicate == null || _renderingFormatPredicate instanceof TruePredicate) {
-                initializeClass();
-                return null;
-            }
+            _component = true;
             return new AnnotationVisitor(API_VERSION) {
                 @Override
                 public void visit(final String name, final Object value) {
                     final Type valueType = (Type) value;
-                    final String renderingFormatClassName = valueType.getClassName();
-                    final Class<? extends RenderingFormat<?>> renderingFormatClass;
-                    try {
-                        @SuppressWarnings("unchecked") final Class<? extends RenderingFormat<?>> cls =
-                                (Class<? extends RenderingFormat<?>>) Class.forName(renderingFormatClassName, false,
-                                        _classLoader);
-                        renderingFormatClass = cls;
-                    } catch (final Exception e) {
-                        if (logger.isWarnEnabled()) {
-                            logger.warn("Failed to read rendering format of renderer class '" + renderingFormatClassName
-                                    + "', ignoring: " + _name, e);
-                        }
-                        return;
-                    }
-
-                    final Boolean proceed = _renderingFormatPredicate.test(renderingFormatClass);
-                    if (proceed == null || !proceed.booleanValue()) {
-                        logger.info("Skipping renderer because it's format was not accepted by predicate: {}", _name);
-                        return;
+                    _renderingFormatClassName = valueType.getClassName();
+                    if (isRenderingFormatAccepted(_renderingFormatClassName, _name, _classLoader,
+                            _renderingFormatPredicate)) {
+                        initializeClass();
                     }
-                    initializeClass();
                 }
             };
         }
 
         if (isAnnotation(desc, Named.class)) {
+            _component = true;
             initializeClass();
         }
         return null;
@@ -114,63 +93,105 @@ final class DCClassVisitor extends ClassVisitor {
         return annotationDesc.indexOf(annotationClass.getName().replace('.', '/')) != -1;
     }
 
+    /**
+     * Determines if a renderer with a particular rendering format should be loaded, according to a predicate.
+     *
+     * @param renderingFormatClassName
+     * @param rendererName the name of the renderer, used for logging
+     * @param classLoader
+     * @param renderingFormatPredicate
+     * @return
+     */
+    static boolean isRenderingFormatAccepted(final String renderingFormatClassName, final String rendererName,
+            final ClassLoader classLoader,
+            final Predicate<Class<? extends RenderingFormat<?>>> renderingFormatPredicate) {
+        if (renderingFormatPredicate == null || renderingFormatPredicate instanceof TruePredicate) {
+            return true;
+        }
+        final Class<? extends RenderingFormat<?>> renderingFormatClass;
+        try {
+            @SuppressWarnings("unchecked") final Class<? extends RenderingFormat<?>> cls =
+                    (Class<? extends RenderingFormat<?>>) Class.forName(renderingFormatClassName, false,
+                            classLoader);
+            renderingFormatClass = cls;
+        } catch (final Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to read rendering format of renderer class '" + renderingFormatClassName
+                        + "', ignoring: " + rendererName, e);
+            }
+            return false;
+        }
+
+        final Boolean proceed = renderingFormatPredicate.test(renderingFormatClass);
+        if (proceed == null || !proceed.booleanValue()) {
+            logger.info("Skipping renderer because it's format was not accepted by predicate: {}", rendererName);
+            return false;
+        }
+        return true;
+    }
+
     private Class<?> initializeClass() {
         if (_beanClazz == null) {
-            final String javaName = _name.replace('/', '.');
-            try {
-                _beanClazz = Class.forName(javaName, true, _classLoader);
-            } catch (final ClassNotFoundException e) {
-                // This happens when the class itself does not exist
-                logger.error("Could not find class to be loaded: " + javaName, e);
-            } catch (final NoClassDefFoundError e) {
-                // This happens if the class depends on a unsatisfied
-                // dependency. For instance when it is a renderer bean that
-                // depends on a particular rendering format. We will gracefully
-                // recover from this scenario with just a warning.
-
-                logger.error("Failed to load class {} because of unsatisfied class dependency: {}", javaName,
-                        e.getMessage());
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Failed to load class: " + javaName, e);
-                }
-            } catch (final UnsupportedClassVersionError e) {
-                logger.error("Failed to load class {} because of unsupported class version: {}", javaName,
-                        e.getMessage());
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Failed to load class: " + javaName, e);
-                }
-            }
+            _beanClazz = loadClass(getClassName(), _classLoader);
         }
         return _beanClazz;
     }
 
-    public boolean isAnalyzer() {
-        if (_beanClazz != null) {
-            return ReflectionUtils.is(_beanClazz, Analyzer.class);
+    /**
+     * Loads and initializes a component class, logging rather than throwing if it cannot be loaded.
+     *
+     * @param javaName
+     * @param classLoader
+     * @return the loaded class, or null if it could not be loaded
+     */
+    static Class<?> loadClass(final String javaName, final ClassLoader classLoader) {
+        try {
+            return Class.forName(javaName, true, classLoader);
+        } catch (final ClassNotFoundException e) {
+            // This happens when the class itself does not exist
+            logger.error("Could not find class to be loaded: " + javaName, e);
+        } catch (final NoClassDefFoundError e) {
+            // This happens if the class depends on a unsatisfied
+            // dependency. For instance when it is a renderer bean that
+            // depends on a particular rendering format. We will gracefully
+            // recover from this scenario with just a warning.
+
+            logger.error("Failed to load class {} because of unsatisfied class dependency: {}", javaName,
+                    e.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to load class: " + javaName, e);
+            }
+        } catch (final UnsupportedClassVersionError e) {
+            logger.error("Failed to load class {} because of unsupported class version: {}", javaName,
+                    e.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to load class: " + javaName, e);
+            }
         }
-        return false;
+        return null;
     }
 
-    public boolean isTransformer() {
-        if (_beanClazz != null) {
-            return ReflectionUtils.is(_beanClazz, Transformer.class);
-        }
-        return false;
+    /**
+     * Determines if the visited class is annotated as a component, regardless of whether it could be loaded or was
+     * accepted by the rendering format predicate.
+     *
+     * @return
+     */
+    public boolean isComponent() {
+        return _component;
     }
 
-    public boolean isRenderer() {
-        if (_beanClazz != null) {
-            return ReflectionUtils.isAnnotationPresent(_beanClazz, RendererBean.class)
-                    && ReflectionUtils.is(_beanClazz, Renderer.class);
-        }
-        return false;
+    public String getClassName() {
+        return _name.replace('/', '.');
     }
 
-    public boolean isFilter() {
-        if (_beanClazz != null) {
-            return ReflectionUtils.is(_beanClazz, Filter.class);
-        }
-        return false;
+    /**
+     * Gets the rendering format class name of a renderer, or null if the visited class is not a renderer.
+     *
+     * @return
+     */
+    public String getRenderingFormatClassName() {
+        return _renderingFormatClassName;
     }
 
     public Class<?> getBeanClass() {
@@ -0,0 +1,322 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.descriptors;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent index of the components found by {@link ClasspathScanDescriptorProvider} in JAR files. Entries are
+ * keyed by the path, size and checksum of a JAR file, so a JAR file only has to be scanned again when it changes.
+ *
+ * The index is stored as a UTF-8 text file with one tab separated record per line. Components are recorded
+ * regardless of the rendering format predicate of the scan, so the same index can be shared by differently
+ * configured descriptor providers.
+ */
+public final class DescriptorIndex {
+
+    /**
+     * A component class found in a JAR file.
+     */
+    static final class IndexedComponent {
+
+        private final String _className;
+        private final String _renderingFormatClassName;
+
+        IndexedComponent(final String className, final String renderingFormatClassName) {
+            _className = className;
+            _renderingFormatClassName = renderingFormatClassName;
+        }
+
+        public String getClassName() {
+            return _className;
+        }
+
+        /**
+         * @return the rendering format class name if the component is a renderer, or null if not
+         */
+        public String getRenderingFormatClassName() {
+            return _renderingFormatClassName;
+        }
+    }
+
+    private static final class JarIndex {
+
+        private final long _size;
+        private final long _checksum;
+        private final Map<String, List<IndexedComponent>> _scopes = new ConcurrentHashMap<>();
+
+        private JarIndex(final long size, final long checksum) {
+            _size = size;
+            _checksum = checksum;
+        }
+    }
+
+    private static final class Checksum {
+
+        private final long _size;
+        private final long _lastModified;
+        private final long _value;
+
+        private Checksum(final long size, final long lastModified, final long value) {
+            _size = size;
+            _lastModified = lastModified;
+            _value = value;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DescriptorIndex.class);
+
+    private static final String HEADER = "# DataCleaner descriptor index v1";
+    private static final String JAR_RECORD = "jar";
+    private static final String SCOPE_RECORD = "scope";
+    private static final String COMPONENT_RECORD = "component";
+
+    private final File _file;
+    private final Map<String, JarIndex> _jars = new ConcurrentHashMap<>();
+    private final Map<String, Checksum> _checksums = new ConcurrentHashMap<>();
+    private final AtomicBoolean _modified = new AtomicBoolean();
+
+    /**
+     * Creates a {@link DescriptorIndex} which is read from and saved to a file. If the file does not exist (yet) or
+     * cannot be read, the index starts out empty.
+     *
+     * @param file
+     */
+    public DescriptorIndex(final File file) {
+        _file = file;
+        if (file.exists()) {
+            try {
+                read();
+            } catch (final IOException | RuntimeException e) {
+                logger.warn("Failed to read descriptor index, ignoring it: " + file, e);
+                _jars.clear();
+            }
+        }
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Gets the components of a JAR file which were previously found when scanning a particular scope.
+     *
+     * @param jarFile
+     * @param scope the package path and recursion of the scan
+     * @return the components, or null if the JAR file has not been scanned for that scope or has changed since
+     * @throws IOException
+     */
+    Collection<IndexedComponent> getComponents(final File jarFile, final String scope) throws IOException {
+        final JarIndex jarIndex = _jars.get(getPath(jarFile));
+        if (jarIndex == null) {
+            return null;
+        }
+        final List<IndexedComponent> components = jarIndex._scopes.get(scope);
+        if (components == null || !isUnchanged(jarFile, jarIndex)) {
+            return null;
+        }
+        return components;
+    }
+
+    /**
+     * Records the components that were found when scanning a JAR file for a particular scope.
+     *
+     * @param jarFile
+     * @param scope the package path and recursion of the scan
+     * @param components
+     * @throws IOException
+     */
+    void putComponents(final File jarFile, final String scope, final Collection<IndexedComponent> components)
+            throws IOException {
+        final long size = jarFile.length();
+        final long checksum = getChecksum(jarFile);
+        final JarIndex jarIndex = _jars.compute(getPath(jarFile), (path, existing) -> {
+            if (existing != null && existing._size == size && existing._checksum == checksum) {
+                return existing;
+            }
+            return new JarIndex(size, checksum);
+        });
+        jarIndex._scopes.put(scope, Collections.unmodifiableList(new ArrayList<>(components)));
+        _modified.set(true);
+    }
+
+    private boolean isUnchanged(final File jarFile, final JarIndex jarIndex) throws IOException {
+        // comparing the size first saves calculating the checksum of most changed files
+        return jarFile.length() == jarIndex._size && getChecksum(jarFile) == jarIndex._checksum;
+    }
+
+    private long getChecksum(final File jarFile) throws IOException {
+        final String path = getPath(jarFile);
+        final long size = jarFile.length();
+        final long lastModified = jarFile.lastModified();
+
+        // the same JAR file is typically looked up once per scanned package
+        final Checksum cached = _checksums.get(path);
+        if (cached != null && cached._size == size && cached._lastModified == lastModified) {
+            return cached._value;
+        }
+
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(jarFile.toPath())) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        final long value = crc.getValue();
+        _checksums.put(path, new Checksum(size, lastModified, value));
+        return value;
+    }
+
+    private static String getPath(final File jarFile) {
+        return jarFile.getAbsolutePath();
+    }
+
+    /**
+     * Saves the index to its file, if anything was added to it. JAR files that no longer exist are left out. Failing
+     * to save the index is logged, but otherwise ignored.
+     */
+    public synchronized void save() {
+        if (!_modified.getAndSet(false)) {
+            return;
+        }
+
+        File tempFile = null;
+        try {
+            final File directory = _file.getAbsoluteFile().getParentFile();
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+
+            // write to a temporary file first, since other processes may be reading the index
+            tempFile = File.createTempFile(_file.getName(), ".tmp", directory);
+            try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                write(writer);
+            }
+            try {
+                Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.debug("Saved descriptor index: {}", _file);
+        } catch (final IOException e) {
+            logger.warn("Failed to save descriptor index: " + _file, e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private void write(final Writer writer) throws IOException {
+        final BufferedWriter out = new BufferedWriter(writer);
+        out.write(HEADER);
+        out.newLine();
+        for (final Map.Entry<String, JarIndex> jarEntry : _jars.entrySet()) {
+            if (!new File(jarEntry.getKey()).exists()) {
+                continue;
+            }
+            final JarIndex jarIndex = jarEntry.getValue();
+            writeRecord(out, JAR_RECORD, jarEntry.getKey(), Long.toString(jarIndex._size),
+                    Long.toString(jarIndex._checksum));
+            for (final Map.Entry<String, List<IndexedComponent>> scopeEntry : jarIndex._scopes.entrySet()) {
+                writeRecord(out, SCOPE_RECORD, scopeEntry.getKey());
+                for (final IndexedComponent component : scopeEntry.getValue()) {
+                    if (component.getRenderingFormatClassName() == null) {
+                        writeRecord(out, COMPONENT_RECORD, component.getClassName());
+                    } else {
+                        writeRecord(out, COMPONENT_RECORD, component.getClassName(),
+                                component.getRenderingFormatClassName());
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeRecord(final BufferedWriter out, final String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                out.write('\t');
+            }
+            out.write(values[i]);
+        }
+        out.newLine();
+    }
+
+    private void read() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(_file.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                logger.info("Descriptor index has an unknown format, ignoring it: {}", _file);
+                return;
+            }
+
+            JarIndex jarIndex = null;
+            List<IndexedComponent> components = null;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final String[] values = line.split("\t");
+                switch (values[0]) {
+                case JAR_RECORD:
+                    jarIndex = new JarIndex(Long.parseLong(values[2]), Long.parseLong(values[3]));
+                    components = null;
+                    _jars.put(values[1], jarIndex);
+                    break;
+                case SCOPE_RECORD:
+                    components = new ArrayList<>();
+                    jarIndex._scopes.put(values[1], components);
+                    break;
+                case COMPONENT_RECORD:
+                    components.add(new IndexedComponent(values[1], values.length > 2 ? values[2] : null));
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected descriptor index record: " + line);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DescriptorIndex[" + _file + "]";
+    }
+}
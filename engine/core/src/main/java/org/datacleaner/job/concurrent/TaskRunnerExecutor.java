@@ -0,0 +1,66 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.concurrent;
+
+import java.util.concurrent.Executor;
+
+import org.datacleaner.job.tasks.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adapts a {@link TaskRunner} to the {@link Executor} interface, eg. in order
+ * to run the continuations of {@link java.util.concurrent.CompletableFuture}s
+ * on the threads of a job instead of the threads that completed them. Note
+ * that a {@link SingleThreadedTaskRunner} runs the commands in the calling
+ * thread.
+ */
+public final class TaskRunnerExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskRunnerExecutor.class);
+
+    private final TaskRunner _taskRunner;
+    private final TaskListener _taskListener;
+
+    public TaskRunnerExecutor(final TaskRunner taskRunner) {
+        _taskRunner = taskRunner;
+        _taskListener = new TaskListener() {
+            @Override
+            public void onBegin(final Task task) {
+            }
+
+            @Override
+            public void onComplete(final Task task) {
+            }
+
+            @Override
+            public void onError(final Task task, final Throwable throwable) {
+                // the commands are expected to handle their own errors, so
+                // this is typically a job which has already failed
+                logger.debug("Command was not executed successfully: {}", task, throwable);
+            }
+        };
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        _taskRunner.run(command::run, _taskListener);
+    }
+}
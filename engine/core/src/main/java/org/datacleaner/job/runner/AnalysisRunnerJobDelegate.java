@@ -19,6 +19,7 @@
  */
 package org.datacleaner.job.runner;
 
+import java.io.Closeable;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -32,10 +33,12 @@ import org.datacleaner.configuration.InjectionManager;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.OutputDataStreamJob;
+import org.datacleaner.job.concurrent.CompositeTaskListener;
 import org.datacleaner.job.concurrent.JobCompletionTaskListener;
 import org.datacleaner.job.concurrent.JoinTaskListener;
 import org.datacleaner.job.concurrent.TaskListener;
 import org.datacleaner.job.concurrent.TaskRunner;
+import org.datacleaner.job.tasks.CloseResourcesTaskListener;
 import org.datacleaner.lifecycle.LifeCycleHelper;
 import org.datacleaner.util.SourceColumnFinder;
 import org.slf4j.Logger;
@@ -117,8 +120,8 @@ final class AnalysisRunnerJobDelegate {
             validateSingleTableInput(_job);
 
             // at this point we are done validating the job, it will run.
-            scheduleRowProcessing(publishers, rowProcessingLifeCycleHelper, jobCompletionTaskListener,
-                    analysisJobMetrics);
+            scheduleRowProcessing(publishers, rowProcessingLifeCycleHelper,
+                    createJobDoneTaskListener(injectionManager, jobCompletionTaskListener), analysisJobMetrics);
 
             return new AnalysisResultFutureImpl(_resultQueue, jobCompletionTaskListener, _errorAware);
         } catch (final RuntimeException e) {
@@ -128,6 +131,24 @@ final class AnalysisRunnerJobDelegate {
 
     }
 
+    /**
+     * Creates the listener which is notified when all row processing is done.
+     * Before the job is reported as completed, job scoped resources of the
+     * injection manager are released.
+     *
+     * @param injectionManager
+     * @param jobCompletionTaskListener
+     * @return
+     */
+    private TaskListener createJobDoneTaskListener(final InjectionManager injectionManager,
+            final JobCompletionTaskListener jobCompletionTaskListener) {
+        if (injectionManager instanceof Closeable) {
+            return new CompositeTaskListener(new CloseResourcesTaskListener((Closeable) injectionManager),
+                    jobCompletionTaskListener);
+        }
+        return jobCompletionTaskListener;
+    }
+
     /**
      * Starts row processing job flows.
      *
@@ -137,11 +158,11 @@ final class AnalysisRunnerJobDelegate {
      * @param injectionManager
      */
     private void scheduleRowProcessing(final RowProcessingPublishers publishers, final LifeCycleHelper lifeCycleHelper,
-            final JobCompletionTaskListener jobCompletionTaskListener, final AnalysisJobMetrics analysisJobMetrics) {
+            final TaskListener jobDoneTaskListener, final AnalysisJobMetrics analysisJobMetrics) {
 
         logger.info("Created {} row processor publisher(s)", publishers.size());
         final TaskListener rowProcessorPublishersDoneCompletionListener =
-                new JoinTaskListener(publishers.size(), jobCompletionTaskListener);
+                new JoinTaskListener(publishers.size(), jobDoneTaskListener);
 
         final Collection<RowProcessingPublisher> rowProcessingPublishers = publishers.getRowProcessingPublishers();
         logger.debug("RowProcessingPublishers: {}", rowProcessingPublishers);
@@ -0,0 +1,56 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+/**
+ * A {@link RowProcessingChain} which allows a {@link RowProcessingConsumer} to
+ * defer the processing of the next steps of a record, eg. until a response
+ * from an external service has been received.
+ *
+ * Consumers should invoke {@link #beginAsync()} before handing off the record,
+ * and {@link #endAsync(Throwable)} once the deferred processing (including any
+ * call to {@link #processNext(org.datacleaner.api.InputRow, int, org.datacleaner.job.FilterOutcomes)})
+ * has finished.
+ */
+public interface AsyncRowProcessingChain extends RowProcessingChain {
+
+    /**
+     * Determines if asynchronous processing is supported by this chain. If not,
+     * consumers must process the record in a blocking manner.
+     *
+     * @return
+     */
+    boolean isAsyncSupported();
+
+    /**
+     * Registers that a part of the processing of the record has been deferred.
+     */
+    void beginAsync();
+
+    /**
+     * Registers that a deferred part of the processing of the record has
+     * finished.
+     *
+     * @param error
+     *            the error that occurred during the deferred processing, or
+     *            null if it finished successfully
+     */
+    void endAsync(Throwable error);
+}
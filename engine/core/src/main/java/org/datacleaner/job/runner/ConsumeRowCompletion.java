@@ -0,0 +1,73 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.datacleaner.api.InputRow;
+import org.datacleaner.job.FilterOutcomes;
+
+/**
+ * Keeps track of the (possibly deferred) processing of a single record, and
+ * completes a future with the {@link ConsumeRowResult} once all parts of the
+ * processing have finished.
+ */
+final class ConsumeRowCompletion {
+
+    // the initial count represents the blocking part of the processing
+    private final AtomicInteger _pending = new AtomicInteger(1);
+    private final AtomicReference<Throwable> _error = new AtomicReference<>();
+    private final CompletableFuture<ConsumeRowResult> _future = new CompletableFuture<>();
+    private final List<InputRow> _resultRecords = new ArrayList<>(1);
+    private final List<FilterOutcomes> _resultOutcomes = new ArrayList<>(1);
+
+    public void begin() {
+        _pending.incrementAndGet();
+    }
+
+    public void end(final Throwable error) {
+        if (error != null) {
+            _error.compareAndSet(null, error);
+        }
+        if (_pending.decrementAndGet() == 0) {
+            final Throwable firstError = _error.get();
+            if (firstError == null) {
+                synchronized (this) {
+                    _future.complete(new ConsumeRowResult(_resultRecords, _resultOutcomes));
+                }
+            } else {
+                _future.completeExceptionally(firstError);
+            }
+        }
+    }
+
+    public synchronized void addResult(final InputRow row, final FilterOutcomes outcomes) {
+        _resultRecords.add(row);
+        _resultOutcomes.add(outcomes);
+    }
+
+    public CompletableFuture<ConsumeRowResult> getFuture() {
+        return _future;
+    }
+}
@@ -22,10 +22,12 @@ package org.datacleaner.job.runner;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.schema.Table;
 import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.AsyncTransformer;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.configuration.DataCleanerConfiguration;
@@ -60,6 +62,7 @@ public class ConsumeRowHandler {
     private static final Logger logger = LoggerFactory.getLogger(ConsumeRowHandler.class);
     private final List<RowProcessingConsumer> _consumers;
     private final Collection<? extends FilterOutcome> _alwaysSatisfiedOutcomes;
+    private final boolean _asynchronous;
 
     /**
      * Builds a {@link ConsumeRowHandler} based on a job, and the configuration
@@ -73,6 +76,7 @@ public class ConsumeRowHandler {
             final Configuration rowConsumerConfiguration) {
         _consumers = extractConsumers(job, configuration, rowConsumerConfiguration);
         _alwaysSatisfiedOutcomes = rowConsumerConfiguration.alwaysSatisfiedOutcomes;
+        _asynchronous = containsAsyncConsumers(_consumers);
     }
 
     /**
@@ -95,6 +99,27 @@ public class ConsumeRowHandler {
             final Collection<? extends FilterOutcome> alwaysSatisfiedOutcomes) {
         _consumers = consumers;
         _alwaysSatisfiedOutcomes = alwaysSatisfiedOutcomes;
+        _asynchronous = containsAsyncConsumers(_consumers);
+    }
+
+    private static boolean containsAsyncConsumers(final List<RowProcessingConsumer> consumers) {
+        for (final RowProcessingConsumer consumer : consumers) {
+            if (consumer.getComponent() instanceof AsyncTransformer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if any of the consumers of this handler are able to complete
+     * asynchronously, in which case {@link #consumeRowAsync(InputRow)} will
+     * avoid blocking the calling thread.
+     *
+     * @return
+     */
+    public boolean isAsynchronous() {
+        return _asynchronous;
     }
 
     /**
@@ -145,6 +170,29 @@ public class ConsumeRowHandler {
         return delegate.consume();
     }
 
+    /**
+     * Consumes a {@link InputRow} by applying all transformations etc. to it,
+     * allowing {@link AsyncTransformer}s to complete the processing of it
+     * without blocking the calling thread.
+     *
+     * @param row
+     * @return a future of the result of the processing. The future completes
+     *         exceptionally if any of the consumers failed.
+     */
+    public CompletableFuture<ConsumeRowResult> consumeRowAsync(final InputRow row) {
+        final FilterOutcomes outcomes = new FilterOutcomesImpl(_alwaysSatisfiedOutcomes);
+        final ConsumeRowCompletion completion = new ConsumeRowCompletion();
+        final ConsumeRowHandlerDelegate delegate =
+                new ConsumeRowHandlerDelegate(_consumers, row, 0, outcomes, completion);
+        try {
+            delegate.consume();
+            completion.end(null);
+        } catch (final RuntimeException | Error e) {
+            completion.end(e);
+        }
+        return completion.getFuture();
+    }
+
     private List<RowProcessingConsumer> extractConsumers(final AnalysisJob analysisJob,
             final DataCleanerConfiguration configuration, final Configuration rowConsumeConfiguration) {
         final InjectionManagerFactory injectionManagerFactory =
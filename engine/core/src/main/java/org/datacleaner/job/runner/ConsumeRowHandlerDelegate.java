@@ -29,8 +29,12 @@ import org.datacleaner.job.FilterOutcomes;
  * Delegate execution object for {@link ConsumeRowHandler}. Contains state
  * particular to processing of a single consumer in the chain, and also handles
  * recursive logic coming from {@link RowProcessingChain} callbacks.
+ *
+ * If created with a {@link ConsumeRowCompletion}, consumers are allowed to
+ * defer the processing of the next steps (see {@link AsyncRowProcessingChain}
+ * ).
  */
-final class ConsumeRowHandlerDelegate implements RowProcessingChain {
+final class ConsumeRowHandlerDelegate implements AsyncRowProcessingChain {
 
     private final List<RowProcessingConsumer> _consumers;
     private final InputRow _row;
@@ -38,21 +42,28 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
     private final FilterOutcomes _outcomes;
     private final List<InputRow> _resultRecords;
     private final List<FilterOutcomes> _resultOutcomes;
+    private final ConsumeRowCompletion _completion;
 
     public ConsumeRowHandlerDelegate(final List<RowProcessingConsumer> consumers, final InputRow row,
             final int consumerIndex, final FilterOutcomes outcomes) {
-        this(consumers, row, consumerIndex, outcomes, new ArrayList<>(1), new ArrayList<>(1));
+        this(consumers, row, consumerIndex, outcomes, new ArrayList<>(1), new ArrayList<>(1), null);
+    }
+
+    public ConsumeRowHandlerDelegate(final List<RowProcessingConsumer> consumers, final InputRow row,
+            final int consumerIndex, final FilterOutcomes outcomes, final ConsumeRowCompletion completion) {
+        this(consumers, row, consumerIndex, outcomes, null, null, completion);
     }
 
     private ConsumeRowHandlerDelegate(final List<RowProcessingConsumer> consumers, final InputRow row,
             final int consumerIndex, final FilterOutcomes outcomes, final List<InputRow> resultRecords,
-            final List<FilterOutcomes> resultOutcomes) {
+            final List<FilterOutcomes> resultOutcomes, final ConsumeRowCompletion completion) {
         _consumers = consumers;
         _row = row;
         _consumerIndex = consumerIndex;
         _outcomes = outcomes;
         _resultRecords = resultRecords;
         _resultOutcomes = resultOutcomes;
+        _completion = completion;
     }
 
     public ConsumeRowResult consume() {
@@ -72,6 +83,10 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
             processNext(_row, 1, _outcomes);
         }
 
+        if (_completion != null) {
+            // the result will be available through the completion
+            return null;
+        }
         return new ConsumeRowResult(_resultRecords, _resultOutcomes);
     }
 
@@ -80,14 +95,40 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
         final int nextIndex = _consumerIndex + 1;
         if (nextIndex >= _consumers.size()) {
             // finished!
-            _resultRecords.add(row);
-            _resultOutcomes.add(outcomes);
+            if (_completion == null) {
+                _resultRecords.add(row);
+                _resultOutcomes.add(outcomes);
+            } else {
+                _completion.addResult(row, outcomes);
+            }
             return;
         }
 
         final ConsumeRowHandlerDelegate subDelegate =
-                new ConsumeRowHandlerDelegate(_consumers, row, nextIndex, outcomes, _resultRecords, _resultOutcomes);
+                new ConsumeRowHandlerDelegate(_consumers, row, nextIndex, outcomes, _resultRecords, _resultOutcomes,
+                        _completion);
         subDelegate.consume();
     }
 
+    @Override
+    public boolean isAsyncSupported() {
+        return _completion != null;
+    }
+
+    @Override
+    public void beginAsync() {
+        if (_completion == null) {
+            throw new IllegalStateException("Asynchronous processing is not supported in this chain");
+        }
+        _completion.begin();
+    }
+
+    @Override
+    public void endAsync(final Throwable error) {
+        if (_completion == null) {
+            throw new IllegalStateException("Asynchronous processing is not supported in this chain");
+        }
+        _completion.end(error);
+    }
+
 }
@@ -30,6 +30,7 @@ import org.datacleaner.job.tasks.Task;
 public final class RowConsumerTaskListener implements TaskListener {
 
     private final AtomicInteger _counter = new AtomicInteger();
+    private final AtomicInteger _pendingAsyncRows = new AtomicInteger();
     private final AtomicBoolean _errorsReported = new AtomicBoolean(false);
     private final AnalysisListener _analysisListener;
     private final AnalysisJob _analysisJob;
@@ -61,6 +62,40 @@ public final class RowConsumerTaskListener implements TaskListener {
         incrementCounter();
     }
 
+    /**
+     * Registers that the processing of a row has been deferred beyond the
+     * completion of it's task, see {@link ConsumeRowHandler#consumeRowAsync(org.datacleaner.api.InputRow)}.
+     */
+    public void onAsyncRowBegin() {
+        _pendingAsyncRows.incrementAndGet();
+    }
+
+    /**
+     * Registers that the deferred processing of a row has finished.
+     *
+     * @param throwable
+     *            the error that occurred, or null if the processing was
+     *            successful
+     */
+    public void onAsyncRowComplete(final Throwable throwable) {
+        if (throwable != null) {
+            // the error is registered before the flag is set, so that waiting
+            // threads will not finish the job before the error is known
+            synchronized (_errorsReported) {
+                if (!_errorsReported.get()) {
+                    _analysisListener.errorUnknown(_analysisJob, throwable);
+                    _errorsReported.set(true);
+                }
+            }
+        }
+
+        if (_pendingAsyncRows.decrementAndGet() == 0 || throwable != null) {
+            synchronized (_pendingAsyncRows) {
+                _pendingAsyncRows.notifyAll();
+            }
+        }
+    }
+
     private void incrementCounter() {
         _counter.incrementAndGet();
     }
@@ -73,5 +108,16 @@ public final class RowConsumerTaskListener implements TaskListener {
         while (numTasks > _counter.get() && !isErrornous()) {
             _taskRunner.assistExecution();
         }
+
+        synchronized (_pendingAsyncRows) {
+            while (_pendingAsyncRows.get() > 0 && !isErrornous()) {
+                try {
+                    _pendingAsyncRows.wait(100);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
     }
 }
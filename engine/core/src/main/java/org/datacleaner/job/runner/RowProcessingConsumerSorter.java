@@ -38,9 +38,10 @@ import org.datacleaner.job.InputColumnSourceJob;
 
 /**
  * Helping class for the row processing publisher, that will help sort the
- * consumers correctly
+ * consumers correctly. Also used by other runners that need to process the
+ * consumers in the same order.
  */
-class RowProcessingConsumerSorter {
+public class RowProcessingConsumerSorter {
 
     private final Collection<? extends RowProcessingConsumer> _consumers;
 
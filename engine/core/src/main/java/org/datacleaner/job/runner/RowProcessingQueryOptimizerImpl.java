@@ -33,6 +33,7 @@ import org.apache.metamodel.query.Query;
 import org.datacleaner.api.Filter;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.QueryOptimizedFilter;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.descriptors.FilterDescriptor;
@@ -53,7 +54,7 @@ public class RowProcessingQueryOptimizerImpl implements RowProcessingQueryOptimi
 
     private static final Logger logger = LoggerFactory.getLogger(RowProcessingQueryOptimizerImpl.class);
 
-    private static final Class<?>[] ALWAYS_OPTIMIZABLE = new Class[] { MaxRowsFilter.class };
+    private static final Class<?>[] ALWAYS_OPTIMIZABLE = new Class[] { MaxRowsFilter.class, KeyRangeFilter.class };
     private final Datastore _datastore;
     private final Query _baseQuery;
     private final List<RowProcessingConsumer> _consumers;
@@ -232,7 +232,7 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
 
                     final ConsumeRowTask task =
                             new ConsumeRowTask(consumeRowHandler, rowProcessingMetrics, inputRow, analysisListener,
-                                    numTasks);
+                                    numTasks, taskListener);
                     getTaskRunner().run(task, taskListener);
 
                 }
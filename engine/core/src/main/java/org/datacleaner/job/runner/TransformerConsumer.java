@@ -20,8 +20,13 @@
 package org.datacleaner.job.runner;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
+import org.datacleaner.api.AsyncTransformer;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
@@ -31,6 +36,7 @@ import org.datacleaner.data.TransformedInputRow;
 import org.datacleaner.descriptors.ProvidedPropertyDescriptor;
 import org.datacleaner.job.FilterOutcomes;
 import org.datacleaner.job.TransformerJob;
+import org.datacleaner.job.concurrent.TaskRunnerExecutor;
 import org.datacleaner.job.concurrent.ThreadLocalOutputRowCollector;
 import org.datacleaner.job.concurrent.ThreadLocalOutputRowCollector.Listener;
 
@@ -44,6 +50,7 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
     private final InputColumn<?>[] _inputColumns;
     private final boolean _concurrent;
     private final Set<ProvidedPropertyDescriptor> _outputRowCollectorProperties;
+    private final Executor _asyncExecutor;
     private RowIdGenerator _idGenerator;
 
     public TransformerConsumer(final Transformer transformer, final TransformerJob transformerJob,
@@ -56,6 +63,7 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
 
         _outputRowCollectorProperties =
                 _transformerJob.getDescriptor().getProvidedPropertiesByType(OutputRowCollector.class);
+        _asyncExecutor = new TaskRunnerExecutor(publisher.getPublishers().getTaskRunner());
     }
 
     private boolean determineConcurrent() {
@@ -101,6 +109,13 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
             final RowProcessingChain chain) {
         final InputColumn<?>[] outputColumns = getOutputColumns();
 
+        if (_transformer instanceof AsyncTransformer && chain instanceof AsyncRowProcessingChain
+                && ((AsyncRowProcessingChain) chain).isAsyncSupported()) {
+            consumeAsync((AsyncTransformer) _transformer, row, distinctCount, outcomes,
+                    (AsyncRowProcessingChain) chain, outputColumns);
+            return;
+        }
+
         registerListener(_transformer, row, outcomes, chain, outputColumns);
 
         try {
@@ -116,6 +131,40 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         }
     }
 
+    private void consumeAsync(final AsyncTransformer transformer, final InputRow row, final int distinctCount,
+            final FilterOutcomes outcomes, final AsyncRowProcessingChain chain, final InputColumn<?>[] outputColumns) {
+        final CompletableFuture<Object[]> future = transformer.transformAsync(row);
+        chain.beginAsync();
+        final BiConsumer<Object[], Throwable> continuation = (values, error) -> {
+            if (error != null) {
+                if (error instanceof CompletionException && error.getCause() != null) {
+                    chain.endAsync(error.getCause());
+                } else {
+                    chain.endAsync(error);
+                }
+                return;
+            }
+            try {
+                if (values != null) {
+                    final TransformedInputRow resultRow = TransformedInputRow.of(row);
+                    addValuesToRow(resultRow, outputColumns, values);
+                    chain.processNext(resultRow, distinctCount, outcomes);
+                }
+                chain.endAsync(null);
+            } catch (final RuntimeException | Error e) {
+                chain.endAsync(e);
+            }
+        };
+        if (future.isDone()) {
+            future.whenComplete(continuation);
+        } else {
+            // the future is typically completed by an I/O thread of the
+            // transformer, which must not be occupied (or blocked, eg. by
+            // another transformer's back-pressure) by the rest of the chain
+            future.whenCompleteAsync(continuation, _asyncExecutor);
+        }
+    }
+
     private void unregisterListener(final Transformer transformer) {
         for (final ProvidedPropertyDescriptor descriptor : _outputRowCollectorProperties) {
             final OutputRowCollector outputRowCollector = (OutputRowCollector) descriptor.getValue(transformer);
@@ -22,6 +22,7 @@ package org.datacleaner.job.tasks;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.job.runner.AnalysisListener;
 import org.datacleaner.job.runner.ConsumeRowHandler;
+import org.datacleaner.job.runner.RowConsumerTaskListener;
 import org.datacleaner.job.runner.RowProcessingConsumer;
 import org.datacleaner.job.runner.RowProcessingMetrics;
 
@@ -36,19 +37,56 @@ public final class ConsumeRowTask implements Task {
     private final AnalysisListener _analysisListener;
     private final ConsumeRowHandler _consumeRowHandler;
     private final int _rowNumber;
+    private final RowConsumerTaskListener _rowConsumerTaskListener;
 
     public ConsumeRowTask(final ConsumeRowHandler consumeRowHandler, final RowProcessingMetrics rowProcessingMetrics,
             final InputRow row, final AnalysisListener analysisListener, final int rowNumber) {
+        this(consumeRowHandler, rowProcessingMetrics, row, analysisListener, rowNumber, null);
+    }
+
+    /**
+     * Creates a {@link ConsumeRowTask} which, if the {@link ConsumeRowHandler}
+     * is asynchronous, does not wait for the processing of the row to finish.
+     * Instead the deferred processing is tracked by the
+     * {@link RowConsumerTaskListener}.
+     *
+     * @param consumeRowHandler
+     * @param rowProcessingMetrics
+     * @param row
+     * @param analysisListener
+     * @param rowNumber
+     * @param rowConsumerTaskListener
+     */
+    public ConsumeRowTask(final ConsumeRowHandler consumeRowHandler, final RowProcessingMetrics rowProcessingMetrics,
+            final InputRow row, final AnalysisListener analysisListener, final int rowNumber,
+            final RowConsumerTaskListener rowConsumerTaskListener) {
         _consumeRowHandler = consumeRowHandler;
         _rowProcessingMetrics = rowProcessingMetrics;
         _row = row;
         _analysisListener = analysisListener;
         _rowNumber = rowNumber;
+        _rowConsumerTaskListener = rowConsumerTaskListener;
     }
 
     @Override
     public void execute() {
-        _consumeRowHandler.consumeRow(_row).getRows();
+        if (_rowConsumerTaskListener != null && _consumeRowHandler.isAsynchronous()) {
+            _rowConsumerTaskListener.onAsyncRowBegin();
+            // the asynchronous consumers continue the processing on the
+            // threads of the job, so this is never run by an I/O thread
+            _consumeRowHandler.consumeRowAsync(_row).whenComplete((result, error) -> {
+                if (error == null) {
+                    reportProgress();
+                }
+                _rowConsumerTaskListener.onAsyncRowComplete(error);
+            });
+        } else {
+            _consumeRowHandler.consumeRow(_row).getRows();
+            reportProgress();
+        }
+    }
+
+    private void reportProgress() {
         _analysisListener.rowProcessingProgress(_rowProcessingMetrics.getAnalysisJobMetrics().getAnalysisJob(),
                 _rowProcessingMetrics, _row, _rowNumber);
     }
@@ -19,8 +19,11 @@
  */
 package org.datacleaner.lifecycle;
 
+import java.io.Closeable;
 import java.util.Set;
 
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.Provided;
@@ -36,6 +39,7 @@ import org.datacleaner.descriptors.ProvidedPropertyDescriptor;
 import org.datacleaner.descriptors.ValidateMethodDescriptor;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.ComponentConfiguration;
+import org.datacleaner.storage.RowAnnotationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -184,7 +188,12 @@ public final class LifeCycleHelper {
     }
 
     /**
-     * Closes a component after use.
+     * Closes a component after use. After invoking the {@link Close} methods of
+     * the component, any {@link Provided} values which are {@link Closeable},
+     * such as disk-backed collections, are closed, so that their resources
+     * are released when the component is done, rather than when they are
+     * garbage collected. The {@link RowAnnotationFactory} is shared by the
+     * components of a job, and is closed along with the job instead.
      *
      * @param descriptor
      * @param component
@@ -202,6 +211,14 @@ public final class LifeCycleHelper {
                 }
             }
         }
+
+        final Set<ProvidedPropertyDescriptor> providedDescriptors = descriptor.getProvidedProperties();
+        for (final ProvidedPropertyDescriptor providedDescriptor : providedDescriptors) {
+            final Object value = providedDescriptor.getValue(component);
+            if (value instanceof Closeable && !(value instanceof RowAnnotationFactory)) {
+                FileHelper.safeClose(value);
+            }
+        }
     }
 
     /**
@@ -19,14 +19,15 @@
  */
 package org.datacleaner.output;
 
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Collection;
 
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.connection.JdbcBulkLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,15 +36,24 @@ import org.slf4j.LoggerFactory;
  * {@link UpdateableDataContext}s.
  *
  * This implementation holds a buffer of records to write, to avoid hitting the
- * executeUpdate() method for every single record.
+ * executeUpdate() method for every single record. Records are staged per
+ * thread in a {@link ConcurrentOutputBuffer}, so that threads writing records
+ * do not wait for each other while a batch is being written. Buffered records
+ * for a {@link JdbcDataContext} are written using a {@link JdbcBulkLoader},
+ * unless bulk loading is disabled. Values are written to the columns of the
+ * table with the same names as the {@link InputColumn}s.
  */
 public abstract class AbstractMetaModelOutputWriter implements OutputWriter {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractMetaModelOutputWriter.class);
 
+    private static final int MAX_STAGING_SIZE = 256;
+
     private final UpdateableDataContext _dataContext;
-    private final Queue<Object[]> _buffer;
+    private final ConcurrentOutputBuffer<Object[]> _buffer;
     private final InputColumn<?>[] _columns;
+    private final JdbcBulkLoader _bulkLoader;
+    private volatile Column[] _targetColumns;
 
     /**
      * Creates a new {@link OutputWriter} based on a data context, a set of
@@ -58,13 +68,35 @@ public abstract class AbstractMetaModelOutputWriter implements OutputWriter {
      */
     public AbstractMetaModelOutputWriter(final UpdateableDataContext dataContext, final InputColumn<?>[] columns,
             final int bufferSize) {
+        this(dataContext, columns, bufferSize, true);
+    }
+
+    /**
+     * Creates a new {@link OutputWriter} based on a data context, a set of
+     * columns and a buffer size.
+     *
+     * @param dataContext
+     * @param columns
+     * @param bufferSize
+     *            the size of the write buffer. If 0 or negative, an unlimited
+     *            buffer will be used, meaning that the complete dataset will be
+     *            held in memory.
+     * @param bulkLoad
+     *            whether or not to write the records of a
+     *            {@link JdbcDataContext} using a {@link JdbcBulkLoader}. If
+     *            false, the records are inserted one by one.
+     */
+    public AbstractMetaModelOutputWriter(final UpdateableDataContext dataContext, final InputColumn<?>[] columns,
+            final int bufferSize, final boolean bulkLoad) {
         _dataContext = dataContext;
         _columns = columns;
-        if (bufferSize > 0) {
-            _buffer = new ArrayBlockingQueue<>(bufferSize);
+        if (bulkLoad && dataContext instanceof JdbcDataContext) {
+            _bulkLoader = JdbcBulkLoader.create((JdbcDataContext) dataContext);
         } else {
-            _buffer = new ConcurrentLinkedQueue<>();
+            _bulkLoader = null;
         }
+        final int stagingSize = bufferSize > 0 ? Math.min(bufferSize, MAX_STAGING_SIZE) : MAX_STAGING_SIZE;
+        _buffer = new ConcurrentOutputBuffer<>(stagingSize, bufferSize, this::writeRows);
     }
 
     @Override
@@ -73,32 +105,57 @@ public abstract class AbstractMetaModelOutputWriter implements OutputWriter {
     }
 
     protected final void addToBuffer(final Object[] rowData) {
-        while (!_buffer.offer(rowData)) {
-            flushBuffer();
-        }
+        _buffer.add(rowData);
     }
 
-    private synchronized void flushBuffer() {
-        if (!_buffer.isEmpty()) {
-            logger.info("Flushing {} rows in write buffer", _buffer.size());
-            _dataContext.executeUpdate(callback -> {
-                for (Object[] rowData = _buffer.poll(); rowData != null; rowData = _buffer.poll()) {
-                    RowInsertionBuilder insertBuilder = callback.insertInto(getTable());
-                    for (int i = 0; i < _columns.length; i++) {
-                        final Object value = rowData[i];
-                        insertBuilder = insertBuilder.value(i, value);
-                    }
-                    insertBuilder.execute();
+    private void writeRows(final Collection<Object[]> rows) {
+        logger.info("Flushing {} rows in write buffer", rows.size());
+        final Column[] columns = getTargetColumns();
+        if (_bulkLoader != null) {
+            _bulkLoader.load(columns, rows);
+            return;
+        }
+        _dataContext.executeUpdate(callback -> {
+            for (final Object[] rowData : rows) {
+                RowInsertionBuilder insertBuilder = callback.insertInto(getTable());
+                for (int i = 0; i < columns.length; i++) {
+                    insertBuilder = insertBuilder.value(columns[i], rowData[i]);
                 }
-            });
+                insertBuilder.execute();
+            }
+        });
+    }
+
+    /**
+     * Gets the columns of the table to write the values of the
+     * {@link InputColumn}s to. Columns are matched by name, and by position
+     * if the table has no column with the name of an {@link InputColumn}.
+     *
+     * @return
+     */
+    private Column[] getTargetColumns() {
+        Column[] targetColumns = _targetColumns;
+        if (targetColumns == null) {
+            final Table table = getTable();
+            targetColumns = new Column[_columns.length];
+            for (int i = 0; i < _columns.length; i++) {
+                final Column column = table.getColumnByName(_columns[i].getName());
+                targetColumns[i] = column == null ? table.getColumns().get(i) : column;
+            }
+            _targetColumns = targetColumns;
         }
+        return targetColumns;
     }
 
     protected abstract Table getTable();
 
+    /**
+     * Writes all buffered records. Must be invoked once all rows have been
+     * written.
+     */
     @Override
     public final void close() {
-        flushBuffer();
+        _buffer.close();
         afterClose();
     }
 
@@ -0,0 +1,266 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * A buffer for {@link OutputWriter}s which are written to by many threads, but
+ * whose underlying target can only be written serially.
+ *
+ * Each thread adds elements to its own staging buffer. Full staging buffers are
+ * handed off through a lock-free queue, and whichever thread finds enough
+ * elements queued, and no other thread writing, becomes the writer and writes
+ * them in one batch. Other threads keep adding elements instead of waiting for
+ * the write to finish, unless the queue has grown to twice the flush
+ * threshold.
+ *
+ * @param <E>
+ *            the type of elements to buffer
+ */
+public final class ConcurrentOutputBuffer<E> {
+
+    /**
+     * The staging buffer of a thread. It is only contended when the buffer is
+     * closed, which takes the remaining elements of all threads.
+     */
+    private static final class StagingBuffer<E> {
+        private List<E> _elements;
+
+        private StagingBuffer(final int capacity) {
+            _elements = new ArrayList<>(capacity);
+        }
+    }
+
+    /**
+     * The elements of a number of handed off lists, written as one batch.
+     */
+    private static final class Batch<E> extends AbstractCollection<E> {
+        private final List<List<E>> _lists;
+        private final int _size;
+
+        private Batch(final List<List<E>> lists, final int size) {
+            _lists = lists;
+            _size = size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Iterables.concat(_lists).iterator();
+        }
+
+        @Override
+        public int size() {
+            return _size;
+        }
+    }
+
+    private final int _stagingSize;
+    private final int _flushThreshold;
+    private final Consumer<Collection<E>> _batchWriter;
+    private final ThreadLocal<StagingBuffer<E>> _stagingBuffer;
+    private final Queue<StagingBuffer<E>> _stagingBuffers;
+    private final Queue<List<E>> _queue;
+    private final AtomicInteger _queuedCount;
+    private final AtomicBoolean _writing;
+    private final Lock _writtenLock;
+    private final Condition _written;
+
+    /**
+     * Creates a {@link ConcurrentOutputBuffer}.
+     *
+     * @param stagingSize
+     *            the number of elements each thread stages before handing
+     *            them off to the writer
+     * @param flushThreshold
+     *            the number of queued elements which triggers a write. If 0
+     *            or negative, nothing is written until the buffer is closed.
+     * @param batchWriter
+     *            the function which writes a batch of elements. It is never
+     *            invoked concurrently.
+     */
+    public ConcurrentOutputBuffer(final int stagingSize, final int flushThreshold,
+            final Consumer<Collection<E>> batchWriter) {
+        _stagingSize = Math.max(1, stagingSize);
+        _flushThreshold = flushThreshold > 0 ? flushThreshold : Integer.MAX_VALUE;
+        _batchWriter = batchWriter;
+        _stagingBuffers = new ConcurrentLinkedQueue<>();
+        _stagingBuffer = ThreadLocal.withInitial(() -> {
+            final StagingBuffer<E> stagingBuffer = new StagingBuffer<>(_stagingSize);
+            _stagingBuffers.add(stagingBuffer);
+            return stagingBuffer;
+        });
+        _queue = new ConcurrentLinkedQueue<>();
+        _queuedCount = new AtomicInteger();
+        _writing = new AtomicBoolean();
+        _writtenLock = new ReentrantLock();
+        _written = _writtenLock.newCondition();
+    }
+
+    /**
+     * Adds an element to the staging buffer of the current thread.
+     *
+     * @param element
+     */
+    public void add(final E element) {
+        final StagingBuffer<E> stagingBuffer = _stagingBuffer.get();
+        final List<E> elements;
+        synchronized (stagingBuffer) {
+            stagingBuffer._elements.add(element);
+            if (stagingBuffer._elements.size() < _stagingSize) {
+                return;
+            }
+            elements = stagingBuffer._elements;
+            stagingBuffer._elements = new ArrayList<>(_stagingSize);
+        }
+        handOff(elements);
+    }
+
+    private void handOff(final List<E> elements) {
+        _queue.offer(elements);
+        if (_queuedCount.addAndGet(elements.size()) < _flushThreshold) {
+            return;
+        }
+
+        writeIfIdle();
+
+        // back-pressure: help writing, or wait for the ongoing write, rather
+        // than letting the queue grow unbounded
+        while (isOverflowing()) {
+            if (!writeIfIdle()) {
+                awaitWrite();
+            }
+        }
+    }
+
+    private boolean isOverflowing() {
+        return _queuedCount.get() - _flushThreshold >= _flushThreshold;
+    }
+
+    private void awaitWrite() {
+        _writtenLock.lock();
+        try {
+            // the writer signals after resetting the flag, which it can only
+            // do while we are not holding the lock
+            while (isOverflowing() && _writing.get()) {
+                _written.awaitUninterruptibly();
+            }
+        } finally {
+            _writtenLock.unlock();
+        }
+    }
+
+    private void endWrite() {
+        _writing.set(false);
+        _writtenLock.lock();
+        try {
+            _written.signalAll();
+        } finally {
+            _writtenLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the queued elements, unless another thread is already writing.
+     *
+     * @return whether this thread did the writing
+     */
+    private boolean writeIfIdle() {
+        boolean wrote = false;
+        // re-check after writing, since elements handed off during the write
+        // may not have triggered another one
+        while (_queuedCount.get() >= _flushThreshold && _writing.compareAndSet(false, true)) {
+            try {
+                writeQueued();
+                wrote = true;
+            } finally {
+                endWrite();
+            }
+        }
+        return wrote;
+    }
+
+    private void writeQueued() {
+        final List<List<E>> batch = new ArrayList<>();
+        int count = 0;
+        for (List<E> elements = _queue.poll(); elements != null; elements = _queue.poll()) {
+            batch.add(elements);
+            count += elements.size();
+        }
+        if (count == 0) {
+            return;
+        }
+        try {
+            _batchWriter.accept(new Batch<>(batch, count));
+        } finally {
+            _queuedCount.addAndGet(-count);
+        }
+    }
+
+    /**
+     * Writes all remaining elements, including the ones in the staging buffers
+     * of all threads, and releases the staging buffers. Must only be invoked
+     * once no more elements are added.
+     */
+    public void close() {
+        for (StagingBuffer<E> stagingBuffer = _stagingBuffers.poll(); stagingBuffer != null;
+                stagingBuffer = _stagingBuffers.poll()) {
+            final List<E> elements;
+            synchronized (stagingBuffer) {
+                elements = stagingBuffer._elements;
+                stagingBuffer._elements = new ArrayList<>(0);
+            }
+            if (!elements.isEmpty()) {
+                _queue.offer(elements);
+                _queuedCount.addAndGet(elements.size());
+            }
+        }
+        _stagingBuffer.remove();
+
+        // wait for any ongoing write to finish, then write the rest
+        _writtenLock.lock();
+        try {
+            while (!_writing.compareAndSet(false, true)) {
+                _written.awaitUninterruptibly();
+            }
+        } finally {
+            _writtenLock.unlock();
+        }
+        try {
+            writeQueued();
+        } finally {
+            endWrite();
+        }
+    }
+}
@@ -19,55 +19,95 @@
  */
 package org.datacleaner.output.csv;
 
-import java.io.BufferedOutputStream;
-import java.io.OutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import org.apache.metamodel.csv.CsvConfiguration;
 import org.apache.metamodel.csv.CsvWriter;
 import org.apache.metamodel.util.FileHelper;
-import org.apache.metamodel.util.LazyRef;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.output.ConcurrentOutputBuffer;
 import org.datacleaner.output.OutputRow;
 import org.datacleaner.output.OutputWriter;
 
 final class CsvOutputWriter implements OutputWriter {
 
-    private final LazyRef<OutputStream> _outputStreamRef;
+    private static final int STAGING_SIZE = 256;
+
+    // 512 kb buffer
+    private static final int BUFFER_SIZE = 1024 * 512;
+
+    private final Resource _resource;
+    private final String[] _columnNames;
     private final InputColumn<?>[] _columns;
     private final CsvConfiguration _csvConfiguration;
+    private final CsvWriter _csvWriter;
+    private final ConcurrentOutputBuffer<String> _buffer;
+
+    // only accessed by the thread writing the buffered lines
+    private Writer _writer;
 
     public CsvOutputWriter(final Resource resource, final CsvConfiguration csvConfiguration, final String[] columnNames,
             final InputColumn<?>[] columns) {
+        _resource = resource;
         _csvConfiguration = csvConfiguration;
+        _columnNames = columnNames;
         _columns = columns;
-        _outputStreamRef = new LazyRef<OutputStream>() {
-            @Override
-            protected OutputStream fetch() throws Throwable {
-                final OutputStream outputStream = resource.write();
-                if (csvConfiguration.getColumnNameLineNumber() != CsvConfiguration.NO_COLUMN_NAME_LINE) {
-                    final CsvWriter csvWriter = new CsvWriter(_csvConfiguration);
-                    final String headerLine = csvWriter.buildLine(columnNames);
-                    final byte[] bytes = headerLine.getBytes(csvConfiguration.getEncoding());
-                    outputStream.write(bytes);
-                    outputStream.flush();
-                }
-                // 512 kb buffer
-                final int bufferSize = 1024 * 512;
-                return new BufferedOutputStream(outputStream, bufferSize);
-            }
-        };
+        _csvWriter = new CsvWriter(csvConfiguration);
+        _buffer = new ConcurrentOutputBuffer<>(STAGING_SIZE, STAGING_SIZE, this::writeLines);
     }
 
     @Override
     public OutputRow createRow() {
-        return new CsvOutputRow(_outputStreamRef, _csvConfiguration, _columns);
+        return new CsvOutputRow(this, _columns);
+    }
+
+    /**
+     * Builds the line of a row and adds it to the buffer.
+     *
+     * @param values
+     */
+    void write(final Object[] values) {
+        final String[] stringValues = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                stringValues[i] = value.toString();
+            }
+        }
+        _buffer.add(_csvWriter.buildLine(stringValues));
+    }
+
+    private void writeLines(final Iterable<String> lines) {
+        try {
+            final Writer writer = getWriter();
+            for (final String line : lines) {
+                writer.write(line);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Writer getWriter() throws IOException {
+        if (_writer == null) {
+            _writer = new BufferedWriter(
+                    new OutputStreamWriter(_resource.write(), _csvConfiguration.getEncoding()), BUFFER_SIZE);
+            if (_csvConfiguration.getColumnNameLineNumber() != CsvConfiguration.NO_COLUMN_NAME_LINE) {
+                _writer.write(_csvWriter.buildLine(_columnNames));
+            }
+        }
+        return _writer;
     }
 
     @Override
     public void close() {
-        if (_outputStreamRef.isFetched()) {
-            FileHelper.safeClose(_outputStreamRef.get());
+        _buffer.close();
+        if (_writer != null) {
+            FileHelper.safeClose(_writer);
         }
     }
 
@@ -30,6 +30,7 @@ import org.apache.metamodel.excel.ExcelDataContext;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.MutableRef;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.output.OutputWriter;
 
@@ -37,17 +38,14 @@ public final class ExcelOutputWriterFactory {
 
     private static final Map<String, AtomicInteger> counters = new HashMap<>();
     private static final Map<String, UpdateableDataContext> dataContexts = new HashMap<>();
+    private static final Map<String, AtomicInteger> streamingCounters = new HashMap<>();
+    private static final Map<String, StreamingExcelWorkbook> streamingWorkbooks = new HashMap<>();
 
     public static OutputWriter getWriter(final String filename, final String sheetName, String[] columnNames,
             final InputColumn<?>... columns) {
         final ExcelOutputWriter outputWriter;
 
-        if (columnNames == null || columnNames.length != columns.length) {
-            columnNames = new String[columns.length];
-            for (int i = 0; i < columns.length; i++) {
-                columnNames[i] = columns[i].getName();
-            }
-        }
+        columnNames = getColumnNames(columnNames, columns);
 
         synchronized (dataContexts) {
             UpdateableDataContext dataContext = dataContexts.get(filename);
@@ -77,6 +75,47 @@ public final class ExcelOutputWriterFactory {
         return outputWriter;
     }
 
+    /**
+     * Gets an {@link OutputWriter} which streams rows into a new sheet of an
+     * .xlsx file, keeping only a fixed window of rows in memory. Unlike
+     * {@link #getWriter(String, String, String[], InputColumn...)}, rows cannot
+     * be appended to an existing sheet, so a sheet with the same name is
+     * replaced. The file is written when all writers for it have been closed.
+     *
+     * @param filename
+     * @param sheetName
+     * @param columnNames
+     * @param columns
+     * @return
+     */
+    public static OutputWriter getStreamingWriter(final String filename, final String sheetName,
+            final String[] columnNames, final InputColumn<?>... columns) {
+        synchronized (streamingWorkbooks) {
+            StreamingExcelWorkbook workbook = streamingWorkbooks.get(filename);
+            if (workbook == null) {
+                workbook = new StreamingExcelWorkbook(new File(filename));
+                streamingWorkbooks.put(filename, workbook);
+                streamingCounters.put(filename, new AtomicInteger(1));
+            } else {
+                streamingCounters.get(filename).incrementAndGet();
+            }
+
+            final Sheet sheet = workbook.createSheet(sheetName, getColumnNames(columnNames, columns));
+            return new StreamingExcelOutputWriter(filename, workbook, sheet, columns);
+        }
+    }
+
+    private static String[] getColumnNames(final String[] columnNames, final InputColumn<?>[] columns) {
+        if (columnNames != null && columnNames.length == columns.length) {
+            return columnNames;
+        }
+        final String[] result = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            result[i] = columns[i].getName();
+        }
+        return result;
+    }
+
     private static Table getTable(final UpdateableDataContext dataContext, final String sheetName,
             final String[] columnNames) {
         final Schema schema = dataContext.getDefaultSchema();
@@ -104,4 +143,16 @@ public final class ExcelOutputWriterFactory {
         }
     }
 
+    static void releaseStreaming(final String filename) {
+        final StreamingExcelWorkbook workbook;
+        synchronized (streamingWorkbooks) {
+            if (streamingCounters.get(filename).decrementAndGet() != 0) {
+                return;
+            }
+            streamingCounters.remove(filename);
+            workbook = streamingWorkbooks.remove(filename);
+        }
+        workbook.write();
+    }
+
 }
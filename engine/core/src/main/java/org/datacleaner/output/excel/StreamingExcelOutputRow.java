@@ -0,0 +1,64 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.util.Map;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.output.OutputRow;
+
+final class StreamingExcelOutputRow implements OutputRow {
+
+    private final Object[] _values;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+    private final StreamingExcelOutputWriter _outputWriter;
+
+    public StreamingExcelOutputRow(final StreamingExcelOutputWriter outputWriter, final InputColumn<?>[] columns,
+            final Map<InputColumn<?>, Integer> columnIndexes) {
+        _outputWriter = outputWriter;
+        _columns = columns;
+        _columnIndexes = columnIndexes;
+        _values = new Object[columns.length];
+    }
+
+    @Override
+    public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
+        final Integer index = _columnIndexes.get(inputColumn);
+        if (index != null) {
+            _values[index] = value;
+        }
+        return this;
+    }
+
+    @Override
+    public OutputRow setValues(final InputRow row) {
+        for (int i = 0; i < _columns.length; i++) {
+            _values[i] = row.getValue(_columns[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public void write() {
+        _outputWriter.write(_values);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.output.ConcurrentOutputBuffer;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+
+/**
+ * {@link OutputWriter} which streams rows into a sheet of a
+ * {@link StreamingExcelWorkbook}.
+ */
+final class StreamingExcelOutputWriter implements OutputWriter {
+
+    private static final int STAGING_SIZE = 256;
+    private static final int FLUSH_THRESHOLD = 2000;
+
+    private final String _filename;
+    private final StreamingExcelWorkbook _workbook;
+    private final Sheet _sheet;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+    private final ConcurrentOutputBuffer<Object[]> _buffer;
+
+    // only accessed by the (single) writing thread of the buffer
+    private int _rowNumber;
+
+    public StreamingExcelOutputWriter(final String filename, final StreamingExcelWorkbook workbook,
+            final Sheet sheet, final InputColumn<?>[] columns) {
+        _filename = filename;
+        _workbook = workbook;
+        _sheet = sheet;
+        _columns = columns;
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.putIfAbsent(columns[i], i);
+        }
+        _buffer = new ConcurrentOutputBuffer<>(STAGING_SIZE, FLUSH_THRESHOLD, this::writeRows);
+        _rowNumber = 1;
+    }
+
+    @Override
+    public OutputRow createRow() {
+        return new StreamingExcelOutputRow(this, _columns, _columnIndexes);
+    }
+
+    void write(final Object[] values) {
+        _buffer.add(values);
+    }
+
+    private void writeRows(final Iterable<Object[]> rows) {
+        _rowNumber = _workbook.writeRows(_sheet, _rowNumber, rows);
+    }
+
+    @Override
+    public void close() {
+        try {
+            _buffer.close();
+        } finally {
+            ExcelOutputWriterFactory.releaseStreaming(_filename);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * An .xlsx workbook which is written as a stream, keeping only a fixed window
+ * of rows per sheet in memory. Rows that fall out of the window are flushed to
+ * temporary files, and the complete workbook is assembled when it is written.
+ *
+ * Sheets that already exist in the file are retained, but new rows can only be
+ * written to sheets created by this workbook.
+ */
+final class StreamingExcelWorkbook {
+
+    private static final int ROW_WINDOW_SIZE = 1000;
+    private static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    private final File _file;
+    private final SXSSFWorkbook _workbook;
+    private CellStyle _dateCellStyle;
+
+    public StreamingExcelWorkbook(final File file) {
+        _file = file;
+        final XSSFWorkbook template;
+        if (file.exists() && file.length() > 0) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                template = new XSSFWorkbook(inputStream);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not read existing workbook: " + file, e);
+            }
+        } else {
+            template = new XSSFWorkbook();
+        }
+        _workbook = new SXSSFWorkbook(template, ROW_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a sheet with a header row. An existing sheet with the same name
+     * is replaced, since rows cannot be streamed into it.
+     *
+     * @param sheetName
+     * @param columnNames
+     * @return
+     */
+    public synchronized Sheet createSheet(final String sheetName, final String[] columnNames) {
+        final int existingIndex = _workbook.getSheetIndex(sheetName);
+        if (existingIndex != -1) {
+            _workbook.removeSheetAt(existingIndex);
+        }
+        final Sheet sheet = _workbook.createSheet(sheetName);
+        final Row header = sheet.createRow(0);
+        for (int i = 0; i < columnNames.length; i++) {
+            header.createCell(i).setCellValue(columnNames[i]);
+        }
+        return sheet;
+    }
+
+    /**
+     * Appends rows to a sheet created by {@link #createSheet(String, String[])}.
+     *
+     * @param sheet
+     * @param rowNumber
+     *            the number of the first row to write
+     * @param rows
+     * @return the number of the next row to write
+     */
+    public synchronized int writeRows(final Sheet sheet, int rowNumber, final Iterable<Object[]> rows) {
+        for (final Object[] values : rows) {
+            final Row row = sheet.createRow(rowNumber++);
+            for (int i = 0; i < values.length; i++) {
+                final Object value = values[i];
+                if (value != null) {
+                    setCellValue(row.createCell(i), value);
+                }
+            }
+        }
+        return rowNumber;
+    }
+
+    private void setCellValue(final Cell cell, final Object value) {
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            if (_dateCellStyle == null) {
+                _dateCellStyle = _workbook.createCellStyle();
+                _dateCellStyle.setDataFormat(_workbook.createDataFormat().getFormat(DATE_FORMAT));
+            }
+            cell.setCellValue((Date) value);
+            cell.setCellStyle(_dateCellStyle);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * Writes the workbook to its file and removes the temporary files that
+     * held the flushed rows.
+     */
+    public synchronized void write() {
+        try (OutputStream outputStream = new FileOutputStream(_file)) {
+            _workbook.write(outputStream);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write workbook: " + _file, e);
+        } finally {
+            _workbook.dispose();
+        }
+    }
+}
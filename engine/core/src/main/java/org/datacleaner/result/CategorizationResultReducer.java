@@ -39,6 +39,11 @@ public class CategorizationResultReducer implements AnalyzerResultReducer<Catego
     @Provided
     RowAnnotationFactory _rowAnnotationFactory;
 
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     @Override
     public CategorizationResult reduce(final Collection<? extends CategorizationResult> results) {
         final RowAnnotationFactory annotationFactory = null;
@@ -0,0 +1,106 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * Reads {@link AnalysisResult}s from files written by {@link SectionedAnalysisResultWriter}, or from files holding a
+ * single serialized {@link AnalysisResult}, as written by earlier versions.
+ */
+public class AnalysisResultReader {
+
+    private final Resource _resource;
+    private final List<ClassLoader> _classLoaders;
+
+    public AnalysisResultReader(final Resource resource) {
+        _resource = resource;
+        _classLoaders = new ArrayList<>();
+    }
+
+    /**
+     * Adds a classloader to use for deserializing results, eg. the classloader of extensions.
+     *
+     * @param classLoader
+     */
+    public void addClassLoader(final ClassLoader classLoader) {
+        _classLoaders.add(classLoader);
+    }
+
+    /**
+     * Reads the {@link AnalysisResult}. For files written by {@link SectionedAnalysisResultWriter}, only the header is
+     * read, and a {@link LazyAnalysisResult} is returned.
+     *
+     * @return
+     */
+    public AnalysisResult read() {
+        try (InputStream in = new BufferedInputStream(_resource.read())) {
+            final byte[] magic = new byte[ResultFileIndex.MAGIC.length];
+            in.mark(magic.length);
+            final int read = IOUtils.read(in, magic);
+            in.reset();
+
+            if (read != magic.length || !Arrays.equals(magic, ResultFileIndex.MAGIC)) {
+                return (AnalysisResult) createObjectInputStream(in).readObject();
+            }
+
+            final DataInputStream dataIn = new DataInputStream(in);
+            dataIn.readFully(magic);
+            final int version = dataIn.readInt();
+            if (version != ResultFileIndex.VERSION) {
+                throw new IllegalStateException("Unsupported analysis result file version: " + version);
+            }
+            final int headerLength = dataIn.readInt();
+
+            final ResultFileIndex index;
+            try (ObjectInputStream headerIn = createObjectInputStream(
+                    new GZIPInputStream(new BoundedInputStream(dataIn, headerLength)))) {
+                index = (ResultFileIndex) headerIn.readObject();
+            }
+
+            final long sectionsOffset = magic.length + 4 + 4 + headerLength;
+            return new LazyAnalysisResult(_resource, _classLoaders, sectionsOffset, index);
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to read analysis result: " + _resource, e);
+        }
+    }
+
+    private ObjectInputStream createObjectInputStream(final InputStream in) throws IOException {
+        final ChangeAwareObjectInputStream objectIn = new ChangeAwareObjectInputStream(in);
+        for (final ClassLoader classLoader : _classLoaders) {
+            objectIn.addClassLoader(classLoader);
+        }
+        return objectIn;
+    }
+}
@@ -37,6 +37,10 @@ import org.datacleaner.result.SimpleAnalysisResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Saves {@link AnalysisResult}s using {@link SectionedAnalysisResultWriter}, optionally leaving out the results which
+ * cannot be serialized. Use {@link AnalysisResultReader} to read them again.
+ */
 public class AnalysisResultSaveHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalysisResultSaveHandler.class);
@@ -51,17 +55,9 @@ public class AnalysisResultSaveHandler {
     }
 
     private static void saveOrThrow(final AnalysisResult analysisResult, final Resource resource) {
-        final SimpleAnalysisResult simpleAnalysisResult;
-        if (analysisResult instanceof SimpleAnalysisResult) {
-            simpleAnalysisResult = (SimpleAnalysisResult) analysisResult;
-        } else {
-            simpleAnalysisResult =
-                    new SimpleAnalysisResult(analysisResult.getResultMap(), analysisResult.getCreationDate());
-        }
-
         final OutputStream out = resource.write();
         try {
-            SerializationUtils.serialize(simpleAnalysisResult, out);
+            new SectionedAnalysisResultWriter().write(analysisResult, out);
         } catch (final SerializationException e) {
             logger.error("Error serializing analysis result: " + analysisResult, e);
             throw e;
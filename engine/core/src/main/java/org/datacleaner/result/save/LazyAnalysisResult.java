@@ -0,0 +1,304 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.metamodel.util.FileResource;
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.result.AbstractAnalysisResult;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.save.ResultFileIndex.AnnotationFactoryRef;
+import org.datacleaner.result.save.ResultFileIndex.AnnotationRef;
+import org.datacleaner.result.save.ResultFileIndex.ComponentEntry;
+import org.datacleaner.result.save.ResultFileIndex.Section;
+import org.datacleaner.storage.RowAnnotationFactory;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * {@link AnalysisResult} of a file written by {@link SectionedAnalysisResultWriter}. The result of a component is read
+ * from the file when it is first requested, and the annotated sample rows it refers to only once they are requested.
+ *
+ * The {@link Resource} of the file is read again for every section that is loaded, so it must not be changed while the
+ * result is in use. A {@link FileResource} is read from the offset of the section. Other resources are read from the
+ * start, and the preceding sections are skipped, which means transferring them again, eg. for remote resources.
+ */
+public final class LazyAnalysisResult extends AbstractAnalysisResult {
+
+    /**
+     * Map of results which loads the result of an entry when its value is requested.
+     */
+    private final class ResultMap extends AbstractMap<ComponentJob, AnalyzerResult> {
+
+        @Override
+        public Set<Entry<ComponentJob, AnalyzerResult>> entrySet() {
+            return new AbstractSet<Entry<ComponentJob, AnalyzerResult>>() {
+                @Override
+                public Iterator<Entry<ComponentJob, AnalyzerResult>> iterator() {
+                    final Iterator<ComponentJob> componentJobs = _componentIndexes.keySet().iterator();
+                    return new Iterator<Entry<ComponentJob, AnalyzerResult>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return componentJobs.hasNext();
+                        }
+
+                        @Override
+                        public Entry<ComponentJob, AnalyzerResult> next() {
+                            return new ResultMapEntry(componentJobs.next());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return _componentIndexes.size();
+                }
+            };
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return _componentIndexes.containsKey(key);
+        }
+
+        @Override
+        public AnalyzerResult get(final Object key) {
+            final Integer index = _componentIndexes.get(key);
+            if (index == null) {
+                return null;
+            }
+            return getResult(index);
+        }
+    }
+
+    private final class ResultMapEntry implements Map.Entry<ComponentJob, AnalyzerResult> {
+
+        private final ComponentJob _componentJob;
+
+        private ResultMapEntry(final ComponentJob componentJob) {
+            _componentJob = componentJob;
+        }
+
+        @Override
+        public ComponentJob getKey() {
+            return _componentJob;
+        }
+
+        @Override
+        public AnalyzerResult getValue() {
+            return getResult(_componentIndexes.get(_componentJob));
+        }
+
+        @Override
+        public AnalyzerResult setValue(final AnalyzerResult value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return _componentJob.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return _componentJob.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return _componentJob + "=" + getValue();
+        }
+    }
+
+    private final Resource _resource;
+    private final List<ClassLoader> _classLoaders;
+    private final long _sectionsOffset;
+    private final ResultFileIndex _index;
+    private final Map<ComponentJob, Integer> _componentIndexes;
+    private final AnalyzerResult[] _results;
+    private final boolean[] _loaded;
+    private final LazyRowAnnotationFactory[] _annotationFactories;
+    private final Map<ComponentJob, AnalyzerResult> _resultMap;
+
+    LazyAnalysisResult(final Resource resource, final List<ClassLoader> classLoaders, final long sectionsOffset,
+            final ResultFileIndex index) {
+        _resource = resource;
+        _classLoaders = classLoaders;
+        _sectionsOffset = sectionsOffset;
+        _index = index;
+
+        final List<ComponentEntry> components = index.getComponents();
+        _componentIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            _componentIndexes.put(components.get(i).getComponentJob(), i);
+        }
+        _results = new AnalyzerResult[components.size()];
+        _loaded = new boolean[components.size()];
+
+        final List<Section> annotationFactorySections = index.getAnnotationFactorySections();
+        _annotationFactories = new LazyRowAnnotationFactory[annotationFactorySections.size()];
+        for (int i = 0; i < _annotationFactories.length; i++) {
+            final Section section = annotationFactorySections.get(i);
+            _annotationFactories[i] = new LazyRowAnnotationFactory(() -> (RowAnnotationFactory) readSection(section));
+        }
+
+        _resultMap = Collections.unmodifiableMap(new ResultMap());
+    }
+
+    @Override
+    public List<AnalyzerResult> getResults() {
+        final List<AnalyzerResult> results = new ArrayList<>(_results.length);
+        for (int i = 0; i < _results.length; i++) {
+            results.add(getResult(i));
+        }
+        return results;
+    }
+
+    /**
+     * Gets the map of results. Results are read from the file when the value of their entry is requested.
+     */
+    @Override
+    public Map<ComponentJob, AnalyzerResult> getResultMap() {
+        return _resultMap;
+    }
+
+    @Override
+    public Date getCreationDate() {
+        return _index.getCreationDate();
+    }
+
+    /**
+     * Gets the values of the metrics of a component's result which do not take parameters, without reading the
+     * result from the file.
+     *
+     * @param componentJob
+     * @return the metric values by metric name, or an empty map if the component has no result or its result was
+     *         saved as a {@link SerializedAnalyzerResult}
+     */
+    public Map<String, Number> getMetrics(final ComponentJob componentJob) {
+        final Integer index = _componentIndexes.get(componentJob);
+        if (index == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(_index.getComponents().get(index).getMetrics());
+    }
+
+    /**
+     * Determines if the result of a component has been read from the file.
+     *
+     * @param componentJob
+     * @return
+     */
+    public synchronized boolean isLoaded(final ComponentJob componentJob) {
+        final Integer index = _componentIndexes.get(componentJob);
+        return index != null && _loaded[index];
+    }
+
+    private synchronized AnalyzerResult getResult(final int index) {
+        if (!_loaded[index]) {
+            _results[index] = (AnalyzerResult) readSection(_index.getComponents().get(index).getSection());
+            _loaded[index] = true;
+        }
+        return _results[index];
+    }
+
+    private Object readSection(final Section section) {
+        try (InputStream in = openSection(section)) {
+            try (ObjectInputStream objectIn = createObjectInputStream(
+                    new GZIPInputStream(new BoundedInputStream(in, section.getLength())))) {
+                return objectIn.readObject();
+            }
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to read section of analysis result: " + _resource, e);
+        }
+    }
+
+    private InputStream openSection(final Section section) throws IOException {
+        final long position = _sectionsOffset + section.getOffset();
+        if (_resource instanceof FileResource) {
+            final FileChannel channel = FileChannel.open(((FileResource) _resource).getFile().toPath(),
+                    StandardOpenOption.READ);
+            try {
+                channel.position(position);
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            }
+            return Channels.newInputStream(channel);
+        }
+
+        final InputStream in = _resource.read();
+        try {
+            IOUtils.skipFully(in, position);
+        } catch (final IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private ObjectInputStream createObjectInputStream(final InputStream in) throws IOException {
+        final ChangeAwareObjectInputStream objectIn = new ChangeAwareObjectInputStream(in) {
+            {
+                enableResolveObject(true);
+            }
+
+            @Override
+            protected Object resolveObject(final Object obj) throws IOException {
+                if (obj instanceof AnnotationRef) {
+                    return _index.getAnnotations().get(((AnnotationRef) obj).getId());
+                }
+                if (obj instanceof AnnotationFactoryRef) {
+                    return _annotationFactories[((AnnotationFactoryRef) obj).getId()];
+                }
+                return obj;
+            }
+        };
+        for (final ClassLoader classLoader : _classLoaders) {
+            objectIn.addClassLoader(classLoader);
+        }
+        return objectIn;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.datacleaner.api.InputRow;
+import org.datacleaner.storage.RowAnnotation;
+import org.datacleaner.storage.RowAnnotationFactory;
+
+/**
+ * {@link RowAnnotationFactory} which reads the section holding the actual factory, and its sample rows, from an
+ * analysis result file when it is first used. When serialized, it is replaced by the actual factory.
+ */
+final class LazyRowAnnotationFactory implements RowAnnotationFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Supplier<RowAnnotationFactory> _loader;
+    private transient volatile RowAnnotationFactory _delegate;
+
+    LazyRowAnnotationFactory(final Supplier<RowAnnotationFactory> loader) {
+        _loader = loader;
+    }
+
+    private RowAnnotationFactory getDelegate() {
+        if (_delegate == null) {
+            synchronized (this) {
+                if (_delegate == null) {
+                    _delegate = _loader.get();
+                }
+            }
+        }
+        return _delegate;
+    }
+
+    @Override
+    public RowAnnotation createAnnotation() {
+        return getDelegate().createAnnotation();
+    }
+
+    @Override
+    public boolean hasSampleRows(final RowAnnotation annotation) {
+        return getDelegate().hasSampleRows(annotation);
+    }
+
+    @Override
+    public List<InputRow> getSampleRows(final RowAnnotation annotation) {
+        return getDelegate().getSampleRows(annotation);
+    }
+
+    @Override
+    public void annotate(final InputRow row, final RowAnnotation annotation) {
+        getDelegate().annotate(row, annotation);
+    }
+
+    @Override
+    public void annotate(final InputRow row, final int distinctCount, final RowAnnotation annotation) {
+        getDelegate().annotate(row, distinctCount, annotation);
+    }
+
+    @Override
+    public void transferAnnotations(final RowAnnotation from, final RowAnnotation to) {
+        getDelegate().transferAnnotations(from, to);
+    }
+
+    @Override
+    public void resetAnnotation(final RowAnnotation annotation) {
+        getDelegate().resetAnnotation(annotation);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return getDelegate();
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.storage.RowAnnotation;
+import org.datacleaner.storage.RowAnnotationFactory;
+
+/**
+ * The header of an analysis result file written by {@link SectionedAnalysisResultWriter}. Holds the position of the
+ * section of each component's result, and of each section of annotated sample rows, relative to the end of the header.
+ *
+ * The file starts with {@link #MAGIC}, followed by the format version and the length of the header (both as ints),
+ * the GZIP compressed, serialized header, and then the GZIP compressed, serialized sections.
+ */
+final class ResultFileIndex implements Serializable {
+
+    /**
+     * The position of a section in the file.
+     */
+    static final class Section implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long _offset;
+        private final long _length;
+
+        Section(final long offset, final long length) {
+            _offset = offset;
+            _length = length;
+        }
+
+        public long getOffset() {
+            return _offset;
+        }
+
+        public long getLength() {
+            return _length;
+        }
+    }
+
+    /**
+     * The result of a component, and the values of its metrics which do not take parameters.
+     */
+    static final class ComponentEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ComponentJob _componentJob;
+        private final Section _section;
+        private final Map<String, Number> _metrics;
+
+        ComponentEntry(final ComponentJob componentJob, final Section section, final Map<String, Number> metrics) {
+            _componentJob = componentJob;
+            _section = section;
+            _metrics = metrics;
+        }
+
+        public ComponentJob getComponentJob() {
+            return _componentJob;
+        }
+
+        public Section getSection() {
+            return _section;
+        }
+
+        public Map<String, Number> getMetrics() {
+            return _metrics;
+        }
+    }
+
+    /**
+     * Written in place of a {@link RowAnnotation} in a section, since annotations are shared by the results of
+     * different sections.
+     */
+    static final class AnnotationRef implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _id;
+
+        AnnotationRef(final int id) {
+            _id = id;
+        }
+
+        public int getId() {
+            return _id;
+        }
+    }
+
+    /**
+     * Written in place of a {@link RowAnnotationFactory} in a section. The factory, holding the sample rows, is
+     * written in a section of its own.
+     */
+    static final class AnnotationFactoryRef implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _id;
+
+        AnnotationFactoryRef(final int id) {
+            _id = id;
+        }
+
+        public int getId() {
+            return _id;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    static final byte[] MAGIC = { 'D', 'C', 'R', 'E', 'S', 'U', 'L', 'T' };
+
+    static final int VERSION = 1;
+
+    private final Date _creationDate;
+    private final List<ComponentEntry> _components;
+    private final List<RowAnnotation> _annotations;
+    private final List<Section> _annotationFactorySections;
+
+    ResultFileIndex(final Date creationDate, final List<ComponentEntry> components,
+            final List<RowAnnotation> annotations, final List<Section> annotationFactorySections) {
+        _creationDate = creationDate;
+        _components = components;
+        _annotations = annotations;
+        _annotationFactorySections = annotationFactorySections;
+    }
+
+    public Date getCreationDate() {
+        return _creationDate;
+    }
+
+    public List<ComponentEntry> getComponents() {
+        return _components;
+    }
+
+    public List<RowAnnotation> getAnnotations() {
+        return _annotations;
+    }
+
+    public List<Section> getAnnotationFactorySections() {
+        return _annotationFactorySections;
+    }
+}
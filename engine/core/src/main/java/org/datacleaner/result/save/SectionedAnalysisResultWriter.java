@@ -0,0 +1,240 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang.SerializationException;
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.descriptors.ComponentDescriptor;
+import org.datacleaner.descriptors.HasAnalyzerResultComponentDescriptor;
+import org.datacleaner.descriptors.MetricDescriptor;
+import org.datacleaner.descriptors.MetricParameters;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.save.ResultFileIndex.AnnotationFactoryRef;
+import org.datacleaner.result.save.ResultFileIndex.AnnotationRef;
+import org.datacleaner.result.save.ResultFileIndex.ComponentEntry;
+import org.datacleaner.result.save.ResultFileIndex.Section;
+import org.datacleaner.storage.RowAnnotation;
+import org.datacleaner.storage.RowAnnotationFactory;
+import org.datacleaner.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes {@link AnalysisResult}s in a sectioned file format, which can be read lazily by {@link AnalysisResultReader}.
+ *
+ * Each {@link AnalyzerResult} is serialized and compressed into a section of its own, and so is each
+ * {@link RowAnnotationFactory} holding annotated sample rows. A header indexes the sections, so that a reader can load
+ * a single result without reading the rest of the file, and the sample rows only once they are requested. The header
+ * also holds the values of the metrics which do not take parameters, so that these can be read without loading the
+ * results at all.
+ *
+ * {@link SerializedAnalyzerResult}s are copied into their sections as they are, without being loaded.
+ */
+public class SectionedAnalysisResultWriter {
+
+    /**
+     * Writes sections to a file and keeps track of the annotations and annotation factories that are shared between
+     * them.
+     */
+    private static final class SectionWriter {
+
+        private final CountingOutputStream _out;
+        private final Map<RowAnnotation, Integer> _annotationIds = new IdentityHashMap<>();
+        private final List<RowAnnotation> _annotations = new ArrayList<>();
+        private final Map<RowAnnotationFactory, Integer> _annotationFactoryIds = new IdentityHashMap<>();
+        private final List<RowAnnotationFactory> _annotationFactories = new ArrayList<>();
+
+        private SectionWriter(final OutputStream out) {
+            _out = new CountingOutputStream(out);
+        }
+
+        private Section writeSection(final Object root) throws IOException {
+            final long offset = _out.getByteCount();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(
+                    new GZIPOutputStream(new CloseShieldOutputStream(_out), BUFFER_SIZE)) {
+                {
+                    enableReplaceObject(true);
+                }
+
+                @Override
+                protected Object replaceObject(final Object obj) throws IOException {
+                    if (obj == root) {
+                        return obj;
+                    }
+                    if (obj instanceof RowAnnotation) {
+                        return new AnnotationRef(getId(obj, _annotationIds, _annotations));
+                    }
+                    if (obj instanceof RowAnnotationFactory) {
+                        return new AnnotationFactoryRef(getId(obj, _annotationFactoryIds, _annotationFactories));
+                    }
+                    return obj;
+                }
+            }) {
+                objectOut.writeObject(root);
+            }
+            return new Section(offset, _out.getByteCount() - offset);
+        }
+
+        private Section copySection(final SerializedAnalyzerResult serializedResult) throws IOException {
+            final long offset = _out.getByteCount();
+            try (InputStream in = serializedResult.openSerializedStream();
+                    OutputStream sectionOut = new GZIPOutputStream(new CloseShieldOutputStream(_out), BUFFER_SIZE)) {
+                IOUtils.copy(in, sectionOut);
+            }
+            return new Section(offset, _out.getByteCount() - offset);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E> int getId(final Object obj, final Map<E, Integer> ids, final List<E> list) {
+            final E element = (E) obj;
+            Integer id = ids.get(element);
+            if (id == null) {
+                id = list.size();
+                ids.put(element, id);
+                list.add(element);
+            }
+            return id;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SectionedAnalysisResultWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes an {@link AnalysisResult}.
+     *
+     * @param analysisResult
+     * @param out
+     *            the stream to write to. It is not closed.
+     * @throws SerializationException
+     *             if the result could not be serialized or written
+     */
+    public void write(final AnalysisResult analysisResult, final OutputStream out) throws SerializationException {
+        File sectionsFile = null;
+        try {
+            // the sections are written to a temporary file first, since the header goes before them
+            sectionsFile = File.createTempFile("analysis-result", ".sections", FileHelper.getTempDir());
+
+            final ResultFileIndex index;
+            try (OutputStream sectionsOut = new BufferedOutputStream(Files.newOutputStream(sectionsFile.toPath()),
+                    BUFFER_SIZE)) {
+                index = writeSections(analysisResult, sectionsOut);
+            }
+
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            try (ObjectOutputStream headerOut = new ObjectOutputStream(new GZIPOutputStream(header))) {
+                headerOut.writeObject(index);
+            }
+
+            final DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.write(ResultFileIndex.MAGIC);
+            dataOut.writeInt(ResultFileIndex.VERSION);
+            dataOut.writeInt(header.size());
+            header.writeTo(dataOut);
+            Files.copy(sectionsFile.toPath(), dataOut);
+            dataOut.flush();
+        } catch (final IOException e) {
+            throw new SerializationException(e);
+        } finally {
+            if (sectionsFile != null && !sectionsFile.delete()) {
+                sectionsFile.deleteOnExit();
+            }
+        }
+    }
+
+    private ResultFileIndex writeSections(final AnalysisResult analysisResult, final OutputStream out)
+            throws IOException {
+        final SectionWriter sectionWriter = new SectionWriter(out);
+
+        final List<ComponentEntry> components = new ArrayList<>();
+        for (final Entry<ComponentJob, AnalyzerResult> entry : analysisResult.getResultMap().entrySet()) {
+            final ComponentJob componentJob = entry.getKey();
+            final AnalyzerResult analyzerResult = entry.getValue();
+            if (analyzerResult instanceof SerializedAnalyzerResult) {
+                // copied as is, since getting its metrics would mean loading the result
+                final Section section = sectionWriter.copySection((SerializedAnalyzerResult) analyzerResult);
+                components.add(new ComponentEntry(componentJob, section, new LinkedHashMap<>()));
+            } else {
+                final Section section = sectionWriter.writeSection(analyzerResult);
+                components.add(new ComponentEntry(componentJob, section, getMetrics(componentJob, analyzerResult)));
+            }
+        }
+
+        // annotation factories may refer to further annotation factories, hence not a for-each loop
+        final List<Section> annotationFactorySections = new ArrayList<>();
+        for (int i = 0; i < sectionWriter._annotationFactories.size(); i++) {
+            annotationFactorySections.add(sectionWriter.writeSection(sectionWriter._annotationFactories.get(i)));
+        }
+
+        return new ResultFileIndex(analysisResult.getCreationDate(), components, sectionWriter._annotations,
+                annotationFactorySections);
+    }
+
+    /**
+     * Gets the values of the metrics of a result which do not take parameters.
+     */
+    private Map<String, Number> getMetrics(final ComponentJob componentJob, final AnalyzerResult analyzerResult) {
+        final Map<String, Number> metrics = new LinkedHashMap<>();
+        final ComponentDescriptor<?> descriptor = componentJob.getDescriptor();
+        if (analyzerResult == null || !(descriptor instanceof HasAnalyzerResultComponentDescriptor)) {
+            return metrics;
+        }
+        final HasAnalyzerResultComponentDescriptor<?> resultDescriptor =
+                (HasAnalyzerResultComponentDescriptor<?>) descriptor;
+        if (!ReflectionUtils.is(analyzerResult.getClass(), resultDescriptor.getResultClass())) {
+            return metrics;
+        }
+
+        for (final MetricDescriptor metric : resultDescriptor.getResultMetrics()) {
+            if (metric.isParameterizedByInputColumn() || metric.isParameterizedByString()) {
+                continue;
+            }
+            try {
+                metrics.put(metric.getName(), metric.getValue(analyzerResult, new MetricParameters()));
+            } catch (final RuntimeException e) {
+                logger.debug("Could not get metric '{}' of {}, leaving it out", metric.getName(), componentJob, e);
+            }
+        }
+        return metrics;
+    }
+}
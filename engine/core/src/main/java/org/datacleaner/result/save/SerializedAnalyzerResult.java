@@ -0,0 +1,42 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.datacleaner.api.AnalyzerResult;
+
+/**
+ * Placeholder for an {@link AnalyzerResult} which is available in serialized form, eg. because it was written to a file
+ * by another process. {@link SectionedAnalysisResultWriter} copies the serialized form into the result file instead of
+ * the placeholder, so that the actual result does not need to be loaded for saving it. The metrics of such results are
+ * not written to the header of the result file.
+ */
+public interface SerializedAnalyzerResult extends AnalyzerResult {
+
+    /**
+     * Opens a stream of the serialized form of the result, as written by an {@link java.io.ObjectOutputStream}.
+     *
+     * @return
+     * @throws IOException
+     */
+    InputStream openSerializedStream() throws IOException;
+}
@@ -19,19 +19,23 @@
  */
 package org.datacleaner.storage;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.metamodel.util.FileHelper;
+
 /**
  * Simple collection factory, which delegates to the storage provider for
- * everything.
+ * everything. When closed, it closes the collections it has created, if they
+ * are {@link Closeable}.
  *
  *
  *
  */
-public final class CollectionFactoryImpl implements CollectionFactory {
+public final class CollectionFactoryImpl implements CollectionFactory, Closeable {
 
     private final StorageProvider _storageProvider;
     private final List<Object> _collections = new ArrayList<>();
@@ -61,4 +65,14 @@ public final class CollectionFactoryImpl implements CollectionFactory {
         _collections.add(map);
         return map;
     }
+
+    @Override
+    public void close() {
+        for (final Object collection : _collections) {
+            if (collection instanceof Closeable) {
+                FileHelper.safeClose(collection);
+            }
+        }
+        _collections.clear();
+    }
 }
@@ -0,0 +1,312 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+
+/**
+ * {@link RowAnnotationFactory} which keeps compact copies of sample records in
+ * memory, within a memory budget that is shared by all annotations of the
+ * factory.
+ *
+ * Unlike {@link InMemoryRowAnnotationFactory2}, which keeps the first records
+ * of each annotation, the samples are drawn with reservoir sampling, so that
+ * every annotated record has the same chance of being sampled. Only the
+ * visible values of a sampled record are copied, see {@link CompactRowSample}.
+ */
+public final class CompactRowAnnotationFactory extends AbstractRowAnnotationFactory2
+        implements RowAnnotationFactory, Serializable {
+
+    /**
+     * A reservoir of samples for a single annotation.
+     */
+    private static final class Reservoir implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<CompactRowSample> _samples = new ArrayList<>();
+        private List<InputColumn<?>> _columns = Collections.emptyList();
+        private transient List<InputColumn<?>> _rowColumns;
+        private long _offeredCount;
+
+        /**
+         * Gets the visible columns of a row. They are only determined again
+         * when the columns of the row differ from the ones of the previous
+         * sampled row.
+         *
+         * @param row
+         * @return
+         */
+        private List<InputColumn<?>> getColumns(final InputRow row) {
+            final List<InputColumn<?>> rowColumns = row.getInputColumns();
+            if (rowColumns != _rowColumns && !rowColumns.equals(_rowColumns)) {
+                _columns = CompactRowSample.getVisibleColumns(row, _columns);
+                _rowColumns = rowColumns;
+            }
+            return _columns;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long DEFAULT_MAX_SAMPLE_BYTES = 32 * 1024 * 1024;
+
+    private final ConcurrentHashMap<RowAnnotation, Reservoir> _storage;
+    private final int _maxSampleSets;
+    private final int _maxSampleRecords;
+    private final long _maxSampleBytes;
+    private final AtomicLong _sampleBytes;
+
+    public CompactRowAnnotationFactory() {
+        this(500, 500);
+    }
+
+    public CompactRowAnnotationFactory(final int maxSampleSets, final int maxSampleRecords) {
+        this(maxSampleSets, maxSampleRecords, DEFAULT_MAX_SAMPLE_BYTES);
+    }
+
+    /**
+     *
+     * @param maxSampleSets
+     *            the maximum number of sample record collections to keep
+     * @param maxSampleRecords
+     *            the maximum number of records to keep in each collection
+     * @param maxSampleBytes
+     *            the approximate maximum number of bytes to use for the sample
+     *            records of all collections
+     */
+    public CompactRowAnnotationFactory(final int maxSampleSets, final int maxSampleRecords,
+            final long maxSampleBytes) {
+        _storage = new ConcurrentHashMap<>();
+        _maxSampleSets = Math.max(0, maxSampleSets);
+        _maxSampleRecords = Math.max(0, maxSampleRecords);
+        _maxSampleBytes = Math.max(0, maxSampleBytes);
+        _sampleBytes = new AtomicLong();
+    }
+
+    private Reservoir getReservoir(final RowAnnotation annotation) {
+        Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            if (_storage.size() >= _maxSampleSets) {
+                return null;
+            }
+            reservoir = new Reservoir();
+            final Reservoir existingReservoir = _storage.putIfAbsent(annotation, reservoir);
+            if (existingReservoir != null) {
+                reservoir = existingReservoir;
+            }
+        }
+        return reservoir;
+    }
+
+    /**
+     * Reserves memory for samples within the budget of the factory.
+     *
+     * @param bytes
+     *            the number of bytes to reserve, or release if negative
+     * @return whether the memory could be reserved
+     */
+    private boolean reserve(final long bytes) {
+        while (true) {
+            final long current = _sampleBytes.get();
+            final long next = current + bytes;
+            if (bytes > 0 && next > _maxSampleBytes) {
+                return false;
+            }
+            if (_sampleBytes.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the memory budget likely allows a new sample to be
+     * kept, before encoding it. Samples of the same annotation are assumed to
+     * be of similar size.
+     *
+     * @param samples
+     *            the samples of the reservoir of the new sample
+     * @param index
+     *            the index of the new sample in the reservoir
+     * @return
+     */
+    private boolean hasRoomFor(final List<CompactRowSample> samples, final int index) {
+        final long currentBytes = _sampleBytes.get();
+        if (samples.isEmpty()) {
+            return currentBytes < _maxSampleBytes;
+        }
+        long bytes = samples.get(samples.size() - 1).getSize();
+        if (index < samples.size()) {
+            bytes -= samples.get(index).getSize();
+        }
+        return currentBytes + bytes <= _maxSampleBytes;
+    }
+
+    private void release(final List<CompactRowSample> samples) {
+        long bytes = 0;
+        for (final CompactRowSample sample : samples) {
+            bytes += sample.getSize();
+        }
+        reserve(-bytes);
+    }
+
+    @Override
+    public void annotate(final InputRow row, final RowAnnotation annotation) {
+        super.annotate(row, annotation);
+
+        if (_maxSampleRecords == 0) {
+            return;
+        }
+
+        final Reservoir reservoir = getReservoir(annotation);
+        if (reservoir == null) {
+            return;
+        }
+
+        synchronized (reservoir) {
+            reservoir._offeredCount++;
+
+            final List<CompactRowSample> samples = reservoir._samples;
+            final int index = ReservoirSampling.nextIndex(reservoir._offeredCount, samples.size(), _maxSampleRecords);
+            if (index == -1 || !hasRoomFor(samples, index)) {
+                return;
+            }
+
+            final CompactRowSample sample = CompactRowSample.create(row, reservoir.getColumns(row));
+            if (index == samples.size()) {
+                if (reserve(sample.getSize())) {
+                    samples.add(sample);
+                }
+            } else if (reserve(sample.getSize() - samples.get(index).getSize())) {
+                samples.set(index, sample);
+            }
+        }
+    }
+
+    @Override
+    public void resetAnnotation(final RowAnnotation annotation) {
+        super.resetAnnotation(annotation);
+
+        final Reservoir reservoir = _storage.remove(annotation);
+        if (reservoir != null) {
+            synchronized (reservoir) {
+                release(reservoir._samples);
+            }
+        }
+    }
+
+    @Override
+    public List<InputRow> getSampleRows(final RowAnnotation annotation) {
+        final Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            return Collections.emptyList();
+        }
+
+        final List<CompactRowSample> samples;
+        synchronized (reservoir) {
+            samples = new ArrayList<>(reservoir._samples);
+        }
+
+        final List<InputRow> rows = new ArrayList<>(samples.size());
+        for (final CompactRowSample sample : samples) {
+            rows.add(sample.toInputRow());
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public void transferAnnotations(final RowAnnotation from, final RowAnnotation to) {
+        super.transferAnnotations(from, to);
+
+        final Reservoir fromReservoir = _storage.remove(from);
+        if (fromReservoir == null) {
+            return;
+        }
+
+        final Reservoir toReservoir = getReservoir(to);
+        synchronized (fromReservoir) {
+            if (toReservoir == null) {
+                release(fromReservoir._samples);
+                return;
+            }
+            synchronized (toReservoir) {
+                merge(fromReservoir, toReservoir);
+            }
+        }
+    }
+
+    private void merge(final Reservoir from, final Reservoir to) {
+        final List<CompactRowSample> discarded = new ArrayList<>();
+        to._samples = ReservoirSampling.merge(to._samples, to._offeredCount, from._samples, from._offeredCount,
+                _maxSampleRecords, discarded);
+        to._offeredCount += from._offeredCount;
+        release(discarded);
+    }
+
+    /**
+     * Adds samples of an annotation which were drawn elsewhere, eg. by a
+     * {@link RowAnnotationFactory} which keeps its samples on disk and is
+     * converted into this factory when it is serialized. Unlike
+     * {@link #annotate(InputRow, RowAnnotation)}, this does not change the row
+     * count of the annotation.
+     *
+     * @param annotation
+     * @param offeredCount
+     *            the number of records the samples were drawn from
+     * @param samples
+     */
+    public void addSamples(final RowAnnotation annotation, final long offeredCount,
+            final List<CompactRowSample> samples) {
+        final Reservoir reservoir = getReservoir(annotation);
+        if (reservoir == null) {
+            return;
+        }
+
+        final Reservoir added = new Reservoir();
+        added._offeredCount = offeredCount;
+        for (final CompactRowSample sample : samples) {
+            if (reserve(sample.getSize())) {
+                added._samples.add(sample);
+            }
+        }
+        synchronized (reservoir) {
+            merge(added, reservoir);
+        }
+    }
+
+    @Override
+    public boolean hasSampleRows(final RowAnnotation annotation) {
+        final Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            return false;
+        }
+        synchronized (reservoir) {
+            return !reservoir._samples.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.SelectItem;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MetaModelInputRow;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.data.MutableInputColumn;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * A sample record of a {@link CompactRowAnnotationFactory}. Holds a copy of the
+ * values of a row, encoded into a byte array, instead of a reference to the row
+ * itself, which would retain the values of all the rows it is derived from.
+ *
+ * Common value types are encoded directly, other values are serialized, and
+ * values which are not serializable are stored as strings.
+ */
+public final class CompactRowSample implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Estimate of the memory used by a sample besides its encoded values.
+     */
+    private static final int SAMPLE_OVERHEAD = 48;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_DATE = 6;
+    private static final byte TYPE_OBJECT = 7;
+
+    private final long _rowId;
+    private final List<InputColumn<?>> _columns;
+    private final byte[] _values;
+
+    private CompactRowSample(final long rowId, final List<InputColumn<?>> columns, final byte[] values) {
+        _rowId = rowId;
+        _columns = columns;
+        _values = values;
+    }
+
+    /**
+     * Creates a sample of a row.
+     *
+     * @param row
+     * @param columns
+     *            the columns to copy the values of. The list is retained, so
+     *            it can be shared among samples.
+     * @return
+     */
+    public static CompactRowSample create(final InputRow row, final List<InputColumn<?>> columns) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * columns.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (final InputColumn<?> column : columns) {
+                writeValue(out, row.getValue(column));
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not encode sample of row " + row.getId(), e);
+        }
+        return new CompactRowSample(row.getId(), columns, bytes.toByteArray());
+    }
+
+    /**
+     * Creates a sample from values which were encoded by another sample, see
+     * {@link #getValues()}.
+     *
+     * @param rowId
+     * @param columns
+     * @param values
+     * @return
+     */
+    public static CompactRowSample create(final long rowId, final List<InputColumn<?>> columns,
+            final byte[] values) {
+        return new CompactRowSample(rowId, columns, values);
+    }
+
+    /**
+     * Gets the columns of a row which are sampled, ie. the ones that are not
+     * hidden. Consecutive rows will typically have the same columns, in which
+     * case the previous list is returned, so that it can be shared.
+     *
+     * @param row
+     * @param previousColumns
+     *            the columns of the previous row
+     * @return
+     */
+    public static List<InputColumn<?>> getVisibleColumns(final InputRow row,
+            final List<InputColumn<?>> previousColumns) {
+        final List<InputColumn<?>> columns = new ArrayList<>();
+        for (final InputColumn<?> column : row.getInputColumns()) {
+            if (!(column instanceof MutableInputColumn && ((MutableInputColumn<?>) column).isHidden())) {
+                columns.add(column);
+            }
+        }
+        if (columns.equals(previousColumns)) {
+            return previousColumns;
+        }
+        return Collections.unmodifiableList(columns);
+    }
+
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+            return;
+        }
+
+        // match exact classes only, to preserve the type of subclasses
+        final Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(TYPE_STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (type == Integer.class) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (type == Double.class) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Boolean.class) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (type == Date.class) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else {
+            final byte[] serialized = serialize(value);
+            if (serialized == null) {
+                writeValue(out, value.toString());
+            } else {
+                out.writeByte(TYPE_OBJECT);
+                writeBytes(out, serialized);
+            }
+        }
+    }
+
+    private static byte[] serialize(final Object value) throws IOException {
+        if (!(value instanceof Serializable)) {
+            return null;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (final NotSerializableException e) {
+            // eg. a collection containing non-serializable elements
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static Object readValue(final DataInputStream in) throws IOException, ClassNotFoundException {
+        final byte type = in.readByte();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_STRING:
+            return new String(readBytes(in), StandardCharsets.UTF_8);
+        case TYPE_INTEGER:
+            return in.readInt();
+        case TYPE_LONG:
+            return in.readLong();
+        case TYPE_DOUBLE:
+            return in.readDouble();
+        case TYPE_BOOLEAN:
+            return in.readBoolean();
+        case TYPE_DATE:
+            return new Date(in.readLong());
+        case TYPE_OBJECT:
+            try (ObjectInputStream objectIn = new ChangeAwareObjectInputStream(
+                    new ByteArrayInputStream(readBytes(in)))) {
+                return objectIn.readObject();
+            }
+        default:
+            throw new IllegalStateException("Unexpected value type: " + type);
+        }
+    }
+
+    public long getRowId() {
+        return _rowId;
+    }
+
+    public List<InputColumn<?>> getColumns() {
+        return _columns;
+    }
+
+    /**
+     * Gets the encoded values of this sample. The array is not copied, so it
+     * must not be modified.
+     *
+     * @return
+     */
+    public byte[] getValues() {
+        return _values;
+    }
+
+    /**
+     * Gets the approximate number of bytes of memory used by this sample.
+     *
+     * @return
+     */
+    public int getSize() {
+        return _values.length + SAMPLE_OVERHEAD;
+    }
+
+    /**
+     * Decodes the sample into an {@link InputRow}.
+     *
+     * @return
+     */
+    public InputRow toInputRow() {
+        final Object[] values = new Object[_columns.size()];
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(_values))) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readValue(in);
+            }
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not decode sample of row " + _rowId, e);
+        }
+
+        // rows of only source columns are restored as the rows they were read
+        // as, which is what other row annotation factories keep too
+        final SelectItem[] selectItems = new SelectItem[values.length];
+        for (int i = 0; i < values.length; i++) {
+            final InputColumn<?> column = _columns.get(i);
+            if (!column.isPhysicalColumn()) {
+                final Map<InputColumn<?>, Object> valueMap = new LinkedHashMap<>();
+                for (int j = 0; j < values.length; j++) {
+                    valueMap.put(_columns.get(j), values[j]);
+                }
+                return new MockInputRow(_rowId, valueMap);
+            }
+            selectItems[i] = new SelectItem(column.getPhysicalColumn());
+        }
+        return new MetaModelInputRow(_rowId, new DefaultRow(new SimpleDataSetHeader(selectItems), values));
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Utility methods for keeping uniform samples of records in fixed size
+ * reservoirs, used by {@link RowAnnotationFactory}s that sample annotated
+ * records.
+ */
+public final class ReservoirSampling {
+
+    private ReservoirSampling() {
+        // prevent instantiation
+    }
+
+    /**
+     * Determines where to put an element which is offered to a reservoir, so
+     * that every offered element has the same chance of being in the
+     * reservoir.
+     *
+     * @param offeredCount
+     *            the number of elements offered to the reservoir, including
+     *            this one
+     * @param size
+     *            the current number of elements in the reservoir
+     * @param capacity
+     *            the maximum number of elements in the reservoir
+     * @return the index to put the element at, which is equal to the size if
+     *         it should be added, or -1 if it should be skipped
+     */
+    public static int nextIndex(final long offeredCount, final int size, final int capacity) {
+        if (size < capacity) {
+            return size;
+        }
+        // replace an element with probability capacity/offeredCount
+        final long randomIndex = ThreadLocalRandom.current().nextLong(offeredCount);
+        if (randomIndex >= capacity) {
+            return -1;
+        }
+        return (int) randomIndex;
+    }
+
+    /**
+     * Merges the elements of two reservoirs. If there are more elements than a
+     * reservoir can hold, elements are picked from each reservoir in
+     * proportion to the number of elements that were offered to it.
+     *
+     * @param samples1
+     * @param offeredCount1
+     *            the number of elements offered to the first reservoir
+     * @param samples2
+     * @param offeredCount2
+     *            the number of elements offered to the second reservoir
+     * @param capacity
+     *            the maximum number of elements in the merged reservoir
+     * @param discarded
+     *            a collection to add the elements to which are not picked
+     * @return the elements of the merged reservoir
+     */
+    public static <E> List<E> merge(final List<E> samples1, final long offeredCount1, final List<E> samples2,
+            final long offeredCount2, final int capacity, final Collection<? super E> discarded) {
+        if (samples1.size() + samples2.size() <= capacity) {
+            final List<E> merged = new ArrayList<>(samples1.size() + samples2.size());
+            merged.addAll(samples1);
+            merged.addAll(samples2);
+            return merged;
+        }
+
+        final Random random = ThreadLocalRandom.current();
+        final List<E> remaining1 = new ArrayList<>(samples1);
+        final List<E> remaining2 = new ArrayList<>(samples2);
+        Collections.shuffle(remaining1, random);
+        Collections.shuffle(remaining2, random);
+
+        // each element represents an equal share of the elements offered to
+        // its reservoir
+        final double share1 = remaining1.isEmpty() ? 0 : (double) offeredCount1 / remaining1.size();
+        final double share2 = remaining2.isEmpty() ? 0 : (double) offeredCount2 / remaining2.size();
+        double weight1 = offeredCount1;
+        double weight2 = offeredCount2;
+
+        final List<E> merged = new ArrayList<>(capacity);
+        while (merged.size() < capacity) {
+            final boolean pick1;
+            if (remaining1.isEmpty()) {
+                pick1 = false;
+            } else if (remaining2.isEmpty()) {
+                pick1 = true;
+            } else {
+                pick1 = random.nextDouble() * (weight1 + weight2) < weight1;
+            }
+
+            if (pick1) {
+                merged.add(remaining1.remove(remaining1.size() - 1));
+                weight1 = Math.max(0, weight1 - share1);
+            } else {
+                merged.add(remaining2.remove(remaining2.size() - 1));
+                weight2 = Math.max(0, weight2 - share2);
+            }
+        }
+
+        discarded.addAll(remaining1);
+        discarded.addAll(remaining2);
+        return merged;
+    }
+}
@@ -30,6 +30,6 @@ public class RowAnnotations {
     }
 
     public static RowAnnotationFactory getInMemoryFactory(final int maxSampleSets, final int maxSampledRecords) {
-        return new InMemoryRowAnnotationFactory2(maxSampleSets, maxSampledRecords);
+        return new CompactRowAnnotationFactory(maxSampleSets, maxSampledRecords);
     }
 }
@@ -130,6 +130,14 @@ public class SystemProperties {
      */
     public static final String QUERY_SELECTCLAUSE_OPTIMIZE = "datacleaner.query.selectclause.optimize";
 
+    /**
+     * Property for the file of the descriptor index, which records the
+     * components found in JAR files by classpath scanning, so that unchanged
+     * JAR files do not have to be scanned again. If not set, JAR files are
+     * always scanned.
+     */
+    public static final String DESCRIPTOR_INDEX_FILE = "datacleaner.descriptor.index.file";
+
     /**
      * Gets a system property string, or a replacement value if the property is
      * null or blank.
@@ -24,7 +24,14 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.util.Action;
 import org.slf4j.Logger;
@@ -33,38 +40,141 @@ import org.slf4j.LoggerFactory;
 /**
  * Provides a buffering mechanism that enables writing rows periodically instead
  * of instantly.
+ *
+ * By default a full buffer is written by the thread that finds it full. If a
+ * number of batches in flight is specified, the buffer is instead handed over to
+ * a dedicated writer thread which writes the batches one at a time, while the
+ * producing threads continue to fill the buffer. When the writer falls behind by
+ * that number of batches, producers wait for it. Errors from the writer thread
+ * are rethrown by the next call to {@link #addToBuffer(Object[])} or
+ * {@link #flushBuffer()}. Batches which are submitted or still in flight after
+ * such an error are discarded, and the number of discarded rows is logged.
  */
 public class WriteBuffer {
 
     private static final Logger logger = LoggerFactory.getLogger(WriteBuffer.class);
 
+    private static final long WRITER_THREAD_KEEP_ALIVE_SECONDS = 10;
+
     private final BlockingQueue<Object[]> _buffer;
     private final Action<Iterable<Object[]>> _flushAction;
     private final AtomicInteger _batchNumber;
 
+    // only used when writing batches asynchronously
+    private final ThreadPoolExecutor _writer;
+    private final Semaphore _batchesInFlight;
+    private final AtomicReference<RuntimeException> _writeError;
+    private final AtomicInteger _discardedRowCount;
+
     public WriteBuffer(final int bufferSize, final Action<Iterable<Object[]>> flushAction) {
+        this(bufferSize, 0, flushAction);
+    }
+
+    /**
+     * Creates a write buffer
+     *
+     * @param bufferSize
+     *            the number of rows to buffer before writing them
+     * @param maxBatchesInFlight
+     *            the max number of batches that may be waiting for or being
+     *            written by a dedicated writer thread, or 0 to write batches
+     *            synchronously
+     * @param flushAction
+     *            the action that writes a batch of rows
+     */
+    public WriteBuffer(final int bufferSize, final int maxBatchesInFlight,
+            final Action<Iterable<Object[]>> flushAction) {
         if (bufferSize <= 0) {
             throw new IllegalArgumentException("Buffer size must be a positive integer");
         }
+        if (maxBatchesInFlight < 0) {
+            throw new IllegalArgumentException("Max batches in flight cannot be negative");
+        }
         _batchNumber = new AtomicInteger();
         _buffer = new ArrayBlockingQueue<>(bufferSize);
         _flushAction = flushAction;
+
+        if (maxBatchesInFlight == 0) {
+            _writer = null;
+            _batchesInFlight = null;
+            _writeError = null;
+            _discardedRowCount = null;
+        } else {
+            // the writer thread terminates by itself when idle, so no explicit
+            // shutdown is needed
+            _writer = new ThreadPoolExecutor(1, 1, WRITER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "WriteBuffer writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            _writer.allowCoreThreadTimeOut(true);
+            _batchesInFlight = new Semaphore(maxBatchesInFlight);
+            _writeError = new AtomicReference<>();
+            _discardedRowCount = new AtomicInteger();
+        }
     }
 
     protected Queue<Object[]> getBuffer() {
         return _buffer;
     }
 
+    /**
+     * Gets the number of rows which were discarded because writing a previous
+     * batch asynchronously failed.
+     *
+     * @return
+     */
+    public int getDiscardedRowCount() {
+        return _discardedRowCount == null ? 0 : _discardedRowCount.get();
+    }
+
+    /**
+     * Determines if batches are written asynchronously by a dedicated writer
+     * thread
+     *
+     * @return
+     */
+    public boolean isAsynchronous() {
+        return _writer != null;
+    }
+
     public final void addToBuffer(final Object[] rowData) {
-        while (!_buffer.offer(rowData)) {
-            flushBuffer();
+        if (_writer == null) {
+            while (!_buffer.offer(rowData)) {
+                flushBuffer();
+            }
+        } else {
+            checkWriteError();
+            while (!_buffer.offer(rowData)) {
+                submitBatch();
+                checkWriteError();
+            }
         }
     }
 
+    /**
+     * Writes the buffered rows. When writing asynchronously, this also waits
+     * for all batches in flight to be written.
+     */
     public final void flushBuffer() {
+        if (_writer == null) {
+            final List<Object[]> batch = drainBuffer();
+            if (batch != null) {
+                writeBatch(batch);
+            }
+        } else {
+            checkWriteError();
+            submitBatch();
+            awaitBatchesInFlight();
+            checkWriteError();
+        }
+    }
+
+    private List<Object[]> drainBuffer() {
         final int flushSize = _buffer.size();
         if (flushSize == 0) {
-            return;
+            return null;
         }
 
         logger.info("Flushing {} rows in write buffer", flushSize);
@@ -75,13 +185,16 @@ public class WriteBuffer {
         if (copy.isEmpty()) {
             // this can happen when there's a race going on for flushing the
             // buffer concurrently.
-            return;
+            return null;
         }
+        return copy;
+    }
 
+    private void writeBatch(final List<Object[]> batch) {
         try {
             final int batchNo = _batchNumber.incrementAndGet();
             logger.info("Write batch no. {} starting", batchNo);
-            _flushAction.run(copy);
+            _flushAction.run(batch);
             logger.info("Write batch no. {} finished", batchNo);
         } catch (final Exception e) {
             if (e instanceof RuntimeException) {
@@ -90,4 +203,67 @@ public class WriteBuffer {
             throw new IllegalStateException(e);
         }
     }
+
+    private void submitBatch() {
+        checkWriteError();
+        final List<Object[]> batch = drainBuffer();
+        if (batch == null) {
+            return;
+        }
+
+        try {
+            // back-pressure: wait if the writer is too far behind
+            _batchesInFlight.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batches to be written", e);
+        }
+
+        _writer.execute(() -> {
+            try {
+                if (_writeError.get() == null) {
+                    writeBatch(batch);
+                } else {
+                    discardBatch(batch);
+                }
+            } catch (final RuntimeException e) {
+                logger.error("Writing batch failed", e);
+                _writeError.compareAndSet(null, e);
+            } finally {
+                _batchesInFlight.release();
+            }
+        });
+    }
+
+    private void discardBatch(final List<Object[]> batch) {
+        final int discardedRowCount = _discardedRowCount.addAndGet(batch.size());
+        logger.warn("Discarded batch of {} rows because writing a previous batch failed, {} rows discarded in total",
+                batch.size(), discardedRowCount);
+    }
+
+    private void awaitBatchesInFlight() {
+        // the writer executes tasks in order, so once this no-op task has run,
+        // all previously submitted batches have been written
+        final Future<?> future = _writer.submit(() -> {
+        });
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batches to be written", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void checkWriteError() {
+        final RuntimeException error = _writeError.get();
+        if (error != null) {
+            final List<Object[]> batch = drainBuffer();
+            if (batch != null) {
+                discardBatch(batch);
+            }
+            throw error;
+        }
+    }
 }
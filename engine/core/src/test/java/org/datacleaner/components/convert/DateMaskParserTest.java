@@ -0,0 +1,91 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.convert;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.joda.time.DateTimeZone;
+
+import junit.framework.TestCase;
+
+public class DateMaskParserTest extends TestCase {
+
+    private final SimpleDateFormat format = createFormat();
+
+    private static SimpleDateFormat createFormat() {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    public void testParseInMaskOrder() throws Exception {
+        final DateMaskParser parser = new DateMaskParser(
+                new String[] { "yyyy-MM-dd HH:mm", "yyyy-MM-dd", "dd.MM.yyyy", "d MMM yyyy", "yyyyMMdd" },
+                DateTimeZone.UTC);
+
+        assertEquals("2014-01-31 13:15", format(parser.parse("2014-01-31 13:15")));
+        assertEquals("2014-01-31 00:00", format(parser.parse("2014-01-31")));
+        assertEquals("2014-01-31 00:00", format(parser.parse("31.01.2014")));
+        assertEquals("2014-01-31 00:00", format(parser.parse("31 Jan 2014")));
+        assertEquals("2014-01-31 00:00", format(parser.parse("20140131")));
+
+        assertNull(parser.parse(""));
+        assertNull(parser.parse("foo"));
+        assertNull(parser.parse("2014-13-31"));
+        assertNull(parser.parse("2014-01-31 13:15:00"));
+        assertNull(parser.parse("31/01/2014"));
+    }
+
+    public void testPreferredMaskDoesNotOverrideMaskOrder() throws Exception {
+        final DateMaskParser parser = new DateMaskParser(new String[] { "MM-dd-yyyy", "dd-MM-yyyy" },
+                DateTimeZone.UTC);
+
+        // teach the parser that the second mask is the most common one
+        for (int i = 0; i < 10; i++) {
+            assertEquals("2014-01-31 00:00", format(parser.parse("31-01-2014")));
+        }
+
+        // ambiguous values are still parsed with the first mask
+        assertEquals("2014-02-01 00:00", format(parser.parse("02-01-2014")));
+        assertEquals("2014-01-25 00:00", format(parser.parse("25-01-2014")));
+    }
+
+    public void testMatches() throws Exception {
+        final DateMaskParser parser = new DateMaskParser(new String[] { "yyyy-MM-dd", "foo bar", "'at' HH:mm" },
+                null);
+
+        assertTrue(parser.isValid(0));
+        assertFalse(parser.isValid(1));
+        assertTrue(parser.isValid(2));
+
+        assertTrue(parser.matches(0, "2014-01-31"));
+        assertFalse(parser.matches(0, "2014/01/31"));
+        assertFalse(parser.matches(1, "2014-01-31"));
+        assertTrue(parser.matches(2, "at 13:15"));
+        assertFalse(parser.matches(2, "13:15"));
+    }
+
+    private String format(final Date date) {
+        assertNotNull("date is null", date);
+        return format.format(date);
+    }
+}
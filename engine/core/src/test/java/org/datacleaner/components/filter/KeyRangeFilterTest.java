@@ -0,0 +1,85 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.filter;
+
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableTable;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
+import org.datacleaner.components.keyrange.KeyRangeFilter.Category;
+import org.datacleaner.data.MetaModelInputColumn;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.descriptors.FilterDescriptor;
+
+import junit.framework.TestCase;
+
+public class KeyRangeFilterTest extends TestCase {
+
+    public void testDescriptor() throws Exception {
+        final FilterDescriptor<KeyRangeFilter, Category> desc = Descriptors.ofFilter(KeyRangeFilter.class);
+
+        assertEquals("Key range", desc.getDisplayName());
+        assertTrue(desc.isQueryOptimizable());
+        assertTrue(desc.isDistributable());
+    }
+
+    public void testCategorize() throws Exception {
+        final InputColumn<Number> col = new MockInputColumn<>("id", Number.class);
+        final KeyRangeFilter f = new KeyRangeFilter(col, 10L, 20L);
+
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, 9)));
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, 10)));
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, 19L)));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, 20)));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, null)));
+    }
+
+    public void testCategorizeUnbounded() throws Exception {
+        final InputColumn<Number> col = new MockInputColumn<>("id", Number.class);
+
+        final KeyRangeFilter f1 = new KeyRangeFilter(col, null, 20L);
+        assertEquals(Category.VALID, f1.categorize(new MockInputRow().put(col, Long.MIN_VALUE)));
+        assertEquals(Category.INVALID, f1.categorize(new MockInputRow().put(col, 20)));
+
+        final KeyRangeFilter f2 = new KeyRangeFilter(col, 20L, null);
+        assertEquals(Category.INVALID, f2.categorize(new MockInputRow().put(col, 19)));
+        assertEquals(Category.VALID, f2.categorize(new MockInputRow().put(col, Long.MAX_VALUE)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testOptimizeQuery() throws Exception {
+        final MutableTable table = new MutableTable("tab");
+        final MutableColumn column = new MutableColumn("id", ColumnType.INTEGER, table, 0, false);
+        table.addColumn(column);
+        final InputColumn<Number> col = (InputColumn<Number>) (InputColumn<?>) new MetaModelInputColumn(column);
+
+        final Query q1 = new Query().from(table).select(column);
+        new KeyRangeFilter(col, 10L, 20L).optimizeQuery(q1, Category.VALID);
+        assertEquals("SELECT tab.id FROM tab WHERE tab.id >= 10 AND tab.id < 20", q1.toSql());
+
+        final Query q2 = new Query().from(table).select(column);
+        new KeyRangeFilter(col, null, 20L).optimizeQuery(q2, Category.VALID);
+        assertEquals("SELECT tab.id FROM tab WHERE tab.id < 20", q2.toSql());
+    }
+}
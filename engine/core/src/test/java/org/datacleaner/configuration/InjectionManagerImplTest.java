@@ -19,7 +19,12 @@
  */
 package org.datacleaner.configuration;
 
+import java.io.Closeable;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -37,8 +42,11 @@ import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.AnalysisRunnerImpl;
 import org.datacleaner.result.AnnotatedRowsResult;
+import org.datacleaner.storage.AbstractRowAnnotationFactory2;
+import org.datacleaner.storage.InMemoryStorageProvider;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
+import org.datacleaner.storage.StorageProvider;
 import org.datacleaner.test.TestHelper;
 import org.datacleaner.util.convert.StringConverter;
 import org.junit.Ignore;
@@ -80,6 +88,25 @@ public class InjectionManagerImplTest extends TestCase {
         }
     }
 
+    private static class CloseableRowAnnotationFactory extends AbstractRowAnnotationFactory2 implements Closeable {
+
+        private final AtomicInteger _closeCount;
+
+        private CloseableRowAnnotationFactory(final AtomicInteger closeCount) {
+            _closeCount = closeCount;
+        }
+
+        @Override
+        public List<InputRow> getSampleRows(final RowAnnotation annotation) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void close() {
+            _closeCount.incrementAndGet();
+        }
+    }
+
     private static final MutableRef<List<String>> listRef = new MutableRef<>();
 
     public void testInjectCustomClass() throws Exception {
@@ -110,6 +137,53 @@ public class InjectionManagerImplTest extends TestCase {
         }
     }
 
+    public void testCloseRowAnnotationFactoryWhenJobIsDone() throws Exception {
+        final AtomicInteger closeCount = new AtomicInteger();
+        final StorageProvider inMemoryStorageProvider = new InMemoryStorageProvider();
+        final StorageProvider storageProvider = new StorageProvider() {
+            @Override
+            public <E> List<E> createList(final Class<E> valueType) {
+                return inMemoryStorageProvider.createList(valueType);
+            }
+
+            @Override
+            public <E> Set<E> createSet(final Class<E> valueType) {
+                return inMemoryStorageProvider.createSet(valueType);
+            }
+
+            @Override
+            public <K, V> Map<K, V> createMap(final Class<K> keyType, final Class<V> valueType) {
+                return inMemoryStorageProvider.createMap(keyType, valueType);
+            }
+
+            @Override
+            public RowAnnotationFactory createRowAnnotationFactory() {
+                return new CloseableRowAnnotationFactory(closeCount);
+            }
+        };
+
+        final SimpleDescriptorProvider descriptorProvider = new SimpleDescriptorProvider();
+        descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(FancyTransformer.class));
+
+        final DataCleanerConfigurationImpl conf =
+                new DataCleanerConfigurationImpl().withDatastores(TestHelper.createSampleDatabaseDatastore("orderdb"))
+                        .withEnvironment(new DataCleanerEnvironmentImpl().withStorageProvider(storageProvider));
+
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(conf)) {
+            ajb.setDatastore("orderdb");
+            ajb.addSourceColumns("PUBLIC.EMPLOYEES.EMPLOYEENUMBER");
+            ajb.addAnalyzer(FancyTransformer.class).addInputColumns(ajb.getSourceColumns());
+
+            final AnalysisResultFuture result = new AnalysisRunnerImpl(conf).run(ajb.toAnalysisJob());
+            assertTrue(result.isSuccessful());
+
+            // closed once by the job, not by each component it is provided to
+            assertEquals(1, closeCount.get());
+        } finally {
+            listRef.set(null);
+        }
+    }
+
     public void testGetInstanceUsingSimpleInjectionPoint() throws Exception {
         final InjectionManagerImpl injectionManager = new InjectionManagerImpl(null);
 
@@ -20,6 +20,8 @@
 package org.datacleaner.descriptors;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.TreeSet;
@@ -125,6 +127,45 @@ public class ClasspathScanDescriptorProviderTest extends TestCase {
         assertTrue(foundRoundNumberTransformer);
     }
 
+    public void testScanWithDescriptorIndex() throws Exception {
+        final File jarFile = new File("target/descriptor-index-test/extension.jar");
+        final File indexFile = new File("target/descriptor-index-test/descriptor-index.txt");
+        jarFile.getParentFile().mkdirs();
+        indexFile.delete();
+        Files.copy(new File("src/test/resources/extensions/DataCleaner-basic-transformers.jar").toPath(),
+                jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final File[] files = new File[] { jarFile };
+
+        ClasspathScanDescriptorProvider provider = new ClasspathScanDescriptorProvider(taskRunner);
+        provider.setDescriptorIndex(new DescriptorIndex(indexFile));
+        provider.scanPackage("org.datacleaner", true, ClassLoaderUtils.createClassLoader(files), false, files);
+        assertEquals(11, provider.getTransformerDescriptors().size());
+        assertTrue(indexFile.exists());
+
+        DescriptorIndex descriptorIndex = new DescriptorIndex(indexFile);
+        assertEquals(11, descriptorIndex.getComponents(jarFile, "org/datacleaner/**").size());
+        assertNull(descriptorIndex.getComponents(jarFile, "org/datacleaner/*"));
+
+        // a scan using the index finds the same components
+        provider = new ClasspathScanDescriptorProvider(taskRunner);
+        provider.setDescriptorIndex(descriptorIndex);
+        provider.scanPackage("org.datacleaner", true, ClassLoaderUtils.createClassLoader(files), false, files);
+        assertEquals(11, provider.getTransformerDescriptors().size());
+        assertEquals(0, provider.getAnalyzerDescriptors().size());
+
+        // a changed JAR file is not looked up in the index
+        Files.copy(new File("src/test/resources/extensions/DataCleaner-writers.jar").toPath(), jarFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        descriptorIndex = new DescriptorIndex(indexFile);
+        assertNull(descriptorIndex.getComponents(jarFile, "org/datacleaner/**"));
+
+        provider = new ClasspathScanDescriptorProvider(taskRunner);
+        provider.setDescriptorIndex(descriptorIndex);
+        provider.scanPackage("org.datacleaner", true, ClassLoaderUtils.createClassLoader(files), false, files);
+        assertEquals(0, provider.getTransformerDescriptors().size());
+        assertNotNull(new DescriptorIndex(indexFile).getComponents(jarFile, "org/datacleaner/**"));
+    }
+
     public void testIsClassInPackageNonRecursive() throws Exception {
         final ClasspathScanDescriptorProvider provider = new ClasspathScanDescriptorProvider(taskRunner);
 
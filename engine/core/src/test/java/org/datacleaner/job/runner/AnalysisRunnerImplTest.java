@@ -19,13 +19,22 @@
  */
 package org.datacleaner.job.runner;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Named;
 
 import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.AsyncTransformer;
 import org.datacleaner.api.Close;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.InputRow;
@@ -42,6 +51,7 @@ import org.datacleaner.job.builder.TransformerComponentBuilder;
 import org.datacleaner.result.ListResult;
 import org.datacleaner.test.MockAnalyzer;
 import org.datacleaner.test.MockTransformer;
+import org.datacleaner.test.TestEnvironment;
 import org.datacleaner.test.mock.MockTransformerWithAnalyzerResult;
 
 import junit.framework.TestCase;
@@ -62,6 +72,8 @@ public class AnalysisRunnerImplTest extends TestCase {
             if (produceAnError) {
                 throw new IllegalStateException("produceAnError=true");
             }
+            ANALYZER_THREADS.add(Thread.currentThread().getName());
+            ANALYZED_ROW_IDS.add(row.getId());
             super.run(row, distinctCount);
         }
 
@@ -99,10 +111,41 @@ public class AnalysisRunnerImplTest extends TestCase {
         }
     }
 
+    @Named("Test async transformer")
+    public static class TestAsyncTransformer extends MockTransformer implements AsyncTransformer {
+
+        @Configured
+        boolean produceAnError = false;
+
+        @Override
+        public CompletableFuture<Object[]> transformAsync(final InputRow inputRow) {
+            // complete the records out of order, on another thread
+            final long delay = 50 - (inputRow.getId() * 5);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (produceAnError) {
+                    throw new IllegalStateException("produceAnError=true");
+                }
+                return transform(inputRow);
+            }, ASYNC_EXECUTOR);
+        }
+    }
+
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newFixedThreadPool(10, runnable -> {
+        final Thread thread = new Thread(runnable, "async transformer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<String> ANALYZER_THREADS = ConcurrentHashMap.newKeySet();
+    private static final Set<Long> ANALYZED_ROW_IDS = ConcurrentHashMap.newKeySet();
     private static final AtomicBoolean MY_BOOL1 = new AtomicBoolean(false);
     private static final AtomicBoolean MY_BOOL2 = new AtomicBoolean(false);
     private static final AtomicBoolean MY_BOOL3 = new AtomicBoolean(false);
-    private DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl();
+    private DataCleanerConfigurationImpl configuration = new DataCleanerConfigurationImpl();
     private AnalysisRunner runner = new AnalysisRunnerImpl(configuration);
     private Datastore datastore = new CsvDatastore("ds", "src/test/resources/employees.csv");
 
@@ -210,4 +253,67 @@ public class AnalysisRunnerImplTest extends TestCase {
             assertTrue(MY_BOOL3.get());
         }
     }
+
+    public void testAsyncTransformer() throws Throwable {
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastore);
+            jobBuilder.addSourceColumns("name");
+
+            final TransformerComponentBuilder<TestAsyncTransformer> asyncTransformer =
+                    jobBuilder.addTransformer(TestAsyncTransformer.class);
+            asyncTransformer.addInputColumn(jobBuilder.getSourceColumnByName("name"));
+
+            final TransformerComponentBuilder<MockTransformer> transformer =
+                    jobBuilder.addTransformer(MockTransformer.class);
+            transformer.addInputColumn(asyncTransformer.getOutputColumns().get(0));
+
+            final AnalyzerComponentBuilder<TestAnalyzer> analyzer = jobBuilder.addAnalyzer(TestAnalyzer.class);
+            analyzer.addInputColumns(jobBuilder.getSourceColumnByName("name"));
+            analyzer.addInputColumns(transformer.getOutputColumns());
+
+            // progress is reported when the processing of a row is complete
+            final List<Boolean> analyzedOnProgress = Collections.synchronizedList(new ArrayList<>());
+            final AnalysisListener progressListener = new AnalysisListenerAdaptor() {
+                @Override
+                public void rowProcessingProgress(final AnalysisJob job, final RowProcessingMetrics metrics,
+                        final InputRow row, final int currentRow) {
+                    analyzedOnProgress.add(ANALYZED_ROW_IDS.contains(row.getId()));
+                }
+            };
+            ANALYZER_THREADS.clear();
+            ANALYZED_ROW_IDS.clear();
+            final DataCleanerConfiguration multiThreadedConfiguration =
+                    configuration.withEnvironment(TestEnvironment.getEnvironment());
+            AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(multiThreadedConfiguration, progressListener)
+                    .run(jobBuilder.toAnalysisJob());
+            resultFuture.await();
+            if (resultFuture.isErrornous()) {
+                throw resultFuture.getErrors().get(0);
+            }
+
+            // the rest of the chain is run by the threads of the job, not of the async transformer
+            assertFalse(ANALYZER_THREADS.isEmpty());
+            assertFalse(ANALYZER_THREADS.toString(), ANALYZER_THREADS.contains("async transformer"));
+            assertEquals("[true, true, true, true, true, true, true]", analyzedOnProgress.toString());
+
+            @SuppressWarnings("unchecked") final ListResult<InputRow> result =
+                    (ListResult<InputRow>) resultFuture.getResults().get(0);
+            final List<String> values = new ArrayList<>();
+            for (final InputRow row : result.getValues()) {
+                final Object name = row.getValue(jobBuilder.getSourceColumnByName("name"));
+                final Object transformed = row.getValue(transformer.getOutputColumns().get(0));
+                assertEquals("mocked: mocked: " + name, transformed);
+                values.add(transformed.toString());
+            }
+            Collections.sort(values);
+            assertEquals(7, values.size());
+            assertTrue(values.contains("mocked: mocked: Jane Doe"));
+
+            asyncTransformer.setConfiguredProperty("Produce an error", true);
+            resultFuture = runner.run(jobBuilder.toAnalysisJob());
+            resultFuture.await();
+            assertFalse(resultFuture.isSuccessful());
+            assertEquals("produceAnError=true", resultFuture.getErrors().get(0).getMessage());
+        }
+    }
 }
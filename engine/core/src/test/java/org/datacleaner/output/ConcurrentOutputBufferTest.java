@@ -0,0 +1,151 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ConcurrentOutputBufferTest extends TestCase {
+
+    public void testWriteWhenThresholdReached() throws Exception {
+        final List<Integer> written = new ArrayList<>();
+        final ConcurrentOutputBuffer<Integer> buffer = new ConcurrentOutputBuffer<>(2, 4, batch -> {
+            final int sizeBefore = written.size();
+            batch.forEach(written::add);
+            assertEquals(batch.size(), written.size() - sizeBefore);
+        });
+
+        buffer.add(1);
+        buffer.add(2);
+        buffer.add(3);
+        assertEquals(0, written.size());
+        buffer.add(4);
+        assertEquals("[1, 2, 3, 4]", written.toString());
+        buffer.add(5);
+        assertEquals(4, written.size());
+
+        buffer.close();
+        assertEquals("[1, 2, 3, 4, 5]", written.toString());
+    }
+
+    public void testUnlimitedBufferWritesOnClose() throws Exception {
+        final AtomicInteger batches = new AtomicInteger();
+        final List<Integer> written = new ArrayList<>();
+        final ConcurrentOutputBuffer<Integer> buffer = new ConcurrentOutputBuffer<>(3, 0, batch -> {
+            batches.incrementAndGet();
+            batch.forEach(written::add);
+        });
+
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i);
+        }
+        assertEquals(0, batches.get());
+
+        buffer.close();
+        assertEquals(1, batches.get());
+        assertEquals(100, written.size());
+    }
+
+    public void testConcurrentAddsAreWrittenSerially() throws Exception {
+        final AtomicBoolean writing = new AtomicBoolean();
+        final AtomicBoolean concurrentWrite = new AtomicBoolean();
+        final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+
+        final ConcurrentOutputBuffer<Integer> buffer = new ConcurrentOutputBuffer<>(7, 50, batch -> {
+            if (!writing.compareAndSet(false, true)) {
+                concurrentWrite.set(true);
+            }
+            batch.forEach(written::add);
+            writing.set(false);
+        });
+
+        final int threadCount = 8;
+        final int elementsPerThread = 10000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int offset = t * elementsPerThread;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < elementsPerThread; i++) {
+                    buffer.add(offset + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        buffer.close();
+
+        assertFalse(concurrentWrite.get());
+        assertEquals(threadCount * elementsPerThread, written.size());
+        final Set<Integer> distinct = new HashSet<>(written);
+        assertEquals(threadCount * elementsPerThread, distinct.size());
+    }
+
+    public void testBackPressureWaitsForOngoingWrite() throws Exception {
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch finishWrite = new CountDownLatch(1);
+        final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        final ConcurrentOutputBuffer<Integer> buffer = new ConcurrentOutputBuffer<>(1, 2, batch -> {
+            writeStarted.countDown();
+            try {
+                finishWrite.await();
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            batch.forEach(written::add);
+        });
+
+        final Thread writer = new Thread(() -> {
+            buffer.add(1);
+            buffer.add(2);
+        });
+        writer.start();
+        writeStarted.await();
+
+        // the queue may grow to twice the threshold while the write is ongoing
+        final Thread adder = new Thread(() -> {
+            for (int i = 3; i <= 6; i++) {
+                buffer.add(i);
+            }
+        });
+        adder.start();
+        while (adder.getState() != Thread.State.WAITING) {
+            assertTrue(adder.isAlive());
+            Thread.sleep(10);
+        }
+
+        finishWrite.countDown();
+        writer.join();
+        adder.join();
+        buffer.close();
+
+        assertEquals(6, written.size());
+        assertEquals(6, new HashSet<>(written).size());
+    }
+}
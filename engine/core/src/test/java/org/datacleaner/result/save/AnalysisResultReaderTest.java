@@ -0,0 +1,168 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.result.save;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.metamodel.util.FileResource;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.components.mock.AnalyzerMock;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.descriptors.ConfiguredPropertyDescriptor;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.ImmutableAnalyzerJob;
+import org.datacleaner.job.ImmutableComponentConfiguration;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.AnnotatedRowsResult;
+import org.datacleaner.result.NumberResult;
+import org.datacleaner.result.SimpleAnalysisResult;
+import org.datacleaner.storage.CompactRowAnnotationFactory;
+import org.datacleaner.storage.RowAnnotation;
+
+import junit.framework.TestCase;
+
+public class AnalysisResultReaderTest extends TestCase {
+
+    private final InputColumn<String> column = new MockInputColumn<>("name", String.class);
+
+    public void testWriteAndReadLazily() throws Exception {
+        final Map<ComponentJob, AnalyzerResult> resultMap = createResultMap();
+        final FileResource resource = new FileResource("target/AnalysisResultReaderTest.analysis.result.dat");
+        try (OutputStream out = resource.write()) {
+            new SectionedAnalysisResultWriter().write(new SimpleAnalysisResult(resultMap), out);
+        }
+
+        final AnalysisResult analysisResult = new AnalysisResultReader(resource).read();
+        assertTrue(analysisResult instanceof LazyAnalysisResult);
+        final LazyAnalysisResult lazyResult = (LazyAnalysisResult) analysisResult;
+
+        final Map<String, ComponentJob> componentJobs = new HashMap<>();
+        for (final ComponentJob componentJob : lazyResult.getResultMap().keySet()) {
+            componentJobs.put(componentJob.getName(), componentJob);
+        }
+        assertEquals("[number, even, odd]", lazyResult.getResultMap().keySet().toString().replaceAll(
+                "ImmutableAnalyzerJob\\[name=([a-z]+),analyzer=Row-processing mock\\]", "$1"));
+
+        // metrics are available without loading the result
+        assertEquals("{Number=42}", lazyResult.getMetrics(componentJobs.get("number")).toString());
+        assertFalse(lazyResult.isLoaded(componentJobs.get("number")));
+
+        final AnnotatedRowsResult evenResult =
+                (AnnotatedRowsResult) lazyResult.getResult(componentJobs.get("even"));
+        assertTrue(lazyResult.isLoaded(componentJobs.get("even")));
+        assertFalse(lazyResult.isLoaded(componentJobs.get("odd")));
+        assertEquals(5, evenResult.getAnnotatedRowCount());
+
+        final List<InputRow> sampleRows = evenResult.getSampleRows();
+        assertEquals(5, sampleRows.size());
+        final InputColumn<?> sampleColumn = evenResult.getInputColumns().get(0);
+        assertEquals("name", sampleColumn.getName());
+        assertTrue(sampleRows.get(0).getValue(sampleColumn).toString().startsWith("foo"));
+
+        final AnnotatedRowsResult oddResult = (AnnotatedRowsResult) lazyResult.getResult(componentJobs.get("odd"));
+        assertEquals(5, oddResult.getAnnotatedRowCount());
+        assertEquals(5, oddResult.getSampleRows().size());
+
+        assertEquals("42", lazyResult.getResult(componentJobs.get("number")).toString());
+        assertEquals(3, lazyResult.getResults().size());
+    }
+
+    public void testReadSerializedAnalysisResult() throws Exception {
+        final FileResource resource = new FileResource("target/AnalysisResultReaderTest_legacy.analysis.result.dat");
+        try (OutputStream out = resource.write()) {
+            SerializationUtils.serialize(new SimpleAnalysisResult(createResultMap()), out);
+        }
+
+        final AnalysisResult analysisResult = new AnalysisResultReader(resource).read();
+        assertTrue(analysisResult instanceof SimpleAnalysisResult);
+        assertEquals(3, analysisResult.getResults().size());
+    }
+
+    public void testSaveHandlerWritesReadableFile() throws Exception {
+        final File file = new File("target/AnalysisResultReaderTest_saved.analysis.result.dat");
+        final AnalysisResultSaveHandler saveHandler =
+                new AnalysisResultSaveHandler(new SimpleAnalysisResult(createResultMap()), new FileResource(file));
+        assertTrue(saveHandler.saveAttempt());
+
+        final AnalysisResult analysisResult = new AnalysisResultReader(new FileResource(file)).read();
+        assertEquals(3, analysisResult.getResultMap().size());
+        assertEquals(1, analysisResult.getResults(NumberResult.class).size());
+    }
+
+    public void testWriteSerializedAnalyzerResultWithoutLoadingIt() throws Exception {
+        final byte[] serializedResult = SerializationUtils.serialize(new NumberResult(42));
+        final SerializedAnalyzerResult placeholder = new SerializedAnalyzerResult() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public InputStream openSerializedStream() {
+                return new ByteArrayInputStream(serializedResult);
+            }
+        };
+
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        resultMap.put(createComponentJob("number"), placeholder);
+        final FileResource resource = new FileResource("target/AnalysisResultReaderTest_serialized.analysis.result.dat");
+        try (OutputStream out = resource.write()) {
+            new SectionedAnalysisResultWriter().write(new SimpleAnalysisResult(resultMap), out);
+        }
+
+        final LazyAnalysisResult lazyResult = (LazyAnalysisResult) new AnalysisResultReader(resource).read();
+        final ComponentJob componentJob = lazyResult.getResultMap().keySet().iterator().next();
+        assertTrue(lazyResult.getMetrics(componentJob).isEmpty());
+        final AnalyzerResult analyzerResult = lazyResult.getResult(componentJob);
+        assertTrue(analyzerResult instanceof NumberResult);
+        assertEquals("42", analyzerResult.toString());
+    }
+
+    private Map<ComponentJob, AnalyzerResult> createResultMap() {
+        final CompactRowAnnotationFactory annotationFactory = new CompactRowAnnotationFactory();
+        final RowAnnotation evenAnnotation = annotationFactory.createAnnotation();
+        final RowAnnotation oddAnnotation = annotationFactory.createAnnotation();
+        for (int i = 0; i < 10; i++) {
+            final MockInputRow row = new MockInputRow(i).put(column, "foo" + i);
+            annotationFactory.annotate(row, i % 2 == 0 ? evenAnnotation : oddAnnotation);
+        }
+
+        // the annotated rows results share the annotation factory
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        resultMap.put(createComponentJob("number"), new NumberResult(42));
+        resultMap.put(createComponentJob("even"), new AnnotatedRowsResult(evenAnnotation, annotationFactory, column));
+        resultMap.put(createComponentJob("odd"), new AnnotatedRowsResult(oddAnnotation, annotationFactory, column));
+        return resultMap;
+    }
+
+    private ComponentJob createComponentJob(final String name) {
+        return new ImmutableAnalyzerJob(name, Descriptors.ofAnalyzer(AnalyzerMock.class),
+                new ImmutableComponentConfiguration(new HashMap<ConfiguredPropertyDescriptor, Object>()), null, null);
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.datacleaner.storage;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -58,4 +59,36 @@ public class CollectionFactoryImplTest extends TestCase {
 
         EasyMock.verify(storageProvider);
     }
+
+    public void testCloseClosesCloseableCollections() throws Exception {
+        final StorageProvider storageProvider = EasyMock.createMock(StorageProvider.class);
+
+        final List<String> closedList = new ArrayList<>();
+        final class CloseableList extends ArrayList<String> implements Closeable {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void close() {
+                closedList.add("closed");
+            }
+        }
+
+        EasyMock.expect(storageProvider.createList(String.class)).andReturn(new CloseableList());
+        EasyMock.expect(storageProvider.createSet(String.class)).andReturn(new HashSet<>());
+
+        final CollectionFactoryImpl collectionFactory = new CollectionFactoryImpl(storageProvider);
+
+        EasyMock.replay(storageProvider);
+
+        collectionFactory.createList(String.class);
+        collectionFactory.createSet(String.class);
+        collectionFactory.close();
+        assertEquals("[closed]", closedList.toString());
+
+        // closing again does not close the collections again
+        collectionFactory.close();
+        assertEquals("[closed]", closedList.toString());
+
+        EasyMock.verify(storageProvider);
+    }
 }
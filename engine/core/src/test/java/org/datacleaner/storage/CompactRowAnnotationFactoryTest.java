@@ -0,0 +1,195 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.data.TransformedInputColumn;
+
+import junit.framework.TestCase;
+
+public class CompactRowAnnotationFactoryTest extends TestCase {
+
+    private final InputColumn<String> stringColumn = new MockInputColumn<>("str", String.class);
+    private final InputColumn<Integer> integerColumn = new MockInputColumn<>("int", Integer.class);
+    private final InputColumn<Object> objectColumn = new MockInputColumn<>("obj", Object.class);
+
+    public void testCopyValuesOfSampledRows() throws Exception {
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, 10);
+        final RowAnnotation annotation = f.createAnnotation();
+
+        final TransformedInputColumn<String> hiddenColumn = new TransformedInputColumn<>("hidden", "id");
+        hiddenColumn.setHidden(true);
+
+        final Date date = new Date(1234567890L);
+        final MockInputRow row = new MockInputRow(42).put(stringColumn, "foo").put(integerColumn, 7).put(
+                objectColumn, date).put(hiddenColumn, "bar");
+        f.annotate(row, annotation);
+        row.put(stringColumn, "changed");
+
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(1, sampleRows.size());
+
+        final InputRow sampleRow = sampleRows.get(0);
+        assertEquals(42, sampleRow.getId());
+        assertEquals(Arrays.asList(stringColumn, integerColumn, objectColumn), sampleRow.getInputColumns());
+        assertEquals("foo", sampleRow.getValue(stringColumn));
+        assertEquals(7, sampleRow.getValue(integerColumn).intValue());
+        assertEquals(date, sampleRow.getValue(objectColumn));
+        assertFalse(sampleRow.containsInputColumn(hiddenColumn));
+    }
+
+    public void testReservoirSampling() throws Exception {
+        final int maxRecords = 10;
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, maxRecords);
+        final RowAnnotation annotation = f.createAnnotation();
+
+        for (int i = 0; i < 1000; i++) {
+            f.annotate(new MockInputRow(i).put(integerColumn, i), annotation);
+        }
+
+        assertEquals(1000, annotation.getRowCount());
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(maxRecords, sampleRows.size());
+
+        final Set<Long> ids = new HashSet<>();
+        boolean beyondFirstRecords = false;
+        for (final InputRow sampleRow : sampleRows) {
+            assertEquals((int) sampleRow.getId(), sampleRow.getValue(integerColumn).intValue());
+            ids.add(sampleRow.getId());
+            if (sampleRow.getId() >= maxRecords) {
+                beyondFirstRecords = true;
+            }
+        }
+        assertEquals(maxRecords, ids.size());
+        assertTrue(beyondFirstRecords);
+    }
+
+    public void testMemoryBudget() throws Exception {
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, 100, 1000);
+        final RowAnnotation annotation1 = f.createAnnotation();
+        final RowAnnotation annotation2 = f.createAnnotation();
+
+        for (int i = 0; i < 100; i++) {
+            f.annotate(new MockInputRow(i).put(stringColumn, "some value"), annotation1);
+        }
+        final int sampleCount = f.getSampleRows(annotation1).size();
+        assertTrue(sampleCount > 0);
+        assertTrue(sampleCount < 100);
+
+        f.annotate(new MockInputRow(100).put(stringColumn, "some value"), annotation2);
+        assertFalse(f.hasSampleRows(annotation2));
+
+        // resetting an annotation releases its share of the budget
+        f.resetAnnotation(annotation1);
+        f.annotate(new MockInputRow(101).put(stringColumn, "some value"), annotation2);
+        assertTrue(f.hasSampleRows(annotation2));
+    }
+
+    public void testNoEncodingBeyondMemoryBudget() throws Exception {
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, 100, 1000);
+        final RowAnnotation annotation = f.createAnnotation();
+
+        final AtomicInteger encodedValues = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            final MockInputRow row = new MockInputRow(i) {
+                @Override
+                public <E> E getValueInternal(final InputColumn<E> column) {
+                    encodedValues.incrementAndGet();
+                    return super.getValueInternal(column);
+                }
+            };
+            f.annotate(row.put(stringColumn, "some value"), annotation);
+        }
+
+        // every row is admitted to the reservoir, but only the ones that fit
+        // into the budget are encoded
+        final int sampleCount = f.getSampleRows(annotation).size();
+        assertTrue(sampleCount < 100);
+        assertEquals(sampleCount, encodedValues.get());
+    }
+
+    public void testTransferAnnotations() throws Exception {
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, 5);
+        final RowAnnotation from = f.createAnnotation();
+        final RowAnnotation to = f.createAnnotation();
+
+        for (int i = 0; i < 3; i++) {
+            f.annotate(new MockInputRow(i).put(integerColumn, i), from);
+            f.annotate(new MockInputRow(10 + i).put(integerColumn, 10 + i), to);
+        }
+
+        f.transferAnnotations(from, to);
+
+        assertFalse(f.hasSampleRows(from));
+        assertEquals(6, to.getRowCount());
+        assertEquals(5, f.getSampleRows(to).size());
+    }
+
+    public void testAddSamples() throws Exception {
+        final CompactRowAnnotationFactory source = new CompactRowAnnotationFactory(10, 5);
+        final RowAnnotation annotation = source.createAnnotation();
+        for (int i = 0; i < 5; i++) {
+            source.annotate(new MockInputRow(i).put(integerColumn, i), annotation);
+        }
+
+        final List<CompactRowSample> samples = new ArrayList<>();
+        for (final InputRow row : source.getSampleRows(annotation)) {
+            samples.add(CompactRowSample.create(row, row.getInputColumns()));
+        }
+
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory(10, 5);
+        f.addSamples(annotation, 1000, samples);
+        f.addSamples(annotation, 1000, samples);
+
+        // adding samples does not count as annotating records
+        assertEquals(5, annotation.getRowCount());
+        assertEquals(5, f.getSampleRows(annotation).size());
+        for (final InputRow row : f.getSampleRows(annotation)) {
+            assertEquals(row.getId(), row.getValue(integerColumn).intValue());
+        }
+    }
+
+    public void testSerializeAndDeserialize() throws Exception {
+        final CompactRowAnnotationFactory f = new CompactRowAnnotationFactory();
+        final RowAnnotation annotation = f.createAnnotation();
+        f.annotate(new MockInputRow(1).put(stringColumn, "foo").put(objectColumn, new StringBuilder("bar")),
+                annotation);
+
+        final Object[] copies =
+                (Object[]) SerializationUtils.deserialize(SerializationUtils.serialize(new Object[] { f, annotation }));
+        final CompactRowAnnotationFactory copy = (CompactRowAnnotationFactory) copies[0];
+        final RowAnnotation annotationCopy = (RowAnnotation) copies[1];
+        final InputRow sampleRow = copy.getSampleRows(annotationCopy).get(0);
+        assertEquals("foo", sampleRow.getValues(sampleRow.getInputColumns()).get(0));
+        assertEquals("bar", sampleRow.getValues(sampleRow.getInputColumns()).get(1).toString());
+    }
+}
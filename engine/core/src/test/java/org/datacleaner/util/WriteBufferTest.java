@@ -19,6 +19,11 @@
  */
 package org.datacleaner.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
@@ -47,4 +52,96 @@ public class WriteBufferTest extends TestCase {
         assertEquals(1, buffer.getBuffer().size());
         assertEquals(5, counter.get());
     }
+
+    public void testAsynchronousWritesInOrder() throws Exception {
+        final List<Object> written = Collections.synchronizedList(new ArrayList<>());
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+
+        final WriteBuffer buffer = new WriteBuffer(3, 2, rows -> {
+            threadNames.add(Thread.currentThread().getName());
+            for (final Object[] row : rows) {
+                written.add(row[0]);
+            }
+        });
+        assertTrue(buffer.isAsynchronous());
+
+        for (int i = 0; i < 10; i++) {
+            buffer.addToBuffer(new Object[] { i });
+        }
+        buffer.flushBuffer();
+
+        assertEquals("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9]", written.toString());
+        assertEquals(4, threadNames.size());
+        for (final String threadName : threadNames) {
+            assertEquals("WriteBuffer writer", threadName);
+        }
+    }
+
+    public void testAsynchronousBackPressure() throws Exception {
+        final CountDownLatch writerLatch = new CountDownLatch(1);
+        final AtomicInteger counter = new AtomicInteger();
+
+        final WriteBuffer buffer = new WriteBuffer(2, 1, rows -> {
+            writerLatch.await();
+            for (@SuppressWarnings("unused") final Object[] row : rows) {
+                counter.incrementAndGet();
+            }
+        });
+
+        final CountDownLatch producerDone = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                buffer.addToBuffer(new Object[] { i });
+            }
+            producerDone.countDown();
+        });
+        producer.start();
+
+        // the first batch is being written, the second one cannot be handed
+        // over until the writer has caught up
+        assertFalse(producerDone.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, counter.get());
+
+        writerLatch.countDown();
+        assertTrue(producerDone.await(10, TimeUnit.SECONDS));
+
+        buffer.flushBuffer();
+        assertEquals(5, counter.get());
+        assertEquals(0, buffer.getBuffer().size());
+    }
+
+    public void testAsynchronousErrorPropagation() throws Exception {
+        // hold back the failure until all rows are added
+        final CountDownLatch writerLatch = new CountDownLatch(1);
+        final AtomicInteger attemptedBatches = new AtomicInteger();
+        final WriteBuffer buffer = new WriteBuffer(2, 2, rows -> {
+            writerLatch.await();
+            attemptedBatches.incrementAndGet();
+            throw new IllegalArgumentException("Foo!");
+        });
+
+        buffer.addToBuffer(new Object[0]);
+        buffer.addToBuffer(new Object[0]);
+        buffer.addToBuffer(new Object[0]);
+        buffer.addToBuffer(new Object[0]);
+        writerLatch.countDown();
+
+        try {
+            buffer.flushBuffer();
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Foo!", e.getMessage());
+        }
+
+        // the rows after the failed batch are not written, but counted
+        assertEquals(1, attemptedBatches.get());
+        assertEquals(2, buffer.getDiscardedRowCount());
+
+        try {
+            buffer.addToBuffer(new Object[0]);
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Foo!", e.getMessage());
+        }
+    }
 }
@@ -35,6 +35,19 @@ public interface ClusterManager {
      */
     JobDivisionManager getJobDivisionManager();
 
+    /**
+     * Gets the number of slave nodes in the cluster. Slave jobs are scheduled
+     * so that each slave runs one at a time, see
+     * {@link DistributedJobContext#getSlaveIndex()}.
+     *
+     * @return the number of slaves, or 0 if unknown, in which case all slave
+     *         jobs are dispatched at once, each to the slave of the same index
+     *         as the slave job.
+     */
+    default int getSlaveCount() {
+        return 0;
+    }
+
     /**
      * Dispatches a job for execution on a node. Typically this job will not be
      * the original job which the {@link DistributedAnalysisRunner} received,
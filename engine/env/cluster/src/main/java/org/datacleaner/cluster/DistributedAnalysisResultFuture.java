@@ -24,37 +24,169 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.metamodel.util.SharedExecutorService;
 import org.datacleaner.api.AnalyzerResult;
 import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.runner.AnalysisJobFailedException;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.JobStatus;
 import org.datacleaner.result.AbstractAnalysisResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * {@link AnalysisResultFuture} implementation for clustered/distributed
  * set-ups.
+ *
+ * The results of the slave jobs are handed to the reducer as they complete,
+ * and are released once the reducer has taken them, so that the master does
+ * not need to hold all slave results at the same time.
  */
 public final class DistributedAnalysisResultFuture extends AbstractAnalysisResult implements AnalysisResultFuture {
 
+    /**
+     * Takes the place of a slave result once it has been handed to the
+     * reducer.
+     */
+    private static final class CollectedResultFuture extends AbstractAnalysisResult implements AnalysisResultFuture {
+
+        private final Date _creationDate;
+
+        private CollectedResultFuture(final Date creationDate) {
+            _creationDate = creationDate;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public void await() {
+        }
+
+        @Override
+        public void await(final long timeout, final TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isErrornous() {
+            return false;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return true;
+        }
+
+        @Override
+        public JobStatus getStatus() {
+            return JobStatus.SUCCESSFUL;
+        }
+
+        @Override
+        public List<Throwable> getErrors() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Date getCreationDate() {
+            return _creationDate;
+        }
+
+        @Override
+        public List<AnalyzerResult> getResults() {
+            throw new IllegalStateException("Slave result has been handed to the reducer");
+        }
+
+        @Override
+        public Map<ComponentJob, AnalyzerResult> getResultMap() {
+            throw new IllegalStateException("Slave result has been handed to the reducer");
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedAnalysisResultFuture.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
     private final DistributedAnalysisResultReducer _reducer;
     private final List<AnalysisResultFuture> _results;
     private final Map<ComponentJob, AnalyzerResult> _resultMap;
     private final List<AnalysisResultReductionException> _reductionErrors;
+    private final CountDownLatch _collected;
+    private volatile RuntimeException _collectionError;
     private volatile Date _creationDate;
     private volatile boolean _cancelled;
 
     public DistributedAnalysisResultFuture(final List<AnalysisResultFuture> results,
             final DistributedAnalysisResultReducer reducer) {
-        _results = results;
+        _results = new CopyOnWriteArrayList<>(results);
         _reducer = reducer;
         _resultMap = new HashMap<>();
         _reductionErrors = new ArrayList<>();
+        _collected = new CountDownLatch(1);
         _cancelled = false;
+
+        SharedExecutorService.get().execute(this::collectResults);
+    }
+
+    /**
+     * Hands the results of the slave jobs to the reducer in the order that
+     * they complete. Stops at the first erroneous slave result, since the
+     * final reduction will then report the errors instead.
+     */
+    private void collectResults() {
+        try {
+            final List<Integer> pending = new LinkedList<>();
+            for (int i = 0; i < _results.size(); i++) {
+                pending.add(i);
+            }
+
+            while (!pending.isEmpty()) {
+                boolean collected = false;
+                for (final Iterator<Integer> it = pending.iterator(); it.hasNext(); ) {
+                    final int index = it.next();
+                    final AnalysisResultFuture result = _results.get(index);
+                    if (result.isDone()) {
+                        it.remove();
+                        collected = true;
+                        if (!result.isSuccessful()) {
+                            return;
+                        }
+                        _reducer.addSlaveResult(result);
+                        _results.set(index, new CollectedResultFuture(result.getCreationDate()));
+                    }
+                }
+                if (!collected) {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+            }
+        } catch (final InterruptedException e) {
+            logger.warn("Interrupted while collecting slave results");
+            _collectionError = new IllegalStateException("Interrupted while collecting slave results", e);
+        } catch (final RuntimeException e) {
+            logger.error("Unexpected error while collecting slave results", e);
+            _collectionError = e;
+        } finally {
+            _collected.countDown();
+        }
     }
 
     @Override
@@ -100,6 +232,15 @@ public final class DistributedAnalysisResultFuture extends AbstractAnalysisResul
         for (final AnalysisResultFuture result : _results) {
             result.await();
         }
+        try {
+            _collected.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while awaiting slave results", e);
+        }
+        if (_collectionError != null) {
+            throw _collectionError;
+        }
         if (_resultMap.isEmpty()) {
             synchronized (this) {
                 if (_resultMap.isEmpty() && _reductionErrors.isEmpty()) {
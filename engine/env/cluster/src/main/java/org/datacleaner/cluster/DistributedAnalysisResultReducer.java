@@ -20,9 +20,12 @@
 package org.datacleaner.cluster;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.datacleaner.api.AnalyzerResult;
@@ -44,9 +47,141 @@ import org.slf4j.LoggerFactory;
 /**
  * Helper class to perform the reduction phase of {@link AnalyzerResult}s
  * collected in a {@link DistributedAnalysisResultFuture}.
+ *
+ * Slave results are added one at a time, as they become available. If the
+ * reducer of an analyzer is incremental (see
+ * {@link AnalyzerResultReducer#isIncremental()}), partial results are reduced
+ * in a binary tree: Whenever two partial results of the same height exist,
+ * they are reduced into one of the next height and released. This way, at most
+ * a logarithmic number of partial results is held per analyzer. Results of
+ * other reducers are held until the final reduction.
  */
 final class DistributedAnalysisResultReducer {
 
+    /**
+     * The partial results of a single analyzer.
+     */
+    private final class PartialResults {
+
+        private final AnalyzerJob _analyzerJob;
+        private final ComponentDescriptor<? extends AnalyzerResultReducer<?>> _reducerDescriptor;
+        private final List<AnalyzerResult> _pending;
+        private AnalyzerResultReducer<AnalyzerResult> _reducer;
+        private boolean _incremental;
+        private int _slaveResultCount;
+        private AnalysisResultReductionException _error;
+
+        private PartialResults(final AnalyzerJob analyzerJob) {
+            _analyzerJob = analyzerJob;
+            _reducerDescriptor = Descriptors.ofComponent(analyzerJob.getDescriptor().getResultReducerClass());
+            _pending = new ArrayList<>();
+        }
+
+        /**
+         * Adds a slave result. For incremental reducers, the element at index
+         * i of the pending list holds either null or a result reduced from 2^i
+         * slave results.
+         *
+         * @param slaveResult
+         */
+        private void add(final AnalyzerResult slaveResult) {
+            _slaveResultCount++;
+            if (_error != null) {
+                return;
+            }
+            if (_slaveResultCount == 2) {
+                // only initialize the reducer once there is something to reduce
+                initializeReducer();
+                if (_error != null) {
+                    return;
+                }
+            }
+            if (!_incremental) {
+                _pending.add(slaveResult);
+                return;
+            }
+
+            AnalyzerResult carry = slaveResult;
+            for (int height = 0; carry != null; height++) {
+                if (height == _pending.size()) {
+                    _pending.add(carry);
+                    carry = null;
+                } else if (_pending.get(height) == null) {
+                    _pending.set(height, carry);
+                    carry = null;
+                } else {
+                    final AnalyzerResult sibling = _pending.set(height, null);
+                    carry = reduce(Arrays.asList(sibling, carry));
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void initializeReducer() {
+            try {
+                _reducer = (AnalyzerResultReducer<AnalyzerResult>) _reducerDescriptor.newInstance();
+                _lifeCycleHelper.assignProvidedProperties(_reducerDescriptor, _reducer);
+                _lifeCycleHelper.initialize(_reducerDescriptor, _reducer);
+                _incremental = _reducer.isIncremental();
+            } catch (final Exception e) {
+                _reducer = null;
+                _error = new AnalysisResultReductionException(_analyzerJob, new ArrayList<>(_pending), e);
+                _pending.clear();
+            }
+        }
+
+        private AnalyzerResult reduce(final Collection<AnalyzerResult> results) {
+            try {
+                return _reducer.reduce(results);
+            } catch (final Exception e) {
+                _error = new AnalysisResultReductionException(_analyzerJob, results, e);
+                _pending.clear();
+                return null;
+            }
+        }
+
+        /**
+         * Reduces the remaining partial results into the final result.
+         *
+         * @param resultMap
+         * @param reductionErrors
+         */
+        private void finish(final Map<ComponentJob, AnalyzerResult> resultMap,
+                final List<AnalysisResultReductionException> reductionErrors) {
+            logger.info("Reducing {} slave results for component: {}", _slaveResultCount, _analyzerJob);
+
+            final List<AnalyzerResult> remaining = new ArrayList<>(_pending);
+            remaining.removeIf(Objects::isNull);
+            _pending.clear();
+
+            AnalyzerResult reducedResult = null;
+            if (_error == null && !remaining.isEmpty()) {
+                if (remaining.size() == 1) {
+                    // special case where there was only 1 slave job, or all
+                    // results have been reduced incrementally
+                    reducedResult = remaining.get(0);
+                } else {
+                    reducedResult = reduce(remaining);
+                }
+            }
+
+            if (_reducer != null) {
+                _lifeCycleHelper.close(_reducerDescriptor, _reducer, _error == null);
+                _reducer = null;
+            }
+
+            if (_error == null) {
+                if (reducedResult != null) {
+                    resultMap.put(_analyzerJob, reducedResult);
+                    _analysisListener.componentSuccess(_masterJob, _analyzerJob, reducedResult);
+                }
+            } else {
+                reductionErrors.add(_error);
+                _analysisListener.errorInComponent(_masterJob, _analyzerJob, null, _error.getCause());
+            }
+        }
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(DistributedAnalysisResultReducer.class);
 
     private final AnalysisJob _masterJob;
@@ -54,6 +189,7 @@ final class DistributedAnalysisResultReducer {
     private final RowProcessingPublisher _publisher;
     private final AnalysisListener _analysisListener;
     private final AtomicBoolean _hasRun;
+    private final Map<AnalyzerJob, PartialResults> _partialResults;
 
     public DistributedAnalysisResultReducer(final AnalysisJob masterJob, final LifeCycleHelper lifeCycleHelper,
             final RowProcessingPublisher publisher, final AnalysisListener analysisListener) {
@@ -62,9 +198,52 @@ final class DistributedAnalysisResultReducer {
         _publisher = publisher;
         _analysisListener = analysisListener;
         _hasRun = new AtomicBoolean(false);
+        _partialResults = new LinkedHashMap<>();
+        for (final AnalyzerJob analyzerJob : masterJob.getAnalyzerJobs()) {
+            _partialResults.put(analyzerJob, new PartialResults(analyzerJob));
+        }
+    }
+
+    /**
+     * Adds the result of a successful slave job, reducing it with earlier
+     * slave results where possible. After this the slave result is no longer
+     * needed. Must not be invoked concurrently, nor after
+     * {@link #reduce(List, Map, List)}.
+     *
+     * @param result
+     */
+    public synchronized void addSlaveResult(final AnalysisResultFuture result) {
+        final Map<ComponentJob, AnalyzerResult> slaveResultMap = result.getResultMap();
+        if (slaveResultMap == null) {
+            // a skipped slave job
+            return;
+        }
+        final List<AnalyzerJob> slaveAnalyzerJobs =
+                CollectionUtils2.filterOnClass(slaveResultMap.keySet(), AnalyzerJob.class);
+        final AnalyzerJobHelper analyzerJobHelper = new AnalyzerJobHelper(slaveAnalyzerJobs);
+
+        for (final PartialResults partialResults : _partialResults.values()) {
+            final AnalyzerJob masterAnalyzerJob = partialResults._analyzerJob;
+            final AnalyzerJob slaveAnalyzerJob = analyzerJobHelper.getAnalyzerJob(masterAnalyzerJob);
+            if (slaveAnalyzerJob == null) {
+                throw new IllegalStateException(
+                        "Could not resolve slave component matching [" + masterAnalyzerJob + "] in slave result: "
+                                + result);
+            }
+            partialResults.add(slaveResultMap.get(slaveAnalyzerJob));
+        }
     }
 
-    public void reduce(final List<AnalysisResultFuture> results, final Map<ComponentJob, AnalyzerResult> resultMap,
+    /**
+     * Performs the final reduction, once all slave results have been added.
+     *
+     * @param results
+     *            the futures of the slave jobs, used to check for errors
+     * @param resultMap
+     * @param reductionErrors
+     */
+    public synchronized void reduce(final List<AnalysisResultFuture> results,
+            final Map<ComponentJob, AnalyzerResult> resultMap,
             final List<AnalysisResultReductionException> reductionErrors) {
         final int size = results.size();
         try {
@@ -115,82 +294,9 @@ final class DistributedAnalysisResultReducer {
             }
         }
 
-        final Collection<AnalyzerJob> analyzerJobs = _masterJob.getAnalyzerJobs();
-        for (final AnalyzerJob masterAnalyzerJob : analyzerJobs) {
-            final Collection<AnalyzerResult> slaveResults = new ArrayList<>();
-            logger.info("Reducing {} slave results for component: {}", results.size(), masterAnalyzerJob);
-            for (final AnalysisResultFuture result : results) {
-
-                final Map<ComponentJob, AnalyzerResult> slaveResultMap = result.getResultMap();
-                final List<AnalyzerJob> slaveAnalyzerJobs =
-                        CollectionUtils2.filterOnClass(slaveResultMap.keySet(), AnalyzerJob.class);
-                final AnalyzerJobHelper analyzerJobHelper = new AnalyzerJobHelper(slaveAnalyzerJobs);
-                final AnalyzerJob slaveAnalyzerJob = analyzerJobHelper.getAnalyzerJob(masterAnalyzerJob);
-                if (slaveAnalyzerJob == null) {
-                    throw new IllegalStateException(
-                            "Could not resolve slave component matching [" + masterAnalyzerJob + "] in slave result: "
-                                    + result);
-                }
-
-                final AnalyzerResult analyzerResult = result.getResult(slaveAnalyzerJob);
-                slaveResults.add(analyzerResult);
-            }
-
-            reduce(masterAnalyzerJob, slaveResults, resultMap, reductionErrors);
-        }
-    }
-
-    /**
-     * Reduces result for a single analyzer
-     *
-     * @param analyzerJob
-     * @param slaveResults
-     * @param resultMap
-     * @param reductionErrors
-     */
-    @SuppressWarnings("unchecked")
-    private void reduce(final AnalyzerJob analyzerJob, final Collection<AnalyzerResult> slaveResults,
-            final Map<ComponentJob, AnalyzerResult> resultMap,
-            final List<AnalysisResultReductionException> reductionErrors) {
-
-        if (slaveResults.size() == 1) {
-            // special case where these was only 1 slave job
-            final AnalyzerResult firstResult = slaveResults.iterator().next();
-            resultMap.put(analyzerJob, firstResult);
-            _analysisListener.componentSuccess(_masterJob, analyzerJob, firstResult);
-            return;
-        }
-
-        final Class<? extends AnalyzerResultReducer<?>> reducerClass =
-                analyzerJob.getDescriptor().getResultReducerClass();
-
-        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
-                Descriptors.ofComponent(reducerClass);
-
-        AnalyzerResultReducer<AnalyzerResult> reducer = null;
-        boolean success = false;
-        try {
-            reducer = (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
-
-            _lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
-            _lifeCycleHelper.initialize(reducerDescriptor, reducer);
-
-            final AnalyzerResult reducedResult = reducer.reduce(slaveResults);
-            resultMap.put(analyzerJob, reducedResult);
-
-            success = true;
-            _analysisListener.componentSuccess(_masterJob, analyzerJob, reducedResult);
-
-        } catch (final Exception e) {
-            final AnalysisResultReductionException reductionError =
-                    new AnalysisResultReductionException(analyzerJob, slaveResults, e);
-            reductionErrors.add(reductionError);
-
-            _analysisListener.errorInComponent(_masterJob, analyzerJob, null, e);
-        } finally {
-            if (reducer != null) {
-                _lifeCycleHelper.close(reducerDescriptor, reducer, success);
-            }
+        for (final PartialResults partialResults : _partialResults.values()) {
+            partialResults.finish(resultMap, reductionErrors);
         }
+        _partialResults.clear();
     }
 }
@@ -19,18 +19,23 @@
  */
 package org.datacleaner.cluster;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.SharedExecutorService;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.components.categories.WriteSuperCategory;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
+import org.datacleaner.components.keyrange.KeyRangeSlicer;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter.Category;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.InjectionManager;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.data.MetaModelInputColumn;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
@@ -156,14 +161,29 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
                 resultFuture = localCluster.dispatchJob(job, context);
             } else {
                 final JobDivisionManager jobDivisionManager = _clusterManager.getJobDivisionManager();
-                final int chunks = jobDivisionManager.calculateDivisionCount(job, expectedRows);
-                final int rowsPerChunk = (expectedRows + 1) / chunks;
+                final int calculatedDivisionCount = jobDivisionManager.calculateDivisionCount(job, expectedRows);
+                // no more slave jobs than rows, if the number of rows is known
+                final int divisionCount =
+                        expectedRows > 0 ? Math.min(calculatedDivisionCount, expectedRows) : calculatedDivisionCount;
 
-                logger.info(
-                        "Expected rows was {}. A total number of {} slave jobs will be built, each of approx. {} rows.",
-                        expectedRows, chunks, rowsPerChunk);
+                final List<AnalysisResultFuture> results;
+                final List<Long> keyRanges = findKeyRanges(job, publisher, divisionCount);
+                if (keyRanges == null) {
+                    final int rowsPerChunk = (expectedRows + 1) / divisionCount;
 
-                final List<AnalysisResultFuture> results = dispatchJobs(job, chunks, rowsPerChunk, publisher);
+                    logger.info("Expected rows was {}. A total number of {} slave jobs will be built, "
+                            + "each of approx. {} rows.", expectedRows, divisionCount, rowsPerChunk);
+
+                    results = dispatchJobs(job, divisionCount, rowsPerChunk, publisher);
+                } else {
+                    final int chunks = keyRanges.size() - 1;
+
+                    logger.info("Expected rows was {}. A total number of {} slave jobs will be built, "
+                            + "each of a key range of approx. {} rows.", expectedRows, chunks, expectedRows / chunks);
+
+                    results = dispatchJobs(job, chunks,
+                            i -> buildKeyRangeSlaveJob(job, i, keyRanges.get(i), keyRanges.get(i + 1)));
+                }
                 final DistributedAnalysisResultReducer reducer =
                         new DistributedAnalysisResultReducer(job, lifeCycleHelper, publisher, _analysisListener);
                 resultFuture = new DistributedAnalysisResultFuture(results, reducer);
@@ -199,35 +219,127 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
         });
     }
 
+    /**
+     * Dispatches the slave jobs of a job to the slaves of the cluster. The
+     * slave jobs are queued and run as slaves become available, see
+     * {@link SlaveJobScheduler}.
+     *
+     * @param job
+     * @param chunks
+     * @param rowsPerChunk
+     * @param publisher
+     * @return a result future for each slave job
+     */
     public List<AnalysisResultFuture> dispatchJobs(final AnalysisJob job, final int chunks, final int rowsPerChunk,
             final RowProcessingPublisher publisher) {
-        final List<AnalysisResultFuture> results = new ArrayList<>();
-        for (int i = 0; i < chunks; i++) {
-            final int firstRow = (i * rowsPerChunk) + 1;
-            final int maxRows;
-            if (i == chunks - 1) {
-                maxRows = Integer.MAX_VALUE - firstRow - 1;
-            } else {
-                maxRows = rowsPerChunk;
-            }
+        return dispatchJobs(job, chunks, i -> buildChunkSlaveJob(job, i, chunks, rowsPerChunk));
+    }
+
+    private List<AnalysisResultFuture> dispatchJobs(final AnalysisJob job, final int chunks,
+            final IntFunction<AnalysisJob> slaveJobFactory) {
+        final int slaveCount = _clusterManager.getSlaveCount();
+        final boolean reExecutionAllowed = !isWritingData(job);
+        if (!reExecutionAllowed) {
+            logger.info("Job writes data, slave jobs will not be re-executed if they fail or straggle");
+        }
+
+        final SlaveJobScheduler scheduler =
+                new SlaveJobScheduler(_configuration, _clusterManager, job, chunks, slaveCount > 0 ? slaveCount : chunks,
+                        slaveJobFactory, reExecutionAllowed);
+        return scheduler.start();
+    }
+
+    /**
+     * Determines the key ranges to slice a job into, if the source table has
+     * an appropriate key column and the datastore is capable of resolving the
+     * key range conditions efficiently, see {@link KeyRangeSlicer}.
+     *
+     * @param job
+     * @param publisher
+     * @param divisionCount
+     * @return the key range boundaries, or null if the job should be sliced
+     *         using OFFSET/LIMIT pagination
+     */
+    private List<Long> findKeyRanges(final AnalysisJob job, final RowProcessingPublisher publisher,
+            final int divisionCount) {
+        final Datastore datastore = job.getDatastore();
+        if (divisionCount < 2 || !datastore.getPerformanceCharacteristics().isQueryOptimizationPreferred()) {
+            return null;
+        }
+        final Table table = publisher.getStream().getTable();
+        final Column keyColumn = KeyRangeSlicer.findKeyColumn(table);
+        if (keyColumn == null) {
+            logger.debug("No key column found for slicing table: {}", table);
+            return null;
+        }
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            return KeyRangeSlicer.slice(connection.getDataContext(), keyColumn, divisionCount);
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to probe key ranges of {}, falling back to pagination", keyColumn, e);
+            return null;
+        }
+    }
+
+    /**
+     * Determines if a job has components that write data, in which case slave
+     * jobs cannot safely be executed more than once.
+     *
+     * @param job
+     * @return
+     */
+    private boolean isWritingData(final AnalysisJob job) {
+        return job.flattened().flatMap(j -> j.getComponentJobs().stream())
+                .anyMatch(componentJob -> componentJob.getDescriptor()
+                        .getComponentSuperCategory() instanceof WriteSuperCategory);
+    }
+
+    private AnalysisJob buildChunkSlaveJob(final AnalysisJob job, final int slaveJobIndex, final int chunks,
+            final int rowsPerChunk) {
+        final int firstRow = (slaveJobIndex * rowsPerChunk) + 1;
+        final int maxRows;
+        if (slaveJobIndex == chunks - 1) {
+            maxRows = Integer.MAX_VALUE - firstRow - 1;
+        } else {
+            maxRows = rowsPerChunk;
+        }
+        return buildSlaveJob(job, slaveJobIndex, firstRow, maxRows);
+    }
+
+    /**
+     * Creates a slave job by copying the original job and adding a
+     * {@link KeyRangeFilter} as a default requirement.
+     *
+     * @param job
+     * @param slaveJobIndex
+     * @param lowestKey
+     * @param highestKey
+     * @return
+     */
+    private AnalysisJob buildKeyRangeSlaveJob(final AnalysisJob job, final int slaveJobIndex, final Long lowestKey,
+            final Long highestKey) {
+        logger.info("Building slave job {} with key range [{};{}[", slaveJobIndex + 1, lowestKey, highestKey);
 
-            final AnalysisJob slaveJob = buildSlaveJob(job, i, firstRow, maxRows);
-            final DistributedJobContext context = new DistributedJobContextImpl(_configuration, job, i, chunks);
-
-            try {
-                logger.info("Dispatching slave job {} of {}", i + 1, chunks);
-                final AnalysisResultFuture slaveResultFuture = _clusterManager.dispatchJob(slaveJob, context);
-                results.add(slaveResultFuture);
-            } catch (final Exception e) {
-                _analysisListener.errorUnknown(job, e);
-                // exceptions due to dispatching jobs are added as the first of
-                // the job's errors, and the rest of the execution is aborted.
-                final AnalysisResultFuture errorResult = new FailedAnalysisResultFuture(e);
-                results.add(0, errorResult);
-                break;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(_configuration, job)) {
+            final Column keyColumn = KeyRangeSlicer.findKeyColumn(jobBuilder.getSourceTables().get(0));
+            InputColumn<?> sourceColumn = jobBuilder.getSourceColumnByName(keyColumn.getName());
+            if (sourceColumn == null) {
+                jobBuilder.addSourceColumn(keyColumn);
+                sourceColumn = jobBuilder.getSourceColumnByName(keyColumn.getName());
             }
+
+            final FilterComponentBuilder<KeyRangeFilter, KeyRangeFilter.Category> keyRangeFilter =
+                    jobBuilder.addFilter(KeyRangeFilter.class);
+            keyRangeFilter.addInputColumn(sourceColumn);
+            keyRangeFilter.getComponentInstance().setLowestKey(lowestKey);
+            keyRangeFilter.getComponentInstance().setHighestKey(highestKey);
+
+            jobBuilder.setDefaultRequirement(keyRangeFilter, KeyRangeFilter.Category.VALID);
+
+            // in assertion/test mode do an early validation
+            assert jobBuilder.isConfigured(true);
+
+            return jobBuilder.toAnalysisJob();
         }
-        return results;
     }
 
     /**
@@ -34,4 +34,15 @@ public interface DistributedJobContext {
     int getJobDivisionCount();
 
     int getJobDivisionIndex();
+
+    /**
+     * Gets the index of the slave that the partial job is dispatched to. A
+     * slave may run several partial jobs, one after another, and a partial job
+     * may be dispatched to more than one slave if it needs to be re-executed.
+     *
+     * @return
+     */
+    default int getSlaveIndex() {
+        return getJobDivisionIndex();
+    }
 }
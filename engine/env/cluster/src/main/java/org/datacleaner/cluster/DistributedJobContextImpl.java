@@ -31,13 +31,20 @@ final class DistributedJobContextImpl implements DistributedJobContext {
     private final AnalysisJob _masterJob;
     private final int _chunkIndex;
     private final int _chunkCount;
+    private final int _slaveIndex;
 
     public DistributedJobContextImpl(final DataCleanerConfiguration masterConfiguration, final AnalysisJob masterJob,
             final int chunkIndex, final int chunkCount) {
+        this(masterConfiguration, masterJob, chunkIndex, chunkCount, chunkIndex);
+    }
+
+    public DistributedJobContextImpl(final DataCleanerConfiguration masterConfiguration, final AnalysisJob masterJob,
+            final int chunkIndex, final int chunkCount, final int slaveIndex) {
         _masterConfiguration = masterConfiguration;
         _masterJob = masterJob;
         _chunkIndex = chunkIndex;
         _chunkCount = chunkCount;
+        _slaveIndex = slaveIndex;
     }
 
     @Override
@@ -60,4 +67,9 @@ final class DistributedJobContextImpl implements DistributedJobContext {
         return _chunkIndex;
     }
 
+    @Override
+    public int getSlaveIndex() {
+        return _slaveIndex;
+    }
+
 }
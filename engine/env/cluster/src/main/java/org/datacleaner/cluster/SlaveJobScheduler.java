@@ -0,0 +1,456 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+import org.apache.metamodel.util.LazyRef;
+import org.apache.metamodel.util.SharedExecutorService;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.result.AnalysisResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the chunks of a distributed job on the slaves of a
+ * {@link ClusterManager}, using a work queue.
+ *
+ * Every slave runs at most one chunk at a time, and is given the next chunk
+ * from the queue when it becomes idle. At each heartbeat the master checks
+ * the state of all running chunks. Chunks that fail are put back on the queue
+ * to be re-executed, preferably by another slave. A slave on which a chunk
+ * failed is not given any more chunks, unless all slaves have failed. When the
+ * queue is empty, idle slaves speculatively re-execute chunks that are running
+ * much longer than the chunks that have completed. For each chunk the first
+ * successful result is kept, and other executions of it are cancelled.
+ *
+ * If a chunk fails on its last attempt, the remaining chunks of the queue are
+ * skipped, ie. they are done without a result, and the failed chunk carries the
+ * errors of the job.
+ */
+final class SlaveJobScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaveJobScheduler.class);
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 100;
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int STRAGGLER_FACTOR = 2;
+    private static final long STRAGGLER_MIN_MILLIS = 1000;
+
+    private static final class Chunk {
+        private final int _index;
+        private final List<Attempt> _running = new ArrayList<>(MAX_ATTEMPTS);
+        private final CountDownLatch _done = new CountDownLatch(1);
+        private AnalysisJob _slaveJob;
+        private int _attemptCount;
+        private int _lastSlaveIndex = -1;
+        private AnalysisResultFuture _lastFailure;
+        private volatile AnalysisResultFuture _result;
+
+        private Chunk(final int index) {
+            _index = index;
+        }
+
+        private boolean isDone() {
+            return _done.getCount() == 0;
+        }
+    }
+
+    private static final class Attempt {
+        private final Chunk _chunk;
+        private final int _slaveIndex;
+        private final long _startMillis;
+        private final AnalysisResultFuture _future;
+
+        private Attempt(final Chunk chunk, final int slaveIndex, final long startMillis,
+                final AnalysisResultFuture future) {
+            _chunk = chunk;
+            _slaveIndex = slaveIndex;
+            _startMillis = startMillis;
+            _future = future;
+        }
+    }
+
+    private final DataCleanerConfiguration _configuration;
+    private final ClusterManager _clusterManager;
+    private final AnalysisJob _masterJob;
+    private final IntFunction<AnalysisJob> _slaveJobFactory;
+    private final boolean _reExecutionAllowed;
+    private final List<Chunk> _chunks;
+    private final Deque<Chunk> _queue;
+    private final int _slaveCount;
+    private final Deque<Integer> _idleSlaves;
+    private final Set<Integer> _failedSlaves;
+    private final List<Attempt> _running;
+    private final List<Long> _completedDurations;
+    private boolean _aborted;
+    private boolean _cancelled;
+
+    /**
+     * Creates a {@link SlaveJobScheduler}.
+     *
+     * @param configuration
+     * @param clusterManager
+     * @param masterJob
+     * @param chunkCount
+     *            the number of chunks that the job is divided into
+     * @param slaveCount
+     *            the number of slaves to run chunks on at the same time
+     * @param slaveJobFactory
+     *            function which builds the slave job of a chunk index
+     * @param reExecutionAllowed
+     *            whether or not chunks may be executed more than once, which
+     *            is not the case if the job writes data
+     */
+    public SlaveJobScheduler(final DataCleanerConfiguration configuration, final ClusterManager clusterManager,
+            final AnalysisJob masterJob, final int chunkCount, final int slaveCount,
+            final IntFunction<AnalysisJob> slaveJobFactory, final boolean reExecutionAllowed) {
+        _configuration = configuration;
+        _clusterManager = clusterManager;
+        _masterJob = masterJob;
+        _slaveJobFactory = slaveJobFactory;
+        _reExecutionAllowed = reExecutionAllowed;
+        _chunks = new ArrayList<>(chunkCount);
+        _queue = new ArrayDeque<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final Chunk chunk = new Chunk(i);
+            _chunks.add(chunk);
+            _queue.add(chunk);
+        }
+        _slaveCount = slaveCount;
+        _idleSlaves = new ArrayDeque<>(slaveCount);
+        for (int i = 0; i < slaveCount; i++) {
+            _idleSlaves.add(i);
+        }
+        _failedSlaves = new HashSet<>();
+        _running = new ArrayList<>();
+        _completedDurations = new ArrayList<>();
+    }
+
+    /**
+     * Dispatches the first chunks to the slaves and starts scheduling the rest
+     * in the background.
+     *
+     * @return a result future for each chunk, in chunk order
+     */
+    public List<AnalysisResultFuture> start() {
+        synchronized (this) {
+            dispatchToIdleSlaves(System.currentTimeMillis());
+        }
+        SharedExecutorService.get().execute(this::runHeartbeats);
+
+        final List<AnalysisResultFuture> results = new ArrayList<>(_chunks.size());
+        for (final Chunk chunk : _chunks) {
+            results.add(createResultFuture(chunk));
+        }
+        return results;
+    }
+
+    private AnalysisResultFuture createResultFuture(final Chunk chunk) {
+        final List<Throwable> errors = Collections.synchronizedList(new LinkedList<>());
+        final LazyRef<AnalysisResult> resultRef = new LazyRef<AnalysisResult>() {
+            @Override
+            protected AnalysisResult fetch() throws Throwable {
+                chunk._done.await();
+                final AnalysisResultFuture result = chunk._result;
+                // the result is only needed by this future, which may be
+                // released once the result is reduced
+                chunk._result = null;
+                if (result == null) {
+                    // skipped
+                    return null;
+                }
+                if (result.isErrornous()) {
+                    errors.addAll(result.getErrors());
+                    return null;
+                }
+                return result;
+            }
+        };
+        resultRef.requestLoad(errors::add);
+
+        return new LazyRefAnalysisResultFuture(resultRef, errors) {
+            @Override
+            public void cancel() {
+                SlaveJobScheduler.this.cancel();
+            }
+        };
+    }
+
+    /**
+     * Cancels all running chunks and skips the remaining ones.
+     */
+    public synchronized void cancel() {
+        if (_cancelled) {
+            return;
+        }
+        _cancelled = true;
+        _aborted = true;
+        _queue.clear();
+        for (final Attempt attempt : _running) {
+            cancel(attempt);
+        }
+        for (final Chunk chunk : _chunks) {
+            if (!chunk.isDone()) {
+                chunk._done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Completes the chunks that have not been dispatched, with the error of
+     * their last attempt if they were waiting to be re-executed.
+     */
+    private void skipQueuedChunks() {
+        for (final Chunk chunk : _queue) {
+            if (chunk._lastFailure == null) {
+                chunk._done.countDown();
+            } else {
+                complete(chunk, chunk._lastFailure);
+            }
+        }
+        _queue.clear();
+    }
+
+    private void runHeartbeats() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (heartbeat()) {
+                        return;
+                    }
+                }
+                Thread.sleep(HEARTBEAT_INTERVAL_MILLIS);
+            }
+        } catch (final InterruptedException e) {
+            logger.warn("Interrupted while scheduling slave jobs, cancelling job");
+            cancel();
+        } catch (final RuntimeException e) {
+            logger.error("Unexpected error while scheduling slave jobs, cancelling job", e);
+            cancel();
+        }
+    }
+
+    /**
+     * Checks the state of running chunks and dispatches chunks to idle slaves.
+     *
+     * @return true if all chunks are done
+     */
+    private boolean heartbeat() {
+        final long now = System.currentTimeMillis();
+        for (final Iterator<Attempt> it = _running.iterator(); it.hasNext(); ) {
+            final Attempt attempt = it.next();
+            if (attempt._future.isDone()) {
+                it.remove();
+                attempt._chunk._running.remove(attempt);
+                onAttemptDone(attempt, now);
+            }
+        }
+
+        if (!_aborted) {
+            dispatchToIdleSlaves(now);
+        }
+
+        for (final Chunk chunk : _chunks) {
+            if (!chunk.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void onAttemptDone(final Attempt attempt, final long now) {
+        final Chunk chunk = attempt._chunk;
+        if (chunk.isDone()) {
+            // another attempt completed first
+            _idleSlaves.add(attempt._slaveIndex);
+            return;
+        }
+
+        if (attempt._future.isSuccessful()) {
+            _idleSlaves.add(attempt._slaveIndex);
+            _completedDurations.add(now - attempt._startMillis);
+            complete(chunk, attempt._future);
+            for (final Attempt otherAttempt : chunk._running) {
+                logger.info("Cancelling redundant execution of slave job {} on slave {}", chunk._index + 1,
+                        otherAttempt._slaveIndex + 1);
+                cancel(otherAttempt);
+            }
+            return;
+        }
+
+        onSlaveFailed(attempt._slaveIndex);
+
+        if (!chunk._running.isEmpty()) {
+            // let the other running attempt determine the result
+            return;
+        }
+
+        if (_reExecutionAllowed && !_aborted && chunk._attemptCount < MAX_ATTEMPTS) {
+            logger.warn("Slave job {} failed on slave {}, it will be re-executed. Errors: {}", chunk._index + 1,
+                    attempt._slaveIndex + 1, attempt._future.getErrors());
+            chunk._lastFailure = attempt._future;
+            _queue.addFirst(chunk);
+            return;
+        }
+
+        logger.error("Slave job {} failed on slave {}, skipping the remaining slave jobs", chunk._index + 1,
+                attempt._slaveIndex + 1);
+        complete(chunk, attempt._future);
+        _aborted = true;
+        skipQueuedChunks();
+    }
+
+    /**
+     * Keeps a slave on which a chunk failed from being given more chunks, so
+     * that re-executions do not go to a slave which may be dead. If all slaves
+     * have failed, they are used anyway since the job could not progress
+     * otherwise.
+     */
+    private void onSlaveFailed(final int slaveIndex) {
+        _failedSlaves.add(slaveIndex);
+        if (_failedSlaves.size() < _slaveCount) {
+            logger.warn("Slave {} will not be given more slave jobs, since a slave job failed on it",
+                    slaveIndex + 1);
+        } else {
+            for (final Integer failedSlaveIndex : _failedSlaves) {
+                if (!_idleSlaves.contains(failedSlaveIndex) && !isRunning(failedSlaveIndex)) {
+                    _idleSlaves.add(failedSlaveIndex);
+                }
+            }
+        }
+    }
+
+    private boolean isRunning(final int slaveIndex) {
+        for (final Attempt attempt : _running) {
+            if (attempt._slaveIndex == slaveIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void complete(final Chunk chunk, final AnalysisResultFuture result) {
+        chunk._result = result;
+        chunk._slaveJob = null;
+        chunk._lastFailure = null;
+        chunk._done.countDown();
+    }
+
+    private void dispatchToIdleSlaves(final long now) {
+        while (!_idleSlaves.isEmpty()) {
+            Chunk chunk = _queue.pollFirst();
+            if (chunk == null) {
+                chunk = findStraggler(now);
+                if (chunk == null) {
+                    return;
+                }
+                logger.info("Slave job {} is straggling, speculatively re-executing it", chunk._index + 1);
+            }
+            dispatch(chunk, pollIdleSlave(chunk), now);
+        }
+    }
+
+    /**
+     * Takes an idle slave, preferably one that did not run the chunk before.
+     */
+    private int pollIdleSlave(final Chunk chunk) {
+        final Integer first = _idleSlaves.pollFirst();
+        if (first != chunk._lastSlaveIndex || _idleSlaves.isEmpty()) {
+            return first;
+        }
+        final Integer second = _idleSlaves.pollFirst();
+        _idleSlaves.addFirst(first);
+        return second;
+    }
+
+    /**
+     * Finds the chunk which has been running the longest, if it has been
+     * running much longer than the chunks that completed.
+     */
+    private Chunk findStraggler(final long now) {
+        if (!_reExecutionAllowed || _completedDurations.isEmpty()) {
+            return null;
+        }
+
+        final List<Long> durations = new ArrayList<>(_completedDurations);
+        Collections.sort(durations);
+        final long median = durations.get(durations.size() / 2);
+        final long threshold = Math.max(STRAGGLER_MIN_MILLIS, STRAGGLER_FACTOR * median);
+
+        Attempt straggler = null;
+        for (final Attempt attempt : _running) {
+            final Chunk chunk = attempt._chunk;
+            if (!chunk.isDone() && chunk._running.size() == 1 && chunk._attemptCount < MAX_ATTEMPTS
+                    && now - attempt._startMillis > threshold) {
+                if (straggler == null || attempt._startMillis < straggler._startMillis) {
+                    straggler = attempt;
+                }
+            }
+        }
+        return straggler == null ? null : straggler._chunk;
+    }
+
+    private void dispatch(final Chunk chunk, final int slaveIndex, final long now) {
+        chunk._attemptCount++;
+        chunk._lastSlaveIndex = slaveIndex;
+
+        AnalysisResultFuture future;
+        try {
+            if (chunk._slaveJob == null) {
+                chunk._slaveJob = _slaveJobFactory.apply(chunk._index);
+            }
+            final DistributedJobContext context =
+                    new DistributedJobContextImpl(_configuration, _masterJob, chunk._index, _chunks.size(),
+                            slaveIndex);
+            logger.info("Dispatching slave job {} of {} to slave {} (attempt {})", chunk._index + 1, _chunks.size(),
+                    slaveIndex + 1, chunk._attemptCount);
+            future = _clusterManager.dispatchJob(chunk._slaveJob, context);
+        } catch (final Exception e) {
+            logger.warn("Failed to dispatch slave job " + (chunk._index + 1) + " to slave " + (slaveIndex + 1), e);
+            future = new FailedAnalysisResultFuture(e);
+        }
+
+        final Attempt attempt = new Attempt(chunk, slaveIndex, now, future);
+        chunk._running.add(attempt);
+        _running.add(attempt);
+    }
+
+    private void cancel(final Attempt attempt) {
+        try {
+            attempt._future.cancel();
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to cancel slave job {} on slave {}", attempt._chunk._index + 1,
+                    attempt._slaveIndex + 1, e);
+        }
+    }
+}
@@ -48,7 +48,6 @@ import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.JaxbJobWriter;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.result.AnalysisResult;
-import org.datacleaner.util.ChangeAwareObjectInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,8 +60,15 @@ public class HttpClusterManager implements ClusterManager {
     public static final String HTTP_PARAM_SLAVE_JOB_ID = "slave-job-id";
     public static final String HTTP_PARAM_ACTION = "action";
     public static final String HTTP_PARAM_JOB_DEF = "job-def";
+    public static final String HTTP_PARAM_RESULT_FORMAT = "result-format";
     public static final String ACTION_RUN = "run";
     public static final String ACTION_CANCEL = "cancel";
+
+    /**
+     * The number of slave jobs to divide a job into per slave, so that fast
+     * slaves can pick up the work of slow ones.
+     */
+    public static final int SLAVE_JOBS_PER_SLAVE = 4;
     private static final Logger logger = LoggerFactory.getLogger(HttpClusterManager.class);
     private final HttpClient _httpClient;
     private final List<String> _slaveEndpoints;
@@ -99,14 +105,19 @@ public class HttpClusterManager implements ClusterManager {
 
     @Override
     public JobDivisionManager getJobDivisionManager() {
-        return new FixedDivisionsCountJobDivisionManager(_slaveEndpoints.size());
+        return new FixedDivisionsCountJobDivisionManager(_slaveEndpoints.size() * SLAVE_JOBS_PER_SLAVE);
+    }
+
+    @Override
+    public int getSlaveCount() {
+        return _slaveEndpoints.size();
     }
 
     @Override
     public AnalysisResultFuture dispatchJob(final AnalysisJob job, final DistributedJobContext context)
             throws Exception {
         // determine endpoint url
-        final int index = context.getJobDivisionIndex();
+        final int index = context.getSlaveIndex();
         final String slaveEndpoint = _slaveEndpoints.get(index);
 
         // write the job as XML
@@ -143,6 +154,7 @@ public class HttpClusterManager implements ClusterManager {
                 parameters.add(new BasicNameValuePair(HTTP_PARAM_SLAVE_JOB_ID, slaveJobId));
                 parameters.add(new BasicNameValuePair(HTTP_PARAM_ACTION, ACTION_RUN));
                 parameters.add(new BasicNameValuePair(HTTP_PARAM_JOB_DEF, new String(bytes)));
+                parameters.add(new BasicNameValuePair(HTTP_PARAM_RESULT_FORMAT, SlaveResultCodec.FORMAT_NAME));
 
                 final UrlEncodedFormEntity entity = new UrlEncodedFormEntity(parameters);
                 request.setEntity(entity);
@@ -196,9 +208,7 @@ public class HttpClusterManager implements ClusterManager {
     }
 
     protected AnalysisResult readResult(final InputStream inputStream, final List<Throwable> errors) throws Exception {
-        final ChangeAwareObjectInputStream changeAwareObjectInputStream = new ChangeAwareObjectInputStream(inputStream);
-        final Object object = changeAwareObjectInputStream.readObject();
-        changeAwareObjectInputStream.close();
+        final Object object = SlaveResultCodec.read(inputStream);
         if (object instanceof AnalysisResult) {
             // response carries a result
             return (AnalysisResult) object;
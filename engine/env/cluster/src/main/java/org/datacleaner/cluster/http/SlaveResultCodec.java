@@ -0,0 +1,136 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster.http;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/**
+ * Encodes and decodes the results that slaves send to the master in response
+ * to a 'run' request.
+ *
+ * The encoded form starts with a header of a magic number, a format version
+ * and a compression type, followed by the LZ4 compressed serialized result.
+ * The result is written directly to the response stream, so it is sent in
+ * chunks while it is being serialized, rather than being buffered as a whole
+ * first.
+ *
+ * Responses of slaves that do not know this format (or of masters that did not
+ * ask for it) are plain serialized objects, which are also accepted when
+ * decoding.
+ */
+public final class SlaveResultCodec {
+
+    /**
+     * The value of the {@link HttpClusterManager#HTTP_PARAM_RESULT_FORMAT}
+     * parameter when the master accepts results in this format.
+     */
+    public static final String FORMAT_NAME = "dcr-lz4";
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'D', 'C', 'R', 'S' };
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_LZ4 = 1;
+
+    private SlaveResultCodec() {
+        // prevent instantiation
+    }
+
+    /**
+     * Writes an object (typically a result or a list of errors) to a stream,
+     * and closes the stream.
+     *
+     * @param object
+     * @param outputStream
+     * @throws IOException
+     */
+    public static void write(final Serializable object, final OutputStream outputStream) throws IOException {
+        outputStream.write(MAGIC);
+        outputStream.write(VERSION);
+        outputStream.write(COMPRESSION_LZ4);
+
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(
+                new LZ4FrameOutputStream(outputStream, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB))) {
+            objectOutputStream.writeObject(object);
+        }
+    }
+
+    /**
+     * Reads an object from a stream, which may either be in this format or a
+     * plain serialized object.
+     *
+     * @param inputStream
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static Object read(final InputStream inputStream) throws IOException, ClassNotFoundException {
+        final InputStream in = new BufferedInputStream(inputStream);
+        in.mark(MAGIC.length);
+
+        final byte[] magic = new byte[MAGIC.length];
+        int length = 0;
+        while (length < magic.length) {
+            final int read = in.read(magic, length, magic.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+
+        if (!Arrays.equals(MAGIC, magic)) {
+            // a plain serialized object
+            in.reset();
+            return readObject(in);
+        }
+
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Unsupported slave result format version: " + version);
+        }
+
+        final int compression = in.read();
+        switch (compression) {
+        case COMPRESSION_NONE:
+            return readObject(in);
+        case COMPRESSION_LZ4:
+            return readObject(new LZ4FrameInputStream(in));
+        default:
+            throw new IOException("Unsupported slave result compression: " + compression);
+        }
+    }
+
+    private static Object readObject(final InputStream in) throws IOException, ClassNotFoundException {
+        try (ChangeAwareObjectInputStream objectInputStream = new ChangeAwareObjectInputStream(in)) {
+            return objectInputStream.readObject();
+        }
+    }
+}
@@ -153,7 +153,7 @@ public class SlaveServletHelper {
      *
      * {@link #serializeResult(AnalysisResultFuture, String)}
      *
-     * {@link #sendResponse(HttpServletResponse, Serializable)}
+     * {@link #sendResponse(HttpServletResponse, Serializable, String)}
      *
      * @param request
      * @param response
@@ -192,7 +192,8 @@ public class SlaveServletHelper {
             }
 
             try {
-                sendResponse(response, resultObject);
+                final String resultFormat = request.getParameter(HttpClusterManager.HTTP_PARAM_RESULT_FORMAT);
+                sendResponse(response, resultObject, resultFormat);
             } catch (final IOException e) {
                 logger.error("Failed to send job result through HTTP response", e);
                 throw e;
@@ -324,4 +325,25 @@ public class SlaveServletHelper {
             outputStream.flush();
         }
     }
+
+    /**
+     * Sends the result (or errors) of a slave job in the format that the
+     * master requested, see {@link SlaveResultCodec}.
+     *
+     * @param response
+     * @param object
+     * @param resultFormat
+     *            the requested format, or null if the master only accepts
+     *            plain serialized objects
+     * @throws IOException
+     */
+    public void sendResponse(final HttpServletResponse response, final Serializable object,
+            final String resultFormat) throws IOException {
+        if (!SlaveResultCodec.FORMAT_NAME.equals(resultFormat)) {
+            sendResponse(response, object);
+            return;
+        }
+        response.setContentType("application/octet-stream");
+        SlaveResultCodec.write(object, response.getOutputStream());
+    }
 }
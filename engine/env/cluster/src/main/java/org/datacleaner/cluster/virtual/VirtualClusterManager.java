@@ -49,6 +49,11 @@ public class VirtualClusterManager implements ClusterManager {
         return runner.run(job);
     }
 
+    @Override
+    public int getSlaveCount() {
+        return _nodeCount;
+    }
+
     @Override
     public JobDivisionManager getJobDivisionManager() {
         return new FixedDivisionsCountJobDivisionManager(_nodeCount);
@@ -19,13 +19,19 @@
  */
 package org.datacleaner.cluster;
 
+import java.util.Collections;
 import java.util.List;
 
+import org.datacleaner.beans.valuematch.ValueMatchAnalyzer;
+import org.datacleaner.beans.valuematch.ValueMatchAnalyzerResult;
 import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.connection.Datastore;
+import org.datacleaner.descriptors.ComponentDescriptor;
 import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.FilterJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.job.runner.AnalysisResultFuture;
@@ -88,6 +94,111 @@ public class DistributedAnalysisRunnerTest extends TestCase {
         ClusterTestHelper.runBasicAnalyzersJob(configuration, new VirtualClusterManager(configuration, 10));
     }
 
+    public void testSlaveJobsAreSlicedByKeyRange() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final ValueMatchAnalyzerResult baseline =
+                runOrderStatusJob(configuration, new VirtualClusterManager(configuration, 1));
+
+        final MockClusterManagerWithFaults clusterManager = new MockClusterManagerWithFaults(configuration, 3, 5);
+        final ValueMatchAnalyzerResult result = runOrderStatusJob(configuration, clusterManager);
+
+        assertEquals(baseline.getCount("Shipped"), result.getCount("Shipped"));
+        assertEquals(baseline.getUnexpectedValueCount(), result.getUnexpectedValueCount());
+        assertEquals(326, result.getCount("Shipped") + result.getUnexpectedValueCount());
+
+        // ORDERNUMBER is the primary key, so the slave jobs are sliced by
+        // key ranges which together cover all keys
+        final List<AnalysisJob> slaveJobs = clusterManager.getDispatchedJobs();
+        final List<Integer> slaveJobIndexes = clusterManager.getDispatchedSlaveJobs();
+        assertEquals(5, slaveJobs.size());
+
+        Long previousHighestKey = null;
+        for (int i = 0; i < slaveJobs.size(); i++) {
+            final FilterJob filterJob = slaveJobs.get(slaveJobIndexes.indexOf(i)).getFilterJobs().iterator().next();
+            assertEquals(KeyRangeFilter.class, filterJob.getDescriptor().getComponentClass());
+            assertEquals("ORDERNUMBER", filterJob.getInput()[0].getName());
+
+            final ComponentDescriptor<?> descriptor = filterJob.getDescriptor();
+            final Long lowestKey =
+                    (Long) filterJob.getConfiguration().getProperty(descriptor.getConfiguredProperty("Lowest key"));
+            final Long highestKey =
+                    (Long) filterJob.getConfiguration().getProperty(descriptor.getConfiguredProperty("Highest key"));
+            assertEquals(previousHighestKey, lowestKey);
+            if (i == slaveJobs.size() - 1) {
+                assertNull(highestKey);
+            } else {
+                assertNotNull(highestKey);
+            }
+            previousHighestKey = highestKey;
+        }
+    }
+
+    private ValueMatchAnalyzerResult runOrderStatusJob(final DataCleanerConfiguration configuration,
+            final ClusterManager clusterManager) {
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore("orderdb");
+            jobBuilder.addSourceColumns("ORDERS.STATUS");
+
+            final AnalyzerComponentBuilder<ValueMatchAnalyzer> valueMatch =
+                    jobBuilder.addAnalyzer(ValueMatchAnalyzer.class);
+            valueMatch.addInputColumns(jobBuilder.getSourceColumns());
+            valueMatch.setConfiguredProperty("Expected values", new String[] { "Shipped" });
+
+            final AnalysisResultFuture resultFuture =
+                    new DistributedAnalysisRunner(configuration, clusterManager).run(jobBuilder.toAnalysisJob());
+            resultFuture.await();
+            assertTrue(resultFuture.getErrors().toString(), resultFuture.isSuccessful());
+
+            return (ValueMatchAnalyzerResult) resultFuture.getResults().get(0);
+        }
+    }
+
+    public void testStragglingSlaveJobIsReExecuted() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final MockClusterManagerWithFaults clusterManager = new MockClusterManagerWithFaults(configuration, 2, 6);
+        clusterManager.setSlowSlave(0, 20000);
+
+        final long start = System.currentTimeMillis();
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+        final long duration = System.currentTimeMillis() - start;
+
+        assertTrue("Job took " + duration + " ms", duration < 20000);
+
+        // the first slave job is dispatched twice, the others once
+        final List<Integer> dispatchedSlaveJobs = clusterManager.getDispatchedSlaveJobs();
+        assertEquals(7, dispatchedSlaveJobs.size());
+        assertEquals(0, dispatchedSlaveJobs.get(6).intValue());
+    }
+
+    public void testFailedSlaveJobIsReExecuted() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final MockClusterManagerWithFaults clusterManager = new MockClusterManagerWithFaults(configuration, 3, 9);
+        clusterManager.setFailingSlave(0);
+
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+
+        final List<Integer> dispatchedSlaveJobs = clusterManager.getDispatchedSlaveJobs();
+        assertEquals(10, dispatchedSlaveJobs.size());
+        assertEquals(2, Collections.frequency(dispatchedSlaveJobs, 0));
+    }
+
+    public void testFailedSlaveIsNotGivenMoreSlaveJobs() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final MockClusterManagerWithFaults clusterManager = new MockClusterManagerWithFaults(configuration, 3, 9);
+        clusterManager.setDeadSlave(0);
+
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+
+        // the slave job that failed is re-executed on another slave
+        final List<Integer> dispatchedSlaves = clusterManager.getDispatchedSlaves();
+        assertEquals(10, dispatchedSlaves.size());
+        assertEquals(1, Collections.frequency(dispatchedSlaves, 0));
+    }
+
     public void testErrorHandlingSingleSlave() throws Exception {
         final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
 
@@ -0,0 +1,147 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.metamodel.util.LazyRef;
+import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.result.AnalysisResult;
+
+/**
+ * {@link VirtualClusterManager} which divides jobs into a fixed number of
+ * slave jobs, and which can make the first slave job dispatched to a slave
+ * slow or failing, or make a slave fail all its slave jobs. Used only for
+ * testing.
+ */
+public class MockClusterManagerWithFaults extends VirtualClusterManager {
+
+    private final int _slaveJobCount;
+    private final List<Integer> _dispatchedSlaveJobs;
+    private final List<Integer> _dispatchedSlaves;
+    private final List<AnalysisJob> _dispatchedJobs;
+    private final AtomicInteger _dispatchCount;
+    private int _slowSlaveIndex = -1;
+    private long _slowDelayMillis;
+    private int _failingSlaveIndex = -1;
+    private int _deadSlaveIndex = -1;
+
+    public MockClusterManagerWithFaults(final DataCleanerConfiguration configuration, final int nodeCount,
+            final int slaveJobCount) {
+        super(configuration, nodeCount);
+        _slaveJobCount = slaveJobCount;
+        _dispatchedSlaveJobs = Collections.synchronizedList(new ArrayList<>());
+        _dispatchedSlaves = Collections.synchronizedList(new ArrayList<>());
+        _dispatchedJobs = Collections.synchronizedList(new ArrayList<>());
+        _dispatchCount = new AtomicInteger();
+    }
+
+    public void setSlowSlave(final int slaveIndex, final long delayMillis) {
+        _slowSlaveIndex = slaveIndex;
+        _slowDelayMillis = delayMillis;
+    }
+
+    public void setFailingSlave(final int slaveIndex) {
+        _failingSlaveIndex = slaveIndex;
+    }
+
+    public void setDeadSlave(final int slaveIndex) {
+        _deadSlaveIndex = slaveIndex;
+    }
+
+    /**
+     * Gets the indexes of the slave jobs that were dispatched, in dispatch
+     * order.
+     *
+     * @return
+     */
+    public List<Integer> getDispatchedSlaveJobs() {
+        return new ArrayList<>(_dispatchedSlaveJobs);
+    }
+
+    /**
+     * Gets the indexes of the slaves that slave jobs were dispatched to, in
+     * dispatch order.
+     *
+     * @return
+     */
+    public List<Integer> getDispatchedSlaves() {
+        return new ArrayList<>(_dispatchedSlaves);
+    }
+
+    /**
+     * Gets the slave jobs that were dispatched, in dispatch order.
+     *
+     * @return
+     */
+    public List<AnalysisJob> getDispatchedJobs() {
+        return new ArrayList<>(_dispatchedJobs);
+    }
+
+    @Override
+    public JobDivisionManager getJobDivisionManager() {
+        return new FixedDivisionsCountJobDivisionManager(_slaveJobCount);
+    }
+
+    @Override
+    public AnalysisResultFuture dispatchJob(final AnalysisJob job, final DistributedJobContext context) {
+        _dispatchedSlaveJobs.add(context.getJobDivisionIndex());
+        _dispatchedSlaves.add(context.getSlaveIndex());
+        _dispatchedJobs.add(job);
+        final boolean firstDispatch = _dispatchCount.getAndIncrement() == 0;
+
+        if (context.getSlaveIndex() == _deadSlaveIndex) {
+            return new FailedAnalysisResultFuture(new IllegalStateException("Slave is dead"));
+        }
+
+        if (firstDispatch && context.getSlaveIndex() == _failingSlaveIndex) {
+            return new FailedAnalysisResultFuture(new IllegalStateException("Slave is failing"));
+        }
+
+        if (firstDispatch && context.getSlaveIndex() == _slowSlaveIndex) {
+            final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+            final LazyRef<AnalysisResult> resultRef = new LazyRef<AnalysisResult>() {
+                @Override
+                protected AnalysisResult fetch() throws Throwable {
+                    Thread.sleep(_slowDelayMillis);
+                    final AnalysisResultFuture result = MockClusterManagerWithFaults.super.dispatchJob(job, context);
+                    result.await();
+                    return result;
+                }
+            };
+            resultRef.requestLoad(errors::add);
+            return new LazyRefAnalysisResultFuture(resultRef, errors) {
+                @Override
+                public void cancel() {
+                    // the slow slave job will complete, but its result is
+                    // ignored
+                }
+            };
+        }
+
+        return super.dispatchJob(job, context);
+    }
+}
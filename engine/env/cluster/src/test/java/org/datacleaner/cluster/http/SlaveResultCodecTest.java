@@ -0,0 +1,75 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.SerializationUtils;
+
+import junit.framework.TestCase;
+
+public class SlaveResultCodecTest extends TestCase {
+
+    public void testWriteAndRead() throws Exception {
+        final ArrayList<String> object = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            object.add("value " + (i % 100));
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SlaveResultCodec.write(object, out);
+        final byte[] bytes = out.toByteArray();
+
+        assertEquals('D', bytes[0]);
+        assertEquals(SlaveResultCodec.VERSION, bytes[4]);
+        assertTrue("Encoded size: " + bytes.length, bytes.length < SerializationUtils.serialize(object).length / 4);
+
+        assertEquals(object, SlaveResultCodec.read(new ByteArrayInputStream(bytes)));
+    }
+
+    public void testReadPlainSerializedObject() throws Exception {
+        final List<Throwable> errors = new ArrayList<>();
+        errors.add(new IllegalStateException("foo"));
+
+        final byte[] bytes = SerializationUtils.serialize((ArrayList<Throwable>) errors);
+
+        final Object object = SlaveResultCodec.read(new ByteArrayInputStream(bytes));
+        assertTrue(object instanceof List);
+        assertEquals("foo", ((Throwable) ((List<?>) object).get(0)).getMessage());
+    }
+
+    public void testReadUnsupportedVersion() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SlaveResultCodec.write("foo", out);
+        final byte[] bytes = out.toByteArray();
+        bytes[4] = 42;
+
+        try {
+            SlaveResultCodec.read(new ByteArrayInputStream(bytes));
+            fail("Exception expected");
+        } catch (final IOException e) {
+            assertEquals("Unsupported slave result format version: 42", e.getMessage());
+        }
+    }
+}
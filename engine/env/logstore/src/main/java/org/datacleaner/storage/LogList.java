@@ -0,0 +1,178 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * {@link List} which stores its elements in a {@link LogStore}.
+ *
+ * Each element is appended to the store as a single record, and only the
+ * addresses of the records are kept in memory. Replaced and removed elements
+ * are left in the store until they make up more than half of it, at which
+ * point the store is compacted.
+ *
+ * Elements are copied into the store, so changing an element after adding it
+ * to the list does not change the list.
+ *
+ * @param <E>
+ */
+public final class LogList<E> extends AbstractList<E> implements RandomAccess, Closeable {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long MIN_COMPACTION_GARBAGE = 4 * 1024 * 1024;
+
+    private final LogStore _store;
+    private final ValueCodec<E> _codec;
+    private final RecordBuffer _buffer;
+    private long[] _addresses;
+    private int _size;
+    private long _garbageBytes;
+
+    public LogList(final LogStore store, final ValueCodec<E> codec) {
+        _store = store;
+        _codec = codec;
+        _buffer = new RecordBuffer();
+        _addresses = new long[INITIAL_CAPACITY];
+    }
+
+    private void checkIndex(final int index, final int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > _addresses.length) {
+            _addresses = Arrays.copyOf(_addresses, Math.max(capacity, _addresses.length * 2));
+        }
+    }
+
+    private long append(final E element) {
+        return _buffer.encode(null, null, _codec, element).appendTo(_store);
+    }
+
+    private E read(final long address) {
+        return RecordBuffer.decodeValue(null, _codec, _store.read(address));
+    }
+
+    /**
+     * Reads the element at an address and marks its record as garbage.
+     */
+    private E discard(final long address) {
+        final byte[] record = _store.read(address);
+        _garbageBytes += LogStore.getRecordSize(record.length);
+        return RecordBuffer.decodeValue(null, _codec, record);
+    }
+
+    private void compactIfNeeded() {
+        if (_garbageBytes < MIN_COMPACTION_GARBAGE || _garbageBytes * 2 < _store.size()) {
+            return;
+        }
+        final long[] addresses = _store.compact(Arrays.copyOf(_addresses, _size));
+        System.arraycopy(addresses, 0, _addresses, 0, _size);
+        _garbageBytes = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return _size;
+    }
+
+    @Override
+    public synchronized E get(final int index) {
+        checkIndex(index, _size);
+        return read(_addresses[index]);
+    }
+
+    @Override
+    public synchronized E set(final int index, final E element) {
+        checkIndex(index, _size);
+        final E previous = discard(_addresses[index]);
+        _addresses[index] = append(element);
+        compactIfNeeded();
+        return previous;
+    }
+
+    @Override
+    public synchronized void add(final int index, final E element) {
+        checkIndex(index, _size + 1);
+        ensureCapacity(_size + 1);
+        final long address = append(element);
+        System.arraycopy(_addresses, index, _addresses, index + 1, _size - index);
+        _addresses[index] = address;
+        _size++;
+        modCount++;
+        compactIfNeeded();
+    }
+
+    /**
+     * Adds all elements of a collection to the end of the list. The elements
+     * are encoded up front and appended to the store in one go.
+     */
+    @Override
+    public synchronized boolean addAll(final Collection<? extends E> elements) {
+        if (elements.isEmpty()) {
+            return false;
+        }
+        final List<byte[]> records = new ArrayList<>(elements.size());
+        for (final E element : elements) {
+            records.add(_buffer.encode(null, null, _codec, element).toByteArray());
+        }
+        final long[] addresses = _store.appendAll(records);
+        ensureCapacity(_size + addresses.length);
+        System.arraycopy(addresses, 0, _addresses, _size, addresses.length);
+        _size += addresses.length;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public synchronized E remove(final int index) {
+        checkIndex(index, _size);
+        final E previous = discard(_addresses[index]);
+        System.arraycopy(_addresses, index + 1, _addresses, index, _size - index - 1);
+        _size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        _store.clear();
+        _size = 0;
+        _garbageBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Closes the list and deletes its store.
+     */
+    @Override
+    public void close() {
+        _store.close();
+    }
+}
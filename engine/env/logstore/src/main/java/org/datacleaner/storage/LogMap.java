@@ -0,0 +1,419 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link Map} which stores its entries in a {@link LogStore}.
+ *
+ * Each entry is appended to the store as a single record. Only the hash codes
+ * of the keys and the addresses of the records are kept in memory, in an open
+ * addressing hash table, so looking up a key typically takes a single read.
+ * Replaced and removed entries are left in the store until they make up more
+ * than half of it, at which point the store is compacted.
+ *
+ * Null keys are not supported. Values are copied into the store, so changing
+ * a value after putting it in the map does not change the map.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public final class LogMap<K, V> extends AbstractMap<K, V> implements Closeable {
+
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long MIN_COMPACTION_GARBAGE = 4 * 1024 * 1024;
+
+    private final LogStore _store;
+    private final ValueCodec<K> _keyCodec;
+    private final ValueCodec<V> _valueCodec;
+    private final RecordBuffer _buffer;
+    private int[] _hashes;
+    private long[] _addresses;
+    private int _size;
+    private long _garbageBytes;
+    private int _modCount;
+    private byte[] _foundRecord;
+
+    public LogMap(final LogStore store, final ValueCodec<K> keyCodec, final ValueCodec<V> valueCodec) {
+        _store = store;
+        _keyCodec = keyCodec;
+        _valueCodec = valueCodec;
+        _buffer = new RecordBuffer();
+        _hashes = new int[INITIAL_CAPACITY];
+        _addresses = new long[INITIAL_CAPACITY];
+        Arrays.fill(_addresses, EMPTY);
+    }
+
+    private static int hash(final Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the slot of a key. If found, the record of the key is kept in
+     * {@link #_foundRecord}.
+     *
+     * @return the slot of the key, or -(insertion slot + 1) if not found
+     */
+    private int find(final Object key, final int hash) {
+        final int mask = _addresses.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final long address = _addresses[slot];
+            if (address == EMPTY) {
+                return -(slot + 1);
+            }
+            if (_hashes[slot] == hash) {
+                final byte[] record = _store.read(address);
+                if (key.equals(RecordBuffer.decodeKey(_keyCodec, record))) {
+                    _foundRecord = record;
+                    return slot;
+                }
+            }
+        }
+    }
+
+    private int findKey(final Object key) {
+        if (key == null) {
+            return -1;
+        }
+        return find(key, hash(key));
+    }
+
+    private void resizeIfNeeded() {
+        if ((_size + 1) * 2 <= _addresses.length) {
+            return;
+        }
+        final int[] hashes = _hashes;
+        final long[] addresses = _addresses;
+        _hashes = new int[addresses.length * 2];
+        _addresses = new long[addresses.length * 2];
+        Arrays.fill(_addresses, EMPTY);
+        final int mask = _addresses.length - 1;
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i] != EMPTY) {
+                int slot = hashes[i] & mask;
+                while (_addresses[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                _hashes[slot] = hashes[i];
+                _addresses[slot] = addresses[i];
+            }
+        }
+    }
+
+    private void deleteSlot(final int slot) {
+        // backward shift deletion, to keep probe sequences intact
+        final int mask = _addresses.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; _addresses[i] != EMPTY; i = (i + 1) & mask) {
+            final int idealSlot = _hashes[i] & mask;
+            if (((i - idealSlot) & mask) >= ((i - hole) & mask)) {
+                _hashes[hole] = _hashes[i];
+                _addresses[hole] = _addresses[i];
+                hole = i;
+            }
+        }
+        _addresses[hole] = EMPTY;
+    }
+
+    /**
+     * Puts an entry in the map.
+     *
+     * @param key
+     * @param value
+     * @param replace
+     *            whether to replace the value of an existing entry
+     * @param compact
+     *            whether the store may be compacted
+     * @return the slot of the entry, or -(slot + 1) if the entry was added
+     */
+    private int putEntry(final K key, final V value, final boolean replace, final boolean compact) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        final int hash = hash(key);
+        resizeIfNeeded();
+        final int slot = find(key, hash);
+        if (slot >= 0) {
+            if (replace) {
+                _garbageBytes += LogStore.getRecordSize(_foundRecord.length);
+                _addresses[slot] = _buffer.encode(_keyCodec, key, _valueCodec, value).appendTo(_store);
+                if (compact) {
+                    compactIfNeeded();
+                }
+            }
+            return slot;
+        }
+
+        final int insertionSlot = -(slot + 1);
+        _hashes[insertionSlot] = hash;
+        _addresses[insertionSlot] = _buffer.encode(_keyCodec, key, _valueCodec, value).appendTo(_store);
+        _size++;
+        _modCount++;
+        if (compact) {
+            compactIfNeeded();
+        }
+        return slot;
+    }
+
+    private void compactIfNeeded() {
+        if (_garbageBytes < MIN_COMPACTION_GARBAGE || _garbageBytes * 2 < _store.size()) {
+            return;
+        }
+        final int[] slots = new int[_size];
+        final long[] addresses = new long[_size];
+        int count = 0;
+        for (int slot = 0; slot < _addresses.length; slot++) {
+            if (_addresses[slot] != EMPTY) {
+                slots[count] = slot;
+                addresses[count] = _addresses[slot];
+                count++;
+            }
+        }
+        final long[] newAddresses = _store.compact(addresses);
+        for (int i = 0; i < count; i++) {
+            _addresses[slots[i]] = newAddresses[i];
+        }
+        _garbageBytes = 0;
+        _modCount++;
+    }
+
+    @Override
+    public synchronized int size() {
+        return _size;
+    }
+
+    @Override
+    public synchronized boolean containsKey(final Object key) {
+        return findKey(key) >= 0;
+    }
+
+    @Override
+    public synchronized V get(final Object key) {
+        if (findKey(key) < 0) {
+            return null;
+        }
+        return RecordBuffer.decodeValue(_keyCodec, _valueCodec, _foundRecord);
+    }
+
+    @Override
+    public synchronized V put(final K key, final V value) {
+        if (putEntry(key, value, true, true) < 0) {
+            return null;
+        }
+        return RecordBuffer.decodeValue(_keyCodec, _valueCodec, _foundRecord);
+    }
+
+    /**
+     * Puts all entries of a map in this map. Unlike repeated invocations of
+     * {@link #put(Object, Object)}, the replaced values are not read from the
+     * store.
+     */
+    @Override
+    public synchronized void putAll(final Map<? extends K, ? extends V> map) {
+        for (final Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            putEntry(entry.getKey(), entry.getValue(), true, false);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Adds an entry to the map, unless the map already contains the key.
+     *
+     * @param key
+     * @param value
+     * @return whether the entry was added
+     */
+    public synchronized boolean add(final K key, final V value) {
+        return putEntry(key, value, false, true) < 0;
+    }
+
+    @Override
+    public synchronized V remove(final Object key) {
+        if (!removeKey(key)) {
+            return null;
+        }
+        return RecordBuffer.decodeValue(_keyCodec, _valueCodec, _foundRecord);
+    }
+
+    /**
+     * Removes an entry from the map, without reading its value.
+     *
+     * @param key
+     * @return whether the map contained the key
+     */
+    public synchronized boolean removeKey(final Object key) {
+        final int slot = findKey(key);
+        if (slot < 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        _garbageBytes += LogStore.getRecordSize(_foundRecord.length);
+        _size--;
+        _modCount++;
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        _store.clear();
+        Arrays.fill(_addresses, EMPTY);
+        _size = 0;
+        _garbageBytes = 0;
+        _modCount++;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return LogMap.this.size();
+            }
+
+            @Override
+            public boolean contains(final Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                final Entry<?, ?> entry = (Entry<?, ?>) o;
+                synchronized (LogMap.this) {
+                    if (!containsKey(entry.getKey())) {
+                        return false;
+                    }
+                    final V value = get(entry.getKey());
+                    return value == null ? entry.getValue() == null : value.equals(entry.getValue());
+                }
+            }
+
+            @Override
+            public void clear() {
+                LogMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Iterates the entries in the order of their records in the store, so
+     * that the store is read sequentially.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final long[] _iteratedAddresses;
+        private int _index;
+        private int _expectedModCount;
+        private K _lastKey;
+
+        private EntryIterator() {
+            synchronized (LogMap.this) {
+                _iteratedAddresses = new long[_size];
+                int count = 0;
+                for (final long address : _addresses) {
+                    if (address != EMPTY) {
+                        _iteratedAddresses[count++] = address;
+                    }
+                }
+                Arrays.sort(_iteratedAddresses);
+                _expectedModCount = _modCount;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _iteratedAddresses.length;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final byte[] record;
+            synchronized (LogMap.this) {
+                if (_modCount != _expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                record = _store.read(_iteratedAddresses[_index++]);
+            }
+            try {
+                final DataInputStream in = RecordBuffer.open(record);
+                final K key = _keyCodec.decode(in);
+                final V value = RecordBuffer.decodeValue(_valueCodec, in);
+                _lastKey = key;
+                return new SimpleEntry<K, V>(key, value) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    public V setValue(final V value) {
+                        synchronized (LogMap.this) {
+                            // don't compact the store, since that would end
+                            // the iteration
+                            putEntry(key, value, true, false);
+                        }
+                        return super.setValue(value);
+                    }
+                };
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Could not decode record", e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (_lastKey == null) {
+                throw new IllegalStateException();
+            }
+            synchronized (LogMap.this) {
+                if (_modCount != _expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeKey(_lastKey);
+                _expectedModCount = _modCount;
+            }
+            _lastKey = null;
+        }
+    }
+
+    /**
+     * Closes the map and deletes its store.
+     */
+    @Override
+    public void close() {
+        _store.close();
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+
+/**
+ * {@link RowAnnotationFactory} which keeps the sample records of its
+ * annotations in a {@link LogStore}, so that large numbers of samples can be
+ * kept without using much memory.
+ *
+ * The samples are drawn with reservoir sampling, like in
+ * {@link CompactRowAnnotationFactory}, and encoded the same way. Replaced
+ * samples are left in the store, but since a sample is replaced with a
+ * decreasing probability, the store only grows logarithmically with the number
+ * of annotated records.
+ *
+ * When closed, which happens when the job it belongs to is done, the samples
+ * are moved into a {@link CompactRowAnnotationFactory} that the factory
+ * delegates to from then on, and the store is closed. The samples thereby
+ * remain available to the results of the job. When serialized, eg. as part of
+ * an analysis result, the factory is likewise replaced by a
+ * {@link CompactRowAnnotationFactory} holding the same samples.
+ */
+public final class LogRowAnnotationFactory extends AbstractRowAnnotationFactory2
+        implements RowAnnotationFactory, Serializable, Closeable {
+
+    /**
+     * A sample record, whose values are kept in the store.
+     */
+    private static final class Sample {
+
+        private final long _rowId;
+        private final List<InputColumn<?>> _columns;
+        private final long _address;
+
+        private Sample(final long rowId, final List<InputColumn<?>> columns, final long address) {
+            _rowId = rowId;
+            _columns = columns;
+            _address = address;
+        }
+    }
+
+    /**
+     * A reservoir of samples for a single annotation.
+     */
+    private static final class Reservoir {
+
+        private List<Sample> _samples = new ArrayList<>();
+        private List<InputColumn<?>> _columns = Collections.emptyList();
+        private long _offeredCount;
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient LogStore _store;
+    private final transient ConcurrentHashMap<RowAnnotation, Reservoir> _storage;
+    private final int _maxSampleSets;
+    private final int _maxSampleRecords;
+    private transient volatile CompactRowAnnotationFactory _detachedFactory;
+
+    /**
+     *
+     * @param store
+     *            the store to keep the sample records in
+     * @param maxSampleSets
+     *            the maximum number of sample record collections to keep
+     * @param maxSampleRecords
+     *            the maximum number of records to keep in each collection
+     */
+    public LogRowAnnotationFactory(final LogStore store, final int maxSampleSets, final int maxSampleRecords) {
+        _store = store;
+        _storage = new ConcurrentHashMap<>();
+        _maxSampleSets = Math.max(0, maxSampleSets);
+        _maxSampleRecords = Math.max(0, maxSampleRecords);
+    }
+
+    @Override
+    public void close() {
+        synchronized (_store) {
+            if (_detachedFactory != null) {
+                return;
+            }
+            _detachedFactory = createDetachedFactory();
+            _store.close();
+        }
+        _storage.clear();
+    }
+
+    private Reservoir getReservoir(final RowAnnotation annotation) {
+        Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            if (_storage.size() >= _maxSampleSets) {
+                return null;
+            }
+            reservoir = new Reservoir();
+            final Reservoir existingReservoir = _storage.putIfAbsent(annotation, reservoir);
+            if (existingReservoir != null) {
+                reservoir = existingReservoir;
+            }
+        }
+        return reservoir;
+    }
+
+    @Override
+    public void annotate(final InputRow row, final RowAnnotation annotation) {
+        final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+        if (detachedFactory != null) {
+            detachedFactory.annotate(row, annotation);
+            return;
+        }
+
+        super.annotate(row, annotation);
+
+        if (_maxSampleRecords == 0) {
+            return;
+        }
+
+        final Reservoir reservoir = getReservoir(annotation);
+        if (reservoir == null) {
+            return;
+        }
+
+        synchronized (reservoir) {
+            reservoir._offeredCount++;
+
+            final List<Sample> samples = reservoir._samples;
+            final int index = ReservoirSampling.nextIndex(reservoir._offeredCount, samples.size(), _maxSampleRecords);
+            if (index == -1) {
+                return;
+            }
+
+            reservoir._columns = CompactRowSample.getVisibleColumns(row, reservoir._columns);
+            final CompactRowSample compactSample = CompactRowSample.create(row, reservoir._columns);
+            final Sample sample =
+                    new Sample(row.getId(), reservoir._columns, _store.append(compactSample.getValues()));
+            if (index == samples.size()) {
+                samples.add(sample);
+            } else {
+                samples.set(index, sample);
+            }
+        }
+    }
+
+    @Override
+    public void resetAnnotation(final RowAnnotation annotation) {
+        final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+        if (detachedFactory != null) {
+            detachedFactory.resetAnnotation(annotation);
+            return;
+        }
+
+        super.resetAnnotation(annotation);
+        _storage.remove(annotation);
+    }
+
+    /**
+     * Reads the samples of a reservoir from the store.
+     *
+     * @param reservoir
+     * @return the samples, or null if the factory has been closed
+     */
+    private List<CompactRowSample> readSamples(final Reservoir reservoir) {
+        final List<Sample> samples;
+        synchronized (reservoir) {
+            samples = new ArrayList<>(reservoir._samples);
+        }
+
+        final List<CompactRowSample> compactSamples = new ArrayList<>(samples.size());
+        synchronized (_store) {
+            if (_detachedFactory != null) {
+                return null;
+            }
+            for (final Sample sample : samples) {
+                compactSamples.add(CompactRowSample.create(sample._rowId, sample._columns,
+                        _store.read(sample._address)));
+            }
+        }
+        return compactSamples;
+    }
+
+    @Override
+    public List<InputRow> getSampleRows(final RowAnnotation annotation) {
+        final Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+            if (detachedFactory != null) {
+                return detachedFactory.getSampleRows(annotation);
+            }
+            return Collections.emptyList();
+        }
+
+        final List<CompactRowSample> samples = readSamples(reservoir);
+        if (samples == null) {
+            return _detachedFactory.getSampleRows(annotation);
+        }
+        final List<InputRow> rows = new ArrayList<>(samples.size());
+        for (final CompactRowSample sample : samples) {
+            rows.add(sample.toInputRow());
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public void transferAnnotations(final RowAnnotation from, final RowAnnotation to) {
+        final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+        if (detachedFactory != null) {
+            detachedFactory.transferAnnotations(from, to);
+            return;
+        }
+
+        super.transferAnnotations(from, to);
+
+        final Reservoir fromReservoir = _storage.remove(from);
+        if (fromReservoir == null) {
+            return;
+        }
+
+        final Reservoir toReservoir = getReservoir(to);
+        if (toReservoir == null) {
+            return;
+        }
+        synchronized (fromReservoir) {
+            synchronized (toReservoir) {
+                toReservoir._samples = ReservoirSampling.merge(toReservoir._samples, toReservoir._offeredCount,
+                        fromReservoir._samples, fromReservoir._offeredCount, _maxSampleRecords, new ArrayList<>());
+                toReservoir._offeredCount += fromReservoir._offeredCount;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasSampleRows(final RowAnnotation annotation) {
+        final Reservoir reservoir = _storage.get(annotation);
+        if (reservoir == null) {
+            final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+            return detachedFactory != null && detachedFactory.hasSampleRows(annotation);
+        }
+        synchronized (reservoir) {
+            return !reservoir._samples.isEmpty();
+        }
+    }
+
+    private CompactRowAnnotationFactory createDetachedFactory() {
+        final CompactRowAnnotationFactory factory =
+                new CompactRowAnnotationFactory(_maxSampleSets, _maxSampleRecords);
+        for (final Entry<RowAnnotation, Reservoir> entry : _storage.entrySet()) {
+            final Reservoir reservoir = entry.getValue();
+            final long offeredCount;
+            synchronized (reservoir) {
+                offeredCount = reservoir._offeredCount;
+            }
+            factory.addSamples(entry.getKey(), offeredCount, readSamples(reservoir));
+        }
+        return factory;
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        synchronized (_store) {
+            final CompactRowAnnotationFactory detachedFactory = _detachedFactory;
+            if (detachedFactory != null) {
+                return detachedFactory;
+            }
+            return createDetachedFactory();
+        }
+    }
+}
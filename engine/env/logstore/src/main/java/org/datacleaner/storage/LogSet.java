@@ -0,0 +1,78 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * {@link Set} which stores its elements in a {@link LogStore}, as the keys of
+ * a {@link LogMap}.
+ *
+ * @param <E>
+ */
+public final class LogSet<E> extends AbstractSet<E> implements Closeable {
+
+    private final LogMap<E, Boolean> _map;
+
+    public LogSet(final LogStore store, final ValueCodec<E> codec) {
+        _map = new LogMap<>(store, codec, ValueCodecs.BOOLEAN);
+    }
+
+    @Override
+    public boolean add(final E element) {
+        return _map.add(element, null);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return _map.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        return _map.removeKey(o);
+    }
+
+    @Override
+    public int size() {
+        return _map.size();
+    }
+
+    @Override
+    public void clear() {
+        _map.clear();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return _map.keySet().iterator();
+    }
+
+    /**
+     * Closes the set and deletes its store.
+     */
+    @Override
+    public void close() {
+        _map.close();
+    }
+}
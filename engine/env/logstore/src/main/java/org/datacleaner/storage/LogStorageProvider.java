@@ -0,0 +1,191 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link StorageProvider} which stores collections and sample records in
+ * append-only files, see {@link LogStore}.
+ *
+ * Collections of types that have a {@link ValueCodec} are stored on disk.
+ * Codecs are built in for strings, byte arrays, dates and the boxed primitive
+ * types, and more can be added using
+ * {@link #registerCodec(Class, ValueCodec)}. Collections of other types, which
+ * are often mutable objects that components expect to be able to modify in
+ * place, are kept in memory.
+ *
+ * The collections are {@link java.io.Closeable} and are closed, deleting their
+ * files, when the component they are provided to is closed.
+ */
+public final class LogStorageProvider implements StorageProvider {
+
+    public static final int DEFAULT_MAX_SAMPLE_SETS = 500;
+    public static final int DEFAULT_MAX_SAMPLE_RECORDS = 500;
+
+    private static final String DIRECTORY_PREFIX = "logstore_";
+    private static final Logger logger = LoggerFactory.getLogger(LogStorageProvider.class);
+
+    private final File _parentDirectory;
+    private final int _maxSampleSets;
+    private final int _maxSampleRecords;
+    private final Map<Class<?>, ValueCodec<?>> _codecs;
+    private File _targetDir;
+
+    /**
+     * Creates a {@link LogStorageProvider} which stores its files in the
+     * temporary directory of the system. Allows the storage provider to be
+     * configured as a custom storage provider.
+     */
+    public LogStorageProvider() {
+        this(new File(System.getProperty("java.io.tmpdir"), "datacleaner-logstore"));
+    }
+
+    public LogStorageProvider(final File parentDirectory) {
+        this(parentDirectory, DEFAULT_MAX_SAMPLE_SETS, DEFAULT_MAX_SAMPLE_RECORDS);
+    }
+
+    public LogStorageProvider(final File parentDirectory, final int maxSampleSets, final int maxSampleRecords) {
+        if (!parentDirectory.exists()) {
+            if (!parentDirectory.mkdirs()) {
+                throw new IllegalArgumentException("Could not create directory: " + parentDirectory);
+            }
+        }
+        _parentDirectory = parentDirectory;
+        _maxSampleSets = maxSampleSets;
+        _maxSampleRecords = maxSampleRecords;
+        _codecs = new ConcurrentHashMap<>(ValueCodecs.getBuiltInCodecs());
+    }
+
+    public File getParentDirectory() {
+        return _parentDirectory;
+    }
+
+    /**
+     * Registers a codec, so that collections of a type are stored on disk.
+     *
+     * @param type
+     * @param codec
+     */
+    public <E> void registerCodec(final Class<E> type, final ValueCodec<E> codec) {
+        _codecs.put(type, codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> ValueCodec<E> getCodec(final Class<E> type) {
+        final ValueCodec<E> codec = (ValueCodec<E>) _codecs.get(type);
+        if (codec == null) {
+            logger.debug("No codec for {}, keeping collection in memory", type);
+        }
+        return codec;
+    }
+
+    /**
+     * Cleans the parent directory of this storage provider. This action will
+     * delete all previous collection storages made in this directory, and thus
+     * it should only be invoked either before any collections has been made or
+     * when all collections are ensured to be unused.
+     */
+    public synchronized void cleanDirectory() {
+        final File[] directories = _parentDirectory.listFiles((dir, name) -> name.startsWith(DIRECTORY_PREFIX));
+        for (final File directory : directories) {
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    if (!file.delete()) {
+                        logger.warn("Unable to clean/delete file: {}", file);
+                    }
+                }
+            }
+            if (!directory.delete()) {
+                logger.debug("Unable to clean/delete directory: {}", directory);
+            }
+        }
+        _targetDir = null;
+    }
+
+    private synchronized File getTargetDir() {
+        if (_targetDir == null) {
+            while (_targetDir == null) {
+                final File candidateDir = new File(_parentDirectory, DIRECTORY_PREFIX + UUID.randomUUID().toString());
+                if (!candidateDir.exists() && candidateDir.mkdir()) {
+                    _targetDir = candidateDir;
+                }
+            }
+            _targetDir.deleteOnExit();
+            logger.info("Using target directory for persistent collections: {}", _targetDir.getAbsolutePath());
+        }
+        return _targetDir;
+    }
+
+    /**
+     * Creates a new, empty {@link LogStore} in the directory of this storage
+     * provider.
+     *
+     * @return
+     */
+    public LogStore createStore() {
+        return new LogStore(new File(getTargetDir(), UUID.randomUUID().toString() + ".log"));
+    }
+
+    @Override
+    public <E> List<E> createList(final Class<E> valueType) throws IllegalStateException {
+        final ValueCodec<E> codec = getCodec(valueType);
+        if (codec == null) {
+            return new ArrayList<>();
+        }
+        return new LogList<>(createStore(), codec);
+    }
+
+    @Override
+    public <E> Set<E> createSet(final Class<E> valueType) throws IllegalStateException {
+        final ValueCodec<E> codec = getCodec(valueType);
+        if (codec == null) {
+            return new HashSet<>();
+        }
+        return new LogSet<>(createStore(), codec);
+    }
+
+    @Override
+    public <K, V> Map<K, V> createMap(final Class<K> keyType, final Class<V> valueType) throws IllegalStateException {
+        final ValueCodec<K> keyCodec = getCodec(keyType);
+        final ValueCodec<V> valueCodec = getCodec(valueType);
+        if (keyCodec == null || valueCodec == null) {
+            return new HashMap<>();
+        }
+        return new LogMap<>(createStore(), keyCodec, valueCodec);
+    }
+
+    @Override
+    public RowAnnotationFactory createRowAnnotationFactory() {
+        return new LogRowAnnotationFactory(createStore(), _maxSampleSets, _maxSampleRecords);
+    }
+}
@@ -0,0 +1,334 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only file of byte array records, which are addressed by their
+ * position in the file.
+ *
+ * Appended records are collected in a write buffer, which is written to the
+ * file when it is full, so that many small records are written with few system
+ * calls. Reads are served from the write buffer or from a read-ahead buffer
+ * where possible, which makes reading records in the order they were appended
+ * almost as cheap as reading the file sequentially.
+ *
+ * Records are never modified. Users of a store keep track of which records are
+ * still in use, and may {@link #compact(long[])} the store when too many
+ * records have become obsolete.
+ *
+ * All methods are synchronized. Closing a store deletes its file.
+ */
+public final class LogStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStore.class);
+
+    private static final int HEADER_SIZE = 4;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int RANDOM_READ_SIZE = 512;
+
+    private File _file;
+    private FileChannel _channel;
+    private final ByteBuffer _writeBuffer;
+    private final ByteBuffer _readBuffer;
+    private long _readBufferPosition;
+    private long _flushedSize;
+
+    public LogStore(final File file) {
+        _file = file;
+        _channel = open(file);
+        _writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        _readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        _readBuffer.limit(0);
+        _readBufferPosition = -1;
+    }
+
+    private static FileChannel open(final File file) {
+        try {
+            final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            file.deleteOnExit();
+            return channel;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not open log store file: " + file, e);
+        }
+    }
+
+    private void checkOpen() {
+        if (_channel == null) {
+            throw new IllegalStateException("Log store is closed: " + _file);
+        }
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Gets the number of bytes of the store, including the records that are
+     * not yet written to the file.
+     *
+     * @return
+     */
+    public synchronized long size() {
+        return _flushedSize + _writeBuffer.position();
+    }
+
+    /**
+     * Gets the number of bytes that a record occupies in the store.
+     *
+     * @param length
+     *            the length of the record
+     * @return
+     */
+    public static int getRecordSize(final int length) {
+        return HEADER_SIZE + length;
+    }
+
+    /**
+     * Appends a record to the store.
+     *
+     * @param record
+     * @return the address of the record
+     */
+    public synchronized long append(final byte[] record) {
+        return append(record, 0, record.length);
+    }
+
+    /**
+     * Appends a record to the store.
+     *
+     * @param bytes
+     *            an array holding the record
+     * @param offset
+     *            the offset of the record in the array
+     * @param length
+     *            the length of the record
+     * @return the address of the record
+     */
+    public synchronized long append(final byte[] bytes, final int offset, final int length) {
+        checkOpen();
+        final int recordSize = HEADER_SIZE + length;
+        if (_writeBuffer.remaining() < recordSize) {
+            flush();
+        }
+
+        final long address = size();
+        if (recordSize > _writeBuffer.capacity()) {
+            // too large for the write buffer, write it directly
+            final ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+            buffer.putInt(length).put(bytes, offset, length).flip();
+            write(buffer);
+        } else {
+            _writeBuffer.putInt(length).put(bytes, offset, length);
+        }
+        return address;
+    }
+
+    /**
+     * Appends a number of records to the store.
+     *
+     * @param records
+     * @return the addresses of the records, in the same order as the records
+     */
+    public synchronized long[] appendAll(final List<byte[]> records) {
+        final long[] addresses = new long[records.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = append(records.get(i));
+        }
+        return addresses;
+    }
+
+    /**
+     * Reads a record of the store.
+     *
+     * @param address
+     *            the address of the record, as returned when it was appended
+     * @return
+     */
+    public synchronized byte[] read(final long address) {
+        checkOpen();
+        if (address < 0 || address + HEADER_SIZE > size()) {
+            throw new IllegalArgumentException("Invalid address: " + address);
+        }
+
+        if (address >= _flushedSize) {
+            // the record is still in the write buffer
+            final int position = (int) (address - _flushedSize);
+            final ByteBuffer buffer = _writeBuffer.duplicate();
+            buffer.position(position);
+            final byte[] record = new byte[buffer.getInt()];
+            buffer.get(record);
+            return record;
+        }
+
+        fillReadBuffer(address, HEADER_SIZE);
+        final int length = _readBuffer.getInt();
+        final byte[] record = new byte[length];
+        if (length > _readBuffer.capacity()) {
+            read(ByteBuffer.wrap(record), address + HEADER_SIZE);
+        } else {
+            fillReadBuffer(address + HEADER_SIZE, length);
+            _readBuffer.get(record);
+        }
+        return record;
+    }
+
+    /**
+     * Ensures that the read buffer holds a number of bytes from an address,
+     * and positions the buffer at the address. If the address is close to the
+     * previously read bytes, the records are likely read sequentially, so the
+     * buffer is filled completely. Otherwise only a small part is read, which
+     * typically holds the requested record.
+     */
+    private void fillReadBuffer(final long address, final int length) {
+        final long offset = address - _readBufferPosition;
+        if (_readBufferPosition != -1 && offset >= 0 && offset + length <= _readBuffer.limit()) {
+            _readBuffer.position((int) offset);
+            return;
+        }
+
+        final boolean sequential =
+                _readBufferPosition != -1 && offset >= 0 && offset - _readBuffer.limit() < READ_BUFFER_SIZE;
+        final int readSize = sequential ? READ_BUFFER_SIZE : Math.max(length, RANDOM_READ_SIZE);
+        _readBuffer.clear();
+        _readBuffer.limit((int) Math.min(readSize, _flushedSize - address));
+        read(_readBuffer, address);
+        _readBuffer.flip();
+        _readBufferPosition = address;
+        if (_readBuffer.limit() < length) {
+            throw new IllegalStateException("Unexpected end of log store at position " + address + ": " + _file);
+        }
+    }
+
+    private void read(final ByteBuffer buffer, final long address) {
+        try {
+            long position = address;
+            while (buffer.hasRemaining()) {
+                final int read = _channel.read(buffer, position);
+                if (read == -1) {
+                    break;
+                }
+                position += read;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not read from log store: " + _file, e);
+        }
+    }
+
+    private void write(final ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                _flushedSize += _channel.write(buffer, _flushedSize);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not write to log store: " + _file, e);
+        }
+    }
+
+    private void flush() {
+        _writeBuffer.flip();
+        write(_writeBuffer);
+        _writeBuffer.clear();
+    }
+
+    /**
+     * Removes all records of the store.
+     */
+    public synchronized void clear() {
+        checkOpen();
+        try {
+            _channel.truncate(0);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not truncate log store: " + _file, e);
+        }
+        _flushedSize = 0;
+        _writeBuffer.clear();
+        _readBuffer.limit(0);
+        _readBufferPosition = -1;
+    }
+
+    /**
+     * Rewrites the store to only contain the records that are still in use.
+     *
+     * @param addresses
+     *            the addresses of the records that are still in use
+     * @return the new addresses of the records, in the same order
+     */
+    public synchronized long[] compact(final long[] addresses) {
+        checkOpen();
+        final File compactedFile = new File(_file.getParentFile(), _file.getName() + ".compact");
+        final LogStore compacted = new LogStore(compactedFile);
+        final long[] newAddresses = new long[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            newAddresses[i] = compacted.append(read(addresses[i]));
+        }
+        compacted.flush();
+
+        final File file = _file;
+        close();
+
+        _file = compacted._file;
+        _channel = compacted._channel;
+        _flushedSize = compacted._flushedSize;
+        _writeBuffer.clear();
+        _readBuffer.limit(0);
+        _readBufferPosition = -1;
+
+        if (!compactedFile.renameTo(file)) {
+            logger.debug("Could not rename compacted log store file {} to {}", compactedFile, file);
+        } else {
+            _file = file;
+        }
+        return newAddresses;
+    }
+
+    /**
+     * Closes the store and deletes its file.
+     */
+    @Override
+    public synchronized void close() {
+        if (_channel == null) {
+            return;
+        }
+        try {
+            _channel.close();
+        } catch (final IOException e) {
+            logger.warn("Could not close log store file: {}", _file, e);
+        } finally {
+            _channel = null;
+        }
+        if (!_file.delete()) {
+            logger.warn("Could not delete log store file: {}", _file);
+        }
+    }
+}
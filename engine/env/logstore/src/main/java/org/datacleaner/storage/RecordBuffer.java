@@ -0,0 +1,124 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A reusable buffer for encoding the records of the collections of a
+ * {@link LogStorageProvider}. A record holds an optional key, which must not
+ * be null, followed by a value, which may be null.
+ */
+final class RecordBuffer extends ByteArrayOutputStream {
+
+    private final DataOutputStream _out;
+
+    public RecordBuffer() {
+        super(256);
+        _out = new DataOutputStream(this);
+    }
+
+    /**
+     * Encodes a record into this buffer, replacing its previous contents.
+     *
+     * @param keyCodec
+     *            the codec of the key, or null if the record has no key
+     * @param key
+     * @param valueCodec
+     * @param value
+     * @return this buffer
+     */
+    public <K, V> RecordBuffer encode(final ValueCodec<K> keyCodec, final K key, final ValueCodec<V> valueCodec,
+            final V value) {
+        reset();
+        try {
+            if (keyCodec != null) {
+                keyCodec.encode(key, _out);
+            }
+            if (value == null) {
+                _out.writeBoolean(false);
+            } else {
+                _out.writeBoolean(true);
+                valueCodec.encode(value, _out);
+            }
+            _out.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not encode record", e);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the contents of this buffer as a record of a {@link LogStore}.
+     *
+     * @param store
+     * @return the address of the record
+     */
+    public long appendTo(final LogStore store) {
+        return store.append(buf, 0, count);
+    }
+
+    /**
+     * Gets the number of bytes the contents of this buffer occupy when
+     * appended to a {@link LogStore}.
+     *
+     * @return
+     */
+    public int getRecordSize() {
+        return LogStore.getRecordSize(count);
+    }
+
+    public static DataInputStream open(final byte[] record) {
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+
+    public static <K> K decodeKey(final ValueCodec<K> keyCodec, final byte[] record) {
+        try {
+            return keyCodec.decode(open(record));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not decode record", e);
+        }
+    }
+
+    public static <K, V> V decodeValue(final ValueCodec<K> keyCodec, final ValueCodec<V> valueCodec,
+            final byte[] record) {
+        try {
+            final DataInputStream in = open(record);
+            if (keyCodec != null) {
+                keyCodec.decode(in);
+            }
+            return decodeValue(valueCodec, in);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not decode record", e);
+        }
+    }
+
+    public static <V> V decodeValue(final ValueCodec<V> valueCodec, final DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return valueCodec.decode(in);
+    }
+}
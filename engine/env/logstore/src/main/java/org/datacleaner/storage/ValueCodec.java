@@ -0,0 +1,52 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes and decodes values of a particular type, for storing them in a
+ * {@link LogStore}. Codecs never receive null values.
+ *
+ * @param <E>
+ *            the type of values to encode
+ */
+public interface ValueCodec<E> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value
+     * @param out
+     * @throws IOException
+     */
+    void encode(E value, DataOutput out) throws IOException;
+
+    /**
+     * Decodes a value that was encoded by {@link #encode(Object, DataOutput)}.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    E decode(DataInput in) throws IOException;
+}
@@ -0,0 +1,256 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contains the built-in {@link ValueCodec}s, for strings, byte arrays, dates
+ * and the boxed primitive types, as well as helper methods for writing compact
+ * codecs.
+ */
+public final class ValueCodecs {
+
+    public static final ValueCodec<String> STRING = new ValueCodec<String>() {
+        @Override
+        public void encode(final String value, final DataOutput out) throws IOException {
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(final DataInput in) throws IOException {
+            return new String(readBytes(in), StandardCharsets.UTF_8);
+        }
+    };
+
+    public static final ValueCodec<byte[]> BYTE_ARRAY = new ValueCodec<byte[]>() {
+        @Override
+        public void encode(final byte[] value, final DataOutput out) throws IOException {
+            writeBytes(out, value);
+        }
+
+        @Override
+        public byte[] decode(final DataInput in) throws IOException {
+            return readBytes(in);
+        }
+    };
+
+    public static final ValueCodec<Integer> INTEGER = new ValueCodec<Integer>() {
+        @Override
+        public void encode(final Integer value, final DataOutput out) throws IOException {
+            writeVarLong(out, value);
+        }
+
+        @Override
+        public Integer decode(final DataInput in) throws IOException {
+            return (int) readVarLong(in);
+        }
+    };
+
+    public static final ValueCodec<Long> LONG = new ValueCodec<Long>() {
+        @Override
+        public void encode(final Long value, final DataOutput out) throws IOException {
+            writeVarLong(out, value);
+        }
+
+        @Override
+        public Long decode(final DataInput in) throws IOException {
+            return readVarLong(in);
+        }
+    };
+
+    public static final ValueCodec<Short> SHORT = new ValueCodec<Short>() {
+        @Override
+        public void encode(final Short value, final DataOutput out) throws IOException {
+            out.writeShort(value);
+        }
+
+        @Override
+        public Short decode(final DataInput in) throws IOException {
+            return in.readShort();
+        }
+    };
+
+    public static final ValueCodec<Byte> BYTE = new ValueCodec<Byte>() {
+        @Override
+        public void encode(final Byte value, final DataOutput out) throws IOException {
+            out.writeByte(value);
+        }
+
+        @Override
+        public Byte decode(final DataInput in) throws IOException {
+            return in.readByte();
+        }
+    };
+
+    public static final ValueCodec<Boolean> BOOLEAN = new ValueCodec<Boolean>() {
+        @Override
+        public void encode(final Boolean value, final DataOutput out) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        @Override
+        public Boolean decode(final DataInput in) throws IOException {
+            return in.readBoolean();
+        }
+    };
+
+    public static final ValueCodec<Character> CHARACTER = new ValueCodec<Character>() {
+        @Override
+        public void encode(final Character value, final DataOutput out) throws IOException {
+            out.writeChar(value);
+        }
+
+        @Override
+        public Character decode(final DataInput in) throws IOException {
+            return in.readChar();
+        }
+    };
+
+    public static final ValueCodec<Double> DOUBLE = new ValueCodec<Double>() {
+        @Override
+        public void encode(final Double value, final DataOutput out) throws IOException {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double decode(final DataInput in) throws IOException {
+            return in.readDouble();
+        }
+    };
+
+    public static final ValueCodec<Float> FLOAT = new ValueCodec<Float>() {
+        @Override
+        public void encode(final Float value, final DataOutput out) throws IOException {
+            out.writeFloat(value);
+        }
+
+        @Override
+        public Float decode(final DataInput in) throws IOException {
+            return in.readFloat();
+        }
+    };
+
+    public static final ValueCodec<Date> DATE = new ValueCodec<Date>() {
+        @Override
+        public void encode(final Date value, final DataOutput out) throws IOException {
+            writeVarLong(out, value.getTime());
+        }
+
+        @Override
+        public Date decode(final DataInput in) throws IOException {
+            return new Date(readVarLong(in));
+        }
+    };
+
+    private ValueCodecs() {
+        // prevent instantiation
+    }
+
+    /**
+     * Gets the built-in codecs, by the type of values they encode.
+     *
+     * @return
+     */
+    public static Map<Class<?>, ValueCodec<?>> getBuiltInCodecs() {
+        final Map<Class<?>, ValueCodec<?>> codecs = new HashMap<>();
+        codecs.put(String.class, STRING);
+        codecs.put(byte[].class, BYTE_ARRAY);
+        codecs.put(Integer.class, INTEGER);
+        codecs.put(Long.class, LONG);
+        codecs.put(Short.class, SHORT);
+        codecs.put(Byte.class, BYTE);
+        codecs.put(Boolean.class, BOOLEAN);
+        codecs.put(Character.class, CHARACTER);
+        codecs.put(Double.class, DOUBLE);
+        codecs.put(Float.class, FLOAT);
+        codecs.put(Date.class, DATE);
+        return codecs;
+    }
+
+    /**
+     * Writes a long in a variable number of bytes, so that values close to
+     * zero take up fewer bytes.
+     *
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    public static void writeVarLong(final DataOutput out, final long value) throws IOException {
+        // zig-zag encoding, so that small negative values are small too
+        long remaining = (value << 1) ^ (value >> 63);
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    /**
+     * Reads a long that was written by {@link #writeVarLong(DataOutput, long)}.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static long readVarLong(final DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (result >>> 1) ^ -(result & 1);
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+
+    /**
+     * Writes a byte array, prefixed by its length.
+     *
+     * @param out
+     * @param bytes
+     * @throws IOException
+     */
+    public static void writeBytes(final DataOutput out, final byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a byte array that was written by
+     * {@link #writeBytes(DataOutput, byte[])}.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class LogListTest extends TestCase {
+
+    private LogStorageProvider sp;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sp = new LogStorageProvider(new File("target/logstoretest"));
+    }
+
+    public void testListOperations() throws Exception {
+        try (LogList<Integer> list = new LogList<>(sp.createStore(), ValueCodecs.INTEGER)) {
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                list.add(i);
+                expected.add(i);
+            }
+            list.add(0, null);
+            expected.add(0, null);
+            list.add(500, -1);
+            expected.add(500, -1);
+            assertEquals(7, list.set(8, 42).intValue());
+            expected.set(8, 42);
+            assertEquals(9, list.remove(10).intValue());
+            expected.remove(10);
+            list.addAll(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE));
+            expected.addAll(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+            assertEquals(expected, list);
+
+            try {
+                list.get(list.size());
+                fail("Exception expected");
+            } catch (final IndexOutOfBoundsException e) {
+                assertEquals("Index: 1003, Size: 1003", e.getMessage());
+            }
+
+            list.clear();
+            assertTrue(list.isEmpty());
+            list.add(1);
+            assertEquals("[1]", list.toString());
+        }
+    }
+
+    public void testLargeElements() throws Exception {
+        final char[] chars = new char[100000];
+        Arrays.fill(chars, 'a');
+        final String large = new String(chars);
+
+        try (LogList<String> list = new LogList<>(sp.createStore(), ValueCodecs.STRING)) {
+            list.add("small");
+            list.add(large);
+            list.add("small again");
+            assertEquals(large, list.get(1));
+            assertEquals("[small, small again]", Arrays.asList(list.get(0), list.get(2)).toString());
+        }
+    }
+
+    public void testDates() throws Exception {
+        try (LogList<Date> list = new LogList<>(sp.createStore(), ValueCodecs.DATE)) {
+            list.add(new Date(-1000));
+            list.add(new Date(1234567890123L));
+            assertEquals(Arrays.asList(new Date(-1000), new Date(1234567890123L)), list);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import junit.framework.TestCase;
+
+public class LogMapTest extends TestCase {
+
+    private LogStorageProvider sp;
+    private LogMap<String, Integer> map;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sp = new LogStorageProvider(new File("target/logstoretest"));
+        map = (LogMap<String, Integer>) sp.createMap(String.class, Integer.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        map.close();
+    }
+
+    public void testNull() throws Exception {
+        assertNull(map.get("1"));
+        assertNull(map.get(null));
+        assertNull(map.get(1));
+
+        map.put("1", 1);
+        assertEquals(1, map.get("1").intValue());
+
+        map.put("2", null);
+        assertNull(map.get("2"));
+        assertTrue(map.containsKey("2"));
+
+        try {
+            map.put(null, 3);
+            fail("Exception expected");
+        } catch (final NullPointerException e) {
+            assertEquals("Null keys are not supported", e.getMessage());
+        }
+    }
+
+    public void testPutGetAndRemove() throws Exception {
+        // "Aa" and "BB" have the same hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNull(map.put("Aa", 1));
+        assertNull(map.put("BB", 2));
+        assertEquals(1, map.put("Aa", 3).intValue());
+        assertEquals(2, map.size());
+        assertEquals(3, map.get("Aa").intValue());
+        assertEquals(2, map.get("BB").intValue());
+
+        assertEquals(3, map.remove("Aa").intValue());
+        assertNull(map.remove("Aa"));
+        assertEquals(1, map.size());
+        assertEquals(2, map.get("BB").intValue());
+
+        final Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put("key" + i, i);
+            expected.put("key" + i, i);
+        }
+        for (int i = 0; i < 10000; i += 3) {
+            assertTrue(map.removeKey("key" + i));
+            expected.remove("key" + i);
+        }
+        expected.put("BB", 2);
+        assertEquals(expected, map);
+        assertEquals(expected, new HashMap<>(map));
+    }
+
+    public void testIterateAndRemove() throws Exception {
+        final Map<String, Integer> values = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            values.put("key" + i, i);
+        }
+        map.putAll(values);
+
+        for (final Iterator<Entry<String, Integer>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            final Entry<String, Integer> entry = it.next();
+            if (entry.getValue() % 2 == 0) {
+                it.remove();
+            } else {
+                entry.setValue(-entry.getValue());
+            }
+        }
+
+        assertEquals(50, map.size());
+        assertEquals(-1, map.get("key1").intValue());
+        assertFalse(map.containsKey("key2"));
+    }
+
+    public void testCompactReplacedValues() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('x');
+        }
+        final String longKey = sb.toString();
+
+        final LogStore store = sp.createStore();
+        try (LogMap<String, Integer> map = new LogMap<>(store, ValueCodecs.STRING, ValueCodecs.INTEGER)) {
+            for (int i = 0; i < 20000; i++) {
+                map.put(longKey + (i % 10), i);
+            }
+
+            assertEquals(10, map.size());
+            assertEquals(19999, map.get(longKey + 9).intValue());
+            assertEquals(19990, map.get(longKey + 0).intValue());
+
+            // without compaction the store would hold 20000 records of 1KB
+            assertTrue("Store is " + store.size() + " bytes", store.size() < 10 * 1024 * 1024);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+
+import junit.framework.TestCase;
+
+public class LogRowAnnotationFactoryTest extends TestCase {
+
+    private final InputColumn<String> stringColumn = new MockInputColumn<>("str", String.class);
+    private final InputColumn<Integer> integerColumn = new MockInputColumn<>("int", Integer.class);
+
+    private LogStorageProvider sp;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sp = new LogStorageProvider(new File("target/logstoretest"), 10, 20);
+    }
+
+    public void testReservoirSampling() throws Exception {
+        final RowAnnotationFactory f = sp.createRowAnnotationFactory();
+        final RowAnnotation annotation = f.createAnnotation();
+
+        for (int i = 0; i < 10000; i++) {
+            f.annotate(new MockInputRow(i).put(stringColumn, "row " + i).put(integerColumn, i), annotation);
+        }
+
+        assertEquals(10000, annotation.getRowCount());
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(20, sampleRows.size());
+
+        final Set<Integer> ids = new HashSet<>();
+        for (final InputRow row : sampleRows) {
+            assertEquals("row " + row.getId(), row.getValue(stringColumn));
+            assertEquals(row.getId(), row.getValue(integerColumn).intValue());
+            ids.add(row.getValue(integerColumn));
+        }
+        assertEquals(20, ids.size());
+        // with reservoir sampling, it's practically impossible to only sample
+        // the first records
+        assertFalse(ids.equals(range(20)));
+    }
+
+    private Set<Integer> range(final int count) {
+        final Set<Integer> result = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    public void testTransferAndResetAnnotations() throws Exception {
+        final RowAnnotationFactory f = sp.createRowAnnotationFactory();
+        final RowAnnotation from = f.createAnnotation();
+        final RowAnnotation to = f.createAnnotation();
+
+        for (int i = 0; i < 15; i++) {
+            f.annotate(new MockInputRow(i).put(integerColumn, i), from);
+            f.annotate(new MockInputRow(100 + i).put(integerColumn, 100 + i), to);
+        }
+
+        f.transferAnnotations(from, to);
+        assertFalse(f.hasSampleRows(from));
+        assertEquals(30, to.getRowCount());
+        assertEquals(20, f.getSampleRows(to).size());
+
+        f.resetAnnotation(to);
+        assertFalse(f.hasSampleRows(to));
+        assertEquals(0, to.getRowCount());
+    }
+
+    public void testCloseKeepsSamples() throws Exception {
+        final LogRowAnnotationFactory f = (LogRowAnnotationFactory) sp.createRowAnnotationFactory();
+        final RowAnnotation annotation = f.createAnnotation();
+        for (int i = 0; i < 5; i++) {
+            f.annotate(new MockInputRow(i).put(stringColumn, "row " + i).put(integerColumn, i), annotation);
+        }
+
+        f.close();
+
+        assertTrue(f.hasSampleRows(annotation));
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(5, sampleRows.size());
+        assertEquals("row 0", sampleRows.get(0).getValue(stringColumn));
+
+        // the factory remains usable, but keeps its samples in memory
+        f.annotate(new MockInputRow(5).put(stringColumn, "row 5").put(integerColumn, 5), annotation);
+        assertEquals(6, annotation.getRowCount());
+        assertEquals(6, f.getSampleRows(annotation).size());
+
+        final Object copy = SerializationUtils.deserialize(SerializationUtils.serialize(f));
+        assertTrue(copy instanceof CompactRowAnnotationFactory);
+    }
+
+    public void testSerializeAsCompactFactory() throws Exception {
+        final RowAnnotationFactory f = sp.createRowAnnotationFactory();
+        final RowAnnotation annotation = f.createAnnotation();
+        f.annotate(new MockInputRow(1).put(stringColumn, "foo").put(integerColumn, 42), annotation);
+
+        final Object[] copies =
+                (Object[]) SerializationUtils.deserialize(SerializationUtils.serialize(new Object[] { f, annotation }));
+        assertTrue(copies[0] instanceof CompactRowAnnotationFactory);
+
+        final CompactRowAnnotationFactory copy = (CompactRowAnnotationFactory) copies[0];
+        final RowAnnotation annotationCopy = (RowAnnotation) copies[1];
+        assertEquals(1, annotationCopy.getRowCount());
+
+        final List<InputRow> sampleRows = copy.getSampleRows(annotationCopy);
+        assertEquals(1, sampleRows.size());
+        assertEquals(1, sampleRows.get(0).getId());
+        assertEquals("[foo, 42]", sampleRows.get(0).getValues(sampleRows.get(0).getInputColumns()).toString());
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Measures the throughput of the collections of {@link LogStorageProvider}.
+ * Only run in the benchmark profile.
+ */
+public class LogStorageProviderBenchmark extends TestCase {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStorageProviderBenchmark.class);
+
+    private LogStorageProvider sp;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sp = new LogStorageProvider(new File("target/logstoretest"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        sp.cleanDirectory();
+    }
+
+    /**
+     * Compares the throughput of putting, getting and iterating map entries
+     * with the {@link BerkeleyDbStorageProvider}.
+     */
+    public void testAgainstBerkeleyDb() throws Throwable {
+        final int entries = 100000;
+        final BerkeleyDbStorageProvider berkeleyDbStorageProvider =
+                new BerkeleyDbStorageProvider(new File("target/logstoretest-berkeleydb"));
+        final BerkeleyDbMap<String, Long> berkeleyDbMap = berkeleyDbStorageProvider.createMap(String.class, Long.class);
+        final long[] berkeleyDbNanos = benchmark(berkeleyDbMap, entries);
+        berkeleyDbMap.finalize();
+
+        final LogMap<String, Long> logMap = (LogMap<String, Long>) sp.createMap(String.class, Long.class);
+        final long[] logNanos = benchmark(logMap, entries);
+        logMap.close();
+
+        logger.info("BerkeleyDB map: put {} ns, get {} ns, iterate {} ns per entry", berkeleyDbNanos[0] / entries,
+                berkeleyDbNanos[1] / entries, berkeleyDbNanos[2] / entries);
+        logger.info("Log map: put {} ns, get {} ns, iterate {} ns per entry", logNanos[0] / entries,
+                logNanos[1] / entries, logNanos[2] / entries);
+    }
+
+    private long[] benchmark(final Map<String, Long> map, final int entries) {
+        long start = System.nanoTime();
+        for (int i = 0; i < entries; i++) {
+            map.put("key" + i, (long) i);
+        }
+        final long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < entries; i++) {
+            // look up the keys in a different order than they were put
+            final long key = i * 7919L % entries;
+            assertEquals(key, map.get("key" + key).longValue());
+        }
+        final long getNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long sum = 0;
+        for (final Iterator<Entry<String, Long>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            sum += it.next().getValue();
+        }
+        final long iterateNanos = System.nanoTime() - start;
+        assertEquals((long) entries * (entries - 1) / 2, sum);
+
+        return new long[] { putNanos, getNanos, iterateNanos };
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class LogStorageProviderTest extends TestCase {
+
+    private LogStorageProvider sp;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sp = new LogStorageProvider(new File("target/logstoretest"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        sp.cleanDirectory();
+    }
+
+    public void testCreateMap() throws Exception {
+        final Map<String, Long> map = sp.createMap(String.class, Long.class);
+        assertTrue(map instanceof LogMap);
+        map.put("foo", 1L);
+        map.put("bar", null);
+        assertEquals(2, map.size());
+        assertEquals(1L, map.get("foo").longValue());
+        assertNull(map.get("bar"));
+        assertTrue(map.containsKey("bar"));
+        ((Closeable) map).close();
+    }
+
+    public void testCreateList() throws Exception {
+        final List<String> list = sp.createList(String.class);
+        assertTrue(list instanceof LogList);
+        list.add("hello");
+        list.add("hello");
+        assertEquals(2, list.size());
+        list.add("hi");
+        assertEquals(3, list.size());
+        assertEquals("[hello, hello, hi]", list.toString());
+        ((Closeable) list).close();
+    }
+
+    public void testCreateSet() throws Exception {
+        final Set<String> set = sp.createSet(String.class);
+        assertTrue(set instanceof LogSet);
+        set.add("hello");
+        set.add("hello");
+        assertEquals(1, set.size());
+
+        set.add("world");
+        set.add("world");
+        set.add("world");
+        set.add("world");
+        assertEquals(2, set.size());
+
+        set.remove("world");
+        assertEquals(1, set.size());
+        assertEquals("[hello]", set.toString());
+
+        ((Closeable) set).close();
+    }
+
+    public void testKeepCollectionsWithoutCodecInMemory() throws Exception {
+        assertTrue(sp.createList(StringBuilder.class) instanceof ArrayList);
+        assertTrue(sp.createSet(StringBuilder.class) instanceof HashSet);
+        assertTrue(sp.createMap(String.class, StringBuilder.class) instanceof HashMap);
+    }
+
+    public void testRegisterCodec() throws Exception {
+        sp.registerCodec(StringBuilder.class, new ValueCodec<StringBuilder>() {
+            @Override
+            public void encode(final StringBuilder value, final DataOutput out) throws IOException {
+                ValueCodecs.STRING.encode(value.toString(), out);
+            }
+
+            @Override
+            public StringBuilder decode(final DataInput in) throws IOException {
+                return new StringBuilder(ValueCodecs.STRING.decode(in));
+            }
+        });
+
+        final List<StringBuilder> list = sp.createList(StringBuilder.class);
+        assertTrue(list instanceof LogList);
+        final StringBuilder sb = new StringBuilder("foo");
+        list.add(sb);
+        sb.append("bar");
+        assertEquals("foo", list.get(0).toString());
+        ((Closeable) list).close();
+    }
+
+    public void testCloseDeletesFiles() throws Exception {
+        final Set<String> set = sp.createSet(String.class);
+        set.add("hello");
+
+        final File parentDirectory = sp.getParentDirectory();
+        assertEquals(1, countLogFiles(parentDirectory));
+
+        ((Closeable) set).close();
+        assertEquals(0, countLogFiles(parentDirectory));
+
+        try {
+            set.add("world");
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Log store is closed"));
+        }
+    }
+
+    public void testCleanDirectory() throws Exception {
+        final Set<String> set = sp.createSet(String.class);
+        set.add("hello");
+
+        final File parentDirectory = sp.getParentDirectory();
+        assertEquals(1, countLogFiles(parentDirectory));
+
+        sp.cleanDirectory();
+        assertEquals(0, countLogFiles(parentDirectory));
+    }
+
+    private int countLogFiles(final File dir) {
+        int result = 0;
+        final File[] files = dir.listFiles();
+        for (final File file : files) {
+            if (file.isDirectory()) {
+                result += countLogFiles(file);
+            } else if (file.getName().endsWith(".log")) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
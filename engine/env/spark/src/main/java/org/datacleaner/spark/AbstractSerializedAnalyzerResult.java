@@ -0,0 +1,51 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.result.save.SerializedAnalyzerResult;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * Abstract placeholder for an {@link AnalyzerResult} which has been serialized
+ * by the executor that produced it, and which is only deserialized on the
+ * driver when it is loaded.
+ */
+public abstract class AbstractSerializedAnalyzerResult implements SerializedAnalyzerResult {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Loads the actual result from its serialized form.
+     *
+     * @return
+     */
+    public AnalyzerResult load() {
+        try (InputStream in = openSerializedStream();
+                ChangeAwareObjectInputStream objectInputStream = new ChangeAwareObjectInputStream(in)) {
+            return (AnalyzerResult) objectInputStream.readObject();
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to load analyzer result: " + this, e);
+        }
+    }
+}
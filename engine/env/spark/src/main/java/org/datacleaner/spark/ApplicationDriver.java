@@ -176,7 +176,12 @@ public class ApplicationDriver {
         }
 
         sparkLauncher.setMainClass(Main.class.getName());
-        sparkLauncher.setConf("spark.serializer", "org.apache.spark.serializer.JavaSerializer");
+        // class names are spelled out, since Spark itself may not be on the
+        // classpath of the launching application
+        sparkLauncher.setConf("spark.serializer", "org.apache.spark.serializer.KryoSerializer");
+        sparkLauncher.setConf("spark.kryo.registrator",
+                "org.datacleaner.spark.serialization.DataCleanerKryoRegistrator");
+        sparkLauncher.setConf("spark.kryoserializer.buffer.max", "512m");
 
         // the primary jar is always the first argument
         sparkLauncher.addAppArgs(primaryJar.get());
@@ -0,0 +1,51 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.datacleaner.api.AnalyzerResult;
+
+/**
+ * Placeholder for an {@link AnalyzerResult} which has been collected to the
+ * driver in the serialized form that the executor that produced it wrote, so
+ * that it is not serialized twice.
+ */
+public final class CollectedAnalyzerResult extends AbstractSerializedAnalyzerResult {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] _bytes;
+
+    public CollectedAnalyzerResult(final byte[] bytes) {
+        _bytes = bytes;
+    }
+
+    @Override
+    public InputStream openSerializedStream() {
+        return new ByteArrayInputStream(_bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "CollectedAnalyzerResult[" + _bytes.length + " bytes]";
+    }
+}
@@ -30,9 +30,9 @@ import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.datacleaner.api.AnalyzerResult;
 import org.datacleaner.job.ComponentJob;
-import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.result.AnalysisResult;
 import org.datacleaner.result.save.AnalysisResultSaveHandler;
+import org.datacleaner.spark.serialization.DataCleanerKryoRegistrator;
 import org.datacleaner.spark.utils.ResultFilePathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +41,15 @@ public class Main {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
-    private static void saveResult(final AnalysisResultFuture result, final Resource resultResource) {
+    private static void deleteSpilledResults(final SparkAnalysisResultFuture result) {
+        try {
+            result.deleteSpilledResults();
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to delete the spilled results of the job", e);
+        }
+    }
+
+    private static void saveResult(final AnalysisResult result, final Resource resultResource) {
         final AnalysisResultSaveHandler analysisResultSaveHandler =
                 new AnalysisResultSaveHandler(result, resultResource);
         try {
@@ -74,7 +82,7 @@ public class Main {
                     + "Got: " + Arrays.toString(args));
         }
 
-        final SparkConf conf = new SparkConf().setAppName("DataCleaner-spark");
+        final SparkConf conf = DataCleanerKryoRegistrator.configure(new SparkConf().setAppName("DataCleaner-spark"));
         final JavaSparkContext sparkContext = new JavaSparkContext(conf);
 
         final URI confXmlPath = URI.create(args[0]);
@@ -99,16 +107,21 @@ public class Main {
 
         final SparkAnalysisRunner sparkAnalysisRunner = new SparkAnalysisRunner(sparkContext, sparkJobContext);
         try {
-            final AnalysisResultFuture result = sparkAnalysisRunner.run();
+            final SparkAnalysisResultFuture result = sparkAnalysisRunner.run();
 
             result.await();
 
-            if (sparkJobContext.isResultEnabled()) {
-                final Resource resultResource = ResultFilePathUtils.getResultResource(sparkContext, sparkJobContext);
-                logger.info("DataCleaner result will be written to: {}", resultResource);
-                saveResult(result, resultResource);
-            } else {
-                logger.info("DataCleaner result will not be written - disabled");
+            try {
+                if (sparkJobContext.isResultEnabled()) {
+                    final Resource resultResource =
+                            ResultFilePathUtils.getResultResource(sparkContext, sparkJobContext);
+                    logger.info("DataCleaner result will be written to: {}", resultResource);
+                    saveResult(result.createSaveableResult(), resultResource);
+                } else {
+                    logger.info("DataCleaner result will not be written - disabled");
+                }
+            } finally {
+                deleteSpilledResults(result);
             }
         } finally {
             sparkContext.stop();
@@ -0,0 +1,118 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.QueryOptimizedFilter;
+import org.datacleaner.descriptors.ComponentDescriptor;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.FilterJob;
+import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
+import org.datacleaner.job.runner.AnalysisRunner;
+import org.datacleaner.job.runner.ErrorAwareAnalysisListener;
+import org.datacleaner.job.runner.RowProcessingConsumer;
+import org.datacleaner.job.runner.RowProcessingConsumerSorter;
+import org.datacleaner.job.runner.RowProcessingPublisher;
+import org.datacleaner.job.runner.RowProcessingPublishers;
+import org.datacleaner.job.runner.RowProcessingQueryOptimizerImpl;
+import org.datacleaner.job.runner.RowProcessingStream;
+import org.datacleaner.lifecycle.LifeCycleHelper;
+
+/**
+ * Helper for pushing the conditions of a job's {@link QueryOptimizedFilter}s
+ * down to the readers of the source data.
+ */
+public final class QueryPushDownHelper {
+
+    private QueryPushDownHelper() {
+        // prevent instantiation
+    }
+
+    /**
+     * Gets the WHERE items that the job's {@link QueryOptimizedFilter}s would
+     * add to the source query, had the job been run by a regular
+     * {@link AnalysisRunner}. The filters remain part of the job, so pushing
+     * these items down to the reader does not change the results. It only
+     * avoids reading records that would be filtered out anyway.
+     *
+     * Only the filters of the job are initialized for this, since other
+     * components, such as writers, may have side effects when initialized on
+     * the driver (or repeatedly on executors).
+     *
+     * @param sparkJobContext
+     * @return
+     */
+    public static List<FilterItem> getWhereItems(final SparkJobContext sparkJobContext) {
+        final AnalysisJob job = sparkJobContext.getAnalysisJob();
+        final LifeCycleHelper lifeCycleHelper =
+                new LifeCycleHelper(sparkJobContext.getConfiguration(), job, true);
+        final ErrorAwareAnalysisListener analysisListener = new ErrorAwareAnalysisListener();
+        final RowProcessingPublishers publishers = new RowProcessingPublishers(job, analysisListener,
+                analysisListener, new SingleThreadedTaskRunner(), lifeCycleHelper);
+
+        final RowProcessingStream[] streams = publishers.getStreams();
+        if (streams.length != 1) {
+            return Collections.emptyList();
+        }
+        final RowProcessingPublisher publisher = publishers.getRowProcessingPublisher(streams[0]);
+
+        final List<RowProcessingConsumer> filterConsumers = new ArrayList<>();
+        try {
+            for (final RowProcessingConsumer consumer : publisher.getConsumers()) {
+                final ComponentJob componentJob = consumer.getComponentJob();
+                if (componentJob instanceof FilterJob) {
+                    final ComponentDescriptor<?> descriptor = componentJob.getDescriptor();
+                    lifeCycleHelper.assignConfiguredProperties(descriptor, consumer.getComponent(),
+                            componentJob.getConfiguration());
+                    lifeCycleHelper.assignProvidedProperties(descriptor, consumer.getComponent());
+                    lifeCycleHelper.initialize(descriptor, consumer.getComponent());
+                    filterConsumers.add(consumer);
+                }
+            }
+            if (filterConsumers.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final List<Column> columns = new ArrayList<>();
+            for (final InputColumn<?> sourceColumn : job.getSourceColumns()) {
+                columns.add(sourceColumn.getPhysicalColumn());
+            }
+            final Query baseQuery = new Query().from(streams[0].getTable()).select(columns);
+            final List<RowProcessingConsumer> consumers =
+                    new RowProcessingConsumerSorter(publisher.getConsumers()).createProcessOrderedConsumerList();
+            final Query query =
+                    new RowProcessingQueryOptimizerImpl(job.getDatastore(), consumers, baseQuery).getOptimizedQuery();
+            return query.getWhereClause().getItems();
+        } finally {
+            for (final RowProcessingConsumer filterConsumer : filterConsumers) {
+                lifeCycleHelper.close(filterConsumer.getComponentJob().getDescriptor(),
+                        filterConsumer.getComponent(), true);
+            }
+        }
+    }
+}
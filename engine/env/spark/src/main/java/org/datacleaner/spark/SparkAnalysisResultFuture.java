@@ -19,10 +19,12 @@
  */
 package org.datacleaner.spark;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -33,11 +35,41 @@ import org.datacleaner.job.runner.AnalysisJobFailedException;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.JobStatus;
 import org.datacleaner.result.AbstractAnalysisResult;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.SimpleAnalysisResult;
+import org.datacleaner.result.save.SectionedAnalysisResultWriter;
+import org.datacleaner.spark.utils.HdfsHelper;
 
 import scala.Tuple2;
 
+/**
+ * The result of a job run by {@link SparkAnalysisRunner}.
+ *
+ * Results which were serialized by the executors, including the ones which
+ * were too large to be collected to the driver and were written to files
+ * instead, are loaded by {@link #getResults()} and {@link #getResultMap()}, and
+ * thus still need to fit in the memory of the driver. Use
+ * {@link #createSaveableResult()} to save the result without loading them.
+ */
 public class SparkAnalysisResultFuture extends AbstractAnalysisResult implements AnalysisResultFuture {
 
+    /**
+     * Orders component keys like the components of the job, which are
+     * numbered in job order, with partitions of a component in partition
+     * order.
+     */
+    private static final Comparator<String> COMPONENT_KEY_COMPARATOR = (key1, key2) -> {
+        final String[] parts1 = key1.split("\\.");
+        final String[] parts2 = key2.split("\\.");
+        for (int i = 0; i < parts1.length && i < parts2.length; i++) {
+            final int result = Integer.compare(Integer.parseInt(parts1[i]), Integer.parseInt(parts2[i]));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(parts1.length, parts2.length);
+    };
+
     private final Date _creationDate;
     private final List<Tuple2<String, AnalyzerResult>> _results;
     private final SparkJobContext _sparkJobContext;
@@ -45,7 +77,8 @@ public class SparkAnalysisResultFuture extends AbstractAnalysisResult implements
     public SparkAnalysisResultFuture(final List<Tuple2<String, AnalyzerResult>> results,
             final SparkJobContext sparkJobContext) {
         _creationDate = new Date();
-        _results = results;
+        _results = new ArrayList<>(results);
+        _results.sort((tuple1, tuple2) -> COMPONENT_KEY_COMPARATOR.compare(tuple1._1, tuple2._1));
         _sparkJobContext = sparkJobContext;
     }
 
@@ -95,17 +128,17 @@ public class SparkAnalysisResultFuture extends AbstractAnalysisResult implements
     public List<AnalyzerResult> getResults() throws AnalysisJobFailedException {
         final List<AnalyzerResult> list = new ArrayList<>();
         for (final Tuple2<String, AnalyzerResult> tuple : _results) {
-            list.add(tuple._2);
+            list.add(resolve(tuple._2));
         }
         return list;
     }
 
     @Override
     public Map<ComponentJob, AnalyzerResult> getResultMap() throws AnalysisJobFailedException {
-        final Map<ComponentJob, AnalyzerResult> resultMap = new HashMap<>();
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
         for (final Tuple2<String, AnalyzerResult> tuple : _results) {
             final ComponentJob component = _sparkJobContext.getComponentByKey(tuple._1);
-            final AnalyzerResult analyzerResult = tuple._2;
+            final AnalyzerResult analyzerResult = resolve(tuple._2);
             if (analyzerResult != null) {
                 resultMap.put(component, analyzerResult);
             }
@@ -113,6 +146,57 @@ public class SparkAnalysisResultFuture extends AbstractAnalysisResult implements
         return resultMap;
     }
 
+    /**
+     * Creates an {@link AnalysisResult} in which the results that were
+     * serialized by the executors are kept in their serialized form, as
+     * {@link CollectedAnalyzerResult}s and {@link SpilledAnalyzerResult}s.
+     * {@link SectionedAnalysisResultWriter} copies these as they are, so that the
+     * result can be saved without loading them on the driver.
+     *
+     * @return
+     */
+    public AnalysisResult createSaveableResult() {
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        for (final Tuple2<String, AnalyzerResult> tuple : _results) {
+            if (tuple._2 != null) {
+                resultMap.put(_sparkJobContext.getComponentByKey(tuple._1), tuple._2);
+            }
+        }
+        return new SimpleAnalysisResult(resultMap, _creationDate);
+    }
+
+    /**
+     * Deletes the files of the results which were written to files by the
+     * executors, and the spill directory of the job if it is empty afterwards.
+     * These results cannot be loaded anymore once deleted.
+     */
+    public void deleteSpilledResults() {
+        boolean spilled = false;
+        for (final Tuple2<String, AnalyzerResult> tuple : _results) {
+            if (tuple._2 instanceof SpilledAnalyzerResult) {
+                ((SpilledAnalyzerResult) tuple._2).delete();
+                spilled = true;
+            }
+        }
+        if (spilled) {
+            HdfsHelper.createHelper().delete(URI.create(_sparkJobContext.getResultSpillPath()));
+        }
+    }
+
+    /**
+     * Loads results which were serialized by the executors. They are not held
+     * by this future, to not keep them in memory longer than the caller does.
+     *
+     * @param analyzerResult
+     * @return
+     */
+    private AnalyzerResult resolve(final AnalyzerResult analyzerResult) {
+        if (analyzerResult instanceof AbstractSerializedAnalyzerResult) {
+            return ((AbstractSerializedAnalyzerResult) analyzerResult).load();
+        }
+        return analyzerResult;
+    }
+
     @Override
     public List<Throwable> getErrors() {
         return Collections.emptyList();
@@ -19,32 +19,58 @@
  */
 package org.datacleaner.spark;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.metamodel.csv.CsvConfiguration;
 import org.apache.metamodel.fixedwidth.FixedWidthConfiguration;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.Resource;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetInputFormat;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.ExampleInputFormat;
+import org.apache.parquet.schema.MessageType;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
 import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
+import org.datacleaner.components.keyrange.KeyRangeSlicer;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.connection.FixedWidthDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
+import org.datacleaner.connection.ParquetDatastore;
+import org.datacleaner.connection.parquet.ParquetDataContext;
+import org.datacleaner.connection.parquet.ParquetFilterPredicates;
+import org.datacleaner.connection.parquet.ParquetHelper;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.AnalysisRunner;
 import org.datacleaner.spark.functions.AnalyzerResultReduceFunction;
+import org.datacleaner.spark.functions.AssignResultGroupFunction;
+import org.datacleaner.spark.functions.ConcatResultsFunction;
 import org.datacleaner.spark.functions.CsvParserFunction;
 import org.datacleaner.spark.functions.ExtractAnalyzerResultFunction;
 import org.datacleaner.spark.functions.FixedWidthParserFunction;
+import org.datacleaner.spark.functions.JdbcPartitionToInputRowFunction;
 import org.datacleaner.spark.functions.JsonParserFunction;
+import org.datacleaner.spark.functions.LinesToInputRowFunction;
+import org.datacleaner.spark.functions.ParquetGroupToInputRowFunction;
+import org.datacleaner.spark.functions.PartialResultCombineFunction;
+import org.datacleaner.spark.functions.ResultGroupCombineFunction;
 import org.datacleaner.spark.functions.RowProcessingFunction;
-import org.datacleaner.spark.functions.TuplesToTuplesFunction;
-import org.datacleaner.spark.functions.ValuesToInputRowFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -85,14 +111,14 @@ public class SparkAnalysisRunner implements AnalysisRunner {
         return run();
     }
 
-    public AnalysisResultFuture run() {
+    public SparkAnalysisResultFuture run() {
         _sparkJobContext.triggerOnJobStart();
         final AnalysisJob analysisJob = _sparkJobContext.getAnalysisJob();
         final Datastore datastore = analysisJob.getDatastore();
 
         final JavaRDD<InputRow> inputRowsRDD = openSourceDatastore(datastore);
 
-        final JavaPairRDD<String, NamedAnalyzerResult> namedAnalyzerResultsRDD;
+        final JavaPairRDD<String, AnalyzerResult> finalAnalyzerResultsRDD;
         if (_sparkJobContext.getAnalysisJobBuilder().isDistributable()) {
             logger.info("Running the job in distributed mode");
 
@@ -104,25 +130,24 @@ public class SparkAnalysisRunner implements AnalysisRunner {
                     .mapPartitionsWithIndex(new RowProcessingFunction(_sparkJobContext), preservePartitions);
 
             if (_sparkJobContext.isResultEnabled()) {
-                final JavaPairRDD<String, NamedAnalyzerResult> partialNamedAnalyzerResultsRDD =
-                        processedTuplesRdd.mapPartitionsToPair(new TuplesToTuplesFunction<>(), preservePartitions);
-
-                namedAnalyzerResultsRDD =
-                        partialNamedAnalyzerResultsRDD.reduceByKey(new AnalyzerResultReduceFunction(_sparkJobContext));
+                finalAnalyzerResultsRDD = reduceResults(processedTuplesRdd);
             } else {
                 // call count() to block and wait for RDD to be fully processed
                 processedTuplesRdd.count();
-                namedAnalyzerResultsRDD = null;
+                finalAnalyzerResultsRDD = null;
             }
         } else {
             logger.warn("Running the job in non-distributed mode");
             final JavaRDD<InputRow> coalescedInputRowsRDD = inputRowsRDD.coalesce(1);
-            namedAnalyzerResultsRDD =
+            final JavaPairRDD<String, NamedAnalyzerResult> namedAnalyzerResultsRDD =
                     coalescedInputRowsRDD.mapPartitionsToPair(new RowProcessingFunction(_sparkJobContext));
 
-            if (!_sparkJobContext.isResultEnabled()) {
+            if (_sparkJobContext.isResultEnabled()) {
+                finalAnalyzerResultsRDD = namedAnalyzerResultsRDD.mapValues(new ExtractAnalyzerResultFunction());
+            } else {
                 // call count() to block and wait for RDD to be fully processed
                 namedAnalyzerResultsRDD.count();
+                finalAnalyzerResultsRDD = null;
             }
         }
 
@@ -131,9 +156,7 @@ public class SparkAnalysisRunner implements AnalysisRunner {
             return new SparkAnalysisResultFuture(results, _sparkJobContext);
         }
 
-        assert namedAnalyzerResultsRDD != null;
-        final JavaPairRDD<String, AnalyzerResult> finalAnalyzerResultsRDD =
-                namedAnalyzerResultsRDD.mapValues(new ExtractAnalyzerResultFunction());
+        assert finalAnalyzerResultsRDD != null;
 
         // log analyzer results
         final List<Tuple2<String, AnalyzerResult>> results = finalAnalyzerResultsRDD.collect();
@@ -149,6 +172,38 @@ public class SparkAnalysisRunner implements AnalysisRunner {
         return new SparkAnalysisResultFuture(results, _sparkJobContext);
     }
 
+    /**
+     * Reduces the partial results of the partitions. The results of each
+     * partition are first combined locally, and then reduced in a tree of the
+     * configured depth, where each level combines the results of a number of
+     * groups of partitions. The final reduction of each analyzer's results
+     * happens on an executor, which writes the result to the spill path if it
+     * is too large to be collected to the driver.
+     *
+     * @param processedTuplesRdd
+     * @return
+     */
+    private JavaPairRDD<String, AnalyzerResult> reduceResults(
+            final JavaRDD<Tuple2<String, NamedAnalyzerResult>> processedTuplesRdd) {
+        JavaPairRDD<String, List<AnalyzerResult>> batchesRDD =
+                processedTuplesRdd.mapPartitionsToPair(new PartialResultCombineFunction(_sparkJobContext), true);
+
+        // same tree shape as JavaRDD.treeAggregate(...)
+        int partitions = batchesRDD.getNumPartitions();
+        final int depth = _sparkJobContext.getResultReduceDepth();
+        final int scale = Math.max((int) Math.ceil(Math.pow(partitions, 1.0 / depth)), 2);
+        while (partitions > scale + (int) Math.ceil((double) partitions / scale)) {
+            partitions = (int) Math.ceil((double) partitions / scale);
+            logger.info("Adding result reduction level with {} groups", partitions);
+            batchesRDD = batchesRDD.mapToPair(new AssignResultGroupFunction(partitions))
+                    .reduceByKey(new ConcatResultsFunction(), partitions)
+                    .mapToPair(new ResultGroupCombineFunction(_sparkJobContext));
+        }
+
+        return batchesRDD.reduceByKey(new ConcatResultsFunction())
+                .mapToPair(new AnalyzerResultReduceFunction(_sparkJobContext, _sparkJobContext.getResultSpillPath()));
+    }
+
     private JavaRDD<InputRow> openSourceDatastore(final Datastore datastore) {
         if (datastore instanceof CsvDatastore) {
             final CsvDatastore csvDatastore = (CsvDatastore) datastore;
@@ -157,36 +212,15 @@ public class SparkAnalysisRunner implements AnalysisRunner {
             final String datastorePath = resource.getQualifiedPath();
 
             final CsvConfiguration csvConfiguration = csvDatastore.getCsvConfiguration();
+            final int headerLines = csvConfiguration.getColumnNameLineNumber() == CsvConfiguration.NO_COLUMN_NAME_LINE
+                    ? 0 : csvConfiguration.getColumnNameLineNumber();
 
-            final JavaRDD<String> rawInput;
-            if (_minPartitions != null) {
-                rawInput = _sparkContext.textFile(datastorePath, _minPartitions);
-            } else {
-                rawInput = _sparkContext.textFile(datastorePath);
-            }
-            final JavaRDD<Object[]> parsedInput = rawInput.map(new CsvParserFunction(csvConfiguration));
-
-            JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
-
-            if (csvConfiguration.getColumnNameLineNumber() != CsvConfiguration.NO_COLUMN_NAME_LINE) {
-                zipWithIndex =
-                        zipWithIndex.filter(new SkipHeaderLineFunction(csvConfiguration.getColumnNameLineNumber()));
-            }
-
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+            return openTextFile(datastorePath, new CsvParserFunction(csvConfiguration), headerLines);
         } else if (datastore instanceof JsonDatastore) {
             final JsonDatastore jsonDatastore = (JsonDatastore) datastore;
             final String datastorePath = jsonDatastore.getResource().getQualifiedPath();
-            final JavaRDD<String> rawInput;
-            if (_minPartitions != null) {
-                rawInput = _sparkContext.textFile(datastorePath, _minPartitions);
-            } else {
-                rawInput = _sparkContext.textFile(datastorePath);
-            }
 
-            final JavaRDD<Object[]> parsedInput = rawInput.map(new JsonParserFunction(jsonDatastore));
-            final JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+            return openTextFile(datastorePath, new JsonParserFunction(jsonDatastore), 0);
         } else if (datastore instanceof FixedWidthDatastore) {
 
             final FixedWidthDatastore fixedWidthDatastore = (FixedWidthDatastore) datastore;
@@ -194,25 +228,137 @@ public class SparkAnalysisRunner implements AnalysisRunner {
             final Resource resource = fixedWidthDatastore.getResource();
             final String datastorePath = resource.getQualifiedPath();
             final FixedWidthConfiguration fixedWidthConfiguration = fixedWidthDatastore.getConfiguration();
-            final JavaRDD<String> rawInput;
-            if (_minPartitions != null) {
-                rawInput = _sparkContext.textFile(datastorePath, _minPartitions);
-            } else {
-                rawInput = _sparkContext.textFile(datastorePath);
-            }
+            final int headerLines =
+                    fixedWidthConfiguration.getColumnNameLineNumber() == FixedWidthConfiguration.NO_COLUMN_NAME_LINE
+                            ? 0 : fixedWidthConfiguration.getColumnNameLineNumber();
+
+            return openTextFile(datastorePath, new FixedWidthParserFunction(fixedWidthConfiguration), headerLines);
+        } else if (datastore instanceof ParquetDatastore) {
+            return openParquetDatastore((ParquetDatastore) datastore);
+        } else if (datastore instanceof JdbcDatastore) {
+            return openJdbcDatastore((JdbcDatastore) datastore);
+        }
 
-            final JavaRDD<Object[]> parsedInput = rawInput.map(new FixedWidthParserFunction(fixedWidthConfiguration));
+        throw new UnsupportedOperationException("Unsupported datastore type or configuration: " + datastore);
+    }
 
-            JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
+    /**
+     * Reads a line based text file, parsing the lines and converting them into
+     * {@link InputRow}s in a single stage per partition.
+     *
+     * @param datastorePath
+     * @param parserFunction
+     * @param headerLines
+     *            the number of lines at the beginning of the file to skip
+     * @return
+     */
+    private JavaRDD<InputRow> openTextFile(final String datastorePath,
+            final Function<String, Object[]> parserFunction, final int headerLines) {
+        final JavaRDD<String> rawInput;
+        if (_minPartitions != null) {
+            rawInput = _sparkContext.textFile(datastorePath, _minPartitions);
+        } else {
+            rawInput = _sparkContext.textFile(datastorePath);
+        }
 
-            if (fixedWidthConfiguration.getColumnNameLineNumber() != FixedWidthConfiguration.NO_COLUMN_NAME_LINE) {
-                zipWithIndex = zipWithIndex
-                        .filter(new SkipHeaderLineFunction(fixedWidthConfiguration.getColumnNameLineNumber()));
+        return rawInput.mapPartitionsWithIndex(
+                new LinesToInputRowFunction(_sparkJobContext, parserFunction, headerLines), true);
+    }
+
+    /**
+     * Reads the source table of a JDBC datastore in partitions, each of which
+     * covers a range of a numeric or time based key and is read by an executor
+     * through its own connection. If no key column is configured or found, the
+     * table is read in a single partition.
+     *
+     * @param datastore
+     * @return
+     */
+    private JavaRDD<InputRow> openJdbcDatastore(final JdbcDatastore datastore) {
+        final List<InputColumn<?>> sourceColumns = _sparkJobContext.getAnalysisJob().getSourceColumns();
+        final Table table = sourceColumns.get(0).getPhysicalColumn().getTable();
+
+        final int partitions;
+        if (_sparkJobContext.getJdbcPartitions() != null) {
+            partitions = _sparkJobContext.getJdbcPartitions();
+        } else if (_minPartitions != null) {
+            partitions = _minPartitions;
+        } else {
+            partitions = _sparkContext.defaultParallelism();
+        }
+
+        final Column keyColumn;
+        final String keyColumnName = _sparkJobContext.getJdbcPartitionColumn();
+        if (keyColumnName == null) {
+            keyColumn = KeyRangeSlicer.findKeyColumn(table, true);
+        } else {
+            keyColumn = table.getColumnByName(keyColumnName);
+            if (keyColumn == null || !KeyRangeSlicer.isSliceable(keyColumn)) {
+                throw new IllegalStateException("Cannot partition table '" + table.getName() + "' by column '"
+                        + keyColumnName + "'. It must be a numeric or time based column of the table.");
             }
+        }
 
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+        List<Long> boundaries = null;
+        if (keyColumn != null && partitions > 1) {
+            try (DatastoreConnection connection = datastore.openConnection()) {
+                boundaries = KeyRangeSlicer.slice(connection.getDataContext(), keyColumn, partitions);
+            }
         }
 
-        throw new UnsupportedOperationException("Unsupported datastore type or configuration: " + datastore);
+        final JdbcPartitionToInputRowFunction function;
+        final int slices;
+        if (boundaries == null) {
+            logger.info("Reading table '{}' in a single partition", table.getName());
+            function = new JdbcPartitionToInputRowFunction(_sparkJobContext, null, null);
+            slices = 1;
+        } else {
+            function = new JdbcPartitionToInputRowFunction(_sparkJobContext, keyColumn.getName(), boundaries);
+            slices = boundaries.size() - 1;
+        }
+
+        final List<Integer> partitionIndexes = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            partitionIndexes.add(i);
+        }
+        return _sparkContext.parallelize(partitionIndexes, slices).mapPartitionsWithIndex(function, true);
+    }
+
+    /**
+     * Reads a Parquet datastore with the columnar Parquet reader. Only the
+     * column chunks of the job's source columns are read, and row groups that
+     * cannot pass the job's query optimized filters are skipped.
+     *
+     * @param datastore
+     * @return
+     */
+    private JavaRDD<InputRow> openParquetDatastore(final ParquetDatastore datastore) {
+        final MessageType fileSchema;
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            fileSchema = ((ParquetDataContext) connection.getDataContext()).getFileSchema();
+        }
+
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        for (final InputColumn<?> sourceColumn : _sparkJobContext.getAnalysisJob().getSourceColumns()) {
+            fieldNames.add(sourceColumn.getPhysicalColumn().getName());
+        }
+        final MessageType projection = ParquetHelper.createProjection(fileSchema, fieldNames);
+
+        final Configuration hadoopConfiguration = new Configuration(_sparkContext.hadoopConfiguration());
+        hadoopConfiguration.set(ReadSupport.PARQUET_READ_SCHEMA, projection.toString());
+
+        final FilterPredicate predicate =
+                ParquetFilterPredicates.create(fileSchema, QueryPushDownHelper.getWhereItems(_sparkJobContext));
+        if (predicate != null) {
+            logger.info("Pushing down filter predicate to Parquet reader: {}", predicate);
+            ParquetInputFormat.setFilterPredicate(hadoopConfiguration, predicate);
+        }
+
+        final String datastorePath = datastore.getResource().getQualifiedPath();
+        final JavaPairRDD<Void, Group> rawInput = _sparkContext
+                .newAPIHadoopFile(datastorePath, ExampleInputFormat.class, Void.class, Group.class,
+                        hadoopConfiguration);
+
+        return rawInput.mapPartitionsWithIndex(new ParquetGroupToInputRowFunction(_sparkJobContext), true);
     }
 }
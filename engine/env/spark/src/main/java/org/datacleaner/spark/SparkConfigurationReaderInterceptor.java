@@ -34,6 +34,7 @@ import org.datacleaner.configuration.DataCleanerEnvironmentImpl;
 import org.datacleaner.configuration.DefaultConfigurationReaderInterceptor;
 import org.datacleaner.descriptors.ClasspathScanDescriptorProvider;
 import org.datacleaner.descriptors.DescriptorProvider;
+import org.datacleaner.job.concurrent.MultiThreadedTaskRunner;
 import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
 import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.panels.ComponentBuilderPresenterRenderingFormat;
@@ -49,10 +50,13 @@ import org.datacleaner.util.convert.HadoopResourceBuilder;
 public class SparkConfigurationReaderInterceptor extends DefaultConfigurationReaderInterceptor {
 
     private static final TaskRunner TASK_RUNNER = new SingleThreadedTaskRunner();
+    // components are scanned in parallel across JAR files, even though jobs run single threaded
+    private static final TaskRunner SCAN_TASK_RUNNER =
+            new MultiThreadedTaskRunner(Runtime.getRuntime().availableProcessors());
     private static final Collection<Class<? extends RenderingFormat<?>>> EXCLUDED_RENDERER_FORMATS =
             Arrays.asList(SwingRenderingFormat.class, ComponentBuilderPresenterRenderingFormat.class);
     private static final DescriptorProvider DESCRIPTOR_PROVIDER =
-            new ClasspathScanDescriptorProvider(TASK_RUNNER, EXCLUDED_RENDERER_FORMATS)
+            new ClasspathScanDescriptorProvider(SCAN_TASK_RUNNER, EXCLUDED_RENDERER_FORMATS)
                     .scanPackage("org.datacleaner", true);
     private static final StorageProvider STORAGE_PROVIDER = new InMemoryStorageProvider(500, 20);
 
@@ -0,0 +1,169 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.AbstractInputRow;
+
+/**
+ * Compact {@link InputRow} of the source records of a Spark job. The values
+ * are held in an array, ordered like the columns of a {@link SparkRowSchema}
+ * which is shared by all rows of the job.
+ *
+ * Rows which are deserialized by Kryo only know the id of the
+ * {@link SparkJobContext} of their schema. Their schema is resolved when it is
+ * first needed, either through {@link #resolveSchema(SparkRowSchema)} by the
+ * function processing the row, or through a context with that id in the same
+ * JVM.
+ */
+public final class SparkInputRow extends AbstractInputRow {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of bits of a row id that hold the offset of the row within
+     * its partition. The remaining bits hold the partition index.
+     */
+    private static final int OFFSET_BITS = 40;
+
+    private final long _contextId;
+    private final long _id;
+    private final Object[] _values;
+    private volatile SparkRowSchema _schema;
+
+    public SparkInputRow(final SparkRowSchema schema, final long id, final Object[] values) {
+        this(schema.getContextId(), id, values);
+        resolveSchema(schema);
+    }
+
+    /**
+     * Creates a {@link SparkInputRow} whose schema is not resolved yet.
+     *
+     * @param contextId
+     *            the id of the {@link SparkJobContext} of the schema of the row
+     * @param id
+     * @param values
+     */
+    public SparkInputRow(final long contextId, final long id, final Object[] values) {
+        _contextId = contextId;
+        _id = id;
+        _values = values;
+    }
+
+    /**
+     * Creates a row id which is unique within a job, from the index of the
+     * partition that a row is read by and the offset of the row within that
+     * partition. This does not require knowing the sizes of other partitions.
+     *
+     * @param partitionIndex
+     * @param offset
+     * @return
+     */
+    public static long createId(final int partitionIndex, final long offset) {
+        return ((long) partitionIndex << OFFSET_BITS) + offset;
+    }
+
+    /**
+     * Gets the id of the {@link SparkJobContext} of the schema of the row.
+     *
+     * @return
+     */
+    public long getContextId() {
+        return _contextId;
+    }
+
+    /**
+     * Sets the schema of the row, if it is not resolved yet.
+     *
+     * @param schema
+     *            the schema of the rows of the context of this row
+     */
+    public void resolveSchema(final SparkRowSchema schema) {
+        if (_schema != null) {
+            return;
+        }
+        if (schema.getContextId() != _contextId) {
+            throw new IllegalArgumentException("Schema of context " + schema.getContextId()
+                    + " does not belong to row of context " + _contextId);
+        }
+        if (_values.length != schema.getColumnCount()) {
+            throw new IllegalArgumentException(
+                    "Expected " + schema.getColumnCount() + " values, but got " + _values.length);
+        }
+        _schema = schema;
+    }
+
+    public SparkRowSchema getSchema() {
+        SparkRowSchema schema = _schema;
+        if (schema == null) {
+            schema = SparkJobContext.getRowSchema(_contextId);
+            if (schema == null) {
+                throw new IllegalStateException("No SparkJobContext with id " + _contextId
+                        + " to resolve the schema of row " + _id + " with");
+            }
+            resolveSchema(schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Gets the values of the row, ordered like the columns of the schema. The
+     * array is not copied and should not be modified.
+     *
+     * @return
+     */
+    public Object[] getValues() {
+        return _values;
+    }
+
+    @Override
+    public long getId() {
+        return _id;
+    }
+
+    @Override
+    public List<InputColumn<?>> getInputColumns() {
+        return new ArrayList<>(getSchema().getColumns());
+    }
+
+    @Override
+    public boolean containsInputColumn(final InputColumn<?> inputColumn) {
+        return getSchema().indexOf(inputColumn) != -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <E> E getValueInternal(final InputColumn<E> column) {
+        final int index = getSchema().indexOf(column);
+        if (index == -1) {
+            return null;
+        }
+        return (E) _values[index];
+    }
+
+    @Override
+    public String toString() {
+        return "SparkInputRow[id=" + _id + "]";
+    }
+}
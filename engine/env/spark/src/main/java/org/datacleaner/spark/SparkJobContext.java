@@ -20,7 +20,9 @@
 package org.datacleaner.spark;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
@@ -29,6 +31,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.metamodel.util.CollectionUtils;
@@ -50,6 +53,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * A container for for values that need to be passed between Spark workers. All the values need to be
@@ -60,9 +65,25 @@ public class SparkJobContext implements Serializable {
     private static final Logger logger = LoggerFactory.getLogger(SparkJobContext.class);
     private static final String PROPERTY_RESULT_PATH = "datacleaner.result.hdfs.path";
     private static final String PROPERTY_RESULT_ENABLED = "datacleaner.result.hdfs.enabled";
+    private static final String PROPERTY_RESULT_REDUCE_DEPTH = "datacleaner.result.reduce.depth";
+    private static final String PROPERTY_RESULT_SPILL_PATH = "datacleaner.result.spill.path";
+    private static final String PROPERTY_RESULT_SPILL_THRESHOLD = "datacleaner.result.spill.threshold";
+    private static final int DEFAULT_RESULT_REDUCE_DEPTH = 2;
+    private static final int DEFAULT_RESULT_SPILL_THRESHOLD = 256 * 1024 * 1024;
+    private static final String PROPERTY_JDBC_PARTITION_COLUMN = "datacleaner.jdbc.partition.column";
+    private static final String PROPERTY_JDBC_PARTITIONS = "datacleaner.jdbc.partitions";
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The contexts which have been created or deserialized in this JVM and are
+     * still in use, by id. Rows are serialized with the id of their context
+     * instead of their schema, which can then be resolved through the context
+     * of the same job, see {@link SparkInputRow#getSchema()}.
+     */
+    private static final Cache<Long, SparkJobContext> CONTEXTS = CacheBuilder.newBuilder().weakValues().build();
+
+    private final long _contextId = ThreadLocalRandom.current().nextLong();
     private final String _jobName;
     private final String _configurationXml;
     private final String _analysisJobXml;
@@ -72,6 +93,7 @@ public class SparkJobContext implements Serializable {
     // cached/transient state
     private transient DataCleanerConfiguration _dataCleanerConfiguration;
     private transient AnalysisJobBuilder _analysisJobBuilder;
+    private transient SparkRowSchema _rowSchema;
 
     public SparkJobContext(final URI dataCleanerConfigurationPath, final URI analysisJobXmlPath,
             final URI customPropertiesPath, final JavaSparkContext sparkContext) {
@@ -100,6 +122,7 @@ public class SparkJobContext implements Serializable {
                     new InputStreamToPropertiesMapFunc().apply(new ByteArrayInputStream(propertiesString.getBytes()));
         }
         validateCustomProperties();
+        register();
     }
 
     public SparkJobContext(final String jobName, final String dataCleanerConfiguration, final String analysisJobXml,
@@ -109,6 +132,31 @@ public class SparkJobContext implements Serializable {
         _configurationXml = dataCleanerConfiguration;
         _analysisJobXml = analysisJobXml;
         validateCustomProperties();
+        register();
+    }
+
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        register();
+    }
+
+    private void register() {
+        CONTEXTS.asMap().putIfAbsent(_contextId, this);
+    }
+
+    /**
+     * Gets the schema of the rows of a job, based on the id of its context.
+     *
+     * @param contextId
+     * @return the schema, or null if no context with the id has been created
+     *         or deserialized in this JVM
+     */
+    public static SparkRowSchema getRowSchema(final long contextId) {
+        final SparkJobContext sparkJobContext = CONTEXTS.getIfPresent(contextId);
+        if (sparkJobContext == null) {
+            return null;
+        }
+        return sparkJobContext.getRowSchema();
     }
 
     /**
@@ -128,6 +176,10 @@ public class SparkJobContext implements Serializable {
             // ensure parsability of result path
             getResultPath();
         }
+        // ensure parsability of the numeric properties
+        getResultReduceDepth();
+        getResultSpillThreshold();
+        getJdbcPartitions();
     }
 
     public DataCleanerConfiguration getConfiguration() {
@@ -152,6 +204,19 @@ public class SparkJobContext implements Serializable {
         }
     }
 
+    /**
+     * Gets the schema of the {@link SparkInputRow}s of the job, ie. its source
+     * columns.
+     *
+     * @return
+     */
+    public SparkRowSchema getRowSchema() {
+        if (_rowSchema == null) {
+            _rowSchema = new SparkRowSchema(_contextId, getAnalysisJob().getSourceColumns());
+        }
+        return _rowSchema;
+    }
+
     public AnalysisJob getAnalysisJob() {
         return getAnalysisJobBuilder().toAnalysisJob();
     }
@@ -256,6 +321,81 @@ public class SparkJobContext implements Serializable {
         return !"false".equalsIgnoreCase(enabledString);
     }
 
+    /**
+     * Gets the depth of the tree in which the partial results of the
+     * partitions are reduced. A depth of 1 reduces all partial results of an
+     * analyzer in one step.
+     *
+     * @return
+     */
+    public int getResultReduceDepth() {
+        final String str = _customProperties.get(PROPERTY_RESULT_REDUCE_DEPTH);
+        if (Strings.isNullOrEmpty(str)) {
+            return DEFAULT_RESULT_REDUCE_DEPTH;
+        }
+        return Math.max(1, Integer.parseInt(str.trim()));
+    }
+
+    /**
+     * Gets the size, in bytes, above which reduced analyzer results are
+     * written to the spill path instead of being collected to the driver. If
+     * 0 or negative, results are never spilled.
+     *
+     * @return
+     */
+    public int getResultSpillThreshold() {
+        final String str = _customProperties.get(PROPERTY_RESULT_SPILL_THRESHOLD);
+        if (Strings.isNullOrEmpty(str)) {
+            return DEFAULT_RESULT_SPILL_THRESHOLD;
+        }
+        return Integer.parseInt(str.trim());
+    }
+
+    /**
+     * Gets the directory that large analyzer results are written to, see
+     * {@link #getResultSpillThreshold()}. Can be configured in the job
+     * properties file, and defaults to a directory named after the job in
+     * {@link SparkRunner#DEFAULT_RESULT_PATH}.
+     *
+     * @return
+     */
+    public String getResultSpillPath() {
+        final String str = _customProperties.get(PROPERTY_RESULT_SPILL_PATH);
+        if (Strings.isNullOrEmpty(str)) {
+            return SparkRunner.DEFAULT_RESULT_PATH + '/' + _jobName + '-' + Long.toHexString(_contextId) + "-parts";
+        }
+        return str.trim();
+    }
+
+    /**
+     * Gets the name of the column to partition JDBC source tables by, if it is
+     * defined in the job properties file. If not defined, the primary key (or
+     * an indexed column) of a numeric or time based type is used.
+     *
+     * @return
+     */
+    public String getJdbcPartitionColumn() {
+        final String str = _customProperties.get(PROPERTY_JDBC_PARTITION_COLUMN);
+        if (Strings.isNullOrEmpty(str)) {
+            return null;
+        }
+        return str.trim();
+    }
+
+    /**
+     * Gets the number of partitions to read JDBC source tables in, if it is
+     * defined in the job properties file.
+     *
+     * @return
+     */
+    public Integer getJdbcPartitions() {
+        final String str = _customProperties.get(PROPERTY_JDBC_PARTITIONS);
+        if (Strings.isNullOrEmpty(str)) {
+            return null;
+        }
+        return Integer.valueOf(str.trim());
+    }
+
     /**
      * Adds a listener for the job life cycle.
      *
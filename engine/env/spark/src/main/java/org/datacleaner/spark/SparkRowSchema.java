@@ -0,0 +1,89 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datacleaner.api.InputColumn;
+
+/**
+ * The columns of the {@link SparkInputRow}s of a job, shared by all rows so
+ * that each row only needs to hold an array of values.
+ *
+ * A schema is identified by the id of the {@link SparkJobContext} it was
+ * created by. This allows rows to be serialized with only that id in place of
+ * the schema, see {@link SparkInputRow#getSchema()}.
+ */
+public final class SparkRowSchema implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long _contextId;
+    private final List<InputColumn<?>> _columns;
+
+    // cached/transient state
+    private transient Map<InputColumn<?>, Integer> _columnIndexes;
+
+    public SparkRowSchema(final long contextId, final List<InputColumn<?>> columns) {
+        _contextId = contextId;
+        _columns = new ArrayList<>(columns);
+    }
+
+    public long getContextId() {
+        return _contextId;
+    }
+
+    public List<InputColumn<?>> getColumns() {
+        return Collections.unmodifiableList(_columns);
+    }
+
+    public int getColumnCount() {
+        return _columns.size();
+    }
+
+    /**
+     * Gets the index of a column in the values of the rows of this schema.
+     *
+     * @param column
+     * @return the index of the column, or -1 if it is not part of the schema
+     */
+    public int indexOf(final InputColumn<?> column) {
+        Map<InputColumn<?>, Integer> columnIndexes = _columnIndexes;
+        if (columnIndexes == null) {
+            columnIndexes = new HashMap<>();
+            for (int i = 0; i < _columns.size(); i++) {
+                columnIndexes.put(_columns.get(i), i);
+            }
+            _columnIndexes = columnIndexes;
+        }
+        final Integer index = columnIndexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public String toString() {
+        return "SparkRowSchema[contextId=" + _contextId + ",columns=" + _columns + "]";
+    }
+}
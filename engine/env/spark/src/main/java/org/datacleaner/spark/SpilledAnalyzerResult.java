@@ -0,0 +1,72 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.spark.utils.HdfsHelper;
+
+/**
+ * Placeholder for an {@link AnalyzerResult} which was too large to be
+ * collected to the driver, and which has instead been written to a file by the
+ * executor that produced it.
+ */
+public final class SpilledAnalyzerResult extends AbstractSerializedAnalyzerResult {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String _path;
+
+    public SpilledAnalyzerResult(final String path) {
+        _path = path;
+    }
+
+    /**
+     * Gets the path of the file that the result was written to.
+     *
+     * @return
+     */
+    public String getPath() {
+        return _path;
+    }
+
+    @Override
+    public InputStream openSerializedStream() {
+        final Resource resource = HdfsHelper.createHelper().getResourceToUse(URI.create(_path));
+        return resource.read();
+    }
+
+    /**
+     * Deletes the file that the result was written to.
+     *
+     * @return
+     */
+    public boolean delete() {
+        return HdfsHelper.createHelper().delete(URI.create(_path));
+    }
+
+    @Override
+    public String toString() {
+        return "SpilledAnalyzerResult[" + _path + "]";
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.AnalyzerResultReducer;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.InjectionManager;
+import org.datacleaner.descriptors.ComponentDescriptor;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.descriptors.ResultDescriptor;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.spark.SparkJobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abstract base class for the functions which reduce the partial analyzer
+ * results of the partitions of a Spark job.
+ *
+ * Partial results are passed around in batches (lists) per analyzer. Results
+ * of reducers that are incremental (see
+ * {@link AnalyzerResultReducer#isIncremental()}) are reduced as soon as a batch
+ * is combined, with a single invocation of the reducer for the whole batch.
+ * Results of other reducers are only reduced once, when all the partial
+ * results have been gathered.
+ */
+abstract class AbstractAnalyzerResultReduceFunction implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractAnalyzerResultReduceFunction.class);
+
+    private final SparkJobContext _sparkJobContext;
+
+    protected AbstractAnalyzerResultReduceFunction(final SparkJobContext sparkJobContext) {
+        _sparkJobContext = sparkJobContext;
+    }
+
+    protected final SparkJobContext getSparkJobContext() {
+        return _sparkJobContext;
+    }
+
+    /**
+     * Combines a batch of partial results, ie. reduces them into a single
+     * result if the reducer is incremental.
+     *
+     * @param key
+     * @param results
+     * @return a batch holding either the single reduced result, or all the
+     *         partial results
+     */
+    protected final List<AnalyzerResult> combine(final String key, final List<AnalyzerResult> results) {
+        if (results.size() <= 1) {
+            return results;
+        }
+        final AnalyzerResultReducer<AnalyzerResult> reducer = createReducer(key, results.get(0));
+        if (!reducer.isIncremental()) {
+            return results;
+        }
+        final List<AnalyzerResult> combined = new ArrayList<>(1);
+        combined.add(reduce(key, reducer, results));
+        return combined;
+    }
+
+    /**
+     * Reduces all the partial results of an analyzer into the final result.
+     *
+     * @param key
+     * @param results
+     * @return
+     */
+    protected final AnalyzerResult reduce(final String key, final List<AnalyzerResult> results) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        return reduce(key, createReducer(key, results.get(0)), results);
+    }
+
+    private AnalyzerResult reduce(final String key, final AnalyzerResultReducer<AnalyzerResult> reducer,
+            final List<AnalyzerResult> results) {
+        logger.info("Reducing {} results with key '{}' of type: {}", results.size(), key,
+                results.get(0).getClass());
+        return reducer.reduce(results);
+    }
+
+    private AnalyzerResultReducer<AnalyzerResult> createReducer(final String key,
+            final AnalyzerResult analyzerResult) {
+        final ComponentJob componentJob = _sparkJobContext.getComponentByKey(key);
+        final ResultDescriptor rd = getResultDescriptor(componentJob, analyzerResult);
+        final Class<? extends AnalyzerResultReducer<?>> resultReducerClass = rd.getResultReducerClass();
+
+        if (resultReducerClass == null) {
+            throw new IllegalStateException("The result type (" + analyzerResult + ") is not distributable!");
+        }
+
+        return initializeReducer(resultReducerClass);
+    }
+
+    private AnalyzerResultReducer<AnalyzerResult> initializeReducer(
+            final Class<? extends AnalyzerResultReducer<?>> resultReducerClass) {
+
+        final DataCleanerConfiguration configuration = _sparkJobContext.getConfiguration();
+        final InjectionManager injectionManager = configuration.getEnvironment().getInjectionManagerFactory()
+                .getInjectionManager(configuration, _sparkJobContext.getAnalysisJob());
+        final LifeCycleHelper lifeCycleHelper = new LifeCycleHelper(injectionManager, false);
+
+        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
+                Descriptors.ofComponent(resultReducerClass);
+
+        @SuppressWarnings("unchecked") final AnalyzerResultReducer<AnalyzerResult> reducer =
+                (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
+
+        lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
+        lifeCycleHelper.initialize(reducerDescriptor, reducer);
+
+        return reducer;
+    }
+
+    protected ResultDescriptor getResultDescriptor(final ComponentJob componentJob,
+            final AnalyzerResult analyzerResult) {
+        final ComponentDescriptor<?> descriptor = componentJob.getDescriptor();
+        if (descriptor instanceof ResultDescriptor) {
+            return (ResultDescriptor) descriptor;
+        }
+        // slightly more expensive, but potentially also better / more specific!
+        return Descriptors.ofResult(analyzerResult);
+    }
+}
@@ -19,93 +19,121 @@
  */
 package org.datacleaner.spark.functions;
 
-import java.util.Arrays;
-
-import org.apache.spark.api.java.function.Function2;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.commons.io.output.ThresholdingOutputStream;
+import org.apache.metamodel.util.FileResource;
+import org.apache.metamodel.util.Resource;
+import org.apache.spark.api.java.function.PairFunction;
 import org.datacleaner.api.AnalyzerResult;
-import org.datacleaner.api.AnalyzerResultReducer;
-import org.datacleaner.configuration.DataCleanerConfiguration;
-import org.datacleaner.configuration.InjectionManager;
-import org.datacleaner.descriptors.ComponentDescriptor;
-import org.datacleaner.descriptors.Descriptors;
-import org.datacleaner.descriptors.ResultDescriptor;
-import org.datacleaner.job.ComponentJob;
-import org.datacleaner.lifecycle.LifeCycleHelper;
-import org.datacleaner.spark.NamedAnalyzerResult;
+import org.datacleaner.spark.CollectedAnalyzerResult;
 import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SpilledAnalyzerResult;
+import org.datacleaner.spark.utils.HdfsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public final class AnalyzerResultReduceFunction
-        implements Function2<NamedAnalyzerResult, NamedAnalyzerResult, NamedAnalyzerResult> {
+import scala.Tuple2;
+
+/**
+ * Reduces all the partial results of an analyzer into its final result.
+ *
+ * The final result is serialized once on the executor. If it is larger than
+ * the spill threshold of the job when serialized, it is written to the spill
+ * directory of the job instead of being returned, so that it is not collected
+ * to the driver, and a {@link SpilledAnalyzerResult} referring to the written
+ * file is returned. Otherwise a {@link CollectedAnalyzerResult} holding the
+ * serialized result is returned.
+ */
+public final class AnalyzerResultReduceFunction extends AbstractAnalyzerResultReduceFunction
+        implements PairFunction<Tuple2<String, List<AnalyzerResult>>, String, AnalyzerResult> {
 
     private static final long serialVersionUID = 1L;
 
     private static final Logger logger = LoggerFactory.getLogger(AnalyzerResultReduceFunction.class);
 
-    private final SparkJobContext _sparkJobContext;
-
-    public AnalyzerResultReduceFunction(final SparkJobContext sparkJobContext) {
-        _sparkJobContext = sparkJobContext;
-    }
-
-    @Override
-    public NamedAnalyzerResult call(final NamedAnalyzerResult namedAnalyzerResult1,
-            final NamedAnalyzerResult namedAnalyzerResult2) throws Exception {
-
-        assert namedAnalyzerResult1.getName().equals(namedAnalyzerResult2.getName());
-
-        final String key = namedAnalyzerResult1.getName();
-
-        final ComponentJob componentJob = _sparkJobContext.getComponentByKey(key);
-
-        final AnalyzerResult analyzerResult1 = namedAnalyzerResult1.getAnalyzerResult();
-        final AnalyzerResult analyzerResult2 = namedAnalyzerResult2.getAnalyzerResult();
+    /**
+     * Buffers written bytes in memory until the threshold is exceeded, and
+     * then writes them to a file instead.
+     */
+    private static final class SpillingOutputStream extends ThresholdingOutputStream {
 
-        logger.info("Reducing results with key '{}' of types: {} and {}", key, analyzerResult1.getClass(),
-                analyzerResult2.getClass());
+        private final URI _path;
+        private ByteArrayOutputStream _memoryOutputStream = new ByteArrayOutputStream();
+        private OutputStream _currentOutputStream = _memoryOutputStream;
 
-        final ResultDescriptor rd = getResultDescriptor(componentJob, analyzerResult1);
-        final Class<? extends AnalyzerResultReducer<?>> resultReducerClass = rd.getResultReducerClass();
+        private SpillingOutputStream(final int threshold, final URI path) {
+            super(threshold);
+            _path = path;
+        }
 
-        if (resultReducerClass == null) {
-            throw new IllegalStateException("The result type (" + analyzerResult1 + ") is not distributable!");
+        @Override
+        protected OutputStream getStream() throws IOException {
+            return _currentOutputStream;
         }
 
-        final AnalyzerResultReducer<AnalyzerResult> reducer = initializeReducer(resultReducerClass);
+        @Override
+        protected void thresholdReached() throws IOException {
+            final Resource resource = HdfsHelper.createHelper().getResourceToUse(_path);
+            if (resource instanceof FileResource) {
+                // unlike HDFS, the local file system does not create parent directories
+                ((FileResource) resource).getFile().getParentFile().mkdirs();
+            }
+            final OutputStream fileOutputStream = resource.write();
+            _memoryOutputStream.writeTo(fileOutputStream);
+            _memoryOutputStream = null;
+            _currentOutputStream = fileOutputStream;
+        }
 
-        final AnalyzerResult reducedAnalyzerResult = reducer.reduce(Arrays.asList(analyzerResult1, analyzerResult2));
+        private boolean isInMemory() {
+            return _memoryOutputStream != null;
+        }
 
-        return new NamedAnalyzerResult(key, reducedAnalyzerResult);
+        private byte[] getData() {
+            return _memoryOutputStream.toByteArray();
+        }
     }
 
-    private AnalyzerResultReducer<AnalyzerResult> initializeReducer(
-            final Class<? extends AnalyzerResultReducer<?>> resultReducerClass) {
-
-        final DataCleanerConfiguration configuration = _sparkJobContext.getConfiguration();
-        final InjectionManager injectionManager = configuration.getEnvironment().getInjectionManagerFactory()
-                .getInjectionManager(configuration, _sparkJobContext.getAnalysisJob());
-        final LifeCycleHelper lifeCycleHelper = new LifeCycleHelper(injectionManager, false);
-
-        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
-                Descriptors.ofComponent(resultReducerClass);
-
-        @SuppressWarnings("unchecked") final AnalyzerResultReducer<AnalyzerResult> reducer =
-                (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
+    private final String _spillDirectory;
+
+    /**
+     * Creates an {@link AnalyzerResultReduceFunction}.
+     *
+     * @param sparkJobContext
+     * @param spillDirectory
+     *            the directory to write large results to, or null if results
+     *            should never be spilled
+     */
+    public AnalyzerResultReduceFunction(final SparkJobContext sparkJobContext, final String spillDirectory) {
+        super(sparkJobContext);
+        _spillDirectory = spillDirectory;
+    }
 
-        lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
-        lifeCycleHelper.initialize(reducerDescriptor, reducer);
+    @Override
+    public Tuple2<String, AnalyzerResult> call(final Tuple2<String, List<AnalyzerResult>> tuple) throws Exception {
+        final String key = tuple._1;
+        final AnalyzerResult result = reduce(key, tuple._2);
 
-        return reducer;
-    }
+        final int spillThreshold = getSparkJobContext().getResultSpillThreshold();
+        if (_spillDirectory == null || spillThreshold <= 0) {
+            return new Tuple2<>(key, result);
+        }
 
-    protected ResultDescriptor getResultDescriptor(final ComponentJob componentJob,
-            final AnalyzerResult analyzerResult) {
-        final ComponentDescriptor<?> descriptor = componentJob.getDescriptor();
-        if (descriptor instanceof ResultDescriptor) {
-            return (ResultDescriptor) descriptor;
+        final URI path = URI.create(_spillDirectory + '/' + key + ".dat");
+        final SpillingOutputStream out = new SpillingOutputStream(spillThreshold, path);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(out)) {
+            objectOutputStream.writeObject(result);
+        }
+        if (out.isInMemory()) {
+            return new Tuple2<>(key, new CollectedAnalyzerResult(out.getData()));
         }
-        // slightly more expensive, but potentially also better / more specific!
-        return Descriptors.ofResult(analyzerResult);
+
+        logger.info("Result with key '{}' is larger than {} bytes, wrote it to: {}", key, spillThreshold, path);
+        return new Tuple2<>(key, new SpilledAnalyzerResult(path.toString()));
     }
 }
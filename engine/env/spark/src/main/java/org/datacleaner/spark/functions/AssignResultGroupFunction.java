@@ -0,0 +1,52 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.List;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.PairFunction;
+import org.datacleaner.api.AnalyzerResult;
+
+import scala.Tuple2;
+
+/**
+ * Assigns the result batches of a partition to one of a number of groups, for
+ * a level of the tree reduction of analyzer results. Partitions are assigned
+ * to groups round-robin, by their partition index.
+ */
+public final class AssignResultGroupFunction
+        implements PairFunction<Tuple2<String, List<AnalyzerResult>>, Tuple2<String, Integer>, List<AnalyzerResult>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int _groups;
+
+    public AssignResultGroupFunction(final int groups) {
+        _groups = groups;
+    }
+
+    @Override
+    public Tuple2<Tuple2<String, Integer>, List<AnalyzerResult>> call(
+            final Tuple2<String, List<AnalyzerResult>> tuple) throws Exception {
+        final int group = TaskContext.getPartitionId() % _groups;
+        return new Tuple2<>(new Tuple2<>(tuple._1, group), tuple._2);
+    }
+}
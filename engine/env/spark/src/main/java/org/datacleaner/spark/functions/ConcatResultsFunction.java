@@ -0,0 +1,44 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.spark.api.java.function.Function2;
+import org.datacleaner.api.AnalyzerResult;
+
+/**
+ * Concatenates two batches of analyzer results, without reducing them.
+ */
+public final class ConcatResultsFunction
+        implements Function2<List<AnalyzerResult>, List<AnalyzerResult>, List<AnalyzerResult>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public List<AnalyzerResult> call(final List<AnalyzerResult> results1, final List<AnalyzerResult> results2)
+            throws Exception {
+        final List<AnalyzerResult> results = new ArrayList<>(results1.size() + results2.size());
+        results.addAll(results1);
+        results.addAll(results2);
+        return results;
+    }
+}
@@ -24,11 +24,17 @@ import org.apache.spark.api.java.function.Function;
 
 import com.opencsv.CSVParser;
 
+/**
+ * Parser function for lines of a (single line values) CSV file. The parser is
+ * created once per deserialized function instance, ie. once per task, and
+ * reused for all lines.
+ */
 public final class CsvParserFunction implements Function<String, Object[]> {
 
     private static final long serialVersionUID = 1L;
 
     private final CsvConfiguration _csvConfiguration;
+    private transient CSVParser _csvParser;
 
     public CsvParserFunction(final CsvConfiguration csvConfiguration) {
         if (csvConfiguration.isMultilineValues()) {
@@ -51,10 +57,11 @@ public final class CsvParserFunction implements Function<String, Object[]> {
 
     @Override
     public Object[] call(final String csvLine) throws Exception {
-        final CSVParser csvParser =
-                new CSVParser(_csvConfiguration.getSeparatorChar(), _csvConfiguration.getQuoteChar(),
-                        _csvConfiguration.getEscapeChar());
-        return csvParser.parseLine(csvLine);
+        if (_csvParser == null) {
+            _csvParser = new CSVParser(_csvConfiguration.getSeparatorChar(), _csvConfiguration.getQuoteChar(),
+                    _csvConfiguration.getEscapeChar());
+        }
+        return _csvParser.parseLine(csvLine);
     }
 
 }
@@ -28,6 +28,7 @@ public class FixedWidthParserFunction implements Function<String, Object[]> {
     private static final long serialVersionUID = 1L;
     private final FixedWidthConfiguration _fixedWidthConfiguration;
     private final int _expectedLineLength;
+    private transient FixedWidthLineParser _fixedWidthParser;
 
     public FixedWidthParserFunction(final FixedWidthConfiguration fixedWidthConfiguration) {
         _fixedWidthConfiguration = fixedWidthConfiguration;
@@ -43,8 +44,9 @@ public class FixedWidthParserFunction implements Function<String, Object[]> {
 
     @Override
     public Object[] call(final String line) throws Exception {
-        final FixedWidthLineParser fixedWidthParser =
-                new FixedWidthLineParser(_fixedWidthConfiguration, _expectedLineLength, 0);
-        return fixedWidthParser.parseLine(line);
+        if (_fixedWidthParser == null) {
+            _fixedWidthParser = new FixedWidthLineParser(_fixedWidthConfiguration, _expectedLineLength, 0);
+        }
+        return _fixedWidthParser.parseLine(line);
     }
 }
@@ -0,0 +1,177 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.util.TaskCompletionListener;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.components.keyrange.KeyRangeSlicer;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.spark.QueryPushDownHelper;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
+
+/**
+ * Mapper function that reads a key range of a JDBC source table per partition
+ * and converts the records into {@link InputRow}s.
+ *
+ * Each partition opens its own connection using the datastore of the job,
+ * which is part of the {@link SparkJobContext}, and queries the source columns
+ * of the job with the conditions of the job's query optimized filters and the
+ * key range of the partition in the WHERE clause. Records with a null key are
+ * not in any key range, and are read by the first partition.
+ *
+ * It is assumed that the job is based on a single source {@link Table}.
+ */
+public class JdbcPartitionToInputRowFunction implements Function2<Integer, Iterator<Integer>, Iterator<InputRow>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SparkJobContext _sparkJobContext;
+    private final String _keyColumnName;
+    private final ArrayList<Long> _boundaries;
+
+    /**
+     * Creates a {@link JdbcPartitionToInputRowFunction}.
+     *
+     * @param sparkJobContext
+     * @param keyColumnName
+     *            the name of the column to partition by, or null if the table
+     *            is read in a single partition
+     * @param boundaries
+     *            the boundaries of the key ranges, as returned by
+     *            {@link KeyRangeSlicer#slice(DataContext, Column, int)}.
+     *            Partition i reads the keys from element i (inclusive) to
+     *            element i+1 (exclusive).
+     */
+    public JdbcPartitionToInputRowFunction(final SparkJobContext sparkJobContext, final String keyColumnName,
+            final List<Long> boundaries) {
+        _sparkJobContext = sparkJobContext;
+        _keyColumnName = keyColumnName;
+        _boundaries = boundaries == null ? null : new ArrayList<>(boundaries);
+    }
+
+    private List<FilterItem> createKeyRangeItems(final Column keyColumn, final int partitionIndex) {
+        final List<FilterItem> items = new ArrayList<>(2);
+        final Long lowestKey = _boundaries.get(partitionIndex);
+        final Long highestKey = _boundaries.get(partitionIndex + 1);
+        if (lowestKey != null) {
+            items.add(new FilterItem(new SelectItem(keyColumn), OperatorType.GREATER_THAN_OR_EQUAL,
+                    KeyRangeSlicer.toOperand(keyColumn, lowestKey)));
+        }
+        if (highestKey != null) {
+            items.add(new FilterItem(new SelectItem(keyColumn), OperatorType.LESS_THAN,
+                    KeyRangeSlicer.toOperand(keyColumn, highestKey)));
+        }
+        return items;
+    }
+
+    @Override
+    public Iterator<InputRow> call(final Integer partitionIndex, final Iterator<Integer> partitionIndexes)
+            throws Exception {
+        final SparkRowSchema rowSchema = _sparkJobContext.getRowSchema();
+        final List<InputColumn<?>> sourceColumns = rowSchema.getColumns();
+        if (sourceColumns.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+
+        final List<Column> columns = new ArrayList<>(sourceColumns.size());
+        for (final InputColumn<?> sourceColumn : sourceColumns) {
+            columns.add(sourceColumn.getPhysicalColumn());
+        }
+        final Table table = columns.get(0).getTable();
+
+        final Query query = new Query().from(table).select(columns);
+        query.where(QueryPushDownHelper.getWhereItems(_sparkJobContext));
+        if (_keyColumnName != null) {
+            final Column keyColumn = table.getColumnByName(_keyColumnName);
+            final List<FilterItem> keyRangeItems = createKeyRangeItems(keyColumn, partitionIndex);
+            if (partitionIndex == 0 && !keyRangeItems.isEmpty() && !Boolean.FALSE.equals(keyColumn.isNullable())) {
+                final FilterItem nullKeyItem = new FilterItem(new SelectItem(keyColumn), OperatorType.EQUALS_TO, null);
+                final FilterItem keyRangeItem = keyRangeItems.size() == 1 ? keyRangeItems.get(0)
+                        : new FilterItem(LogicalOperator.AND, keyRangeItems);
+                query.where(new FilterItem(LogicalOperator.OR, keyRangeItem, nullKeyItem));
+            } else {
+                query.where(keyRangeItems);
+            }
+        }
+
+        final DatastoreConnection connection = _sparkJobContext.getAnalysisJob().getDatastore().openConnection();
+        final DataSet dataSet;
+        try {
+            dataSet = connection.getDataContext().executeQuery(query);
+        } catch (final RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+
+        // make sure the connection is closed, also if the task fails
+        TaskContext.get().addTaskCompletionListener(new TaskCompletionListener() {
+            @Override
+            public void onTaskCompletion(final TaskContext context) {
+                dataSet.close();
+                connection.close();
+            }
+        });
+
+        return new Iterator<InputRow>() {
+            private Boolean _hasNext;
+            private long _offset;
+
+            @Override
+            public boolean hasNext() {
+                if (_hasNext == null) {
+                    _hasNext = dataSet.next();
+                }
+                return _hasNext;
+            }
+
+            @Override
+            public InputRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _hasNext = null;
+                final Row row = dataSet.getRow();
+                return new SparkInputRow(rowSchema, SparkInputRow.createId(partitionIndex, _offset++),
+                        row.getValues());
+            }
+        };
+    }
+}
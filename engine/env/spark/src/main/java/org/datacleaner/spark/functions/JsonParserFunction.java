@@ -33,7 +33,8 @@ public class JsonParserFunction implements Function<String, Object[]> {
 
     private static final long serialVersionUID = 1L;
     private final JsonDatastore _jsonDatastore;
-    private List<Column> _columns;
+    private transient ObjectMapper _objectMapper;
+    private transient List<Column> _columns;
 
     public JsonParserFunction(final JsonDatastore jsonDatastore) {
         _jsonDatastore = jsonDatastore;
@@ -41,8 +42,10 @@ public class JsonParserFunction implements Function<String, Object[]> {
 
     @Override
     public Object[] call(final String line) throws Exception {
-        final ObjectMapper mapper = new ObjectMapper();
-        final JsonNode readTree = mapper.readTree(line);
+        if (_objectMapper == null) {
+            _objectMapper = new ObjectMapper();
+        }
+        final JsonNode readTree = _objectMapper.readTree(line);
         return getValues(readTree);
     }
 
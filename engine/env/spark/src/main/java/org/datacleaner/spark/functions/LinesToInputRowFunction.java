@@ -0,0 +1,123 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.metamodel.schema.Table;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
+
+/**
+ * Mapper function that parses the text lines of a partition and converts them
+ * into {@link InputRow}s, in a single pass.
+ *
+ * Row ids are derived from the partition index and the offset of the line
+ * within the partition, so no extra pass over the data is needed to number
+ * the rows. The values of the job's source columns are picked from the parsed
+ * records by their column numbers, which are resolved once per partition.
+ *
+ * It is assumed that the job is based on a single source {@link Table}.
+ */
+public class LinesToInputRowFunction implements Function2<Integer, Iterator<String>, Iterator<InputRow>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SparkJobContext _sparkJobContext;
+    private final Function<String, Object[]> _parserFunction;
+    private final int _headerLines;
+
+    /**
+     * Creates a {@link LinesToInputRowFunction}.
+     *
+     * @param sparkJobContext
+     * @param parserFunction
+     *            the function which parses a line into the values of a record
+     * @param headerLines
+     *            the number of lines at the beginning of the file which are
+     *            not records, ie. the column name line number, or 0
+     */
+    public LinesToInputRowFunction(final SparkJobContext sparkJobContext,
+            final Function<String, Object[]> parserFunction, final int headerLines) {
+        _sparkJobContext = sparkJobContext;
+        _parserFunction = parserFunction;
+        _headerLines = Math.max(0, headerLines);
+    }
+
+    @Override
+    public Iterator<InputRow> call(final Integer partitionIndex, final Iterator<String> lines) throws Exception {
+        final SparkRowSchema rowSchema = _sparkJobContext.getRowSchema();
+        final List<InputColumn<?>> sourceColumns = rowSchema.getColumns();
+        final int[] columnIndexes = new int[sourceColumns.size()];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            final InputColumn<?> sourceColumn = sourceColumns.get(i);
+            assert sourceColumn.isPhysicalColumn();
+            columnIndexes[i] = sourceColumn.getPhysicalColumn().getColumnNumber();
+        }
+
+        long offset = 0;
+        if (partitionIndex == 0) {
+            // the header lines are at the beginning of the first partition
+            while (offset < _headerLines && lines.hasNext()) {
+                lines.next();
+                offset++;
+            }
+        }
+        final long firstOffset = offset;
+
+        return new Iterator<InputRow>() {
+            private long _offset = firstOffset;
+
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public InputRow next() {
+                if (!lines.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Object[] values;
+                try {
+                    values = _parserFunction.call(lines.next());
+                } catch (final RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new IllegalStateException("Failed to parse line " + _offset + " of partition "
+                            + partitionIndex, e);
+                }
+
+                final Object[] rowValues = new Object[columnIndexes.length];
+                for (int i = 0; i < rowValues.length; i++) {
+                    rowValues[i] = values[columnIndexes[i]];
+                }
+                return new SparkInputRow(rowSchema, SparkInputRow.createId(partitionIndex, _offset++), rowValues);
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.parquet.example.data.Group;
+import org.apache.spark.api.java.function.Function2;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.connection.parquet.ParquetHelper;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
+
+import scala.Tuple2;
+
+/**
+ * Mapper function that converts the Parquet records of a partition into
+ * {@link InputRow}s. The records are expected to be read with a projection
+ * containing (at least) the job's source columns.
+ *
+ * Row ids are derived from the partition index, so no extra pass over the data
+ * is needed to number the rows.
+ */
+public class ParquetGroupToInputRowFunction
+        implements Function2<Integer, Iterator<Tuple2<Void, Group>>, Iterator<InputRow>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SparkJobContext _sparkJobContext;
+
+    public ParquetGroupToInputRowFunction(final SparkJobContext sparkJobContext) {
+        _sparkJobContext = sparkJobContext;
+    }
+
+    @Override
+    public Iterator<InputRow> call(final Integer partitionIndex, final Iterator<Tuple2<Void, Group>> records)
+            throws Exception {
+        final SparkRowSchema rowSchema = _sparkJobContext.getRowSchema();
+        final List<InputColumn<?>> sourceColumns = rowSchema.getColumns();
+
+        return new Iterator<InputRow>() {
+            private int[] _fieldIndexes;
+            private long _offset;
+
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public InputRow next() {
+                final Group group = records.next()._2;
+                if (_fieldIndexes == null) {
+                    // all records of a partition share the projected schema
+                    _fieldIndexes = new int[sourceColumns.size()];
+                    for (int i = 0; i < _fieldIndexes.length; i++) {
+                        final String name = sourceColumns.get(i).getPhysicalColumn().getName();
+                        _fieldIndexes[i] = group.getType().getFieldIndex(name);
+                    }
+                }
+
+                final Object[] values = new Object[_fieldIndexes.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = ParquetHelper.getValue(group, _fieldIndexes[i]);
+                }
+                return new SparkInputRow(rowSchema, SparkInputRow.createId(partitionIndex, _offset++), values);
+            }
+        };
+    }
+}
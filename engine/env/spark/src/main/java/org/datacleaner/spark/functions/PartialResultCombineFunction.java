@@ -0,0 +1,65 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.spark.NamedAnalyzerResult;
+import org.datacleaner.spark.SparkJobContext;
+
+import scala.Tuple2;
+
+/**
+ * Partition-local combine of the partial analyzer results of a partition.
+ * Produces a single batch of results per analyzer.
+ */
+public final class PartialResultCombineFunction extends AbstractAnalyzerResultReduceFunction
+        implements PairFlatMapFunction<Iterator<Tuple2<String, NamedAnalyzerResult>>, String, List<AnalyzerResult>> {
+
+    private static final long serialVersionUID = 1L;
+
+    public PartialResultCombineFunction(final SparkJobContext sparkJobContext) {
+        super(sparkJobContext);
+    }
+
+    @Override
+    public Iterator<Tuple2<String, List<AnalyzerResult>>> call(
+            final Iterator<Tuple2<String, NamedAnalyzerResult>> tuples) throws Exception {
+        final Map<String, List<AnalyzerResult>> batches = new LinkedHashMap<>();
+        while (tuples.hasNext()) {
+            final NamedAnalyzerResult namedAnalyzerResult = tuples.next()._2;
+            batches.computeIfAbsent(namedAnalyzerResult.getName(), key -> new ArrayList<>())
+                    .add(namedAnalyzerResult.getAnalyzerResult());
+        }
+
+        final List<Tuple2<String, List<AnalyzerResult>>> result = new ArrayList<>(batches.size());
+        for (final Entry<String, List<AnalyzerResult>> entry : batches.entrySet()) {
+            result.add(new Tuple2<>(entry.getKey(), combine(entry.getKey(), entry.getValue())));
+        }
+        return result.iterator();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.List;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.spark.SparkJobContext;
+
+import scala.Tuple2;
+
+/**
+ * Combines the result batches of a group, at a level of the tree reduction of
+ * analyzer results, and removes the group from the key again.
+ */
+public final class ResultGroupCombineFunction extends AbstractAnalyzerResultReduceFunction
+        implements PairFunction<Tuple2<Tuple2<String, Integer>, List<AnalyzerResult>>, String, List<AnalyzerResult>> {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResultGroupCombineFunction(final SparkJobContext sparkJobContext) {
+        super(sparkJobContext);
+    }
+
+    @Override
+    public Tuple2<String, List<AnalyzerResult>> call(final Tuple2<Tuple2<String, Integer>, List<AnalyzerResult>> tuple)
+            throws Exception {
+        final String key = tuple._1._1;
+        return new Tuple2<>(key, combine(key, tuple._2));
+    }
+}
@@ -55,7 +55,9 @@ import org.datacleaner.job.runner.RowProcessingConsumer;
 import org.datacleaner.lifecycle.LifeCycleHelper;
 import org.datacleaner.spark.NamedAnalyzerResult;
 import org.datacleaner.spark.SparkAnalysisRunner;
+import org.datacleaner.spark.SparkInputRow;
 import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
 import org.datacleaner.spark.utils.HdfsHelper;
 import org.datacleaner.util.HadoopResource;
 import org.slf4j.Logger;
@@ -243,8 +245,13 @@ public final class RowProcessingFunction
         }
 
         // fire row processing on each row
+        final SparkRowSchema rowSchema = _sparkJobContext.getRowSchema();
         while (inputRowIterator.hasNext()) {
             final InputRow inputRow = inputRowIterator.next();
+            if (inputRow instanceof SparkInputRow) {
+                // rows read from a shuffle or a cache only know the id of the context of their schema
+                ((SparkInputRow) inputRow).resolveSchema(rowSchema);
+            }
             consumeRowHandler.consumeRow(inputRow);
             logger.debug("Consumed row no. {}", inputRow.getId());
         }
@@ -0,0 +1,296 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.serialization;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.metamodel.util.SerializableRef;
+import org.apache.spark.SparkConf;
+import org.apache.spark.serializer.KryoRegistrator;
+import org.apache.spark.serializer.KryoSerializer;
+import org.datacleaner.beans.BooleanAnalyzerResult;
+import org.datacleaner.beans.CompletenessAnalyzerResult;
+import org.datacleaner.beans.DateAndTimeAnalyzerResult;
+import org.datacleaner.beans.NumberAnalyzerResult;
+import org.datacleaner.beans.StringAnalyzerResult;
+import org.datacleaner.beans.dategap.DateGapAnalyzerResult;
+import org.datacleaner.beans.dategap.TimeInterval;
+import org.datacleaner.beans.stringpattern.PatternFinderResult;
+import org.datacleaner.beans.uniqueness.UniqueKeyCheckAnalyzerResult;
+import org.datacleaner.beans.valuedist.GroupedValueDistributionResult;
+import org.datacleaner.beans.valuedist.SingleValueDistributionResult;
+import org.datacleaner.beans.valuematch.ValueMatchAnalyzerResult;
+import org.datacleaner.beans.writers.WriteDataResultImpl;
+import org.datacleaner.data.MetaModelInputColumn;
+import org.datacleaner.data.MetaModelInputRow;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.data.TransformedInputColumn;
+import org.datacleaner.data.TransformedInputRow;
+import org.datacleaner.reference.DatastoreDictionary;
+import org.datacleaner.reference.DatastoreSynonymCatalog;
+import org.datacleaner.reference.RegexStringPattern;
+import org.datacleaner.reference.SimpleDictionary;
+import org.datacleaner.reference.SimpleStringPattern;
+import org.datacleaner.reference.SimpleSynonym;
+import org.datacleaner.reference.SimpleSynonymCatalog;
+import org.datacleaner.reference.TextFileDictionary;
+import org.datacleaner.reference.TextFileSynonymCatalog;
+import org.datacleaner.reference.regexswap.Category;
+import org.datacleaner.reference.regexswap.Regex;
+import org.datacleaner.reference.regexswap.RegexSwapStringPattern;
+import org.datacleaner.result.AnnotatedRowsResult;
+import org.datacleaner.result.CategorizationResult;
+import org.datacleaner.result.CompositeValueFrequency;
+import org.datacleaner.result.Crosstab;
+import org.datacleaner.result.CrosstabDimension;
+import org.datacleaner.result.CrosstabResult;
+import org.datacleaner.result.ListResult;
+import org.datacleaner.result.NumberResult;
+import org.datacleaner.result.ReducedSingleValueDistributionResult;
+import org.datacleaner.result.ReducedValueDistributionResult;
+import org.datacleaner.result.SingleValueFrequency;
+import org.datacleaner.result.ValueCountListImpl;
+import org.datacleaner.spark.CollectedAnalyzerResult;
+import org.datacleaner.spark.NamedAnalyzerResult;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkRowSchema;
+import org.datacleaner.spark.SpilledAnalyzerResult;
+import org.datacleaner.storage.CompactRowAnnotationFactory;
+import org.datacleaner.storage.CompactRowSample;
+import org.datacleaner.storage.InMemoryRowAnnotationFactory2;
+import org.datacleaner.storage.RowAnnotationImpl;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.factories.ReflectionSerializerFactory;
+import com.esotericsoftware.kryo.factories.SerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+
+/**
+ * {@link KryoRegistrator} for the classes which DataCleaner ships between
+ * Spark executors and the driver: rows, row annotations, analyzer results and
+ * reference data.
+ *
+ * Registered classes are written with a small id instead of their class name.
+ * Classes which are not registered, and which rely on custom Java
+ * serialization (eg. <code>readResolve()</code> or
+ * <code>writeObject(...)</code>), are written using Java serialization, since
+ * Kryo would otherwise bypass that logic.
+ */
+public class DataCleanerKryoRegistrator implements KryoRegistrator {
+
+    public static final String PROPERTY_SERIALIZER = "spark.serializer";
+    public static final String PROPERTY_REGISTRATOR = "spark.kryo.registrator";
+    public static final String PROPERTY_BUFFER_MAX = "spark.kryoserializer.buffer.max";
+
+    /**
+     * The maximum size of a single serialized object. Analyzer results may be
+     * a lot larger than the 64 MB that Spark allows by default.
+     */
+    public static final String DEFAULT_BUFFER_MAX = "512m";
+
+    /**
+     * Serializer for lists created by {@link Arrays#asList(Object...)}, which
+     * cannot be created empty and added to like other collections.
+     */
+    private static final class ArraysAsListSerializer extends Serializer<List<?>> {
+
+        @Override
+        public void write(final Kryo kryo, final Output output, final List<?> list) {
+            output.writeVarInt(list.size(), true);
+            for (final Object element : list) {
+                kryo.writeClassAndObject(output, element);
+            }
+        }
+
+        @Override
+        public List<?> read(final Kryo kryo, final Input input, final Class<List<?>> type) {
+            final Object[] elements = new Object[input.readVarInt(true)];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = kryo.readClassAndObject(input);
+            }
+            return Arrays.asList(elements);
+        }
+    }
+
+    /**
+     * Creates field serializers, except for DataCleaner and MetaModel classes
+     * with custom Java serialization.
+     */
+    private static final class DefaultSerializerFactory implements SerializerFactory {
+
+        private final SerializerFactory _fieldSerializerFactory =
+                new ReflectionSerializerFactory(FieldSerializer.class);
+
+        @Override
+        public Serializer<?> makeSerializer(final Kryo kryo, final Class<?> type) {
+            if (isCustomJavaSerialized(type)) {
+                return new JavaSerializer();
+            }
+            return _fieldSerializerFactory.makeSerializer(kryo, type);
+        }
+
+        private static boolean isCustomJavaSerialized(final Class<?> type) {
+            if (!Serializable.class.isAssignableFrom(type)) {
+                return false;
+            }
+            for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                final String name = cls.getName();
+                if (!name.startsWith("org.datacleaner.") && !name.startsWith("org.apache.metamodel.")) {
+                    continue;
+                }
+                if (declaresMethod(cls, "readObject", ObjectInputStream.class) || declaresMethod(cls,
+                        "writeObject", ObjectOutputStream.class) || declaresMethod(cls, "readResolve")
+                        || declaresMethod(cls, "writeReplace")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean declaresMethod(final Class<?> cls, final String name,
+                final Class<?>... parameterTypes) {
+            try {
+                cls.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (final NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Configures Kryo serialization with this registrator, unless a serializer
+     * has already been configured.
+     *
+     * @param sparkConf
+     * @return
+     */
+    public static SparkConf configure(final SparkConf sparkConf) {
+        sparkConf.setIfMissing(PROPERTY_SERIALIZER, KryoSerializer.class.getName());
+        sparkConf.setIfMissing(PROPERTY_REGISTRATOR, DataCleanerKryoRegistrator.class.getName());
+        sparkConf.setIfMissing(PROPERTY_BUFFER_MAX, DEFAULT_BUFFER_MAX);
+        return sparkConf;
+    }
+
+    @Override
+    public void registerClasses(final Kryo kryo) {
+        kryo.setDefaultSerializer(new DefaultSerializerFactory());
+
+        // general purpose classes used by the classes below
+        kryo.register(Object[].class);
+        kryo.register(ArrayList.class);
+        kryo.register(LinkedList.class);
+        kryo.register(HashMap.class);
+        kryo.register(LinkedHashMap.class);
+        kryo.register(TreeMap.class);
+        kryo.register(HashSet.class);
+        kryo.register(TreeSet.class);
+        kryo.register(ConcurrentHashMap.class);
+        kryo.register(AtomicInteger.class);
+        kryo.register(AtomicLong.class);
+        kryo.register(Date.class);
+        kryo.register(Arrays.asList().getClass(), new ArraysAsListSerializer());
+
+        // rows and columns. The custom Java serialization of the rows is only
+        // there to read rows serialized by old versions.
+        kryo.register(SparkRowSchema.class);
+        kryo.register(SparkInputRow.class, new SparkInputRowSerializer());
+        registerFields(kryo, MockInputRow.class);
+        registerFields(kryo, MetaModelInputRow.class);
+        registerFields(kryo, TransformedInputRow.class);
+        kryo.register(MetaModelInputColumn.class);
+        kryo.register(TransformedInputColumn.class);
+
+        // row annotations
+        registerFields(kryo, RowAnnotationImpl.class);
+        kryo.register(SerializableRef.class);
+        kryo.register(InMemoryRowAnnotationFactory2.class);
+        kryo.register(CompactRowAnnotationFactory.class);
+        kryo.register(CompactRowSample.class);
+
+        // analyzer results
+        kryo.register(NamedAnalyzerResult.class);
+        kryo.register(SpilledAnalyzerResult.class);
+        kryo.register(CollectedAnalyzerResult.class);
+        kryo.register(Crosstab.class);
+        kryo.register(CrosstabDimension.class);
+        kryo.register(CrosstabResult.class);
+        kryo.register(AnnotatedRowsResult.class);
+        kryo.register(CategorizationResult.class);
+        kryo.register(ListResult.class);
+        kryo.register(NumberResult.class);
+        kryo.register(BooleanAnalyzerResult.class);
+        kryo.register(CompletenessAnalyzerResult.class);
+        kryo.register(DateAndTimeAnalyzerResult.class);
+        kryo.register(NumberAnalyzerResult.class);
+        kryo.register(StringAnalyzerResult.class);
+        kryo.register(ValueMatchAnalyzerResult.class);
+        kryo.register(SingleValueDistributionResult.class);
+        kryo.register(GroupedValueDistributionResult.class);
+        kryo.register(ReducedSingleValueDistributionResult.class);
+        kryo.register(ReducedValueDistributionResult.class);
+        kryo.register(ValueCountListImpl.class);
+        kryo.register(SingleValueFrequency.class);
+        kryo.register(CompositeValueFrequency.class);
+        kryo.register(PatternFinderResult.class);
+        kryo.register(DateGapAnalyzerResult.class);
+        kryo.register(TimeInterval.class);
+        kryo.register(UniqueKeyCheckAnalyzerResult.class);
+        kryo.register(WriteDataResultImpl.class);
+
+        // reference data. As for rows, the custom Java serialization is only
+        // there to read reference data serialized by old versions.
+        registerFields(kryo, SimpleDictionary.class);
+        registerFields(kryo, TextFileDictionary.class);
+        registerFields(kryo, DatastoreDictionary.class);
+        registerFields(kryo, SimpleSynonymCatalog.class);
+        registerFields(kryo, TextFileSynonymCatalog.class);
+        registerFields(kryo, DatastoreSynonymCatalog.class);
+        kryo.register(SimpleSynonym.class);
+        registerFields(kryo, RegexStringPattern.class);
+        registerFields(kryo, SimpleStringPattern.class);
+        kryo.register(RegexSwapStringPattern.class);
+        kryo.register(Regex.class);
+        kryo.register(Category.class);
+    }
+
+    private static void registerFields(final Kryo kryo, final Class<?> type) {
+        kryo.register(type, new FieldSerializer<>(kryo, type));
+    }
+}
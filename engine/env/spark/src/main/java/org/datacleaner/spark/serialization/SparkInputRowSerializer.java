@@ -0,0 +1,65 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.serialization;
+
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo {@link Serializer} for {@link SparkInputRow}s. A row is written as the
+ * id of the {@link SparkJobContext} of its schema, its id and its array of
+ * values. The schema itself is never written. Rows are read without a schema,
+ * which is resolved once the row's values are accessed, see
+ * {@link SparkInputRow#getSchema()}. This way rows can be moved around by any
+ * task, eg. in a shuffle, without the context being available to it.
+ */
+public class SparkInputRowSerializer extends Serializer<SparkInputRow> {
+
+    public SparkInputRowSerializer() {
+        setImmutable(true);
+    }
+
+    @Override
+    public void write(final Kryo kryo, final Output output, final SparkInputRow row) {
+        output.writeLong(row.getContextId());
+        output.writeVarLong(row.getId(), true);
+        final Object[] values = row.getValues();
+        output.writeVarInt(values.length, true);
+        for (final Object value : values) {
+            kryo.writeClassAndObject(output, value);
+        }
+    }
+
+    @Override
+    public SparkInputRow read(final Kryo kryo, final Input input, final Class<SparkInputRow> type) {
+        final long contextId = input.readLong();
+        final long id = input.readVarLong(true);
+        final Object[] values = new Object[input.readVarInt(true)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = kryo.readClassAndObject(input);
+        }
+        return new SparkInputRow(contextId, id, values);
+    }
+}
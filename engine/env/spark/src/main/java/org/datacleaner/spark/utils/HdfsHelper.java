@@ -24,6 +24,7 @@ import java.io.UncheckedIOException;
 import java.net.URI;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.metamodel.util.FileHelper;
@@ -179,4 +180,35 @@ public class HdfsHelper {
         // actually we don't know, but most likely it's not a directory
         return false;
     }
+
+    /**
+     * Deletes a file, or a directory if it is empty.
+     *
+     * @param path
+     * @return true if the path was deleted, false if it does not exist or is
+     *         a directory which is not empty
+     */
+    public boolean delete(final URI path) {
+        final Resource resource = getResourceToUse(path);
+        if (!resource.isExists()) {
+            return false;
+        }
+        if (resource instanceof FileResource) {
+            return ((FileResource) resource).getFile().delete();
+        }
+        if (resource instanceof HdfsResource) {
+            final FileSystem fileSystem = ((HdfsResource) resource).getHadoopFileSystem();
+            final Path hadoopPath = ((HdfsResource) resource).getHadoopPath();
+            try {
+                final FileStatus fileStatus = fileSystem.getFileStatus(hadoopPath);
+                if (fileStatus.isDirectory() && fileSystem.listStatus(hadoopPath).length > 0) {
+                    return false;
+                }
+                return fileSystem.delete(hadoopPath, false);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        throw new UnsupportedOperationException("Cannot delete resource: " + resource);
+    }
 }
@@ -23,14 +23,33 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.datacleaner.api.AnalyzerResult;
@@ -41,10 +60,15 @@ import org.datacleaner.beans.valuedist.GroupedValueDistributionResult;
 import org.datacleaner.beans.valuedist.ValueDistributionAnalyzerResult;
 import org.datacleaner.beans.valuematch.ValueMatchAnalyzerResult;
 import org.datacleaner.beans.writers.WriteDataResult;
+import org.datacleaner.components.keyrange.KeyRangeSlicer;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.result.AnalysisResult;
 import org.datacleaner.result.ReducedSingleValueDistributionResult;
 import org.datacleaner.result.ValueCountingAnalyzerResult;
+import org.datacleaner.result.save.AnalysisResultReader;
+import org.datacleaner.result.save.AnalysisResultSaveHandler;
+import org.datacleaner.spark.serialization.DataCleanerKryoRegistrator;
 import org.datacleaner.util.SystemProperties;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -177,7 +201,8 @@ public class SparkAnalysisRunnerTest {
 
         final AnalysisResultFuture result;
 
-        final SparkConf sparkConf = new SparkConf().setMaster("local").setAppName("DCTest - " + getName());
+        final SparkConf sparkConf = DataCleanerKryoRegistrator
+                .configure(new SparkConf().setMaster("local").setAppName("DCTest - " + getName()));
         try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
 
             final SparkJobContext sparkJobContext;
@@ -236,16 +261,27 @@ public class SparkAnalysisRunnerTest {
         assertEquals(7, completenessAnalyzerResult.getValidRowCount());
         assertEquals(0, completenessAnalyzerResult.getInvalidRowCount());
 
+        // results are in job order, where the complete rows stream comes first
         final ValueMatchAnalyzerResult incompleteValueMatcherAnalyzerResult =
-                result.getResults(ValueMatchAnalyzerResult.class).get(0);
+                result.getResults(ValueMatchAnalyzerResult.class).get(1);
         assertEquals(0, incompleteValueMatcherAnalyzerResult.getTotalCount());
         assertEquals(Integer.valueOf(0), incompleteValueMatcherAnalyzerResult.getCount("Kasper"));
 
         final ValueMatchAnalyzerResult completeValueMatcherAnalyzerResult =
-                result.getResults(ValueMatchAnalyzerResult.class).get(1);
+                result.getResults(ValueMatchAnalyzerResult.class).get(0);
         assertEquals(7, completeValueMatcherAnalyzerResult.getTotalCount());
         assertEquals(Integer.valueOf(1), completeValueMatcherAnalyzerResult.getCount("Tomasz"));
         assertEquals(Integer.valueOf(6), completeValueMatcherAnalyzerResult.getUnexpectedValueCount());
+
+        // the results are kept as serialized by the executors for saving, in the same order
+        final List<AnalyzerResult> saveableResults =
+                ((SparkAnalysisResultFuture) result).createSaveableResult().getResults();
+        assertEquals(3, saveableResults.size());
+        for (final AnalyzerResult saveableResult : saveableResults) {
+            assertTrue(saveableResult instanceof CollectedAnalyzerResult);
+        }
+        assertEquals(completeValueMatcherAnalyzerResult.getTotalCount(),
+                ((ValueMatchAnalyzerResult) ((CollectedAnalyzerResult) saveableResults.get(1)).load()).getTotalCount());
     }
 
     @Test
@@ -304,6 +340,50 @@ public class SparkAnalysisRunnerTest {
         assertEquals(0, completeValueDistributionAnalyzerResult.getNullCount());
     }
 
+    @Test
+    public void testTreeReductionWithSpilledResults() throws Exception {
+        final File spillDirectory = new File("target/spilled-results");
+        FileUtils.deleteQuietly(spillDirectory);
+
+        final SparkAnalysisResultFuture result;
+        final SparkConf sparkConf = DataCleanerKryoRegistrator
+                .configure(new SparkConf().setMaster("local").setAppName("DCTest - " + getName()));
+        try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+            final SparkJobContext sparkJobContext = new SparkJobContext(URI.create("src/test/resources/conf_local.xml"),
+                    URI.create("src/test/resources/distributable-value-dist.analysis.xml"),
+                    URI.create("src/test/resources/jobProperties/spillResults.properties"), sparkContext);
+            assertEquals(3, sparkJobContext.getResultReduceDepth());
+
+            // enough partitions for the reduction tree to get an extra level
+            final SparkAnalysisRunner sparkAnalysisRunner = new SparkAnalysisRunner(sparkContext, sparkJobContext, 8);
+            result = sparkAnalysisRunner.run();
+        }
+
+        final File[] spilledFiles = spillDirectory.listFiles();
+        assertNotNull(spilledFiles);
+        assertEquals(1, spilledFiles.length);
+
+        final List<AnalyzerResult> results = result.getResults();
+        assertEquals(1, results.size());
+
+        final ValueDistributionAnalyzerResult completeValueDistributionAnalyzerResult =
+                result.getResults(ValueDistributionAnalyzerResult.class).get(0);
+        assertEquals(7, completeValueDistributionAnalyzerResult.getTotalCount());
+        assertEquals(Integer.valueOf(7), completeValueDistributionAnalyzerResult.getUniqueCount());
+
+        // the spilled result is copied into the result file without being loaded
+        final AnalysisResult saveableResult = result.createSaveableResult();
+        assertTrue(saveableResult.getResults().get(0) instanceof SpilledAnalyzerResult);
+        final FileResource resultResource = new FileResource("target/spilled-results.analysis.result.dat");
+        new AnalysisResultSaveHandler(saveableResult, resultResource).saveOrThrow();
+        final ValueDistributionAnalyzerResult savedResult = new AnalysisResultReader(resultResource).read()
+                .getResults(ValueDistributionAnalyzerResult.class).get(0);
+        assertEquals(7, savedResult.getTotalCount());
+
+        result.deleteSpilledResults();
+        assertFalse(spillDirectory.exists());
+    }
+
     @Test
     public void testGroupedValueDistributionReducer() throws Exception {
         final AnalysisResultFuture result = runAnalysisJob("DCTest - testGroupedValueDistributionReducer",
@@ -376,6 +456,128 @@ public class SparkAnalysisRunnerTest {
         assertNotNull(stringAnalyzerResult);
     }
 
+    @Test
+    public void testParquetDatastore() throws Exception {
+        writePersonNamesParquetFile(new File("target/person_names.parquet"));
+
+        final String appName = "DCTest - " + getName();
+        final AnalysisResultFuture result =
+                runAnalysisJob(appName, URI.create("src/test/resources/parquet-job.analysis.xml"), "parquet-job",
+                        false);
+
+        final List<AnalyzerResult> results = result.getResults();
+        assertNotNull(results);
+        assertEquals(1, results.size());
+
+        final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult =
+                result.getResults(ValueDistributionAnalyzerResult.class).get(0);
+        assertEquals(4, valueDistributionAnalyzerResult.getTotalCount());
+        assertEquals("[Claudia, Dennis, Kasper, Tomasz]",
+                valueDistributionAnalyzerResult.getUniqueValues().stream().sorted().collect(Collectors.toList())
+                        .toString());
+    }
+
+    @Test
+    public void testJdbcDatastore() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:person_names;DB_CLOSE_DELAY=-1",
+                "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS persons");
+                statement.execute("CREATE TABLE persons (id INTEGER PRIMARY KEY, name VARCHAR(255), "
+                        + "company VARCHAR(255), country VARCHAR(255))");
+            }
+            final List<String> lines = FileUtils.readLines(new File("src/test/resources/person_names.txt"), "UTF-8");
+            try (PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO persons (id, name, company, country) VALUES (?,?,?,?)")) {
+                for (final String line : lines.subList(1, lines.size())) {
+                    final String[] values = line.split(",");
+                    statement.setInt(1, Integer.parseInt(values[0]));
+                    statement.setString(2, values[1]);
+                    statement.setString(3, values[2]);
+                    statement.setString(4, values[3]);
+                    statement.executeUpdate();
+                }
+            }
+
+            final String appName = "DCTest - " + getName();
+            final AnalysisResultFuture result =
+                    runAnalysisJob(appName, URI.create("src/test/resources/jdbc-job.analysis.xml"), "jdbc-job", true);
+
+            final List<AnalyzerResult> results = result.getResults();
+            assertNotNull(results);
+            assertEquals(1, results.size());
+
+            final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult =
+                    result.getResults(ValueDistributionAnalyzerResult.class).get(0);
+            assertEquals(4, valueDistributionAnalyzerResult.getTotalCount());
+            assertEquals("[Claudia, Dennis, Kasper, Tomasz]",
+                    valueDistributionAnalyzerResult.getUniqueValues().stream().sorted()
+                            .collect(Collectors.toList()).toString());
+        }
+    }
+
+    @Test
+    public void testJdbcDatastorePartitionedByNullableColumn() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:person_names;DB_CLOSE_DELAY=-1",
+                "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS persons");
+                statement.execute("CREATE TABLE persons (id INTEGER PRIMARY KEY, name VARCHAR(255), "
+                        + "company VARCHAR(255), country VARCHAR(255), employee_no INTEGER)");
+            }
+            final List<String> lines = FileUtils.readLines(new File("src/test/resources/person_names.txt"), "UTF-8");
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO persons (id, name, company, country, employee_no) VALUES (?,?,?,?,?)")) {
+                for (final String line : lines.subList(1, lines.size())) {
+                    final String[] values = line.split(",");
+                    final int id = Integer.parseInt(values[0]);
+                    statement.setInt(1, id);
+                    statement.setString(2, values[1]);
+                    statement.setString(3, values[2]);
+                    statement.setString(4, values[3]);
+                    // the first two persons have no employee number
+                    if (id <= 2) {
+                        statement.setNull(5, Types.INTEGER);
+                    } else {
+                        statement.setInt(5, id * 10);
+                    }
+                    statement.executeUpdate();
+                }
+            }
+
+            final Table table = new JdbcDataContext(connection).getDefaultSchema().getTableByName("PERSONS");
+            final Column keyColumn = table.getColumnByName("EMPLOYEE_NO");
+            assertTrue(keyColumn.isNullable());
+            assertEquals(4, KeyRangeSlicer.slice(new JdbcDataContext(connection), keyColumn, 3).size());
+
+            final SparkAnalysisResultFuture result;
+            final SparkConf sparkConf = DataCleanerKryoRegistrator
+                    .configure(new SparkConf().setMaster("local").setAppName("DCTest - " + getName()));
+            try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+                final SparkJobContext sparkJobContext = new SparkJobContext(
+                        URI.create("src/test/resources/conf_local.xml"),
+                        URI.create("src/test/resources/jdbc-job.analysis.xml"),
+                        URI.create("src/test/resources/jobProperties/jdbcNullablePartitionColumn.properties"),
+                        sparkContext);
+                assertEquals("EMPLOYEE_NO", sparkJobContext.getJdbcPartitionColumn());
+                assertEquals(Integer.valueOf(3), sparkJobContext.getJdbcPartitions());
+
+                result = new SparkAnalysisRunner(sparkContext, sparkJobContext).run();
+            }
+            if (result.isErrornous()) {
+                throw (Exception) result.getErrors().get(0);
+            }
+
+            // the persons without an employee number are read by the first partition
+            final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult =
+                    result.getResults(ValueDistributionAnalyzerResult.class).get(0);
+            assertEquals(4, valueDistributionAnalyzerResult.getTotalCount());
+            assertEquals("[Claudia, Dennis, Kasper, Tomasz]",
+                    valueDistributionAnalyzerResult.getUniqueValues().stream().sorted()
+                            .collect(Collectors.toList()).toString());
+        }
+    }
+
     @Test
     public void testLifeCycleListener() throws Exception {
         final String appName = "DCTest - " + getName();
@@ -388,6 +590,30 @@ public class SparkAnalysisRunnerTest {
         assertTrue(sparkJobLifeCycleListener._jobEndCalled.get());
     }
 
+    private void writePersonNamesParquetFile(final File file) throws Exception {
+        FileUtils.deleteQuietly(file);
+        FileUtils.deleteQuietly(new File(file.getParentFile(), "." + file.getName() + ".crc"));
+
+        final MessageType schema = MessageTypeParser.parseMessageType(
+                "message person { required int32 id; optional binary name (UTF8); optional binary company (UTF8); "
+                        + "optional binary country (UTF8); }");
+        final Configuration conf = new Configuration();
+        GroupWriteSupport.setSchema(schema, conf);
+        final SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+
+        final List<String> lines = FileUtils.readLines(new File("src/test/resources/person_names.txt"), "UTF-8");
+        try (ParquetWriter<Group> writer = new ParquetWriter<>(new Path(file.toURI()), new GroupWriteSupport(),
+                CompressionCodecName.UNCOMPRESSED, ParquetWriter.DEFAULT_BLOCK_SIZE,
+                ParquetWriter.DEFAULT_PAGE_SIZE, ParquetWriter.DEFAULT_PAGE_SIZE, true, false,
+                WriterVersion.PARQUET_1_0, conf)) {
+            for (final String line : lines.subList(1, lines.size())) {
+                final String[] values = line.split(",");
+                writer.write(groupFactory.newGroup().append("id", Integer.parseInt(values[0]))
+                        .append("name", values[1]).append("company", values[2]).append("country", values[3]));
+            }
+        }
+    }
+
     private void checkGroup(final ReducedSingleValueDistributionResult group, final String groupName,
             final int expectedTotalCount, final int expectedUniqueCount, final int expectedDistinctCount,
             final int expectedNullCount) {
@@ -411,7 +637,8 @@ public class SparkAnalysisRunnerTest {
             final String expectedAnalysisJobName, final boolean useMinPartitions,
             final SparkJobLifeCycleListener sparkJobLifeCycleListener) throws Exception {
         final AnalysisResultFuture result;
-        final SparkConf sparkConf = new SparkConf().setMaster("local").setAppName(appName);
+        final SparkConf sparkConf =
+                DataCleanerKryoRegistrator.configure(new SparkConf().setMaster("local").setAppName(appName));
         try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
             final SparkJobContext sparkJobContext =
                     new SparkJobContext(URI.create("src/test/resources/conf_local.xml"), analysisJobXmlPath, null,
@@ -0,0 +1,151 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.serialization;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerTaskEnd;
+import org.apache.spark.serializer.JavaSerializer;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
+import org.datacleaner.util.SystemProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the shuffle size and time of rows serialized with
+ * {@link DataCleanerKryoRegistrator}. Only run in the benchmark profile.
+ */
+public class DataCleanerKryoRegistratorBenchmark {
+
+    /**
+     * Creates the rows of the benchmark, either as {@link SparkInputRow}s or as
+     * {@link MockInputRow}s, which were used before.
+     */
+    private static class CreateRowFunction implements Function<Integer, InputRow> {
+        private static final long serialVersionUID = 1L;
+
+        private final SparkJobContext _sparkJobContext;
+        private final boolean _compact;
+
+        CreateRowFunction(final SparkJobContext sparkJobContext, final boolean compact) {
+            _sparkJobContext = sparkJobContext;
+            _compact = compact;
+        }
+
+        @Override
+        public InputRow call(final Integer i) throws Exception {
+            final SparkRowSchema schema = _sparkJobContext.getRowSchema();
+            final Object[] values = new Object[schema.getColumnCount()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = "value " + (i % 100) + "-" + j;
+            }
+            if (_compact) {
+                return new SparkInputRow(schema, i, values);
+            }
+            return new MockInputRow(i, schema.getColumns().toArray(new InputColumn<?>[values.length]), values);
+        }
+    }
+
+    private static class ShuffleListener extends SparkListener {
+        final AtomicLong _shuffleBytesWritten = new AtomicLong();
+        final CountDownLatch _jobEnded = new CountDownLatch(1);
+
+        @Override
+        public void onTaskEnd(final SparkListenerTaskEnd taskEnd) {
+            final TaskMetrics taskMetrics = taskEnd.taskMetrics();
+            if (taskMetrics != null) {
+                _shuffleBytesWritten.addAndGet(taskMetrics.shuffleWriteMetrics().bytesWritten());
+            }
+        }
+
+        @Override
+        public void onJobEnd(final SparkListenerJobEnd jobEnd) {
+            _jobEnded.countDown();
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DataCleanerKryoRegistratorBenchmark.class);
+
+    @BeforeClass
+    public static void init() {
+        // use local filesystem as default during tests
+        System.setProperty(SystemProperties.DEFAULT_RESOURCE_SCHEME, "file");
+    }
+
+    /**
+     * Compares the bytes shuffled and the time taken to repartition rows with
+     * Java serialization of {@link MockInputRow}s, which was used before, and
+     * Kryo serialization of {@link SparkInputRow}s.
+     */
+    @Test
+    public void testShuffleAgainstJavaSerialization() throws Exception {
+        final int rows = 100000;
+
+        final SparkConf javaConf = new SparkConf().set(DataCleanerKryoRegistrator.PROPERTY_SERIALIZER,
+                JavaSerializer.class.getName());
+        final long[] java = benchmark(javaConf, false, rows);
+
+        final SparkConf kryoConf = DataCleanerKryoRegistrator.configure(new SparkConf());
+        final long[] kryo = benchmark(kryoConf, true, rows);
+
+        logger.info("Java serialization of MockInputRows: {} bytes shuffled in {} ms", java[0], java[1]);
+        logger.info("Kryo serialization of SparkInputRows: {} bytes shuffled in {} ms", kryo[0], kryo[1]);
+        assertTrue(kryo[0] < java[0]);
+    }
+
+    private long[] benchmark(final SparkConf sparkConf, final boolean compact, final int rows) throws Exception {
+        sparkConf.setMaster("local[2]").setAppName("DCTest - benchmark");
+        final List<Integer> ids = IntStream.range(0, rows).boxed().collect(Collectors.toList());
+        try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+            final SparkJobContext sparkJobContext = DataCleanerKryoRegistratorTest.createSparkJobContext();
+            final ShuffleListener listener = new ShuffleListener();
+            sparkContext.sc().addSparkListener(listener);
+
+            final long start = System.currentTimeMillis();
+            final long count = sparkContext.parallelize(ids, 4).map(new CreateRowFunction(sparkJobContext, compact))
+                    .repartition(4).count();
+            final long millis = System.currentTimeMillis() - start;
+
+            assertEquals(rows, count);
+            assertTrue(listener._jobEnded.await(10, TimeUnit.SECONDS));
+            return new long[] { listener._shuffleBytesWritten.get(), millis };
+        }
+    }
+}
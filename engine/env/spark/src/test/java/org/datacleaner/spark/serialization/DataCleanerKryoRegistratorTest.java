@@ -0,0 +1,161 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.serialization;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.util.FileHelper;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.serializer.KryoSerializer;
+import org.apache.spark.serializer.SerializerInstance;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.reference.SimpleDictionary;
+import org.datacleaner.result.Crosstab;
+import org.datacleaner.result.CrosstabDimension;
+import org.datacleaner.result.CrosstabResult;
+import org.datacleaner.spark.SparkInputRow;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.SparkRowSchema;
+import org.datacleaner.storage.RowAnnotationImpl;
+import org.datacleaner.util.SystemProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+public class DataCleanerKryoRegistratorTest {
+
+    private static final ClassTag<Object> OBJECT_TAG = ClassTag$.MODULE$.apply(Object.class);
+
+    @BeforeClass
+    public static void init() {
+        // use local filesystem as default during tests
+        System.setProperty(SystemProperties.DEFAULT_RESOURCE_SCHEME, "file");
+    }
+
+    static SparkJobContext createSparkJobContext() {
+        final String configurationXml = FileHelper.readFileAsString(new File("src/test/resources/conf_local.xml"));
+        final String analysisJobXml =
+                FileHelper.readFileAsString(new File("src/test/resources/vanilla-job.analysis.xml"));
+        return new SparkJobContext("vanilla-job", configurationXml, analysisJobXml,
+                Collections.<String, String> emptyMap());
+    }
+
+    private static SerializerInstance createKryoSerializer() {
+        return new KryoSerializer(DataCleanerKryoRegistrator.configure(new SparkConf())).newInstance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E roundTrip(final SerializerInstance serializer, final E obj) {
+        final ByteBuffer bytes = serializer.serialize(obj, OBJECT_TAG);
+        return (E) serializer.deserialize(bytes, OBJECT_TAG);
+    }
+
+    @Test
+    public void testSparkInputRowRoundTrip() throws Exception {
+        final SparkJobContext sparkJobContext = createSparkJobContext();
+        final SparkRowSchema schema = sparkJobContext.getRowSchema();
+        assertEquals(2, schema.getColumnCount());
+
+        final SparkInputRow row = new SparkInputRow(schema, 42L, new Object[] { "Denmark", null });
+        final SparkInputRow copy = roundTrip(createKryoSerializer(), row);
+
+        assertSame(schema, copy.getSchema());
+        assertEquals(42L, copy.getId());
+        assertEquals("[Denmark, null]", Arrays.toString(copy.getValues()));
+        assertEquals("Denmark", copy.getValue(schema.getColumns().get(0)));
+        assertEquals(schema.getColumns(), copy.getInputColumns());
+    }
+
+    @Test
+    public void testSparkInputRowOfUnknownContext() throws Exception {
+        final SparkRowSchema schema = new SparkRowSchema(-1L, Collections.<InputColumn<?>> emptyList());
+        final SerializerInstance serializer = createKryoSerializer();
+
+        // rows can be moved around without their context, but not read
+        final SparkInputRow copy = roundTrip(serializer, new SparkInputRow(schema, 1L, new Object[0]));
+        assertEquals(1L, copy.getId());
+        assertEquals(-1L, copy.getContextId());
+        try {
+            copy.getSchema();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("No SparkJobContext with id -1 to resolve the schema of row 1 with", e.getMessage());
+        }
+
+        // ... until the schema is resolved by whoever processes them
+        copy.resolveSchema(schema);
+        assertSame(schema, copy.getSchema());
+        assertEquals(0, copy.getInputColumns().size());
+    }
+
+    @Test
+    public void testShuffleAndCollectSparkInputRows() throws Exception {
+        final SparkJobContext sparkJobContext = createSparkJobContext();
+        final SparkRowSchema schema = sparkJobContext.getRowSchema();
+        final List<SparkInputRow> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new SparkInputRow(schema, i, new Object[] { "Country " + i, "Customer " + i }));
+        }
+
+        final SparkConf sparkConf = DataCleanerKryoRegistrator
+                .configure(new SparkConf().setMaster("local[2]").setAppName("DCTest - testShuffleAndCollect"));
+        final List<SparkInputRow> collectedRows;
+        try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+            // neither the shuffle nor the collect involves a function holding the context
+            collectedRows = sparkContext.parallelize(rows, 4).repartition(3).collect();
+        }
+
+        assertEquals(100, collectedRows.size());
+        final InputColumn<?> column = schema.getColumns().get(0);
+        for (final SparkInputRow row : collectedRows) {
+            assertEquals("Country " + row.getId(), row.getValue(column));
+        }
+    }
+
+    @Test
+    public void testResultsAndReferenceDataRoundTrip() throws Exception {
+        final SerializerInstance serializer = createKryoSerializer();
+
+        final Crosstab<Integer> crosstab =
+                new Crosstab<>(Integer.class, new CrosstabDimension("Column"), new CrosstabDimension("Measure"));
+        crosstab.where("Column", "foo").where("Measure", "Row count").put(42, true);
+        final CrosstabResult crosstabResult = roundTrip(serializer, new CrosstabResult(crosstab));
+        assertEquals(Integer.valueOf(42), crosstabResult.getCrosstab().where("Column", "foo").where("Measure", "Row count").get());
+
+        final RowAnnotationImpl annotation = roundTrip(serializer, new RowAnnotationImpl(7));
+        assertEquals(7, annotation.getRowCount());
+        annotation.incrementRowCount(1);
+        assertEquals(8, annotation.getRowCount());
+
+        final SimpleDictionary dictionary =
+                roundTrip(serializer, new SimpleDictionary("dict", Arrays.asList("foo", "bar"), false));
+        assertEquals(new SimpleDictionary("dict", Arrays.asList("foo", "bar"), false), dictionary);
+    }
+}
@@ -45,6 +45,7 @@ import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
 import org.datacleaner.connection.KafkaDatastore;
 import org.datacleaner.connection.MongoDbDatastore;
+import org.datacleaner.connection.ParquetDatastore;
 import org.datacleaner.connection.SalesforceDatastore;
 import org.datacleaner.reference.DatastoreDictionary;
 import org.datacleaner.reference.DatastoreSynonymCatalog;
@@ -181,6 +182,10 @@ public class DomConfigurationWriter {
             final Resource resource = ((JsonDatastore) datastore).getResource();
             return isExternalizable(resource);
         }
+        if (datastore instanceof ParquetDatastore) {
+            final Resource resource = ((ParquetDatastore) datastore).getResource();
+            return isExternalizable(resource);
+        }
         if (datastore instanceof FixedWidthDatastore) {
             return true;
         }
@@ -355,6 +360,10 @@ public class DomConfigurationWriter {
             final Resource resource = ((JsonDatastore) datastore).getResource();
             final String filename = toFilename(resource);
             elem = toElement((JsonDatastore) datastore, filename);
+        } else if (datastore instanceof ParquetDatastore) {
+            final Resource resource = ((ParquetDatastore) datastore).getResource();
+            final String filename = toFilename(resource);
+            elem = toElement((ParquetDatastore) datastore, filename);
         } else if (datastore instanceof FixedWidthDatastore) {
             final Resource resource = ((FixedWidthDatastore) datastore).getResource();
             final String filename = toFilename(resource);
@@ -996,6 +1005,25 @@ public class DomConfigurationWriter {
         return datastoreElement;
     }
 
+    /**
+     * Externalizes a Parquet datastore
+     *
+     * @param datastore
+     * @param filename
+     * @return
+     */
+    public Element toElement(final ParquetDatastore datastore, final String filename) {
+        final Element datastoreElement = getDocument().createElement("parquet-datastore");
+        datastoreElement.setAttribute("name", datastore.getName());
+        final String description = datastore.getDescription();
+        if (!Strings.isNullOrEmpty(description)) {
+            datastoreElement.setAttribute("description", description);
+        }
+        appendElement(datastoreElement, "filename", filename);
+
+        return datastoreElement;
+    }
+
     /**
      * Gets the XML document that has been built.
      *
@@ -92,6 +92,7 @@ import org.datacleaner.configuration.jaxb.MultithreadedTaskrunnerType;
 import org.datacleaner.configuration.jaxb.Neo4JDatastoreType;
 import org.datacleaner.configuration.jaxb.ObjectFactory;
 import org.datacleaner.configuration.jaxb.OpenOfficeDatabaseDatastoreType;
+import org.datacleaner.configuration.jaxb.ParquetDatastoreType;
 import org.datacleaner.configuration.jaxb.PojoDatastoreType;
 import org.datacleaner.configuration.jaxb.ReferenceDataCatalogType;
 import org.datacleaner.configuration.jaxb.ReferenceDataCatalogType.Dictionaries;
@@ -136,6 +137,7 @@ import org.datacleaner.connection.KafkaDatastore.KeyValueType;
 import org.datacleaner.connection.MongoDbDatastore;
 import org.datacleaner.connection.Neo4jDatastore;
 import org.datacleaner.connection.OdbDatastore;
+import org.datacleaner.connection.ParquetDatastore;
 import org.datacleaner.connection.SalesforceDatastore;
 import org.datacleaner.connection.SasDatastore;
 import org.datacleaner.connection.SugarCrmDatastore;
@@ -794,6 +796,8 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
                 ds = createDatastore(name, (ExcelDatastoreType) datastoreType, temporaryConfiguration);
             } else if (datastoreType instanceof JsonDatastoreType) {
                 ds = createDatastore(name, (JsonDatastoreType) datastoreType, temporaryConfiguration);
+            } else if (datastoreType instanceof ParquetDatastoreType) {
+                ds = createDatastore(name, (ParquetDatastoreType) datastoreType, temporaryConfiguration);
             } else if (datastoreType instanceof DbaseDatastoreType) {
                 ds = createDatastore(name, (DbaseDatastoreType) datastoreType);
             } else if (datastoreType instanceof OpenOfficeDatabaseDatastoreType) {
@@ -1045,6 +1049,13 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
         return new JsonDatastore(name, resource);
     }
 
+    private Datastore createDatastore(final String name, final ParquetDatastoreType datastoreType,
+            final DataCleanerConfiguration configuration) {
+        final String filename = getStringVariable("filename", datastoreType.getFilename());
+        final Resource resource = _interceptor.createResource(filename, configuration);
+        return new ParquetDatastore(name, resource);
+    }
+
     private Datastore createDatastore(final String name, final HbaseDatastoreType datastoreType) {
         final String zookeeperHostname = getStringVariable("zookeeperHostname", datastoreType.getZookeeperHostname());
         final int zookeeperPort = getIntegerVariable("zookeeperPort", datastoreType.getZookeeperPort());
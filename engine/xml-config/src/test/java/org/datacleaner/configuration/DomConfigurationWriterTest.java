@@ -41,6 +41,7 @@ import org.datacleaner.connection.FixedWidthDatastore;
 import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
 import org.datacleaner.connection.MongoDbDatastore;
+import org.datacleaner.connection.ParquetDatastore;
 import org.datacleaner.connection.SalesforceDatastore;
 import org.datacleaner.reference.DatastoreDictionary;
 import org.datacleaner.reference.DatastoreSynonymCatalog;
@@ -245,6 +246,27 @@ public class DomConfigurationWriterTest {
 
     }
 
+    @Test
+    public void testExternalizeParquetDatastore() throws Exception {
+        final ParquetDatastore parquetDatastore =
+                new ParquetDatastore("my Parquet", new FileResource("c:/test/people.parquet"));
+        parquetDatastore.setDescription("My Parquet datastore");
+        final Element elem = configurationWriter.toElement(parquetDatastore, "people.parquet");
+
+        final String str = transform(elem);
+        assertEquals("<parquet-datastore description=\"My Parquet datastore\" name=\"my Parquet\">\n"
+                + "  <filename>people.parquet</filename>\n" + "</parquet-datastore>\n", str);
+
+        configurationWriter.externalize(parquetDatastore);
+        final File file = new File("target/" + getClass().getSimpleName() + "-" + testName.getMethodName() + ".xml");
+        FileHelper.writeStringAsFile(file, transform(configurationWriter.getDocument()));
+
+        final DataCleanerConfiguration configuration = new JaxbConfigurationReader().create(file);
+        final Datastore datastore = configuration.getDatastoreCatalog().getDatastore("my Parquet");
+        assertTrue(datastore instanceof ParquetDatastore);
+        assertEquals("people.parquet", ((ParquetDatastore) datastore).getResource().getName());
+    }
+
     @Test
     public void testWriteAndReadAllDictionaries() throws Exception {
         configurationWriter.externalize(new SimpleDictionary("simple dict", false, "foo", "bar", "baz"));
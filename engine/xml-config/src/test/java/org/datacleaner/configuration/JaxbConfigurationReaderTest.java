@@ -77,7 +77,7 @@ import org.datacleaner.result.renderer.TextRenderingFormat;
 import org.datacleaner.server.HadoopClusterInformation;
 import org.datacleaner.storage.BerkeleyDbStorageProvider;
 import org.datacleaner.storage.CombinedStorageProvider;
-import org.datacleaner.storage.InMemoryRowAnnotationFactory2;
+import org.datacleaner.storage.CompactRowAnnotationFactory;
 import org.datacleaner.storage.InMemoryStorageProvider;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.StorageProvider;
@@ -222,7 +222,7 @@ public class JaxbConfigurationReaderTest extends TestCase {
 
         final RowAnnotationFactory rowAnnotationFactory =
                 csp.getRowAnnotationsStorageProvider().createRowAnnotationFactory();
-        assertEquals(InMemoryRowAnnotationFactory2.class, rowAnnotationFactory.getClass());
+        assertEquals(CompactRowAnnotationFactory.class, rowAnnotationFactory.getClass());
     }
 
     @SuppressWarnings("deprecation")